@@ -0,0 +1,40 @@
+package com.hubspot.singularity;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.Optional;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Holds a page of responses and the cursor to fetch the next page with")
+public class SingularityCursorPaginatedResponse<Q> {
+
+  private final List<Q> objects;
+  private final Optional<String> nextCursor;
+
+  @JsonCreator
+  public SingularityCursorPaginatedResponse(@JsonProperty("objects") List<Q> objects, @JsonProperty("nextCursor") Optional<String> nextCursor) {
+    this.objects = objects;
+    this.nextCursor = nextCursor;
+  }
+
+  @Schema(description = "Data for this page")
+  public List<Q> getObjects() {
+    return objects;
+  }
+
+  @Schema(description = "Pass as the cursor parameter to fetch the next page, absent when this is the last page", nullable = true)
+  public Optional<String> getNextCursor() {
+    return nextCursor;
+  }
+
+  @Override
+  public String toString() {
+    return "SingularityCursorPaginatedResponse{" +
+        "objects=" + objects +
+        ", nextCursor=" + nextCursor +
+        '}';
+  }
+}
@@ -0,0 +1,58 @@
+package com.hubspot.singularity;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Holds the objects that changed since a previous version, and the ids of the ones that were removed")
+public class SingularityDeltaResponse<Q> {
+
+  private final long version;
+  private final boolean full;
+  private final List<Q> objects;
+  private final List<String> removedIds;
+
+  @JsonCreator
+  public SingularityDeltaResponse(@JsonProperty("version") long version,
+                                  @JsonProperty("full") boolean full,
+                                  @JsonProperty("objects") List<Q> objects,
+                                  @JsonProperty("removedIds") List<String> removedIds) {
+    this.version = version;
+    this.full = full;
+    this.objects = objects;
+    this.removedIds = removedIds;
+  }
+
+  @Schema(description = "Pass as the since parameter to fetch the changes after this response")
+  public long getVersion() {
+    return version;
+  }
+
+  @Schema(description = "If true, objects holds every current object and any previously fetched state should be replaced, e.g. because the requested version is too old or came from another leader")
+  public boolean isFull() {
+    return full;
+  }
+
+  @Schema(description = "Objects that were added or changed since the requested version")
+  public List<Q> getObjects() {
+    return objects;
+  }
+
+  @Schema(description = "Ids of objects that were removed since the requested version")
+  public List<String> getRemovedIds() {
+    return removedIds;
+  }
+
+  @Override
+  public String toString() {
+    return "SingularityDeltaResponse{" +
+        "version=" + version +
+        ", full=" + full +
+        ", objects=" + objects +
+        ", removedIds=" + removedIds +
+        '}';
+  }
+}
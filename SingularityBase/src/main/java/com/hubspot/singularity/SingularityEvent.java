@@ -0,0 +1,92 @@
+package com.hubspot.singularity;
+
+import java.util.Objects;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.Optional;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "One event read from the event stream")
+public class SingularityEvent {
+  private final String id;
+  private final SingularityEventType type;
+  private final Optional<SingularityTaskHistoryUpdate> taskUpdate;
+  private final Optional<SingularityRequestHistory> requestUpdate;
+  private final Optional<SingularityDeployUpdate> deployUpdate;
+
+  public static SingularityEvent reset(String id) {
+    return new SingularityEvent(id, SingularityEventType.RESET, Optional.absent(), Optional.absent(), Optional.absent());
+  }
+
+  @JsonCreator
+  public SingularityEvent(@JsonProperty("id") String id,
+                          @JsonProperty("type") SingularityEventType type,
+                          @JsonProperty("taskUpdate") Optional<SingularityTaskHistoryUpdate> taskUpdate,
+                          @JsonProperty("requestUpdate") Optional<SingularityRequestHistory> requestUpdate,
+                          @JsonProperty("deployUpdate") Optional<SingularityDeployUpdate> deployUpdate) {
+    this.id = id;
+    this.type = type;
+    this.taskUpdate = taskUpdate;
+    this.requestUpdate = requestUpdate;
+    this.deployUpdate = deployUpdate;
+  }
+
+  @Schema(description = "Resume token, pass it back as Last-Event-ID to continue after this event")
+  public String getId() {
+    return id;
+  }
+
+  @Schema(description = "The kind of event, which tells which of the updates is present")
+  public SingularityEventType getType() {
+    return type;
+  }
+
+  @Schema(description = "Present for TASK events")
+  public Optional<SingularityTaskHistoryUpdate> getTaskUpdate() {
+    return taskUpdate;
+  }
+
+  @Schema(description = "Present for REQUEST events")
+  public Optional<SingularityRequestHistory> getRequestUpdate() {
+    return requestUpdate;
+  }
+
+  @Schema(description = "Present for DEPLOY events")
+  public Optional<SingularityDeployUpdate> getDeployUpdate() {
+    return deployUpdate;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    SingularityEvent that = (SingularityEvent) o;
+    return Objects.equals(id, that.id) &&
+        type == that.type &&
+        Objects.equals(taskUpdate, that.taskUpdate) &&
+        Objects.equals(requestUpdate, that.requestUpdate) &&
+        Objects.equals(deployUpdate, that.deployUpdate);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(id, type, taskUpdate, requestUpdate, deployUpdate);
+  }
+
+  @Override
+  public String toString() {
+    return "SingularityEvent{" +
+        "id='" + id + '\'' +
+        ", type=" + type +
+        ", taskUpdate=" + taskUpdate +
+        ", requestUpdate=" + requestUpdate +
+        ", deployUpdate=" + deployUpdate +
+        '}';
+  }
+}
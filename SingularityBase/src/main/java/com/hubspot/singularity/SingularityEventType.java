@@ -0,0 +1,8 @@
+package com.hubspot.singularity;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "The kind of event sent on the event stream. RESET means events may have been missed and current state should be read again")
+public enum SingularityEventType {
+  TASK, REQUEST, DEPLOY, RESET
+}
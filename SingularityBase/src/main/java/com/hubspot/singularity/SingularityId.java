@@ -8,9 +8,17 @@ public abstract class SingularityId {
     this.id = id;
   }
 
+  /**
+   * For ids that build their string form on demand instead of holding on to it. Subclasses using this must override
+   * getId.
+   */
+  protected SingularityId() {
+    this.id = null;
+  }
+
   @Override
   public int hashCode() {
-    return id.hashCode();
+    return getId().hashCode();
   }
 
   public String getId() {
@@ -29,8 +37,12 @@ public abstract class SingularityId {
       return false;
     }
     SingularityId other = (SingularityId) obj;
-    return id.equals(other.id);
+    return getId().equals(other.getId());
   }
 
+  @Override
+  public String toString() {
+    return getId();
+  }
 
 }
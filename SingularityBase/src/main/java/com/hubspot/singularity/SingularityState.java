@@ -149,6 +149,13 @@ public class SingularityState {
     this.lastHeartbeatAt = lastHeartbeatAt;
   }
 
+  public SingularityState withoutRequestIds() {
+    return new SingularityState(activeTasks, launchingTasks, activeRequests, cooldownRequests, pausedRequests, scheduledTasks, pendingRequests, lbCleanupTasks, lbCleanupRequests, cleaningRequests, activeSlaves,
+        deadSlaves, decommissioningSlaves, activeRacks, deadRacks, decommissioningRacks, cleaningTasks, hostStates, oldestDeploy, numDeploys, oldestDeployStep, activeDeploys, lateTasks, listLateTasks, onDemandLateTasks, onDemandListLateTasks,
+        futureTasks, maxTaskLag, generatedAt, null, null, overProvisionedRequests, underProvisionedRequests, finishedRequests, unknownRacks, unknownSlaves, authDatastoreHealthy, minimumPriorityLevel,
+        avgStatusUpdateDelayMs, lastHeartbeatAt);
+  }
+
   @Schema(description = "Count of requests in finished state")
   public int getFinishedRequests() {
     return finishedRequests;
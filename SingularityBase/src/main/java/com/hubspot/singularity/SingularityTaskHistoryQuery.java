@@ -1,6 +1,7 @@
 package com.hubspot.singularity;
 
 import java.util.Comparator;
+import java.util.Objects;
 
 import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
@@ -154,6 +155,32 @@ public class SingularityTaskHistoryQuery {
     };
   }
 
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    SingularityTaskHistoryQuery that = (SingularityTaskHistoryQuery) o;
+    return Objects.equals(requestId, that.requestId) &&
+        Objects.equals(deployId, that.deployId) &&
+        Objects.equals(runId, that.runId) &&
+        Objects.equals(host, that.host) &&
+        Objects.equals(lastTaskStatus, that.lastTaskStatus) &&
+        Objects.equals(startedBefore, that.startedBefore) &&
+        Objects.equals(startedAfter, that.startedAfter) &&
+        Objects.equals(updatedBefore, that.updatedBefore) &&
+        Objects.equals(updatedAfter, that.updatedAfter) &&
+        Objects.equals(orderDirection, that.orderDirection);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(requestId, deployId, runId, host, lastTaskStatus, startedBefore, startedAfter, updatedBefore, updatedAfter, orderDirection);
+  }
+
   @Override
   public String toString() {
     return "SingularityTaskHistoryQuery{" +
@@ -1,10 +1,13 @@
 package com.hubspot.singularity;
 
 import java.util.Comparator;
+import java.util.Objects;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import com.hubspot.mesos.JavaUtils;
 
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -12,6 +15,12 @@ import io.swagger.v3.oas.annotations.media.Schema;
 @Schema(description = "The unique id for a singularity task")
 public class SingularityTaskId extends SingularityId implements SingularityHistoryItem {
 
+  // The leader holds every active and recent task id. Requests, deploys, hosts and racks repeat across all of them,
+  // so ids share one copy of each component and only build the full id string the first time it is asked for.
+  private static final Interner<String> COMPONENTS = Interners.newWeakInterner();
+  private static final char SEPARATOR = '-';
+  private static final int NUM_SEPARATORS = 5;
+
   private final String requestId;
   private final String deployId;
   private final long startedAt;
@@ -19,6 +28,10 @@ public class SingularityTaskId extends SingularityId implements SingularityHisto
   private final String sanitizedHost;
   private final String sanitizedRackId;
 
+  // Not volatile on purpose: String is immutable, so a thread that reads this field sees either null or a fully built
+  // string, and building it is idempotent, so racing threads at worst each build an equal copy
+  private String id;
+
   public static Comparator<SingularityTaskId> INSTANCE_NO_COMPARATOR = new Comparator<SingularityTaskId>() {
 
     @Override
@@ -38,13 +51,12 @@ public class SingularityTaskId extends SingularityId implements SingularityHisto
   };
 
   public SingularityTaskId(String requestId, String deployId, long startedAt, int instanceNo, String sanitizedHost, String sanitizedRackId) {
-    super(String.format("%s-%s-%s-%s-%s-%s", requestId, deployId, startedAt, instanceNo, sanitizedHost, sanitizedRackId));
-    this.requestId = requestId;
-    this.deployId = deployId;
+    this.requestId = intern(requestId);
+    this.deployId = intern(deployId);
     this.startedAt = startedAt;
     this.instanceNo = instanceNo;
-    this.sanitizedHost = sanitizedHost;
-    this.sanitizedRackId = sanitizedRackId;
+    this.sanitizedHost = intern(sanitizedHost);
+    this.sanitizedRackId = intern(sanitizedRackId);
   }
 
   @JsonCreator
@@ -124,22 +136,53 @@ public class SingularityTaskId extends SingularityId implements SingularityHisto
     return getStartedAt();
   }
 
+  @Override
+  public String getId() {
+    String id = this.id;
+
+    if (id == null) {
+      id = new StringBuilder(length(requestId) + length(deployId) + length(sanitizedHost) + length(sanitizedRackId) + 40)
+          .append(requestId).append(SEPARATOR)
+          .append(deployId).append(SEPARATOR)
+          .append(startedAt).append(SEPARATOR)
+          .append(instanceNo).append(SEPARATOR)
+          .append(sanitizedHost).append(SEPARATOR)
+          .append(sanitizedRackId)
+          .toString();
+      this.id = id;
+    }
+
+    return id;
+  }
+
+  // Same result as JavaUtils.reverseSplit(string, 6, "-"): the request id keeps any extra separators, and trailing
+  // separators are dropped like String.split does
   public static SingularityTaskId valueOf(String string) throws InvalidSingularityTaskIdException {
-    String[] splits = null;
+    int end = string.length();
+    while (end > 0 && string.charAt(end - 1) == SEPARATOR) {
+      end--;
+    }
 
-    try {
-      splits = JavaUtils.reverseSplit(string, 6, "-");
-    } catch (IllegalStateException ise) {
-      throw new InvalidSingularityTaskIdException(String.format("TaskId %s was invalid (%s)", string, ise.getMessage()));
+    int[] separators = new int[NUM_SEPARATORS];
+    int found = 0;
+
+    for (int i = end - 1; i >= 0 && found < NUM_SEPARATORS; i--) {
+      if (string.charAt(i) == SEPARATOR) {
+        separators[found++] = i;
+      }
+    }
+
+    if (found < NUM_SEPARATORS) {
+      throw new InvalidSingularityTaskIdException(String.format("TaskId %s was invalid (There must be at least %s instances of %s (there were %s))", string, NUM_SEPARATORS, SEPARATOR, found));
     }
 
     try {
-      final String requestId = splits[0];
-      final String deployId = splits[1];
-      final long startedAt = Long.parseLong(splits[2]);
-      final int instanceNo = Integer.parseInt(splits[3]);
-      final String host = splits[4];
-      final String rackId = splits[5];
+      final String requestId = string.substring(0, separators[4]);
+      final String deployId = string.substring(separators[4] + 1, separators[3]);
+      final long startedAt = Long.parseLong(string.substring(separators[3] + 1, separators[2]));
+      final int instanceNo = Integer.parseInt(string.substring(separators[2] + 1, separators[1]));
+      final String host = string.substring(separators[1] + 1, separators[0]);
+      final String rackId = string.substring(separators[0] + 1, end);
 
       return new SingularityTaskId(requestId, deployId, startedAt, instanceNo, host, rackId);
     } catch (IllegalArgumentException e) {
@@ -147,8 +190,39 @@ public class SingularityTaskId extends SingularityId implements SingularityHisto
     }
   }
 
+  private static String intern(String component) {
+    return component == null ? null : COMPONENTS.intern(component);
+  }
+
+  private static int length(String component) {
+    return component == null ? 4 : component.length();
+  }
+
   @Override
-  public String toString() {
-    return getId();
+  public int hashCode() {
+    int result = Objects.hashCode(requestId);
+    result = 31 * result + Objects.hashCode(deployId);
+    result = 31 * result + Long.hashCode(startedAt);
+    result = 31 * result + instanceNo;
+    result = 31 * result + Objects.hashCode(sanitizedHost);
+    result = 31 * result + Objects.hashCode(sanitizedRackId);
+    return result;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null || getClass() != obj.getClass()) {
+      return false;
+    }
+    SingularityTaskId other = (SingularityTaskId) obj;
+    return startedAt == other.startedAt
+        && instanceNo == other.instanceNo
+        && Objects.equals(requestId, other.requestId)
+        && Objects.equals(deployId, other.deployId)
+        && Objects.equals(sanitizedHost, other.sanitizedHost)
+        && Objects.equals(sanitizedRackId, other.sanitizedRackId);
   }
 }
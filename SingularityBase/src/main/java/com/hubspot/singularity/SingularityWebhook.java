@@ -15,14 +15,21 @@ public class SingularityWebhook {
   private final Optional<String> user;
   private final long timestamp;
   private final String id;
+  private final boolean batched;
+
+  public SingularityWebhook(String uri, Optional<Long> timestamp, Optional<String> user, WebhookType type) {
+    this(uri, timestamp, user, type, Optional.absent());
+  }
 
   @JsonCreator
-  public SingularityWebhook(@JsonProperty("uri") String uri, @JsonProperty("timestamp") Optional<Long> timestamp, @JsonProperty("user") Optional<String> user, @JsonProperty("type") WebhookType type) {
+  public SingularityWebhook(@JsonProperty("uri") String uri, @JsonProperty("timestamp") Optional<Long> timestamp, @JsonProperty("user") Optional<String> user, @JsonProperty("type") WebhookType type,
+                            @JsonProperty("batched") Optional<Boolean> batched) {
     this.uri = uri;
     this.timestamp = timestamp.or(System.currentTimeMillis());
     this.user = user;
     this.id = type.name() + "-" + JavaUtils.urlEncode(uri);
     this.type = type;
+    this.batched = batched.or(false);
   }
 
   @Schema(description = "Unique ID for webhook")
@@ -50,6 +57,11 @@ public class SingularityWebhook {
     return type;
   }
 
+  @Schema(description = "If true, updates are POSTed as JSON arrays of up to maxWebhookBatchSize updates instead of one at a time", defaultValue = "false")
+  public boolean isBatched() {
+    return batched;
+  }
+
   @Override
   public String toString() {
     return "SingularityWebhook{" +
@@ -58,6 +70,7 @@ public class SingularityWebhook {
         ", user=" + user +
         ", timestamp=" + timestamp +
         ", id='" + id + '\'' +
+        ", batched=" + batched +
         '}';
   }
 }
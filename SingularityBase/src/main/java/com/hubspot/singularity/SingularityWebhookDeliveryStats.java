@@ -0,0 +1,88 @@
+package com.hubspot.singularity;
+
+import java.util.Objects;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.Optional;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "How deliveries to a webhook have been going, as seen by the leader")
+public class SingularityWebhookDeliveryStats {
+  private final long lagMillis;
+  private final double meanBatchSize;
+  private final double meanLatencyMillis;
+  private final int consecutiveFailures;
+  private final Optional<Long> backoffUntil;
+
+  @JsonCreator
+  public SingularityWebhookDeliveryStats(@JsonProperty("lagMillis") long lagMillis,
+                                         @JsonProperty("meanBatchSize") double meanBatchSize,
+                                         @JsonProperty("meanLatencyMillis") double meanLatencyMillis,
+                                         @JsonProperty("consecutiveFailures") int consecutiveFailures,
+                                         @JsonProperty("backoffUntil") Optional<Long> backoffUntil) {
+    this.lagMillis = lagMillis;
+    this.meanBatchSize = meanBatchSize;
+    this.meanLatencyMillis = meanLatencyMillis;
+    this.consecutiveFailures = consecutiveFailures;
+    this.backoffUntil = backoffUntil;
+  }
+
+  @Schema(description = "Age of the oldest update not yet delivered, as of the last check, or 0 if there was none")
+  public long getLagMillis() {
+    return lagMillis;
+  }
+
+  @Schema(description = "Mean number of updates per request sent to this webhook")
+  public double getMeanBatchSize() {
+    return meanBatchSize;
+  }
+
+  @Schema(description = "Mean time a request to this webhook took to complete")
+  public double getMeanLatencyMillis() {
+    return meanLatencyMillis;
+  }
+
+  @Schema(description = "Number of checks in a row in which a request to this webhook failed")
+  public int getConsecutiveFailures() {
+    return consecutiveFailures;
+  }
+
+  @Schema(description = "If present, no updates are sent to this webhook before this time")
+  public Optional<Long> getBackoffUntil() {
+    return backoffUntil;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    SingularityWebhookDeliveryStats that = (SingularityWebhookDeliveryStats) o;
+    return lagMillis == that.lagMillis &&
+        Double.compare(that.meanBatchSize, meanBatchSize) == 0 &&
+        Double.compare(that.meanLatencyMillis, meanLatencyMillis) == 0 &&
+        consecutiveFailures == that.consecutiveFailures &&
+        Objects.equals(backoffUntil, that.backoffUntil);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(lagMillis, meanBatchSize, meanLatencyMillis, consecutiveFailures, backoffUntil);
+  }
+
+  @Override
+  public String toString() {
+    return "SingularityWebhookDeliveryStats{" +
+        "lagMillis=" + lagMillis +
+        ", meanBatchSize=" + meanBatchSize +
+        ", meanLatencyMillis=" + meanLatencyMillis +
+        ", consecutiveFailures=" + consecutiveFailures +
+        ", backoffUntil=" + backoffUntil +
+        '}';
+  }
+}
@@ -4,6 +4,7 @@ import java.util.Objects;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.Optional;
 
 import io.swagger.v3.oas.annotations.media.Schema;
 
@@ -11,11 +12,18 @@ import io.swagger.v3.oas.annotations.media.Schema;
 public class SingularityWebhookSummary {
   private final SingularityWebhook webhook;
   private final int queueSize;
+  private final Optional<SingularityWebhookDeliveryStats> deliveryStats;
+
+  public SingularityWebhookSummary(SingularityWebhook webhook, int queueSize) {
+    this(webhook, queueSize, Optional.absent());
+  }
 
   @JsonCreator
-  public SingularityWebhookSummary(@JsonProperty("webhook") SingularityWebhook webhook, @JsonProperty("queueSize") int queueSize) {
+  public SingularityWebhookSummary(@JsonProperty("webhook") SingularityWebhook webhook, @JsonProperty("queueSize") int queueSize,
+                                   @JsonProperty("deliveryStats") Optional<SingularityWebhookDeliveryStats> deliveryStats) {
     this.webhook = webhook;
     this.queueSize = queueSize;
+    this.deliveryStats = deliveryStats;
   }
 
   @Schema(description = "The description of the webhook")
@@ -28,6 +36,10 @@ public class SingularityWebhookSummary {
     return queueSize;
   }
 
+  @Schema(description = "Lag, batch size, latency and backoff of deliveries to this webhook, if the leader has tried to deliver to it")
+  public Optional<SingularityWebhookDeliveryStats> getDeliveryStats() {
+    return deliveryStats;
+  }
 
   @Override
   public boolean equals(Object o) {
@@ -39,12 +51,13 @@ public class SingularityWebhookSummary {
     }
     SingularityWebhookSummary that = (SingularityWebhookSummary) o;
     return queueSize == that.queueSize &&
-        Objects.equals(webhook, that.webhook);
+        Objects.equals(webhook, that.webhook) &&
+        Objects.equals(deliveryStats, that.deliveryStats);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(webhook, queueSize);
+    return Objects.hash(webhook, queueSize, deliveryStats);
   }
 
   @Override
@@ -52,6 +65,7 @@ public class SingularityWebhookSummary {
     return "SingularityWebhookSummary{" +
         "webhook=" + webhook +
         ", queueSize=" + queueSize +
+        ", deliveryStats=" + deliveryStats +
         '}';
   }
 }
@@ -0,0 +1,60 @@
+package com.hubspot.singularity.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.hubspot.singularity.SingularityTaskId;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SingularityTaskIdBenchmark {
+  private static final int NUM_IDS = 1024;
+
+  private final List<SingularityTaskId> taskIds = new ArrayList<>(NUM_IDS);
+  private final List<String> ids = new ArrayList<>(NUM_IDS);
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    long now = System.currentTimeMillis();
+
+    for (int i = 0; i < NUM_IDS; i++) {
+      SingularityTaskId taskId = new SingularityTaskId("request-" + (i % 100), "deploy_" + (i % 7), now - i, i % 5 + 1, "host_" + (i % 50), "rack_" + (i % 10));
+      taskIds.add(taskId);
+      ids.add(taskId.getId());
+    }
+  }
+
+  @Benchmark
+  public SingularityTaskId valueOf() {
+    return SingularityTaskId.valueOf(ids.get(nextIndex()));
+  }
+
+  @Benchmark
+  public String getId() {
+    SingularityTaskId taskId = taskIds.get(nextIndex());
+    return new SingularityTaskId(taskId.getRequestId(), taskId.getDeployId(), taskId.getStartedAt(), taskId.getInstanceNo(), taskId.getSanitizedHost(), taskId.getSanitizedRackId()).getId();
+  }
+
+  private int nextIndex() {
+    next = (next + 1) & (NUM_IDS - 1);
+    return next;
+  }
+}
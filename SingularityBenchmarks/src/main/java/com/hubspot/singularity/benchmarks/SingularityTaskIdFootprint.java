@@ -0,0 +1,97 @@
+package com.hubspot.singularity.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import com.hubspot.mesos.JavaUtils;
+import com.hubspot.singularity.SingularityTaskId;
+
+/**
+ * Compares the retained heap of the leader's task ids against the previous layout, which kept the formatted id plus
+ * its own copy of every component. Ids are parsed from strings the same way the leader loads them from zk children, and
+ * measured both before and after their formatted id has been built and cached.
+ *
+ * Run with a fixed heap, e.g. java -Xms2g -Xmx2g -cp SingularityBenchmarks-shaded.jar com.hubspot.singularity.benchmarks.SingularityTaskIdFootprint
+ */
+public class SingularityTaskIdFootprint {
+  private static final int NUM_TASKS = 200000;
+  private static final int NUM_REQUESTS = 2000;
+  private static final int NUM_HOSTS = 500;
+  private static final int NUM_RACKS = 10;
+
+  public static void main(String[] args) throws Exception {
+    List<String> ids = new ArrayList<>(NUM_TASKS);
+    long now = System.currentTimeMillis();
+
+    for (int i = 0; i < NUM_TASKS; i++) {
+      int request = i % NUM_REQUESTS;
+      ids.add(String.format("request-%s-deploy_%s-%s-%s-host_%s_example_com-us_east_%s", request, request % 3, now - i * 1000L, i / NUM_REQUESTS + 1, i % NUM_HOSTS, i % NUM_RACKS));
+    }
+
+    long legacy = measure(ids, LegacyTaskId::valueOf);
+    long compact = measure(ids, SingularityTaskId::valueOf);
+    // Most ids have their formatted string built at some point (zk paths, JSON, logging), after which it is kept
+    long compactWithId = measure(ids, (id) -> {
+      SingularityTaskId taskId = SingularityTaskId.valueOf(id);
+      taskId.getId();
+      return taskId;
+    });
+
+    System.out.println(String.format("%s task ids: legacy %s bytes (%s per id), compact %s bytes (%s per id), compact after getId() %s bytes (%s per id)",
+        NUM_TASKS, legacy, legacy / NUM_TASKS, compact, compact / NUM_TASKS, compactWithId, compactWithId / NUM_TASKS));
+  }
+
+  private static long measure(List<String> ids, Function<String, Object> parser) throws InterruptedException {
+    long before = usedHeap();
+
+    List<Object> parsed = new ArrayList<>(ids.size());
+    for (String id : ids) {
+      // Copy the input like a zk child name would be, so the parsed id can't share it with the list above
+      parsed.add(parser.apply(new String(id.toCharArray())));
+    }
+
+    long after = usedHeap();
+
+    if (parsed.size() != ids.size()) {
+      throw new IllegalStateException();
+    }
+
+    return after - before;
+  }
+
+  private static long usedHeap() throws InterruptedException {
+    for (int i = 0; i < 5; i++) {
+      System.gc();
+      Thread.sleep(100);
+    }
+
+    Runtime runtime = Runtime.getRuntime();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  private static class LegacyTaskId {
+    private final String id;
+    private final String requestId;
+    private final String deployId;
+    private final long startedAt;
+    private final int instanceNo;
+    private final String sanitizedHost;
+    private final String sanitizedRackId;
+
+    LegacyTaskId(String requestId, String deployId, long startedAt, int instanceNo, String sanitizedHost, String sanitizedRackId) {
+      this.id = String.format("%s-%s-%s-%s-%s-%s", requestId, deployId, startedAt, instanceNo, sanitizedHost, sanitizedRackId);
+      this.requestId = requestId;
+      this.deployId = deployId;
+      this.startedAt = startedAt;
+      this.instanceNo = instanceNo;
+      this.sanitizedHost = sanitizedHost;
+      this.sanitizedRackId = sanitizedRackId;
+    }
+
+    static LegacyTaskId valueOf(String string) {
+      String[] splits = JavaUtils.reverseSplit(string, 6, "-");
+      return new LegacyTaskId(splits[0], splits[1], Long.parseLong(splits[2]), Integer.parseInt(splits[3]), splits[4], splits[5]);
+    }
+  }
+}
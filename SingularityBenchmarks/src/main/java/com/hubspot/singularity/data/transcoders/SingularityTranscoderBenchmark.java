@@ -0,0 +1,93 @@
+package com.hubspot.singularity.data.transcoders;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Optional;
+import com.hubspot.singularity.SingularityRequestWithState;
+import com.hubspot.singularity.SingularityTask;
+import com.hubspot.singularity.SingularityTaskHistoryUpdate;
+import com.hubspot.singularity.SingularityTaskId;
+import com.hubspot.singularity.config.SingularityConfiguration;
+import com.hubspot.singularity.scheduler.SingularityBenchmarkHarness;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SingularityTranscoderBenchmark {
+
+  @Param({"json", "cbor"})
+  public String format;
+
+  private SingularityBenchmarkHarness harness;
+
+  private Transcoder<SingularityTask> taskTranscoder;
+  private Transcoder<SingularityRequestWithState> requestTranscoder;
+  private Transcoder<SingularityTaskHistoryUpdate> historyUpdateTranscoder;
+
+  private SingularityTask task;
+  private SingularityRequestWithState request;
+  private SingularityTaskHistoryUpdate historyUpdate;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    harness = new SingularityBenchmarkHarness();
+    harness.start();
+    harness.createRequests(1, 1);
+    harness.launchTasks(harness.createOffers(1));
+
+    SingularityTaskId taskId = harness.getTaskManager().getActiveTaskIds().get(0);
+    task = harness.getTaskManager().getTask(taskId).get();
+    request = harness.getRequestManager().getRequest(taskId.getRequestId()).get();
+    historyUpdate = harness.getTaskManager().getTaskHistoryUpdates(taskId).get(0);
+
+    taskTranscoder = transcoder(SingularityTask.class, true);
+    requestTranscoder = transcoder(SingularityRequestWithState.class, false);
+    historyUpdateTranscoder = transcoder(SingularityTaskHistoryUpdate.class, false);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    harness.stop();
+  }
+
+  private <T> Transcoder<T> transcoder(Class<T> clazz, boolean compressed) {
+    ObjectMapper objectMapper = harness.getObjectMapper();
+    SingularityConfiguration configuration = harness.getConfiguration();
+
+    Transcoder<T> json = compressed ? new CompressingJsonTranscoder<>(configuration, objectMapper, clazz) : new JsonTranscoder<>(objectMapper, clazz);
+    return new BinaryTranscoder<>(objectMapper, clazz, json, "cbor".equals(format), compressed && configuration.isCompressLargeDataObjects(), Optional.absent());
+  }
+
+  @Benchmark
+  public SingularityTask taskRoundTrip() {
+    return taskTranscoder.fromBytes(taskTranscoder.toBytes(task));
+  }
+
+  @Benchmark
+  public SingularityRequestWithState requestRoundTrip() {
+    return requestTranscoder.fromBytes(requestTranscoder.toBytes(request));
+  }
+
+  @Benchmark
+  public SingularityTaskHistoryUpdate historyUpdateRoundTrip() {
+    return historyUpdateTranscoder.fromBytes(historyUpdateTranscoder.toBytes(historyUpdate));
+  }
+}
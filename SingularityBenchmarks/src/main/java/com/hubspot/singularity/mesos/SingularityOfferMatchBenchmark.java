@@ -0,0 +1,103 @@
+package com.hubspot.singularity.mesos;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.mesos.v1.Protos.Offer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.hubspot.singularity.SingularityTaskId;
+import com.hubspot.singularity.SingularityTaskRequest;
+import com.hubspot.singularity.helpers.MesosUtils;
+import com.hubspot.singularity.scheduler.SingularityBenchmarkHarness;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SingularityOfferMatchBenchmark {
+  private static final int NUM_REQUESTS = 200;
+  private static final int NUM_OFFERS = 100;
+
+  private SingularityBenchmarkHarness harness;
+  private List<SingularityOfferHolder> offerHolders;
+  private List<SingularityTaskRequest> taskRequests;
+  private List<List<SingularityTaskId>> activeTaskIds;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    harness = new SingularityBenchmarkHarness();
+    harness.start();
+    harness.createRequests(NUM_REQUESTS, 3);
+
+    // Launch a round of tasks first so placement checks have active tasks on the hosts and racks to look at. The
+    // offers are reused afterwards, scoring never consumes their resources.
+    List<Offer> offers = harness.createOffers(NUM_OFFERS);
+    harness.launchTasks(offers);
+
+    SingularitySlaveAndRackHelper slaveAndRackHelper = harness.getSlaveAndRackHelper();
+    offerHolders = new ArrayList<>(NUM_OFFERS);
+    for (Offer offer : offers) {
+      offerHolders.add(new SingularityOfferHolder(
+          Collections.singletonList(offer),
+          NUM_REQUESTS,
+          slaveAndRackHelper.getRackIdOrDefault(offer),
+          offer.getAgentId().getValue(),
+          offer.getHostname(),
+          slaveAndRackHelper.getTextAttributes(offer),
+          slaveAndRackHelper.getReservedSlaveAttributes(offer)));
+    }
+
+    taskRequests = harness.buildTaskRequests();
+    activeTaskIds = new ArrayList<>(taskRequests.size());
+    for (SingularityTaskRequest taskRequest : taskRequests) {
+      activeTaskIds.add(harness.getLeaderCache().getActiveTaskIdsForRequest(taskRequest.getRequest().getId()));
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    harness.stop();
+  }
+
+  @Benchmark
+  public void doesOfferMatch(Blackhole blackhole) {
+    SingularitySlaveAndRackManager slaveAndRackManager = harness.getSlaveAndRackManager();
+
+    for (int i = 0; i < taskRequests.size(); i++) {
+      SingularityTaskRequest taskRequest = taskRequests.get(i);
+      for (SingularityOfferHolder offerHolder : offerHolders) {
+        blackhole.consume(slaveAndRackManager.doesOfferMatch(offerHolder, taskRequest, activeTaskIds.get(i), false));
+      }
+    }
+  }
+
+  @Benchmark
+  public void doesOfferMatchResources(Blackhole blackhole) {
+    for (SingularityTaskRequest taskRequest : taskRequests) {
+      for (SingularityOfferHolder offerHolder : offerHolders) {
+        blackhole.consume(MesosUtils.doesOfferMatchResources(
+            taskRequest.getRequest().getRequiredRole(),
+            taskRequest.getDeploy().getResources().get(),
+            offerHolder.getCurrentResources(),
+            Collections.emptyList()));
+      }
+    }
+  }
+}
@@ -0,0 +1,160 @@
+package com.hubspot.singularity.scheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.mesos.v1.Protos.Offer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Optional;
+import com.google.inject.Inject;
+import com.hubspot.singularity.RequestType;
+import com.hubspot.singularity.SingularityDeploy;
+import com.hubspot.singularity.SingularityPendingRequest;
+import com.hubspot.singularity.SingularityPendingRequest.PendingType;
+import com.hubspot.singularity.SingularityPendingTaskId;
+import com.hubspot.singularity.SingularityRequest;
+import com.hubspot.singularity.SingularityRequestBuilder;
+import com.hubspot.singularity.SingularityTaskRequest;
+import com.hubspot.singularity.SlavePlacement;
+import com.hubspot.singularity.config.SingularityConfiguration;
+import com.hubspot.singularity.data.RequestManager;
+import com.hubspot.singularity.data.TaskManager;
+import com.hubspot.singularity.mesos.SingularityMesosOfferScheduler;
+import com.hubspot.singularity.mesos.SingularitySlaveAndRackHelper;
+import com.hubspot.singularity.mesos.SingularitySlaveAndRackManager;
+
+/**
+ * Runs the same guice module and in-process zk TestingServer as the scheduler tests, so benchmarks exercise the real
+ * managers and leader cache. Benchmark state classes own one harness per trial and call {@link #start()} and
+ * {@link #stop()} themselves since there is no junit runner to do it.
+ */
+public class SingularityBenchmarkHarness extends SingularitySchedulerTestBase {
+  private static final String DEPLOY_ID = "deploy1";
+
+  @Inject
+  private ObjectMapper objectMapper;
+  @Inject
+  private SingularityMesosOfferScheduler offerScheduler;
+  @Inject
+  private SingularitySlaveAndRackManager slaveAndRackManager;
+  @Inject
+  private SingularitySlaveAndRackHelper slaveAndRackHelper;
+
+  private final Random random = new Random(1);
+  private final List<SingularityRequest> requests = new ArrayList<>();
+  private final List<SingularityDeploy> deploys = new ArrayList<>();
+
+  public SingularityBenchmarkHarness() {
+    super(false);
+  }
+
+  public void start() throws Exception {
+    curatorSetup();
+    setupDriver();
+  }
+
+  public void stop() throws Exception {
+    teardown();
+    curatorTeardown();
+  }
+
+  public void createRequests(int numRequests, int instances) {
+    for (int i = 0; i < numRequests; i++) {
+      SingularityRequest request = new SingularityRequestBuilder("request-" + i, RequestType.SERVICE)
+          .setInstances(Optional.of(instances))
+          .setSlavePlacement(Optional.of(SlavePlacement.GREEDY))
+          .build();
+
+      saveRequest(request);
+
+      requests.add(request);
+      deploys.add(initAndFinishDeployWithResources(request, DEPLOY_ID, 0.1 + random.nextDouble(), 64 + random.nextInt(1024)));
+    }
+
+    enqueueRequests();
+  }
+
+  public List<Offer> createOffers(int numOffers) {
+    List<Offer> offers = new ArrayList<>(numOffers);
+
+    for (int i = 0; i < numOffers; i++) {
+      offers.add(createOffer(8 + random.nextInt(24), 16000 + random.nextInt(48000), 50000, "slave-" + i, "host-" + i, Optional.of("rack-" + (i % 10))));
+    }
+
+    return offers;
+  }
+
+  // Registers the agents and racks behind the offers without launching anything, like the first half of resourceOffers
+  public void registerOffers(List<Offer> offers) {
+    for (Offer offer : offers) {
+      slaveAndRackManager.checkOffer(offer);
+    }
+  }
+
+  public void launchTasks(List<Offer> offers) {
+    sms.resourceOffers(offers);
+  }
+
+  public void enqueueRequests() {
+    long now = System.currentTimeMillis();
+
+    for (SingularityRequest request : requests) {
+      requestManager.addToPendingQueue(new SingularityPendingRequest(request.getId(), DEPLOY_ID, now, Optional.absent(), PendingType.UPDATED_REQUEST, Optional.absent(), Optional.absent()));
+    }
+  }
+
+  public void clearPendingTasks() {
+    for (SingularityPendingTaskId pendingTaskId : taskManager.getPendingTaskIds()) {
+      taskManager.deletePendingTask(pendingTaskId);
+    }
+  }
+
+  public List<SingularityTaskRequest> buildTaskRequests() {
+    List<SingularityTaskRequest> taskRequests = new ArrayList<>(requests.size());
+    long now = System.currentTimeMillis();
+
+    for (int i = 0; i < requests.size(); i++) {
+      taskRequests.add(buildTaskRequest(requests.get(i), deploys.get(i), now));
+    }
+
+    return taskRequests;
+  }
+
+  public ObjectMapper getObjectMapper() {
+    return objectMapper;
+  }
+
+  public SingularityConfiguration getConfiguration() {
+    return configuration;
+  }
+
+  public SingularityMesosOfferScheduler getOfferScheduler() {
+    return offerScheduler;
+  }
+
+  public SingularitySlaveAndRackManager getSlaveAndRackManager() {
+    return slaveAndRackManager;
+  }
+
+  public SingularitySlaveAndRackHelper getSlaveAndRackHelper() {
+    return slaveAndRackHelper;
+  }
+
+  public SingularityScheduler getScheduler() {
+    return scheduler;
+  }
+
+  public SingularityLeaderCache getLeaderCache() {
+    return leaderCache;
+  }
+
+  public TaskManager getTaskManager() {
+    return taskManager;
+  }
+
+  public RequestManager getRequestManager() {
+    return requestManager;
+  }
+}
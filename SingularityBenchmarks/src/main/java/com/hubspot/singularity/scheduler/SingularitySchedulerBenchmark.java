@@ -0,0 +1,97 @@
+package com.hubspot.singularity.scheduler;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.mesos.v1.Protos.Offer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.hubspot.singularity.mesos.SingularityOfferHolder;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SingularitySchedulerBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class CheckOffersState {
+    @Param({"500", "2000"})
+    public int numRequests;
+
+    @Param({"200", "1000"})
+    public int numOffers;
+
+    SingularityBenchmarkHarness harness;
+    List<Offer> offers;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+      harness = new SingularityBenchmarkHarness();
+      harness.start();
+      harness.createRequests(numRequests, 3);
+      offers = harness.createOffers(numOffers);
+      harness.registerOffers(offers);
+
+      // The first pass turns pending requests into pending tasks, every later pass only scores them against the offers
+      harness.getOfferScheduler().checkOffers(offers);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+      harness.stop();
+    }
+  }
+
+  @State(Scope.Benchmark)
+  public static class DrainPendingQueueState {
+    @Param({"500", "2000"})
+    public int numRequests;
+
+    SingularityBenchmarkHarness harness;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+      harness = new SingularityBenchmarkHarness();
+      harness.start();
+      harness.createRequests(numRequests, 3);
+      harness.getScheduler().drainPendingQueue();
+    }
+
+    // Each invocation has to start from a full pending queue, so this is the one place an invocation level fixture is worth its overhead
+    @Setup(Level.Invocation)
+    public void enqueue() {
+      harness.clearPendingTasks();
+      harness.enqueueRequests();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+      harness.stop();
+    }
+  }
+
+  @Benchmark
+  public Collection<SingularityOfferHolder> checkOffers(CheckOffersState state) {
+    return state.harness.getOfferScheduler().checkOffers(state.offers);
+  }
+
+  @Benchmark
+  public void drainPendingQueue(DrainPendingQueueState state) {
+    state.harness.getScheduler().drainPendingQueue();
+  }
+}
@@ -2,6 +2,7 @@ package com.hubspot.singularity.client;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -12,6 +13,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Random;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
@@ -20,7 +22,10 @@ import javax.inject.Provider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.rholder.retry.RetryException;
 import com.github.rholder.retry.Retryer;
 import com.github.rholder.retry.RetryerBuilder;
@@ -30,6 +35,7 @@ import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMap.Builder;
+import com.google.common.net.UrlEscapers;
 import com.google.inject.Inject;
 import com.google.inject.name.Named;
 import com.hubspot.horizon.HttpClient;
@@ -37,6 +43,7 @@ import com.hubspot.horizon.HttpRequest;
 import com.hubspot.horizon.HttpRequest.Method;
 import com.hubspot.horizon.HttpResponse;
 import com.hubspot.horizon.RetryStrategy;
+import com.hubspot.mesos.JavaUtils;
 import com.hubspot.mesos.json.MesosFileChunkObject;
 import com.hubspot.singularity.ExtendedTaskState;
 import com.hubspot.singularity.MachineState;
@@ -46,7 +53,9 @@ import com.hubspot.singularity.SingularityAuthorizationScope;
 import com.hubspot.singularity.SingularityClientCredentials;
 import com.hubspot.singularity.SingularityClusterUtilization;
 import com.hubspot.singularity.SingularityCreateResult;
+import com.hubspot.singularity.SingularityCursorPaginatedResponse;
 import com.hubspot.singularity.SingularityDeleteResult;
+import com.hubspot.singularity.SingularityDeltaResponse;
 import com.hubspot.singularity.SingularityDeploy;
 import com.hubspot.singularity.SingularityDeployHistory;
 import com.hubspot.singularity.SingularityDeployKey;
@@ -54,6 +63,8 @@ import com.hubspot.singularity.SingularityDeployUpdate;
 import com.hubspot.singularity.SingularityDisabledAction;
 import com.hubspot.singularity.SingularityDisasterType;
 import com.hubspot.singularity.SingularityDisastersData;
+import com.hubspot.singularity.SingularityEvent;
+import com.hubspot.singularity.SingularityEventType;
 import com.hubspot.singularity.SingularityPaginatedResponse;
 import com.hubspot.singularity.SingularityPendingRequest;
 import com.hubspot.singularity.SingularityPendingRequestParent;
@@ -103,6 +114,8 @@ public class SingularityClient {
 
   private static final Logger LOG = LoggerFactory.getLogger(SingularityClient.class);
 
+  private static final ObjectMapper OBJECT_MAPPER = JavaUtils.newObjectMapper();
+
   private static final String BASE_API_FORMAT = "%s://%s/%s";
 
   private static final String AUTH_FORMAT = "%s/auth";
@@ -134,6 +147,7 @@ public class SingularityClient {
   private static final String TASKS_FORMAT = "%s/tasks";
   private static final String TASKS_KILL_TASK_FORMAT = TASKS_FORMAT + "/task/%s";
   private static final String TASKS_GET_ACTIVE_FORMAT = TASKS_FORMAT + "/active";
+  private static final String TASKS_GET_ACTIVE_DELTA_FORMAT = TASKS_GET_ACTIVE_FORMAT + "/delta";
   private static final String TASKS_GET_ACTIVE_ON_SLAVE_FORMAT = TASKS_FORMAT + "/active/slave/%s";
   private static final String TASKS_GET_SCHEDULED_FORMAT = TASKS_FORMAT + "/scheduled";
   private static final String TASKS_GET_SCHEDULED_IDS_FORMAT = TASKS_GET_SCHEDULED_FORMAT + "/ids";
@@ -150,6 +164,7 @@ public class SingularityClient {
   private static final String TASK_HISTORY_BY_RUN_ID_FORMAT = HISTORY_FORMAT + "/request/%s/run/%s";
   private static final String REQUEST_ACTIVE_TASKS_HISTORY_FORMAT = HISTORY_FORMAT + "/request/%s/tasks/active";
   private static final String REQUEST_INACTIVE_TASKS_HISTORY_FORMAT = HISTORY_FORMAT + "/request/%s/tasks";
+  private static final String REQUEST_INACTIVE_TASKS_HISTORY_CURSOR_FORMAT = HISTORY_FORMAT + "/request/%s/tasks/cursor";
   private static final String REQUEST_DEPLOY_HISTORY_FORMAT = HISTORY_FORMAT + "/request/%s/deploy/%s";
 
   private static final String TASK_TRACKER_FORMAT = "%s/track";
@@ -158,6 +173,7 @@ public class SingularityClient {
 
   private static final String REQUESTS_FORMAT = "%s/requests";
   private static final String REQUESTS_GET_ACTIVE_FORMAT = REQUESTS_FORMAT + "/active";
+  private static final String REQUESTS_GET_DELTA_FORMAT = REQUESTS_FORMAT + "/delta";
   private static final String REQUESTS_GET_PAUSED_FORMAT = REQUESTS_FORMAT + "/paused";
   private static final String REQUESTS_GET_COOLDOWN_FORMAT = REQUESTS_FORMAT + "/cooldown";
   private static final String REQUESTS_GET_PENDING_FORMAT = REQUESTS_FORMAT + "/queued/pending";
@@ -189,6 +205,9 @@ public class SingularityClient {
   private static final String WEBHOOKS_GET_QUEUED_REQUEST_UPDATES_FORMAT = WEBHOOKS_FORMAT + "/request";
   private static final String WEBHOOKS_GET_QUEUED_TASK_UPDATES_FORMAT = WEBHOOKS_FORMAT + "/task";
 
+  private static final String EVENTS_FORMAT = "%s/events";
+  private static final String EVENTS_STREAM_FORMAT = EVENTS_FORMAT + "/stream";
+
   private static final String SANDBOX_FORMAT = "%s/sandbox";
   private static final String SANDBOX_BROWSE_FORMAT = SANDBOX_FORMAT + "/%s/browse";
   private static final String SANDBOX_READ_FILE_FORMAT = SANDBOX_FORMAT + "/%s/read";
@@ -231,6 +250,9 @@ public class SingularityClient {
   private static final TypeReference<Collection<SingularityDisasterType>> DISASTERS_COLLECTION = new TypeReference<Collection<SingularityDisasterType>>() {};
   private static final TypeReference<Collection<SingularityDisabledAction>> DISABLED_ACTIONS_COLLECTION = new TypeReference<Collection<SingularityDisabledAction>>() {};
   private static final TypeReference<SingularityPaginatedResponse<SingularityTaskIdHistory>> PAGINATED_HISTORY = new TypeReference<SingularityPaginatedResponse<SingularityTaskIdHistory>>() {};
+  private static final TypeReference<SingularityCursorPaginatedResponse<SingularityTaskIdHistory>> CURSOR_PAGINATED_HISTORY = new TypeReference<SingularityCursorPaginatedResponse<SingularityTaskIdHistory>>() {};
+  private static final TypeReference<SingularityDeltaResponse<SingularityRequestParent>> REQUESTS_DELTA = new TypeReference<SingularityDeltaResponse<SingularityRequestParent>>() {};
+  private static final TypeReference<SingularityDeltaResponse<SingularityTask>> TASKS_DELTA = new TypeReference<SingularityDeltaResponse<SingularityTask>>() {};
   private static final TypeReference<Collection<String>> STRING_COLLECTION = new TypeReference<Collection<String>>() {};
 
 
@@ -379,6 +401,62 @@ public class SingularityClient {
     return response.getAs(typeReference);
   }
 
+  private <T> SingularityDeltaResponse<T> getDelta(Function<String, String> hostToUrl, String type, Optional<Long> since, TypeReference<SingularityDeltaResponse<T>> typeReference) {
+    final long start = System.currentTimeMillis();
+
+    Map<String, Object> queryParams = new HashMap<>();
+    if (since.isPresent()) {
+      queryParams.put("since", since.get());
+    }
+
+    HttpResponse response = executeRequest(hostToUrl, Method.GET, Optional.absent(), queryParams);
+
+    checkResponse(type, response);
+
+    SingularityDeltaResponse<T> delta = response.getAs(typeReference);
+
+    LOG.info("Got {} {} since {} ({} objects, {} removed) in {}ms", delta.isFull() ? "all" : "changed", type, since.orNull(), delta.getObjects().size(), delta.getRemovedIds().size(), System.currentTimeMillis() - start);
+
+    return delta;
+  }
+
+  /**
+   * Like getCollection, but hands each element to the consumer as it is parsed instead of building the whole collection
+   */
+  private <T> void streamCollection(Function<String, String> hostToUrl, String type, Class<T> clazz, Consumer<T> consumer) {
+    final long start = System.currentTimeMillis();
+
+    HttpResponse response = executeRequest(hostToUrl, Method.GET, Optional.absent(), Collections.emptyMap());
+
+    if (response.getStatusCode() == 404) {
+      return;
+    }
+
+    checkResponse(type, response);
+
+    int count = 0;
+
+    try (JsonParser parser = OBJECT_MAPPER.getFactory().createParser(response.getAsInputStream())) {
+      if (parser.nextToken() != JsonToken.START_ARRAY) {
+        throw new SingularityClientException(String.format("Expected a list of %s", type));
+      }
+
+      JsonToken token;
+      while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+        if (token == null) {
+          throw new SingularityClientException(String.format("Response for %s ended early after %s items", type, count));
+        }
+
+        consumer.accept(OBJECT_MAPPER.readValue(parser, clazz));
+        count++;
+      }
+    } catch (IOException e) {
+      throw new SingularityClientException(String.format("Could not read %s", type), e);
+    }
+
+    LOG.info("Got {} {} in {}ms", count, type, System.currentTimeMillis() - start);
+  }
+
   private void addQueryParams(HttpRequest.Builder requestBuilder, Map<String, ?> queryParams) {
     for (Entry<String, ?> queryParamEntry : queryParams.entrySet()) {
       if (queryParamEntry.getValue() instanceof String) {
@@ -741,6 +819,22 @@ public class SingularityClient {
     return getCollection(requestUri, "[ACTIVE, PAUSED, COOLDOWN] requests", REQUESTS_COLLECTION);
   }
 
+  /**
+   * Incremental version of {@link SingularityClient#getSingularityRequests()} for callers that poll. Pass the version of
+   * the previous response as since, or absent on the first call. If the response is full, replace everything held from
+   * previous calls, otherwise update the returned requests and drop the removed ids.
+   *
+   * @param since
+   *    The version of the previous response
+   * @return
+   *    The requests that changed since that version, and the ids of the ones that were removed
+   */
+  public SingularityDeltaResponse<SingularityRequestParent> getSingularityRequestsDelta(Optional<Long> since) {
+    final Function<String, String> requestUri = (host) -> String.format(REQUESTS_GET_DELTA_FORMAT, getApiBase(host));
+
+    return getDelta(requestUri, "requests", since, REQUESTS_DELTA);
+  }
+
   /**
    * Get all requests that their state is ACTIVE
    *
@@ -753,6 +847,16 @@ public class SingularityClient {
     return getCollection(requestUri, "ACTIVE requests", REQUESTS_COLLECTION);
   }
 
+  /**
+   * Same as {@link SingularityClient#getActiveSingularityRequests()}, but passes each request to the consumer as it is
+   * read from the response
+   */
+  public void streamActiveSingularityRequests(Consumer<SingularityRequestParent> consumer) {
+    final Function<String, String> requestUri = (host) -> String.format(REQUESTS_GET_ACTIVE_FORMAT, getApiBase(host));
+
+    streamCollection(requestUri, "ACTIVE requests", SingularityRequestParent.class, consumer);
+  }
+
   /**
    * Get all requests that their state is PAUSED
    * ACTIVE requests are paused by users, which is equivalent to stop their tasks from running without undeploying them
@@ -819,6 +923,27 @@ public class SingularityClient {
     return getCollection(requestUri, "active tasks", TASKS_COLLECTION);
   }
 
+  /**
+   * Same as {@link SingularityClient#getActiveTasks()}, but passes each task to the consumer as it is read from the
+   * response, so callers that only aggregate or filter never hold the full list
+   */
+  public void streamActiveTasks(Consumer<SingularityTask> consumer) {
+    final Function<String, String> requestUri = (host) -> String.format(TASKS_GET_ACTIVE_FORMAT, getApiBase(host));
+
+    streamCollection(requestUri, "active tasks", SingularityTask.class, consumer);
+  }
+
+  /**
+   * Incremental version of {@link SingularityClient#getActiveTasks()} for callers that poll. Pass the version of the
+   * previous response as since, or absent on the first call. If the response is full, replace everything held from
+   * previous calls, otherwise add the returned tasks and drop the removed task ids.
+   */
+  public SingularityDeltaResponse<SingularityTask> getActiveTasksDelta(Optional<Long> since) {
+    final Function<String, String> requestUri = (host) -> String.format(TASKS_GET_ACTIVE_DELTA_FORMAT, getApiBase(host));
+
+    return getDelta(requestUri, "active tasks", since, TASKS_DELTA);
+  }
+
   public Collection<SingularityTask> getActiveTasksOnSlave(final String slaveId) {
     final Function<String, String> requestUri = (host) -> String.format(TASKS_GET_ACTIVE_ON_SLAVE_FORMAT, getApiBase(host), slaveId);
 
@@ -841,6 +966,16 @@ public class SingularityClient {
     return getCollection(requestUri, "scheduled tasks", TASKS_REQUEST_COLLECTION);
   }
 
+  /**
+   * Same as {@link SingularityClient#getScheduledTasks()}, but passes each task request to the consumer as it is read
+   * from the response
+   */
+  public void streamScheduledTasks(Consumer<SingularityTaskRequest> consumer) {
+    final Function<String, String> requestUri = (host) -> String.format(TASKS_GET_SCHEDULED_FORMAT, getApiBase(host));
+
+    streamCollection(requestUri, "scheduled tasks", SingularityTaskRequest.class, consumer);
+  }
+
   public Collection<SingularityPendingTaskId> getScheduledTaskIds() {
     final Function<String, String> requestUri = (host) -> String.format(TASKS_GET_SCHEDULED_IDS_FORMAT, getApiBase(host));
 
@@ -1115,6 +1250,34 @@ public class SingularityClient {
     return getCollectionWithParams(requestUri, type, Optional.of(params), TASKID_HISTORY_COLLECTION);
   }
 
+  /**
+   * Retrieve a page of inactive task history for a request, newest updates first unless orderDirection is ASC.
+   * Unlike the page based methods, each page costs the same to fetch regardless of how deep into the history it is.
+   *
+   * @param requestId
+   *    The request ID to search for
+   * @param count
+   *    Maximum number of items on the page
+   * @param cursor
+   *    The nextCursor of the previous page, or absent for the first page
+   * @return
+   *    The page and, if there are more results, the cursor for the next one
+   */
+  public Optional<SingularityCursorPaginatedResponse<SingularityTaskIdHistory>> getInactiveTaskHistoryForRequestAfterCursor(String requestId, int count, Optional<String> cursor,
+     Optional<String> host, Optional<String> deployId, Optional<String> runId,
+     Optional<ExtendedTaskState> lastTaskStatus, Optional<Long> startedBefore, Optional<Long> startedAfter,
+     Optional<Long> updatedBefore, Optional<Long> updatedAfter, Optional<OrderDirection> orderDirection) {
+    final Function<String, String> requestUri = (singularityHost) -> String.format(REQUEST_INACTIVE_TASKS_HISTORY_CURSOR_FORMAT, getApiBase(singularityHost), requestId);
+
+    Map<String, Object> params = taskSearchParams(Optional.of(requestId), deployId, runId, host, lastTaskStatus,
+        startedBefore, startedAfter, updatedBefore, updatedAfter, orderDirection, count, null);
+    params.remove("page");
+    if (cursor.isPresent()) {
+      params.put("cursor", cursor.get());
+    }
+
+    return getSingleWithParams(requestUri, "inactive task history after cursor", requestId, Optional.of(params), CURSOR_PAGINATED_HISTORY);
+  }
 
   public Optional<SingularityDeployHistory> getHistoryForRequestDeploy(String requestId, String deployId) {
     final Function<String, String> requestUri = (host) -> String.format(REQUEST_DEPLOY_HISTORY_FORMAT, getApiBase(host), requestId, deployId);
@@ -1251,6 +1414,54 @@ public class SingularityClient {
     return getCollectionWithParams(requestUri, "request updates", Optional.of(queryParamBuider.build()), TASK_UPDATES_COLLECTION);
   }
 
+  //
+  // EVENTS
+  //
+
+  /**
+   * Receive task, request and deploy updates as they happen instead of polling for them. Events are read on a separate
+   * thread and passed to the consumer until the returned subscription is closed.
+   *
+   * @param requestIds
+   *    Only receive updates for these requests. An empty collection receives updates for all requests, which needs admin authorization
+   * @param types
+   *    Only receive these kinds of updates. An empty collection receives all of them
+   * @param lastEventId
+   *    Resume after this event, e.g. from {@link SingularityEventSubscription#getLastEventId()} of an earlier subscription
+   * @param consumer
+   *    Called with each event. A RESET event means updates may have been missed and current state should be read again
+   * @return
+   *    The subscription, close it to stop receiving events
+   */
+  public SingularityEventSubscription subscribeToEvents(Collection<String> requestIds, Collection<SingularityEventType> types, Optional<String> lastEventId,
+                                                        Consumer<SingularityEvent> consumer) {
+    final StringBuilder query = new StringBuilder();
+    requestIds.forEach((requestId) -> query.append(query.length() == 0 ? '?' : '&').append("requestId=").append(UrlEscapers.urlFormParameterEscaper().escape(requestId)));
+    types.forEach((type) -> query.append(query.length() == 0 ? '?' : '&').append("type=").append(type.name()));
+
+    final Map<String, String> headers = credentials.isPresent()
+        ? Collections.singletonMap(credentials.get().getHeaderName(), credentials.get().getToken())
+        : Collections.emptyMap();
+
+    SingularityEventSubscription subscription = new SingularityEventSubscription(
+        () -> String.format(EVENTS_STREAM_FORMAT, getApiBase(pickHost())) + query,
+        headers,
+        OBJECT_MAPPER,
+        lastEventId,
+        consumer);
+    subscription.start();
+
+    return subscription;
+  }
+
+  private String pickHost() {
+    List<String> hosts = hostsProvider.get();
+    if (hosts.isEmpty()) {
+      throw new SingularityClientException("No Singularity hosts available");
+    }
+    return hosts.get(random.nextInt(hosts.size()));
+  }
+
   //
   // SANDBOX
   //
@@ -0,0 +1,228 @@
+package com.hubspot.singularity.client;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableMap;
+import com.hubspot.singularity.SingularityDeployUpdate;
+import com.hubspot.singularity.SingularityEvent;
+import com.hubspot.singularity.SingularityEventType;
+import com.hubspot.singularity.SingularityRequestHistory;
+import com.hubspot.singularity.SingularityTaskHistoryUpdate;
+
+/**
+ * A subscription to the Singularity event stream, read on its own thread until it is closed. Whenever the stream
+ * ends, e.g. because the leader changed or this subscriber fell behind, it reconnects and resumes after the last event
+ * that was handed to the consumer. An event whose consumer threw is sent again after reconnecting, an event that can't
+ * be read is logged and skipped.
+ */
+public class SingularityEventSubscription implements Closeable {
+  private static final Logger LOG = LoggerFactory.getLogger(SingularityEventSubscription.class);
+
+  private static final int CONNECT_TIMEOUT_MILLIS = (int) TimeUnit.SECONDS.toMillis(10);
+  // The server sends a heartbeat on an idle stream every 15 seconds by default
+  private static final int READ_TIMEOUT_MILLIS = (int) TimeUnit.SECONDS.toMillis(60);
+  private static final long MIN_RECONNECT_DELAY_MILLIS = TimeUnit.SECONDS.toMillis(1);
+  private static final long MAX_RECONNECT_DELAY_MILLIS = TimeUnit.SECONDS.toMillis(30);
+  private static final int MAX_REDIRECTS = 3;
+
+  private final Supplier<String> urlSupplier;
+  private final Map<String, String> headers;
+  private final ObjectMapper objectMapper;
+  private final Consumer<SingularityEvent> consumer;
+  private final Thread thread;
+
+  private volatile Optional<String> lastEventId;
+  private volatile HttpURLConnection connection;
+  private volatile boolean closed;
+
+  SingularityEventSubscription(Supplier<String> urlSupplier, Map<String, String> headers, ObjectMapper objectMapper, Optional<String> lastEventId,
+                               Consumer<SingularityEvent> consumer) {
+    this.urlSupplier = urlSupplier;
+    this.headers = ImmutableMap.copyOf(headers);
+    this.objectMapper = objectMapper;
+    this.lastEventId = lastEventId;
+    this.consumer = consumer;
+    this.thread = new Thread(this::run, "singularity-event-stream");
+    this.thread.setDaemon(true);
+  }
+
+  void start() {
+    thread.start();
+  }
+
+  /**
+   * The id of the last event handed to the consumer. Pass it to a new subscription to continue where this one stopped.
+   */
+  public Optional<String> getLastEventId() {
+    return lastEventId;
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    thread.interrupt();
+    HttpURLConnection current = connection;
+    if (current != null) {
+      current.disconnect();
+    }
+  }
+
+  private void run() {
+    long reconnectDelayMillis = MIN_RECONNECT_DELAY_MILLIS;
+
+    while (!closed) {
+      final Optional<String> resumedAfter = lastEventId;
+      Exception failure = null;
+
+      try {
+        read(connect(urlSupplier.get()));
+      } catch (Exception e) {
+        failure = e;
+      } finally {
+        HttpURLConnection current = connection;
+        if (current != null) {
+          current.disconnect();
+        }
+      }
+
+      // The stream worked if an event came through, so backing off starts over however the connection ended
+      if (!lastEventId.equals(resumedAfter)) {
+        reconnectDelayMillis = MIN_RECONNECT_DELAY_MILLIS;
+      }
+
+      if (failure != null && !closed) {
+        LOG.warn("Event stream failed, reconnecting in {}ms", reconnectDelayMillis, failure);
+      }
+
+      try {
+        Thread.sleep(reconnectDelayMillis);
+      } catch (InterruptedException e) {
+        return;
+      }
+      reconnectDelayMillis = Math.min(reconnectDelayMillis * 2, MAX_RECONNECT_DELAY_MILLIS);
+    }
+  }
+
+  /**
+   * Only the leader serves the stream, other instances redirect to it. The redirect is followed here so that the
+   * credentials and Last-Event-ID headers go along.
+   */
+  private HttpURLConnection connect(String url) throws IOException {
+    for (int redirects = 0; ; redirects++) {
+      HttpURLConnection current = (HttpURLConnection) new URL(url).openConnection();
+      connection = current;
+      current.setInstanceFollowRedirects(false);
+      current.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+      current.setReadTimeout(READ_TIMEOUT_MILLIS);
+      current.setRequestProperty("Accept", "text/event-stream");
+      headers.forEach(current::setRequestProperty);
+      if (lastEventId.isPresent()) {
+        current.setRequestProperty("Last-Event-ID", lastEventId.get());
+      }
+
+      int statusCode = current.getResponseCode();
+      if (statusCode >= 300 && statusCode < 400 && current.getHeaderField("Location") != null && redirects < MAX_REDIRECTS) {
+        url = current.getHeaderField("Location");
+        current.disconnect();
+        continue;
+      }
+
+      if (statusCode != 200) {
+        throw new SingularityClientException(String.format("Failed to open event stream: %s", current.getResponseMessage()), statusCode);
+      }
+
+      return current;
+    }
+  }
+
+  /**
+   * Reads events until the stream ends.
+   */
+  private void read(HttpURLConnection current) throws IOException {
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(current.getInputStream(), StandardCharsets.UTF_8))) {
+      String id = null;
+      String name = null;
+      StringBuilder data = new StringBuilder();
+
+      String line;
+      while (!closed && (line = reader.readLine()) != null) {
+        if (line.isEmpty()) {
+          if (name != null && id != null) {
+            dispatch(id, name, data.toString());
+          }
+          id = null;
+          name = null;
+          data.setLength(0);
+        } else if (line.startsWith(":")) {
+          continue;
+        } else if (line.startsWith("id:")) {
+          id = fieldValue(line, "id:");
+        } else if (line.startsWith("event:")) {
+          name = fieldValue(line, "event:");
+        } else if (line.startsWith("data:")) {
+          if (data.length() > 0) {
+            data.append('\n');
+          }
+          data.append(fieldValue(line, "data:"));
+        }
+      }
+    }
+  }
+
+  private void dispatch(String id, String name, String data) {
+    SingularityEventType type;
+    try {
+      type = SingularityEventType.valueOf(name);
+    } catch (IllegalArgumentException e) {
+      LOG.debug("Skipping event {} of unknown type {}", id, name);
+      lastEventId = Optional.of(id);
+      return;
+    }
+
+    SingularityEvent event;
+    try {
+      event = parse(id, type, data);
+    } catch (IOException e) {
+      // The same event would come back after reconnecting, so it is skipped rather than failing the stream forever
+      LOG.warn("Skipping event {} of type {} that couldn't be read", id, type, e);
+      lastEventId = Optional.of(id);
+      return;
+    }
+
+    consumer.accept(event);
+    lastEventId = Optional.of(id);
+  }
+
+  private SingularityEvent parse(String id, SingularityEventType type, String data) throws IOException {
+    switch (type) {
+      case TASK:
+        return new SingularityEvent(id, type, Optional.of(objectMapper.readValue(data, SingularityTaskHistoryUpdate.class)), Optional.absent(), Optional.absent());
+      case REQUEST:
+        return new SingularityEvent(id, type, Optional.absent(), Optional.of(objectMapper.readValue(data, SingularityRequestHistory.class)), Optional.absent());
+      case DEPLOY:
+        return new SingularityEvent(id, type, Optional.absent(), Optional.absent(), Optional.of(objectMapper.readValue(data, SingularityDeployUpdate.class)));
+      default:
+        return SingularityEvent.reset(id);
+    }
+  }
+
+  private static String fieldValue(String line, String field) {
+    String value = line.substring(field.length());
+    return value.startsWith(" ") ? value.substring(1) : value;
+  }
+}
@@ -7,7 +7,18 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.internal.verification.VerificationModeFactory.times;
 
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -21,6 +32,10 @@ import com.google.common.collect.ImmutableList;
 import com.hubspot.horizon.HttpClient;
 import com.hubspot.horizon.HttpRequest;
 import com.hubspot.horizon.HttpResponse;
+import com.hubspot.singularity.SingularityClientCredentials;
+import com.hubspot.singularity.SingularityEvent;
+import com.hubspot.singularity.SingularityEventType;
+import com.sun.net.httpserver.HttpServer;
 
 public class SingularityClientTest {
   @Mock
@@ -78,6 +93,90 @@ public class SingularityClientTest {
         .isThrownBy(() -> singularityClient.pauseSingularityRequest("requestId", Optional.absent()));
   }
 
+  @Test
+  public void itStreamsListResponses() {
+    when(httpClient.execute(any()))
+        .thenReturn(response);
+    when(response.getStatusCode())
+        .thenReturn(200);
+    when(response.getAsInputStream())
+        .thenReturn(new ByteArrayInputStream((
+            "[{\"request\":{\"id\":\"one\",\"requestType\":\"SERVICE\"},\"state\":\"ACTIVE\"}," +
+            "{\"request\":{\"id\":\"two\",\"requestType\":\"WORKER\"},\"state\":\"ACTIVE\"}]").getBytes(StandardCharsets.UTF_8)));
+
+    List<String> requestIds = new ArrayList<>();
+    singularityClient.streamActiveSingularityRequests((requestParent) -> requestIds.add(requestParent.getRequest().getId()));
+
+    assertThat(requestIds).containsExactly("one", "two");
+  }
+
+  @Test
+  public void itThrowsAnExceptionOnTruncatedListResponses() {
+    when(httpClient.execute(any()))
+        .thenReturn(response);
+    when(response.getStatusCode())
+        .thenReturn(200);
+    when(response.getAsInputStream())
+        .thenReturn(new ByteArrayInputStream("[{\"request\":{\"id\":\"one\",\"requestType\":\"SERVICE\"},\"state\":\"ACTIVE\"}".getBytes(StandardCharsets.UTF_8)));
+
+    assertThatExceptionOfType(SingularityClientException.class)
+        .isThrownBy(() -> singularityClient.streamActiveSingularityRequests((requestParent) -> {}));
+  }
+
+  @Test
+  public void itFollowsTheEventStreamToTheLeaderAndResumesAfterReconnecting() throws Exception {
+    HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    String leader = "http://localhost:" + server.getAddress().getPort() + "/leader/api/events/stream";
+    AtomicInteger connections = new AtomicInteger();
+    BlockingQueue<String> resumedFrom = new LinkedBlockingQueue<>();
+
+    server.createContext("/follower/api/events/stream", (exchange) -> {
+      exchange.getResponseHeaders().add("Location", leader + "?" + exchange.getRequestURI().getQuery());
+      exchange.sendResponseHeaders(307, -1);
+      exchange.close();
+    });
+    server.createContext("/leader/api/events/stream", (exchange) -> {
+      assertThat(exchange.getRequestURI().getQuery()).isEqualTo("requestId=request1&type=TASK");
+      assertThat(exchange.getRequestHeaders().getFirst("X-Token")).isEqualTo("secret");
+
+      String body;
+      if (connections.incrementAndGet() == 1) {
+        body = ": connected\n\n" +
+            "id: epoch-1\nevent: TASK\ndata: {\"taskId\":{\"requestId\":\"request1\",\"deployId\":\"d1\",\"startedAt\":1,\"instanceNo\":1,\"host\":\"h\",\"sanitizedHost\":\"h\",\"sanitizedRackId\":\"r\",\"rackId\":\"r\"},\n" +
+            "data: \"timestamp\":1,\"taskState\":\"TASK_RUNNING\"}\n\n";
+      } else {
+        resumedFrom.add(exchange.getRequestHeaders().getFirst("Last-Event-ID"));
+        body = ": heartbeat\n\nid: epoch-2\nevent: RESET\ndata: {}\n\n";
+      }
+
+      exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+      exchange.sendResponseHeaders(200, 0);
+      try (OutputStream output = exchange.getResponseBody()) {
+        output.write(body.getBytes(StandardCharsets.UTF_8));
+      }
+    });
+    server.start();
+
+    SingularityClient client = new SingularityClient("follower/api", httpClient, ImmutableList.of("localhost:" + server.getAddress().getPort()),
+        Optional.of(new SingularityClientCredentials("X-Token", "secret")));
+    BlockingQueue<SingularityEvent> events = new LinkedBlockingQueue<>();
+
+    try (SingularityEventSubscription subscription = client.subscribeToEvents(
+        Collections.singletonList("request1"), Collections.singletonList(SingularityEventType.TASK), Optional.absent(), events::add)) {
+      SingularityEvent first = events.poll(10, TimeUnit.SECONDS);
+      assertThat(first.getType()).isEqualTo(SingularityEventType.TASK);
+      assertThat(first.getId()).isEqualTo("epoch-1");
+      assertThat(first.getTaskUpdate().get().getTaskId().getInstanceNo()).isEqualTo(1);
+
+      assertThat(resumedFrom.poll(10, TimeUnit.SECONDS)).isEqualTo("epoch-1");
+      SingularityEvent second = events.poll(10, TimeUnit.SECONDS);
+      assertThat(second).isEqualTo(SingularityEvent.reset("epoch-2"));
+      assertThat(subscription.getLastEventId()).isEqualTo(Optional.of("epoch-2"));
+    } finally {
+      server.stop(0);
+    }
+  }
+
   private SingularityClient buildClient() {
     return new SingularityClient("singularity/v2/api", httpClient, ImmutableList.of("host1", "host2"), Optional.absent());
   }
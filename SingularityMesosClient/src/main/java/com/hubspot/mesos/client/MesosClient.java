@@ -1,6 +1,7 @@
 package com.hubspot.mesos.client;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import com.hubspot.mesos.json.MesosMasterMetricsSnapshotObject;
 import com.hubspot.mesos.json.MesosMasterStateObject;
@@ -41,6 +42,16 @@ public interface MesosClient {
 
   public MesosSlaveMetricsSnapshotObject getSlaveMetricsSnapshot(String uri, boolean useShortTimeout);
 
+  default CompletableFuture<MesosSlaveMetricsSnapshotObject> getSlaveMetricsSnapshotAsync(String hostname, boolean useShortTimeout) {
+    CompletableFuture<MesosSlaveMetricsSnapshotObject> future = new CompletableFuture<>();
+    try {
+      future.complete(getSlaveMetricsSnapshot(hostname, useShortTimeout));
+    } catch (Throwable t) {
+      future.completeExceptionally(t);
+    }
+    return future;
+  }
+
   public String getSlaveUri(String hostname);
 
   public MesosSlaveStateObject getSlaveState(String uri);
@@ -51,4 +62,14 @@ public interface MesosClient {
 
   public List<MesosTaskMonitorObject> getSlaveResourceUsage(String hostname, boolean useShortTimeout);
 
+  default CompletableFuture<List<MesosTaskMonitorObject>> getSlaveResourceUsageAsync(String hostname, boolean useShortTimeout) {
+    CompletableFuture<List<MesosTaskMonitorObject>> future = new CompletableFuture<>();
+    try {
+      future.complete(getSlaveResourceUsage(hostname, useShortTimeout));
+    } catch (Throwable t) {
+      future.completeExceptionally(t);
+    }
+    return future;
+  }
+
 }
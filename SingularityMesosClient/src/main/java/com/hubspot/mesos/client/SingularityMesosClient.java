@@ -1,6 +1,8 @@
 package com.hubspot.mesos.client;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -9,6 +11,8 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.google.inject.name.Named;
+import com.hubspot.horizon.AsyncHttpClient;
+import com.hubspot.horizon.AsyncHttpClient.Callback;
 import com.hubspot.horizon.HttpClient;
 import com.hubspot.horizon.HttpRequest;
 import com.hubspot.horizon.HttpRequest.Options;
@@ -25,6 +29,8 @@ public class SingularityMesosClient implements MesosClient {
 
   public static final String DEFAULT_HTTP_CLIENT_NAME = "mesos.http.client";
   public static final String SHORT_TIMEOUT_HTTP_CLIENT_NAME = "mesos.http.client.short.timeout";
+  public static final String DEFAULT_ASYNC_HTTP_CLIENT_NAME = "mesos.async.http.client";
+  public static final String SHORT_TIMEOUT_ASYNC_HTTP_CLIENT_NAME = "mesos.async.http.client.short.timeout";
 
   private static final Logger LOG = LoggerFactory.getLogger(SingularityMesosClient.class);
 
@@ -38,12 +44,18 @@ public class SingularityMesosClient implements MesosClient {
 
   private final HttpClient httpClient;
   private final HttpClient shortTimeoutHttpClient;
+  private final AsyncHttpClient asyncHttpClient;
+  private final AsyncHttpClient shortTimeoutAsyncHttpClient;
 
   @Inject
   public SingularityMesosClient(@Named(DEFAULT_HTTP_CLIENT_NAME) HttpClient httpClient,
-                                @Named(SHORT_TIMEOUT_HTTP_CLIENT_NAME) HttpClient shortTimeoutHttpClient) {
+                                @Named(SHORT_TIMEOUT_HTTP_CLIENT_NAME) HttpClient shortTimeoutHttpClient,
+                                @Named(DEFAULT_ASYNC_HTTP_CLIENT_NAME) AsyncHttpClient asyncHttpClient,
+                                @Named(SHORT_TIMEOUT_ASYNC_HTTP_CLIENT_NAME) AsyncHttpClient shortTimeoutAsyncHttpClient) {
     this.httpClient = httpClient;
     this.shortTimeoutHttpClient = shortTimeoutHttpClient;
+    this.asyncHttpClient = asyncHttpClient;
+    this.shortTimeoutAsyncHttpClient = shortTimeoutAsyncHttpClient;
   }
 
   @Override
@@ -79,6 +91,41 @@ public class SingularityMesosClient implements MesosClient {
     return response;
   }
 
+  private <T> CompletableFuture<T> getFromMesosAsync(String uri, boolean useShortTimeout, String description, Function<HttpResponse, T> parser) {
+    AsyncHttpClient currentHttpClient = useShortTimeout ? shortTimeoutAsyncHttpClient : asyncHttpClient;
+    CompletableFuture<T> future = new CompletableFuture<>();
+
+    final long start = System.currentTimeMillis();
+
+    LOG.debug("Fetching {} from mesos", uri);
+
+    currentHttpClient.execute(HttpRequest.newBuilder().setUrl(uri).build(), new Options(), new Callback() {
+
+      @Override
+      public void completed(HttpResponse response) {
+        LOG.debug("Response {} - {} after {}", response.getStatusCode(), uri, JavaUtils.duration(start));
+
+        if (!response.isSuccess()) {
+          future.completeExceptionally(new MesosClientException(String.format("Invalid response code from %s : %s", uri, response.getStatusCode())));
+          return;
+        }
+
+        try {
+          future.complete(parser.apply(response));
+        } catch (Exception e) {
+          future.completeExceptionally(new MesosClientException(String.format("Couldn't deserialize %s from %s", description, uri), e));
+        }
+      }
+
+      @Override
+      public void failed(Exception e) {
+        future.completeExceptionally(new MesosClientException(String.format("Exception fetching %s after %s", uri, JavaUtils.duration(start)), e));
+      }
+    });
+
+    return future;
+  }
+
   private <T> T getFromMesos(String uri, Class<T> clazz) {
     return getFromMesos(uri, clazz, false);
   }
@@ -108,6 +155,12 @@ public class SingularityMesosClient implements MesosClient {
     return getFromMesos(String.format(MESOS_SLAVE_METRICS_SNAPSHOT_URL, hostname), MesosSlaveMetricsSnapshotObject.class, useShortTimeout);
   }
 
+  @Override
+  public CompletableFuture<MesosSlaveMetricsSnapshotObject> getSlaveMetricsSnapshotAsync(String hostname, boolean useShortTimeout) {
+    return getFromMesosAsync(String.format(MESOS_SLAVE_METRICS_SNAPSHOT_URL, hostname), useShortTimeout, MesosSlaveMetricsSnapshotObject.class.getSimpleName(),
+        (response) -> response.getAs(MesosSlaveMetricsSnapshotObject.class));
+  }
+
   @Override
   public String getSlaveUri(String hostname) {
     return String.format(MESOS_SLAVE_JSON_URL, hostname);
@@ -131,4 +184,10 @@ public class SingularityMesosClient implements MesosClient {
     }
   }
 
+  @Override
+  public CompletableFuture<List<MesosTaskMonitorObject>> getSlaveResourceUsageAsync(String hostname, boolean useShortTimeout) {
+    return getFromMesosAsync(String.format(MESOS_SLAVE_STATISTICS_URL, hostname), useShortTimeout, "task monitor object",
+        (response) -> response.getAs(TASK_MONITOR_TYPE_REFERENCE));
+  }
+
 }
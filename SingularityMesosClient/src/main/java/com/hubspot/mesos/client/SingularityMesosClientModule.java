@@ -4,9 +4,11 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.inject.AbstractModule;
 import com.google.inject.Scopes;
 import com.google.inject.name.Names;
+import com.hubspot.horizon.AsyncHttpClient;
 import com.hubspot.horizon.HttpClient;
 import com.hubspot.horizon.HttpConfig;
 import com.hubspot.horizon.HttpConfig.Builder;
+import com.hubspot.horizon.ning.NingAsyncHttpClient;
 import com.hubspot.horizon.ning.NingHttpClient;
 import com.hubspot.mesos.JavaUtils;
 
@@ -20,12 +22,21 @@ public class SingularityMesosClientModule extends AbstractModule {
     ObjectMapper objectMapper = JavaUtils.newObjectMapper();
     Builder httpConfigBuilder = HttpConfig.newBuilder().setObjectMapper(objectMapper);
 
+    HttpConfig defaultHttpConfig = httpConfigBuilder.build();
+    HttpConfig shortTimeoutHttpConfig = httpConfigBuilder.setRequestTimeoutSeconds(MESOS_CLIENT_HTTP_SHORT_TIMEOUT_SECONDS).build();
+
     bind(ObjectMapper.class).annotatedWith(Names.named(MESOS_CLIENT_OBJECT_MAPPER)).toInstance(objectMapper);
     bind(HttpClient.class).annotatedWith(Names.named(SingularityMesosClient.DEFAULT_HTTP_CLIENT_NAME))
-        .toInstance(new NingHttpClient(httpConfigBuilder.build()));
+        .toInstance(new NingHttpClient(defaultHttpConfig));
 
     bind(HttpClient.class).annotatedWith(Names.named(SingularityMesosClient.SHORT_TIMEOUT_HTTP_CLIENT_NAME))
-        .toInstance(new NingHttpClient(httpConfigBuilder.setRequestTimeoutSeconds(MESOS_CLIENT_HTTP_SHORT_TIMEOUT_SECONDS).build()));
+        .toInstance(new NingHttpClient(shortTimeoutHttpConfig));
+
+    bind(AsyncHttpClient.class).annotatedWith(Names.named(SingularityMesosClient.DEFAULT_ASYNC_HTTP_CLIENT_NAME))
+        .toInstance(new NingAsyncHttpClient(defaultHttpConfig));
+
+    bind(AsyncHttpClient.class).annotatedWith(Names.named(SingularityMesosClient.SHORT_TIMEOUT_ASYNC_HTTP_CLIENT_NAME))
+        .toInstance(new NingAsyncHttpClient(shortTimeoutHttpConfig));
 
     bind(MesosClient.class).to(SingularityMesosClient.class).in(Scopes.SINGLETON);
   }
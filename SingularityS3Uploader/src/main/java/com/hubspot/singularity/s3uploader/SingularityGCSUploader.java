@@ -36,8 +36,8 @@ public class SingularityGCSUploader extends SingularityUploader {
 
   public SingularityGCSUploader(S3UploadMetadata uploadMetadata, FileSystem fileSystem, SingularityS3UploaderMetrics metrics, Path metadataPath,
                                 SingularityS3UploaderConfiguration configuration, String hostname, SingularityRunnerExceptionNotifier exceptionNotifier,
-                                Lock checkFileOpenLock, JsonObjectFileHelper jsonHelper) {
-    super(uploadMetadata, fileSystem, metrics, metadataPath, configuration, hostname, exceptionNotifier, checkFileOpenLock);
+                                Lock checkFileOpenLock, SingularityUploadPool uploadPool, JsonObjectFileHelper jsonHelper) {
+    super(uploadMetadata, fileSystem, metrics, metadataPath, configuration, hostname, exceptionNotifier, checkFileOpenLock, uploadPool);
     this.storage = StorageOptions.newBuilder()
         .setCredentials(loadCredentials(uploadMetadata, jsonHelper))
         .build()
@@ -109,11 +109,13 @@ public class SingularityGCSUploader extends SingularityUploader {
       }
 
       try (FileInputStream fileInputStream = new FileInputStream(file.toFile())){
-        if (uploadMetadata.getEncryptionKey().isPresent()) {
-          storage.create(blobInfoBuilder.build(), fileInputStream, BlobWriteOption.encryptionKey(uploadMetadata.getEncryptionKey().get()));
-        } else {
-          storage.create(blobInfoBuilder.build(), fileInputStream);
-        }
+        uploadPool.withBytes(fileSizeBytes, () -> {
+          if (uploadMetadata.getEncryptionKey().isPresent()) {
+            return storage.create(blobInfoBuilder.build(), fileInputStream, BlobWriteOption.encryptionKey(uploadMetadata.getEncryptionKey().get()));
+          } else {
+            return storage.create(blobInfoBuilder.build(), fileInputStream);
+          }
+        });
         LOG.info("{} Uploaded {} in {}", logIdentifier, key, JavaUtils.duration(start));
         return true;
       } catch (StorageException se) {
@@ -7,7 +7,11 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
 
 import com.amazonaws.auth.BasicAWSCredentials;
@@ -42,8 +46,9 @@ public class SingularityS3Uploader extends SingularityUploader {
   private final AmazonS3 s3Client;
 
   SingularityS3Uploader(BasicAWSCredentials defaultCredentials, S3UploadMetadata uploadMetadata, FileSystem fileSystem, SingularityS3UploaderMetrics metrics, Path metadataPath,
-                        SingularityS3UploaderConfiguration configuration, String hostname, SingularityRunnerExceptionNotifier exceptionNotifier, Lock checkFileOpenLock) {
-    super(uploadMetadata, fileSystem, metrics, metadataPath, configuration, hostname, exceptionNotifier, checkFileOpenLock);
+                        SingularityS3UploaderConfiguration configuration, String hostname, SingularityRunnerExceptionNotifier exceptionNotifier, Lock checkFileOpenLock,
+                        SingularityUploadPool uploadPool) {
+    super(uploadMetadata, fileSystem, metrics, metadataPath, configuration, hostname, exceptionNotifier, checkFileOpenLock, uploadPool);
     BasicAWSCredentials credentials = defaultCredentials;
 
     if (uploadMetadata.getS3SecretKey().isPresent() && uploadMetadata.getS3AccessKey().isPresent()) {
@@ -123,7 +128,7 @@ public class SingularityS3Uploader extends SingularityUploader {
           if (uploadMetadata.getEncryptionKey().isPresent()) {
             putObjectRequest.withSSEAwsKeyManagementParams(new SSEAwsKeyManagementParams(uploadMetadata.getEncryptionKey().get()));
           }
-          s3Client.putObject(putObjectRequest);
+          uploadPool.withBytes(fileSizeBytes, () -> s3Client.putObject(putObjectRequest));
         }
       } catch (AmazonS3Exception se) {
         LOG.warn("{} Couldn't upload {} due to {} - {}", logIdentifier, file, se.getErrorCode(), se.getErrorMessage(), se);
@@ -139,8 +144,14 @@ public class SingularityS3Uploader extends SingularityUploader {
     });
   }
 
+  /**
+   * Parts are sent in parallel on the upload pool, each one counting against the in-flight byte budget while it is sent.
+   * If a part fails, the parts that haven't started are skipped and the upload is only aborted once the ones already
+   * being sent are done, so that none of them lands after the abort and leaves its storage behind.
+   */
   private void multipartUpload(String key, File file, ObjectMetadata objectMetadata, Optional<StorageClass> maybeStorageClass) throws Exception {
-    List<PartETag> partETags = new ArrayList<>();
+    List<Future<PartETag>> partUploads = new ArrayList<>();
+    AtomicBoolean aborted = new AtomicBoolean();
     InitiateMultipartUploadRequest initRequest = new InitiateMultipartUploadRequest(bucketName, key, objectMetadata);
     if (maybeStorageClass.isPresent()) {
       initRequest.setStorageClass(maybeStorageClass.get());
@@ -154,7 +165,7 @@ public class SingularityS3Uploader extends SingularityUploader {
       long filePosition = 0;
       for (int i = 1; filePosition < contentLength; i++) {
         partSize = Math.min(partSize, (contentLength - filePosition));
-        UploadPartRequest uploadRequest = new UploadPartRequest()
+        final UploadPartRequest uploadRequest = new UploadPartRequest()
             .withBucketName(bucketName)
             .withKey(key)
             .withUploadId(initResponse.getUploadId())
@@ -162,13 +173,39 @@ public class SingularityS3Uploader extends SingularityUploader {
             .withFileOffset(filePosition)
             .withFile(file)
             .withPartSize(partSize);
-        partETags.add(s3Client.uploadPart(uploadRequest).getPartETag());
+        final long uploadPartSize = partSize;
+        partUploads.add(uploadPool.submitPart(() -> uploadPool.withBytes(uploadPartSize, () -> {
+          if (aborted.get()) {
+            throw new CancellationException(String.format("Upload of %s was aborted", key));
+          }
+          return s3Client.uploadPart(uploadRequest).getPartETag();
+        })));
         filePosition += partSize;
       }
 
+      List<PartETag> partETags = new ArrayList<>(partUploads.size());
+      for (Future<PartETag> partUpload : partUploads) {
+        try {
+          partETags.add(partUpload.get());
+        } catch (ExecutionException ee) {
+          throw Throwables.propagate(ee.getCause());
+        }
+      }
+
       CompleteMultipartUploadRequest completeRequest = new CompleteMultipartUploadRequest(bucketName, key, initResponse.getUploadId(), partETags);
       s3Client.completeMultipartUpload(completeRequest);
     } catch (Exception e) {
+      aborted.set(true);
+      for (Future<PartETag> partUpload : partUploads) {
+        try {
+          partUpload.get();
+        } catch (ExecutionException | CancellationException ignored) {
+          // Only waiting for it to be done
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+          break;
+        }
+      }
       s3Client.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, key, initResponse.getUploadId()));
       Throwables.propagate(e);
     }
@@ -69,6 +69,7 @@ public class SingularityS3UploaderDriver extends WatchServiceHelper implements S
   private final Lock runLock;
   private final Lock checkFileOpenLock;
   private final ExecutorService executorService;
+  private final SingularityUploadPool uploadPool;
   private final FileSystem fileSystem;
   private final Set<SingularityUploader> expiring;
   private final SingularityS3UploaderMetrics metrics;
@@ -108,6 +109,8 @@ public class SingularityS3UploaderDriver extends WatchServiceHelper implements S
     this.processUtils = new ProcessUtils(LOG);
 
     this.executorService = JavaUtils.newFixedTimingOutThreadPool(configuration.getExecutorMaxUploadThreads(), TimeUnit.SECONDS.toMillis(30), "SingularityS3Uploader-%d");
+    this.uploadPool = new SingularityUploadPool(configuration);
+    this.metrics.setUploadPool(uploadPool);
     this.scheduler = Executors.newScheduledThreadPool(1, new ThreadFactoryBuilder().setNameFormat("SingularityS3Driver-%d").build());
     this.hostname = hostname;
     this.exceptionNotifier = exceptionNotifier;
@@ -213,6 +216,7 @@ public class SingularityS3UploaderDriver extends WatchServiceHelper implements S
 
     scheduler.shutdown();
     executorService.shutdown();
+    uploadPool.shutdown();
 
     LOG.info("Shut down in {}", JavaUtils.duration(start));
   }
@@ -483,9 +487,9 @@ public class SingularityS3UploaderDriver extends WatchServiceHelper implements S
       final SingularityUploader uploader;
 
       if (metadata.getUploaderType() == SingularityUploaderType.S3) {
-        uploader = new SingularityS3Uploader(bucketCreds.or(defaultCredentials), metadata, fileSystem, metrics, filename, configuration, hostname, exceptionNotifier, checkFileOpenLock);
+        uploader = new SingularityS3Uploader(bucketCreds.or(defaultCredentials), metadata, fileSystem, metrics, filename, configuration, hostname, exceptionNotifier, checkFileOpenLock, uploadPool);
       } else {
-        uploader = new SingularityGCSUploader(metadata, fileSystem, metrics, filename, configuration, hostname, exceptionNotifier, checkFileOpenLock, jsonObjectFileHelper);
+        uploader = new SingularityGCSUploader(metadata, fileSystem, metrics, filename, configuration, hostname, exceptionNotifier, checkFileOpenLock, uploadPool, jsonObjectFileHelper);
       }
 
       if (metadata.isFinished()) {
@@ -32,9 +32,12 @@ public class SingularityS3UploaderMetrics extends AbstractFileMetricsReporter {
   private final Counter immediateUploaderCounter;
   private final Counter errorCounter;
   private final Timer uploadTimer;
+  private final Meter uploadedBytesMeter;
+  private final Counter queuedUploadsCounter;
   private final Meter filesystemEventsMeter;
 
   private Optional<Collection<SingularityUploader>> expiring;
+  private Optional<SingularityUploadPool> uploadPool;
 
   private long timeOfLastSuccessUpload;
   private int lastUploadDuration;
@@ -52,8 +55,11 @@ public class SingularityS3UploaderMetrics extends AbstractFileMetricsReporter {
     this.uploadCounter = registry.counter(name("uploads", "success"));
     this.errorCounter = registry.counter(name("uploads", "errors"));
     this.uploadTimer = registry.timer(name("uploads", "timer"));
+    this.uploadedBytesMeter = registry.meter(name("uploads", "bytes"));
+    this.queuedUploadsCounter = registry.counter(name("uploads", "queued"));
 
     this.expiring = Optional.absent();
+    this.uploadPool = Optional.absent();
     this.timeOfLastSuccessUpload = -1;
 
     registry.register(name("uploads", "millissincelast"), new Gauge<Integer>() {
@@ -91,6 +97,19 @@ public class SingularityS3UploaderMetrics extends AbstractFileMetricsReporter {
 
     });
 
+    registry.register(name("uploads", "inflightbytes"), new Gauge<Long>() {
+
+      @Override
+      public Long getValue() {
+        if (!uploadPool.isPresent()) {
+          return 0L;
+        }
+
+        return uploadPool.get().getInFlightBytes();
+      }
+
+    });
+
     this.filesystemEventsMeter = registry.meter(name("filesystem", "events"));
 
     startJmxReporter();
@@ -104,8 +123,13 @@ public class SingularityS3UploaderMetrics extends AbstractFileMetricsReporter {
     this.expiring = Optional.of(expiring);
   }
 
-  public void upload() {
+  public void setUploadPool(SingularityUploadPool uploadPool) {
+    this.uploadPool = Optional.of(uploadPool);
+  }
+
+  public void upload(long bytes) {
     uploadCounter.inc();
+    uploadedBytesMeter.mark(bytes);
     timeOfLastSuccessUpload = System.currentTimeMillis();
   }
 
@@ -149,6 +173,14 @@ public class SingularityS3UploaderMetrics extends AbstractFileMetricsReporter {
     return uploadTimer;
   }
 
+  public Meter getUploadedBytesMeter() {
+    return uploadedBytesMeter;
+  }
+
+  public Counter getQueuedUploadsCounter() {
+    return queuedUploadsCounter;
+  }
+
   public Meter getFilesystemEventsMeter() {
     return filesystemEventsMeter;
   }
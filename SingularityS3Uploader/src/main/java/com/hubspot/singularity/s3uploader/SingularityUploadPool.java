@@ -0,0 +1,74 @@
+package com.hubspot.singularity.s3uploader;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import com.hubspot.mesos.JavaUtils;
+import com.hubspot.singularity.s3uploader.config.SingularityS3UploaderConfiguration;
+
+/**
+ * Shared by every uploader in the driver. The files of an uploader, and the parts of a multipart upload, are sent on
+ * their own thread pools, so that neither waits on a thread held by the level above it. The number of bytes being
+ * sent at once is limited across all of them, and transfers are let in first come, first served, so a large one isn't
+ * passed over by a stream of small ones. A single transfer larger than the whole budget takes all of it.
+ */
+public class SingularityUploadPool {
+  // The budget is counted in KiB so that it fits the permits of a Semaphore
+  private static final long BYTES_PER_PERMIT = 1024;
+
+  private final ExecutorService fileExecutor;
+  private final ExecutorService partExecutor;
+  private final int maxPermits;
+  private final Semaphore permits;
+  private final AtomicLong inFlightBytes;
+
+  public SingularityUploadPool(SingularityS3UploaderConfiguration configuration) {
+    this.fileExecutor = JavaUtils.newFixedTimingOutThreadPool(configuration.getMaxConcurrentFileUploads(), TimeUnit.SECONDS.toMillis(30), "SingularityS3Uploader-file-%d");
+    this.partExecutor = JavaUtils.newFixedTimingOutThreadPool(configuration.getMaxConcurrentUploadParts(), TimeUnit.SECONDS.toMillis(30), "SingularityS3Uploader-part-%d");
+    this.maxPermits = (int) Math.min(Integer.MAX_VALUE, Math.max(1, configuration.getMaxInFlightUploadBytes() / BYTES_PER_PERMIT));
+    this.permits = new Semaphore(maxPermits, true);
+    this.inFlightBytes = new AtomicLong();
+  }
+
+  <T> CompletableFuture<T> submitFile(Supplier<T> upload) {
+    return CompletableFuture.supplyAsync(upload, fileExecutor);
+  }
+
+  <T> Future<T> submitPart(Callable<T> upload) {
+    return partExecutor.submit(upload);
+  }
+
+  /**
+   * Runs a transfer of the given size once it fits into the byte budget.
+   */
+  <T> T withBytes(long bytes, Callable<T> transfer) throws Exception {
+    final int needed = permitsFor(bytes);
+    permits.acquire(needed);
+    inFlightBytes.addAndGet(bytes);
+    try {
+      return transfer.call();
+    } finally {
+      inFlightBytes.addAndGet(-bytes);
+      permits.release(needed);
+    }
+  }
+
+  public long getInFlightBytes() {
+    return inFlightBytes.get();
+  }
+
+  private int permitsFor(long bytes) {
+    return (int) Math.min(maxPermits, Math.max(1, (bytes + BYTES_PER_PERMIT - 1) / BYTES_PER_PERMIT));
+  }
+
+  void shutdown() {
+    fileExecutor.shutdown();
+    partExecutor.shutdown();
+  }
+}
@@ -11,11 +11,17 @@ import java.nio.file.Path;
 import java.nio.file.PathMatcher;
 import java.nio.file.Paths;
 import java.nio.file.attribute.UserDefinedFileAttributeView;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.slf4j.Logger;
@@ -23,6 +29,7 @@ import org.slf4j.LoggerFactory;
 
 import com.codahale.metrics.Timer.Context;
 import com.github.rholder.retry.RetryException;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Optional;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
@@ -53,6 +60,7 @@ public abstract class SingularityUploader {
   final SingularityS3UploaderConfiguration configuration;
   private final SingularityRunnerExceptionNotifier exceptionNotifier;
   private final Lock checkFileOpenLock;
+  final SingularityUploadPool uploadPool;
 
   SingularityUploader(S3UploadMetadata uploadMetadata,
                       FileSystem fileSystem,
@@ -61,7 +69,8 @@ public abstract class SingularityUploader {
                       SingularityS3UploaderConfiguration configuration,
                       String hostname,
                       SingularityRunnerExceptionNotifier exceptionNotifier,
-                      Lock checkFileOpenLock) {
+                      Lock checkFileOpenLock,
+                      SingularityUploadPool uploadPool) {
     this.metrics = metrics;
     this.uploadMetadata = uploadMetadata;
     this.fileDirectory = uploadMetadata.getDirectory();
@@ -81,38 +90,51 @@ public abstract class SingularityUploader {
     this.exceptionNotifier = exceptionNotifier;
 
     this.checkFileOpenLock = checkFileOpenLock;
+    this.uploadPool = uploadPool;
   }
 
   protected abstract void uploadSingle(int sequence, Path file) throws Exception;
 
+  /**
+   * Files are uploaded in parallel on the shared upload pool, keeping the sequence number of their place in the batch.
+   * The first file is uploaded on the calling thread, so every uploader makes progress even while the pool is busy
+   * with the batches of others.
+   */
   int uploadBatch(List<Path> toUpload) {
     final long start = System.currentTimeMillis();
     LOG.info("{} Uploading {} item(s)", logIdentifier, toUpload.size());
 
-    int success = 0;
+    final Set<Path> openFiles = configuration.isCheckForOpenFiles() ? findOpenFiles(toUpload, configuration.isCheckOpenFilesViaFuser()) : Collections.emptySet();
+    final List<CompletableFuture<Boolean>> uploads = new ArrayList<>(toUpload.size());
+    Optional<Integer> firstSequence = Optional.absent();
 
     for (int i = 0; i < toUpload.size(); i++) {
-      final Context context = metrics.getUploadTimer().time();
+      final int sequence = i;
       final Path file = toUpload.get(i);
-      if (!configuration.isCheckForOpenFiles() || !isFileOpen(file, configuration.isCheckOpenFilesViaFuser())) {
-        try {
-          uploadSingle(i, file);
-          metrics.upload();
-          success++;
-          Files.delete(file);
-        } catch (RetryException re) {
-          metrics.error();
-          LOG.warn("{} Couldn't upload or delete {}", logIdentifier, file, re);
-          exceptionNotifier.notify(String.format("%s exception during upload", re.getCause().getClass()), re.getCause(), ImmutableMap.of("logIdentifier", logIdentifier, "file", file.toString(), "failedAttempts", Integer.toString(re.getNumberOfFailedAttempts())));
-        } catch (Exception e) {
-          metrics.error();
-          LOG.warn("{} Couldn't upload or delete {}", logIdentifier, file, e);
-          exceptionNotifier.notify(String.format("Error during upload (%s)", e.getMessage()), e, ImmutableMap.of("logIdentifier", logIdentifier, "file", file.toString()));
-        } finally {
-          context.stop();
-        }
-      } else {
+      if (openFiles.contains(file)) {
         LOG.info("{} is in use by another process, will retry upload later", file);
+        continue;
+      }
+
+      if (!firstSequence.isPresent()) {
+        firstSequence = Optional.of(sequence);
+        continue;
+      }
+
+      metrics.getQueuedUploadsCounter().inc();
+      uploads.add(uploadPool.submitFile(() -> {
+        metrics.getQueuedUploadsCounter().dec();
+        return uploadAndDelete(sequence, file);
+      }));
+    }
+
+    int success = 0;
+    if (firstSequence.isPresent() && uploadAndDelete(firstSequence.get(), toUpload.get(firstSequence.get()))) {
+      success++;
+    }
+    for (CompletableFuture<Boolean> upload : uploads) {
+      if (upload.join()) {
+        success++;
       }
     }
 
@@ -120,6 +142,29 @@ public abstract class SingularityUploader {
     return toUpload.size();
   }
 
+  private boolean uploadAndDelete(int sequence, Path file) {
+    final Context context = metrics.getUploadTimer().time();
+    boolean uploaded = false;
+    try {
+      final long fileSizeBytes = Files.size(file);
+      uploadSingle(sequence, file);
+      metrics.upload(fileSizeBytes);
+      uploaded = true;
+      Files.delete(file);
+    } catch (RetryException re) {
+      metrics.error();
+      LOG.warn("{} Couldn't upload or delete {}", logIdentifier, file, re);
+      exceptionNotifier.notify(String.format("%s exception during upload", re.getCause().getClass()), re.getCause(), ImmutableMap.of("logIdentifier", logIdentifier, "file", file.toString(), "failedAttempts", Integer.toString(re.getNumberOfFailedAttempts())));
+    } catch (Exception e) {
+      metrics.error();
+      LOG.warn("{} Couldn't upload or delete {}", logIdentifier, file, e);
+      exceptionNotifier.notify(String.format("Error during upload (%s)", e.getMessage()), e, ImmutableMap.of("logIdentifier", logIdentifier, "file", file.toString()));
+    } finally {
+      context.stop();
+    }
+    return uploaded;
+  }
+
   Path getMetadataPath() {
     return metadataPath;
   }
@@ -202,6 +247,65 @@ public abstract class SingularityUploader {
     return found;
   }
 
+  /**
+   * Checks the files of each directory with one fuser or lsof call, rather than one call per file.
+   */
+  private Set<Path> findOpenFiles(List<Path> files, boolean useFuser) {
+    Map<Path, List<Path>> filesByDirectory = files.stream()
+        .collect(Collectors.groupingBy((file) -> file.toAbsolutePath().getParent(), LinkedHashMap::new, Collectors.toList()));
+
+    Set<Path> openFiles = new HashSet<>();
+    for (List<Path> directoryFiles : filesByDirectory.values()) {
+      openFiles.addAll(findOpenFilesInDirectory(directoryFiles, useFuser));
+    }
+    return openFiles;
+  }
+
+  private Set<Path> findOpenFilesInDirectory(List<Path> files, boolean useFuser) {
+    if (files.size() == 1) {
+      return isFileOpen(files.get(0), useFuser) ? Collections.singleton(files.get(0)) : Collections.emptySet();
+    }
+
+    List<String> paths = files.stream().map((file) -> file.toAbsolutePath().toString()).collect(Collectors.toList());
+
+    try {
+      checkFileOpenLock.lock();
+      if (useFuser) {
+        SimpleProcessManager fuser = new SimpleProcessManager(LOG);
+        int exitCode = fuser.getExitCode(ImmutableList.<String>builder().add("fuser").addAll(paths).build(), CHECK_FILE_OPEN_TIMEOUT_MILLIS);
+        if (exitCode != 0) {
+          return Collections.emptySet();
+        }
+        // fuser only says that at least one of them is in use
+        return files.stream().filter((file) -> isFileOpen(file, true)).collect(Collectors.toSet());
+      } else {
+        SimpleProcessManager lsof = new SimpleProcessManager(LOG);
+        List<String> output = lsof.runCommandWithOutput(ImmutableList.<String>builder().add("lsof").addAll(paths).build(), Sets.newHashSet(0, 1));
+        return findOpenFilesInLsofOutput(files, output);
+      }
+    } catch (Exception e) {
+      LOG.warn("{} Could not check {} file(s) in {} at once, checking them one by one", logIdentifier, files.size(), files.get(0).toAbsolutePath().getParent(), e);
+      return files.stream().filter((file) -> isFileOpen(file, useFuser)).collect(Collectors.toSet());
+    } finally {
+      checkFileOpenLock.unlock();
+    }
+  }
+
+  /**
+   * The name is the last column of lsof's output, so one file's path can't match on a longer one that starts with it.
+   */
+  @VisibleForTesting
+  static Set<Path> findOpenFilesInLsofOutput(List<Path> files, List<String> output) {
+    Set<Path> openFiles = new HashSet<>();
+    for (Path file : files) {
+      String path = file.toAbsolutePath().toString();
+      if (output.stream().anyMatch((line) -> line.endsWith(" " + path) || line.contains(" " + path + " "))) {
+        openFiles.add(file);
+      }
+    }
+    return openFiles;
+  }
+
   private boolean isFileOpen(Path path, boolean useFuser) {
     try {
       checkFileOpenLock.lock();
@@ -28,6 +28,18 @@ public class SingularityS3UploaderConfiguration extends BaseRunnerConfiguration
   @JsonProperty
   private int executorMaxUploadThreads = 25;
 
+  @Min(1)
+  @JsonProperty
+  private int maxConcurrentFileUploads = 10;
+
+  @Min(1)
+  @JsonProperty
+  private int maxConcurrentUploadParts = 10;
+
+  @Min(1)
+  @JsonProperty
+  private long maxInFlightUploadBytes = 536870912L;
+
   @Min(1)
   @JsonProperty
   private long checkUploadsEverySeconds = 600;
@@ -96,6 +108,30 @@ public class SingularityS3UploaderConfiguration extends BaseRunnerConfiguration
     this.executorMaxUploadThreads = executorMaxUploadThreads;
   }
 
+  public int getMaxConcurrentFileUploads() {
+    return maxConcurrentFileUploads;
+  }
+
+  public void setMaxConcurrentFileUploads(int maxConcurrentFileUploads) {
+    this.maxConcurrentFileUploads = maxConcurrentFileUploads;
+  }
+
+  public int getMaxConcurrentUploadParts() {
+    return maxConcurrentUploadParts;
+  }
+
+  public void setMaxConcurrentUploadParts(int maxConcurrentUploadParts) {
+    this.maxConcurrentUploadParts = maxConcurrentUploadParts;
+  }
+
+  public long getMaxInFlightUploadBytes() {
+    return maxInFlightUploadBytes;
+  }
+
+  public void setMaxInFlightUploadBytes(long maxInFlightUploadBytes) {
+    this.maxInFlightUploadBytes = maxInFlightUploadBytes;
+  }
+
   public long getCheckUploadsEverySeconds() {
     return checkUploadsEverySeconds;
   }
@@ -197,6 +233,9 @@ public class SingularityS3UploaderConfiguration extends BaseRunnerConfiguration
     return "SingularityS3UploaderConfiguration{" +
         "pollForShutDownMillis=" + pollForShutDownMillis +
         ", executorMaxUploadThreads=" + executorMaxUploadThreads +
+        ", maxConcurrentFileUploads=" + maxConcurrentFileUploads +
+        ", maxConcurrentUploadParts=" + maxConcurrentUploadParts +
+        ", maxInFlightUploadBytes=" + maxInFlightUploadBytes +
         ", checkUploadsEverySeconds=" + checkUploadsEverySeconds +
         ", stopCheckingAfterMillisWithoutNewFile=" + stopCheckingAfterMillisWithoutNewFile +
         ", s3AccessKey=" + s3AccessKey +
@@ -0,0 +1,84 @@
+package com.hubspot.singularity.s3uploader;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.hubspot.singularity.s3uploader.config.SingularityS3UploaderConfiguration;
+
+public class SingularityUploadPoolTest {
+
+  private SingularityUploadPool uploadPool;
+
+  @Before
+  public void setup() {
+    SingularityS3UploaderConfiguration configuration = new SingularityS3UploaderConfiguration();
+    configuration.setMaxInFlightUploadBytes(4096);
+    uploadPool = new SingularityUploadPool(configuration);
+  }
+
+  @After
+  public void teardown() {
+    uploadPool.shutdown();
+  }
+
+  @Test
+  public void itLetsATransferLargerThanTheBudgetThroughOnItsOwn() throws Exception {
+    Assert.assertEquals(10000L, (long) uploadPool.withBytes(10000, uploadPool::getInFlightBytes));
+    Assert.assertEquals(0, uploadPool.getInFlightBytes());
+  }
+
+  @Test
+  public void itLetsTransfersInFirstComeFirstServed() throws Exception {
+    List<String> started = new CopyOnWriteArrayList<>();
+    CountDownLatch releaseFirst = new CountDownLatch(1);
+
+    CompletableFuture<Void> first = transfer(3072, "first", started, releaseFirst);
+    waitFor(() -> started.contains("first"));
+
+    CompletableFuture<Void> large = transfer(4096, "large", started, new CountDownLatch(0));
+    Thread.sleep(100);
+    // Fits next to the first one, but the large transfer was waiting before it
+    CompletableFuture<Void> small = transfer(1024, "small", started, new CountDownLatch(0));
+    Thread.sleep(100);
+
+    Assert.assertEquals(1, started.size());
+    Assert.assertEquals(3072, uploadPool.getInFlightBytes());
+
+    releaseFirst.countDown();
+    CompletableFuture.allOf(first, large, small).get(5, TimeUnit.SECONDS);
+
+    Assert.assertEquals(0, uploadPool.getInFlightBytes());
+    Assert.assertEquals("large", started.get(1));
+    Assert.assertEquals("small", started.get(2));
+  }
+
+  private CompletableFuture<Void> transfer(long bytes, String name, List<String> started, CountDownLatch release) {
+    return CompletableFuture.runAsync(() -> {
+      try {
+        uploadPool.withBytes(bytes, () -> {
+          started.add(name);
+          release.await();
+          return null;
+        });
+      } catch (Exception e) {
+        throw new RuntimeException(e);
+      }
+    }, (runnable) -> new Thread(runnable).start());
+  }
+
+  private void waitFor(BooleanSupplier condition) throws InterruptedException {
+    long waitUntil = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+    while (!condition.getAsBoolean() && System.currentTimeMillis() < waitUntil) {
+      Thread.sleep(10);
+    }
+  }
+}
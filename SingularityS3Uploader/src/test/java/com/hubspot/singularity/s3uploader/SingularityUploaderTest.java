@@ -0,0 +1,36 @@
+package com.hubspot.singularity.s3uploader;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SingularityUploaderTest {
+
+  private final Path serviceLog = Paths.get("/var/log/service/service.log");
+  private final Path rotatedServiceLog = Paths.get("/var/log/service/service.log.1");
+  private final Path otherLog = Paths.get("/var/log/service/other.log");
+
+  @Test
+  public void itFindsTheFilesLsofListsAsOpen() {
+    Assert.assertEquals(new HashSet<>(Arrays.asList(serviceLog, otherLog)), SingularityUploader.findOpenFilesInLsofOutput(Arrays.asList(serviceLog, rotatedServiceLog, otherLog), Arrays.asList(
+        "COMMAND   PID USER   FD   TYPE DEVICE SIZE/OFF    NODE NAME",
+        "java    12345 root    5w   REG  253,1     1024 4194305 /var/log/service/service.log",
+        "java    12345 root    6w   REG  253,1       10 4194306 /var/log/service/other.log (deleted)")));
+  }
+
+  @Test
+  public void itDoesntMatchAFileOnALongerPathThatStartsWithIt() {
+    Assert.assertEquals(Collections.singleton(rotatedServiceLog), SingularityUploader.findOpenFilesInLsofOutput(Arrays.asList(serviceLog, rotatedServiceLog), Collections.singletonList(
+        "java    12345 root    5w   REG  253,1     1024 4194305 /var/log/service/service.log.1")));
+  }
+
+  @Test
+  public void itFindsNoOpenFilesWithoutOutput() {
+    Assert.assertTrue(SingularityUploader.findOpenFilesInLsofOutput(Arrays.asList(serviceLog, otherLog), Collections.emptyList()).isEmpty());
+  }
+}
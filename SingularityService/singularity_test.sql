@@ -32,3 +32,11 @@ CREATE TABLE taskHistory (
   bytes BLOB NOT NULL,
   purged BOOLEAN NOT NULL DEFAULT false,
 );
+
+CREATE TABLE usageHistory (
+  usageType VARCHAR(10) NOT NULL,
+  id VARCHAR(200) NOT NULL,
+  sampledAt DOUBLE NOT NULL,
+  bytes BLOB NOT NULL,
+  PRIMARY KEY (usageType, id, sampledAt),
+);
@@ -25,6 +25,7 @@ import com.hubspot.singularity.config.SingularityConfiguration;
 import com.hubspot.singularity.data.StateManager;
 import com.hubspot.singularity.mesos.OfferCache;
 import com.hubspot.singularity.mesos.SingularityMesosScheduler;
+import com.hubspot.singularity.scheduler.SingularityLeaderCacheCoordinator;
 import com.hubspot.singularity.sentry.SingularityExceptionNotifier;
 
 import io.dropwizard.lifecycle.Managed;
@@ -42,6 +43,8 @@ public class SingularityLeaderController implements Managed, LeaderLatchListener
   private final StatePoller statePoller;
   private final SingularityMesosScheduler scheduler;
   private final OfferCache offerCache;
+  private final SingularityLeaderCacheCoordinator leaderCacheCoordinator;
+  private final boolean warmStandby;
 
   private volatile boolean master;
 
@@ -52,7 +55,8 @@ public class SingularityLeaderController implements Managed, LeaderLatchListener
                                      SingularityExceptionNotifier exceptionNotifier,
                                      @Named(SingularityMainModule.HTTP_HOST_AND_PORT) HostAndPort hostAndPort,
                                      SingularityMesosScheduler scheduler,
-                                     OfferCache offerCache) {
+                                     OfferCache offerCache,
+                                     SingularityLeaderCacheCoordinator leaderCacheCoordinator) {
     this.stateManager = stateManager;
     this.abort = abort;
     this.exceptionNotifier = exceptionNotifier;
@@ -64,11 +68,18 @@ public class SingularityLeaderController implements Managed, LeaderLatchListener
 
     this.offerCache = offerCache;
 
+    this.leaderCacheCoordinator = leaderCacheCoordinator;
+    this.warmStandby = configuration.isWarmStandby();
+
     this.master = false;
   }
 
   @Override
   public void start() throws Exception {
+    if (warmStandby) {
+      leaderCacheCoordinator.startReplica();
+    }
+
     statePoller.start();
   }
 
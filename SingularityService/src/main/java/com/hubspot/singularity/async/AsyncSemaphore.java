@@ -265,4 +265,11 @@ public class AsyncSemaphore<T> {
   public int getConcurrentRequests() {
     return concurrentRequests.get();
   }
+
+  /**
+   * Stops the periodic queue flush of a semaphore that won't be used anymore
+   */
+  public void stopFlushingQueue() {
+    flushingExecutor.shutdownNow();
+  }
 }
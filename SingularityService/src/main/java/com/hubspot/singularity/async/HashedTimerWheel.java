@@ -0,0 +1,155 @@
+package com.hubspot.singularity.async;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Runs delayed tasks off a single ticking timer. Tasks are hashed into a fixed ring of buckets by the tick they are due
+ * on, so scheduling or cancelling one is constant time and a scheduled task is just a small entry in a bucket, instead
+ * of a ScheduledFuture in the executor's delay queue.
+ *
+ * A task runs at most one tick late, as long as the executor keeps up. Ticks that were missed are caught up on by
+ * wall clock time.
+ */
+public class HashedTimerWheel {
+  private static final Logger LOG = LoggerFactory.getLogger(HashedTimerWheel.class);
+
+  private final ScheduledExecutorService executor;
+  private final long tickMillis;
+  private final long startMillis;
+  private final List<Set<WheelTask>> buckets;
+  private final int mask;
+
+  private long currentTick;
+  private int size;
+
+  /**
+   * @param executor - Drives the tick and runs the tasks that are due
+   * @param wheelSize - Number of buckets, rounded up to a power of two
+   */
+  public HashedTimerWheel(ScheduledExecutorService executor, long tickMillis, int wheelSize) {
+    Preconditions.checkArgument(tickMillis > 0, "tickMillis must be positive");
+    Preconditions.checkArgument(wheelSize > 0, "wheelSize must be positive");
+
+    int numBuckets = wheelSize == 1 ? 1 : Integer.highestOneBit(wheelSize - 1) << 1;
+    this.executor = executor;
+    this.tickMillis = tickMillis;
+    this.startMillis = System.currentTimeMillis();
+    this.buckets = new ArrayList<>(numBuckets);
+    for (int i = 0; i < numBuckets; i++) {
+      this.buckets.add(new HashSet<>());
+    }
+    this.mask = this.buckets.size() - 1;
+
+    executor.scheduleAtFixedRate(this::advance, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+  }
+
+  public WheelTask schedule(Runnable runnable, long delay, TimeUnit timeUnit) {
+    WheelTask task = new WheelTask(runnable, System.currentTimeMillis() + timeUnit.toMillis(Math.max(delay, 0)));
+
+    synchronized (this) {
+      long elapsedMillis = task.deadlineMillis - startMillis;
+      task.deadlineTick = Math.max(currentTick + 1, (elapsedMillis + tickMillis - 1) / tickMillis);
+      buckets.get((int) (task.deadlineTick & mask)).add(task);
+      size++;
+    }
+
+    return task;
+  }
+
+  /**
+   * Number of tasks that are waiting to run.
+   */
+  public synchronized int size() {
+    return size;
+  }
+
+  private synchronized boolean remove(WheelTask task) {
+    if (buckets.get((int) (task.deadlineTick & mask)).remove(task)) {
+      size--;
+      return true;
+    }
+    return false;
+  }
+
+  private void advance() {
+    List<WheelTask> due = new ArrayList<>();
+
+    synchronized (this) {
+      long targetTick = (System.currentTimeMillis() - startMillis) / tickMillis;
+
+      // After a long enough pause every bucket is looked at once, anything due in them is expired regardless of round
+      long fromTick = Math.max(currentTick + 1, targetTick - mask);
+      for (long tick = fromTick; tick <= targetTick; tick++) {
+        Iterator<WheelTask> iterator = buckets.get((int) (tick & mask)).iterator();
+        while (iterator.hasNext()) {
+          WheelTask task = iterator.next();
+          if (task.deadlineTick <= targetTick) {
+            iterator.remove();
+            due.add(task);
+          }
+        }
+      }
+
+      currentTick = Math.max(currentTick, targetTick);
+      size -= due.size();
+    }
+
+    for (WheelTask task : due) {
+      try {
+        executor.execute(task::run);
+      } catch (Throwable t) {
+        LOG.warn("Couldn't run a timer wheel task", t);
+        task.completeExceptionally(t);
+      }
+    }
+  }
+
+  /**
+   * Completes once the task has run. Cancelling it before then takes it off the wheel.
+   */
+  public class WheelTask extends CompletableFuture<Void> {
+    private final Runnable runnable;
+    private final long deadlineMillis;
+    private long deadlineTick;
+
+    private WheelTask(Runnable runnable, long deadlineMillis) {
+      this.runnable = runnable;
+      this.deadlineMillis = deadlineMillis;
+    }
+
+    public long getDeadlineMillis() {
+      return deadlineMillis;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      remove(this);
+      return super.cancel(mayInterruptIfRunning);
+    }
+
+    private void run() {
+      if (isDone()) {
+        return;
+      }
+
+      try {
+        runnable.run();
+        complete(null);
+      } catch (Throwable t) {
+        completeExceptionally(t);
+      }
+    }
+  }
+}
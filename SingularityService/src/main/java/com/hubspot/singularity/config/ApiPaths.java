@@ -25,4 +25,5 @@ public class ApiPaths {
   public static final String WEBHOOK_RESOURCE_PATH = API_BASE_PATH + "/webhooks";
   public static final String OPEN_API_RESOURCE_PATH = API_BASE_PATH + "/openapi.json";
   public static final String NOTIFICATIONS_RESOURCE_PATH = API_BASE_PATH + "/notifications";
+  public static final String EVENTS_RESOURCE_PATH = API_BASE_PATH + "/events";
 }
@@ -19,7 +19,13 @@ public class HistoryPurgingConfiguration {
 
   private boolean enabled = false;
 
-  private int purgeLimitPerQuery = 25000;
+  private int purgeLimitPerQuery = 1000;
+
+  private int purgeMaxRowsPerSecond = 5000;
+
+  private int maxReplicationLagSeconds = 0;
+
+  private Optional<String> replicationLagQuery = Optional.absent();
 
   private int purgeStaleRequestIdsAfterDays = 7;
 
@@ -103,4 +109,28 @@ public class HistoryPurgingConfiguration {
   public void setPurgeStaleRequestIdsAfterDays(int purgeStaleRequestIdsAfterDays) {
     this.purgeStaleRequestIdsAfterDays = purgeStaleRequestIdsAfterDays;
   }
+
+  public int getPurgeMaxRowsPerSecond() {
+    return purgeMaxRowsPerSecond;
+  }
+
+  public void setPurgeMaxRowsPerSecond(int purgeMaxRowsPerSecond) {
+    this.purgeMaxRowsPerSecond = purgeMaxRowsPerSecond;
+  }
+
+  public int getMaxReplicationLagSeconds() {
+    return maxReplicationLagSeconds;
+  }
+
+  public void setMaxReplicationLagSeconds(int maxReplicationLagSeconds) {
+    this.maxReplicationLagSeconds = maxReplicationLagSeconds;
+  }
+
+  public Optional<String> getReplicationLagQuery() {
+    return replicationLagQuery;
+  }
+
+  public void setReplicationLagQuery(Optional<String> replicationLagQuery) {
+    this.replicationLagQuery = replicationLagQuery;
+  }
 }
@@ -19,6 +19,7 @@ import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableMap;
 import com.hubspot.singularity.RequestType;
 import com.hubspot.singularity.SlavePlacement;
+import com.hubspot.singularity.data.usage.UsageStoreType;
 
 import io.dropwizard.Configuration;
 import io.dropwizard.db.DataSourceFactory;
@@ -40,6 +41,8 @@ public class SingularityConfiguration extends Configuration {
 
   private long cacheForWebForMillis = TimeUnit.SECONDS.toMillis(30);
 
+  private int maxRemovedIdsForDeltas = 10000;
+
   private int cacheTasksMaxSize = 5000;
 
   private int cacheTasksInitialSize = 100;
@@ -54,6 +57,8 @@ public class SingularityConfiguration extends Configuration {
 
   private long cacheStateForMillis = TimeUnit.SECONDS.toMillis(30);
 
+  private long publishStateEveryMillis = TimeUnit.SECONDS.toMillis(10);
+
   private long checkDeploysEverySeconds = 5;
 
   private long checkAutoSpreadAllSlavesEverySeconds = 30;
@@ -82,6 +87,12 @@ public class SingularityConfiguration extends Configuration {
 
   private int maxConcurrentUsageCollections = 15;
 
+  private int maxUsageCollectionFailuresBeforeBackoff = 3;
+
+  private long usageCollectionBackoffMillis = TimeUnit.MINUTES.toMillis(5);
+
+  private int maxConcurrentPendingQueueDrains = 10;
+
   private boolean shuffleTasksForOverloadedSlaves = false; // recommended 'true' when oversubscribing cpu for larger clusters
 
   private int maxTasksToShuffleTotal = 6; // Do not allow more than this many shuffle cleanups at once cluster-wide
@@ -96,6 +107,10 @@ public class SingularityConfiguration extends Configuration {
 
   private int numUsageToKeep = 15;
 
+  private double minRequestUtilizationChangeToPersist = 0.05;
+
+  private UsageStoreType usageStore = UsageStoreType.ZOOKEEPER;
+
   private long cleanupEverySeconds = 5;
 
   private long checkQueuedMailsEveryMillis = TimeUnit.SECONDS.toMillis(15);
@@ -177,6 +192,12 @@ public class SingularityConfiguration extends Configuration {
 
   private int healthcheckTimeoutSeconds = 5;
 
+  @Min(1)
+  private long healthcheckTimerTickMillis = 100;
+
+  @Min(1)
+  private int maxConcurrentHealthchecksPerAgent = 20;
+
   private Optional<Integer> startupDelaySeconds = Optional.absent();
 
   private int startupTimeoutSeconds = 45;
@@ -249,6 +270,8 @@ public class SingularityConfiguration extends Configuration {
 
   private long persistHistoryEverySeconds = TimeUnit.HOURS.toSeconds(1);
 
+  private int persistHistoryBatchSize = 100;
+
   private long reconcileSlavesEveryMinutes = TimeUnit.HOURS.toMinutes(1);
 
   @JsonProperty("s3")
@@ -321,6 +344,35 @@ public class SingularityConfiguration extends Configuration {
 
   private int maxConcurrentWebhooks = 100;
 
+  @Min(1)
+  private int webhookEventLogSegmentSize = 500;
+
+  @Min(1)
+  private int maxConcurrentRequestsPerWebhook = 10;
+
+  @Min(1)
+  private int maxWebhookBatchSize = 100;
+
+  private long webhookBatchLingerMillis = 0;
+
+  private long webhookCheckTimeoutMillis = TimeUnit.MINUTES.toMillis(10);
+
+  private long webhookInitialBackoffMillis = TimeUnit.SECONDS.toMillis(10);
+
+  private long webhookMaxBackoffMillis = TimeUnit.MINUTES.toMillis(5);
+
+  @Min(1)
+  private int eventStreamReplayBufferSize = 10000;
+
+  @Min(1)
+  private int eventStreamSubscriberBufferSize = 1000;
+
+  private int maxEventStreamSubscribers = 50;
+
+  private long eventStreamHeartbeatMillis = TimeUnit.SECONDS.toMillis(15);
+
+  private long eventStreamSubscribeTimeoutMillis = TimeUnit.SECONDS.toMillis(30);
+
   @JsonProperty("auth")
   @NotNull
   @Valid
@@ -336,6 +388,12 @@ public class SingularityConfiguration extends Configuration {
 
   private boolean taskHistoryQueryUsesZkFirst = false;
 
+  private long cacheTaskHistoryCountsForMillis = TimeUnit.SECONDS.toMillis(30);
+
+  private long historyCacheMaxBytes = 32 * 1024 * 1024;
+
+  private long historyCacheExpireAfterMillis = TimeUnit.HOURS.toMillis(1);
+
   @JsonProperty("disasterDetection")
   @NotNull
   @Valid
@@ -386,6 +444,10 @@ public class SingularityConfiguration extends Configuration {
 
   private boolean reCheckMetricsForLargeNewTaskCount = false;
 
+  private boolean watchLeaderCache = false;
+
+  private boolean warmStandby = false;
+
   public long getAskDriverToKillTasksAgainAfterMillis() {
     return askDriverToKillTasksAgainAfterMillis;
   }
@@ -474,6 +536,14 @@ public class SingularityConfiguration extends Configuration {
     this.cacheForWebForMillis = cacheForWebForMillis;
   }
 
+  public int getMaxRemovedIdsForDeltas() {
+    return maxRemovedIdsForDeltas;
+  }
+
+  public void setMaxRemovedIdsForDeltas(int maxRemovedIdsForDeltas) {
+    this.maxRemovedIdsForDeltas = maxRemovedIdsForDeltas;
+  }
+
   public void setPendingDeployHoldTaskDuringDecommissionMillis(long pendingDeployHoldTaskDuringDecommissionMillis) {
     this.pendingDeployHoldTaskDuringDecommissionMillis = pendingDeployHoldTaskDuringDecommissionMillis;
   }
@@ -750,6 +820,14 @@ public class SingularityConfiguration extends Configuration {
     return persistHistoryEverySeconds;
   }
 
+  public int getPersistHistoryBatchSize() {
+    return persistHistoryBatchSize;
+  }
+
+  public void setPersistHistoryBatchSize(int persistHistoryBatchSize) {
+    this.persistHistoryBatchSize = persistHistoryBatchSize;
+  }
+
   @JsonIgnore
   public Optional<S3Configuration> getS3ConfigurationOptional() {
     return Optional.fromNullable(s3Configuration);
@@ -886,6 +964,14 @@ public class SingularityConfiguration extends Configuration {
     this.cacheStateForMillis = cacheStateForMillis;
   }
 
+  public long getPublishStateEveryMillis() {
+    return publishStateEveryMillis;
+  }
+
+  public void setPublishStateEveryMillis(long publishStateEveryMillis) {
+    this.publishStateEveryMillis = publishStateEveryMillis;
+  }
+
   public void setCheckDeploysEverySeconds(long checkDeploysEverySeconds) {
     this.checkDeploysEverySeconds = checkDeploysEverySeconds;
   }
@@ -1026,6 +1112,22 @@ public class SingularityConfiguration extends Configuration {
     this.healthcheckTimeoutSeconds = healthcheckTimeoutSeconds;
   }
 
+  public long getHealthcheckTimerTickMillis() {
+    return healthcheckTimerTickMillis;
+  }
+
+  public void setHealthcheckTimerTickMillis(long healthcheckTimerTickMillis) {
+    this.healthcheckTimerTickMillis = healthcheckTimerTickMillis;
+  }
+
+  public int getMaxConcurrentHealthchecksPerAgent() {
+    return maxConcurrentHealthchecksPerAgent;
+  }
+
+  public void setMaxConcurrentHealthchecksPerAgent(int maxConcurrentHealthchecksPerAgent) {
+    this.maxConcurrentHealthchecksPerAgent = maxConcurrentHealthchecksPerAgent;
+  }
+
   public void setHealthcheckMaxRetries(Optional<Integer> healthcheckMaxRetries) {
     this.healthcheckMaxRetries = healthcheckMaxRetries;
   }
@@ -1258,6 +1360,102 @@ public class SingularityConfiguration extends Configuration {
     this.maxConcurrentWebhooks = maxConcurrentWebhooks;
   }
 
+  public int getWebhookEventLogSegmentSize() {
+    return webhookEventLogSegmentSize;
+  }
+
+  public void setWebhookEventLogSegmentSize(int webhookEventLogSegmentSize) {
+    this.webhookEventLogSegmentSize = webhookEventLogSegmentSize;
+  }
+
+  public int getMaxConcurrentRequestsPerWebhook() {
+    return maxConcurrentRequestsPerWebhook;
+  }
+
+  public void setMaxConcurrentRequestsPerWebhook(int maxConcurrentRequestsPerWebhook) {
+    this.maxConcurrentRequestsPerWebhook = maxConcurrentRequestsPerWebhook;
+  }
+
+  public int getMaxWebhookBatchSize() {
+    return maxWebhookBatchSize;
+  }
+
+  public void setMaxWebhookBatchSize(int maxWebhookBatchSize) {
+    this.maxWebhookBatchSize = maxWebhookBatchSize;
+  }
+
+  public long getWebhookBatchLingerMillis() {
+    return webhookBatchLingerMillis;
+  }
+
+  public void setWebhookBatchLingerMillis(long webhookBatchLingerMillis) {
+    this.webhookBatchLingerMillis = webhookBatchLingerMillis;
+  }
+
+  public long getWebhookCheckTimeoutMillis() {
+    return webhookCheckTimeoutMillis;
+  }
+
+  public void setWebhookCheckTimeoutMillis(long webhookCheckTimeoutMillis) {
+    this.webhookCheckTimeoutMillis = webhookCheckTimeoutMillis;
+  }
+
+  public long getWebhookInitialBackoffMillis() {
+    return webhookInitialBackoffMillis;
+  }
+
+  public void setWebhookInitialBackoffMillis(long webhookInitialBackoffMillis) {
+    this.webhookInitialBackoffMillis = webhookInitialBackoffMillis;
+  }
+
+  public long getWebhookMaxBackoffMillis() {
+    return webhookMaxBackoffMillis;
+  }
+
+  public void setWebhookMaxBackoffMillis(long webhookMaxBackoffMillis) {
+    this.webhookMaxBackoffMillis = webhookMaxBackoffMillis;
+  }
+
+  public int getEventStreamReplayBufferSize() {
+    return eventStreamReplayBufferSize;
+  }
+
+  public void setEventStreamReplayBufferSize(int eventStreamReplayBufferSize) {
+    this.eventStreamReplayBufferSize = eventStreamReplayBufferSize;
+  }
+
+  public int getEventStreamSubscriberBufferSize() {
+    return eventStreamSubscriberBufferSize;
+  }
+
+  public void setEventStreamSubscriberBufferSize(int eventStreamSubscriberBufferSize) {
+    this.eventStreamSubscriberBufferSize = eventStreamSubscriberBufferSize;
+  }
+
+  public int getMaxEventStreamSubscribers() {
+    return maxEventStreamSubscribers;
+  }
+
+  public void setMaxEventStreamSubscribers(int maxEventStreamSubscribers) {
+    this.maxEventStreamSubscribers = maxEventStreamSubscribers;
+  }
+
+  public long getEventStreamHeartbeatMillis() {
+    return eventStreamHeartbeatMillis;
+  }
+
+  public void setEventStreamHeartbeatMillis(long eventStreamHeartbeatMillis) {
+    this.eventStreamHeartbeatMillis = eventStreamHeartbeatMillis;
+  }
+
+  public long getEventStreamSubscribeTimeoutMillis() {
+    return eventStreamSubscribeTimeoutMillis;
+  }
+
+  public void setEventStreamSubscribeTimeoutMillis(long eventStreamSubscribeTimeoutMillis) {
+    this.eventStreamSubscribeTimeoutMillis = eventStreamSubscribeTimeoutMillis;
+  }
+
   public void setLdapConfiguration(LDAPConfiguration ldapConfiguration) {
     this.ldapConfiguration = ldapConfiguration;
   }
@@ -1350,6 +1548,30 @@ public class SingularityConfiguration extends Configuration {
     this.taskHistoryQueryUsesZkFirst = taskHistoryQueryUsesZkFirst;
   }
 
+  public long getCacheTaskHistoryCountsForMillis() {
+    return cacheTaskHistoryCountsForMillis;
+  }
+
+  public void setCacheTaskHistoryCountsForMillis(long cacheTaskHistoryCountsForMillis) {
+    this.cacheTaskHistoryCountsForMillis = cacheTaskHistoryCountsForMillis;
+  }
+
+  public long getHistoryCacheMaxBytes() {
+    return historyCacheMaxBytes;
+  }
+
+  public void setHistoryCacheMaxBytes(long historyCacheMaxBytes) {
+    this.historyCacheMaxBytes = historyCacheMaxBytes;
+  }
+
+  public long getHistoryCacheExpireAfterMillis() {
+    return historyCacheExpireAfterMillis;
+  }
+
+  public void setHistoryCacheExpireAfterMillis(long historyCacheExpireAfterMillis) {
+    this.historyCacheExpireAfterMillis = historyCacheExpireAfterMillis;
+  }
+
   public Optional<String> getTaskLabelForLoadBalancerUpstreamGroup() {
     return taskLabelForLoadBalancerUpstreamGroup;
   }
@@ -1447,6 +1669,30 @@ public class SingularityConfiguration extends Configuration {
     this.maxConcurrentUsageCollections = maxConcurrentUsageCollections;
   }
 
+  public int getMaxUsageCollectionFailuresBeforeBackoff() {
+    return maxUsageCollectionFailuresBeforeBackoff;
+  }
+
+  public void setMaxUsageCollectionFailuresBeforeBackoff(int maxUsageCollectionFailuresBeforeBackoff) {
+    this.maxUsageCollectionFailuresBeforeBackoff = maxUsageCollectionFailuresBeforeBackoff;
+  }
+
+  public long getUsageCollectionBackoffMillis() {
+    return usageCollectionBackoffMillis;
+  }
+
+  public void setUsageCollectionBackoffMillis(long usageCollectionBackoffMillis) {
+    this.usageCollectionBackoffMillis = usageCollectionBackoffMillis;
+  }
+
+  public int getMaxConcurrentPendingQueueDrains() {
+    return maxConcurrentPendingQueueDrains;
+  }
+
+  public void setMaxConcurrentPendingQueueDrains(int maxConcurrentPendingQueueDrains) {
+    this.maxConcurrentPendingQueueDrains = maxConcurrentPendingQueueDrains;
+  }
+
   public int getMaxTasksToShufflePerHost() {
     return maxTasksToShufflePerHost;
   }
@@ -1503,6 +1749,22 @@ public class SingularityConfiguration extends Configuration {
     this.numUsageToKeep = numUsageToKeep;
   }
 
+  public double getMinRequestUtilizationChangeToPersist() {
+    return minRequestUtilizationChangeToPersist;
+  }
+
+  public void setMinRequestUtilizationChangeToPersist(double minRequestUtilizationChangeToPersist) {
+    this.minRequestUtilizationChangeToPersist = minRequestUtilizationChangeToPersist;
+  }
+
+  public UsageStoreType getUsageStore() {
+    return usageStore;
+  }
+
+  public void setUsageStore(UsageStoreType usageStore) {
+    this.usageStore = usageStore;
+  }
+
   public long getCacheOffersForMillis() {
     return cacheOffersForMillis;
   }
@@ -1643,4 +1905,20 @@ public class SingularityConfiguration extends Configuration {
   public void setReCheckMetricsForLargeNewTaskCount(boolean reCheckMetricsForLargeNewTaskCount) {
     this.reCheckMetricsForLargeNewTaskCount = reCheckMetricsForLargeNewTaskCount;
   }
+
+  public boolean isWatchLeaderCache() {
+    return watchLeaderCache;
+  }
+
+  public void setWatchLeaderCache(boolean watchLeaderCache) {
+    this.watchLeaderCache = watchLeaderCache;
+  }
+
+  public boolean isWarmStandby() {
+    return warmStandby;
+  }
+
+  public void setWarmStandby(boolean warmStandby) {
+    this.warmStandby = warmStandby;
+  }
 }
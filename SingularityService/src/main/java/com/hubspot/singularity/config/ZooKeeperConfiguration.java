@@ -1,5 +1,9 @@
 package com.hubspot.singularity.config;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
 import javax.validation.constraints.NotNull;
 
 public class ZooKeeperConfiguration {
@@ -17,6 +21,20 @@ public class ZooKeeperConfiguration {
   @NotNull
   private String zkNamespace;
 
+  private boolean batchWrites = false;
+
+  private int batchWritesMaxOperations = 50;
+
+  private long batchWritesLingerMillis = 5;
+
+  private boolean writeBinaryData = false;
+
+  @NotNull
+  private Map<String, String> binaryDataDictionaries = Collections.emptyMap();
+
+  @NotNull
+  private Map<String, List<String>> previousBinaryDataDictionaries = Collections.emptyMap();
+
   public String getQuorum() {
     return quorum;
   }
@@ -65,4 +83,52 @@ public class ZooKeeperConfiguration {
     this.zkNamespace = zkNamespace;
   }
 
+  public boolean isBatchWrites() {
+    return batchWrites;
+  }
+
+  public void setBatchWrites(boolean batchWrites) {
+    this.batchWrites = batchWrites;
+  }
+
+  public int getBatchWritesMaxOperations() {
+    return batchWritesMaxOperations;
+  }
+
+  public void setBatchWritesMaxOperations(int batchWritesMaxOperations) {
+    this.batchWritesMaxOperations = batchWritesMaxOperations;
+  }
+
+  public long getBatchWritesLingerMillis() {
+    return batchWritesLingerMillis;
+  }
+
+  public void setBatchWritesLingerMillis(long batchWritesLingerMillis) {
+    this.batchWritesLingerMillis = batchWritesLingerMillis;
+  }
+
+  public boolean isWriteBinaryData() {
+    return writeBinaryData;
+  }
+
+  public void setWriteBinaryData(boolean writeBinaryData) {
+    this.writeBinaryData = writeBinaryData;
+  }
+
+  public Map<String, String> getBinaryDataDictionaries() {
+    return binaryDataDictionaries;
+  }
+
+  public void setBinaryDataDictionaries(Map<String, String> binaryDataDictionaries) {
+    this.binaryDataDictionaries = binaryDataDictionaries;
+  }
+
+  public Map<String, List<String>> getPreviousBinaryDataDictionaries() {
+    return previousBinaryDataDictionaries;
+  }
+
+  public void setPreviousBinaryDataDictionaries(Map<String, List<String>> previousBinaryDataDictionaries) {
+    this.previousBinaryDataDictionaries = previousBinaryDataDictionaries;
+  }
+
 }
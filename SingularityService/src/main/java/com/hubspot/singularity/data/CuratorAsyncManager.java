@@ -9,16 +9,24 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.framework.api.BackgroundCallback;
 import org.apache.curator.framework.api.CuratorEvent;
+import org.apache.curator.framework.recipes.cache.ChildData;
+import org.apache.curator.framework.recipes.cache.PathChildrenCache;
+import org.apache.curator.framework.recipes.cache.PathChildrenCache.StartMode;
+import org.apache.curator.utils.CloseableUtils;
 import org.apache.curator.utils.ZKPaths;
+import org.apache.zookeeper.data.Stat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
 import com.google.common.base.Optional;
 import com.google.common.base.Throwables;
@@ -34,8 +42,11 @@ public abstract class CuratorAsyncManager extends CuratorManager {
 
   private static final Logger LOG = LoggerFactory.getLogger(CuratorAsyncManager.class);
 
+  private final Meter supersededEventMeter;
+
   public CuratorAsyncManager(CuratorFramework curator, SingularityConfiguration configuration, MetricRegistry metricRegistry) {
     super(curator, configuration, metricRegistry);
+    this.supersededEventMeter = metricRegistry.meter("zk.watch.superseded");
   }
 
   private enum CuratorQueryMethod {
@@ -163,6 +174,119 @@ public abstract class CuratorAsyncManager extends CuratorManager {
     return Lists.transform(getChildren(rootPath), Transcoders.getFromStringFunction(idTranscoder));
   }
 
+  /**
+   * Keeps a consumer in sync with the children of rootPath. The current children are handed to onSnapshot before this
+   * returns, every later change is handed to onUpdate/onRemove (with the child's node name) on the supplied executor.
+   * Child data is only held by the underlying cache until it has been transcoded.
+   *
+   * Writers also update the leader cache directly, so an event can arrive after a newer write to the same node has
+   * already been applied. Each event is checked against the node's current stat and dropped if it has been superseded,
+   * the event for the newer change follows it. That event also corrects an update that was checked just before a newer
+   * write landed.
+   */
+  protected <T> PathChildrenCache watchChildren(final String rootPath, final Transcoder<T> transcoder, final Executor executor,
+                                                final Consumer<List<T>> onSnapshot, final Consumer<T> onUpdate, final Consumer<String> onRemove) {
+    return watchChildData(rootPath, true, executor, (children) -> {
+      final List<T> objects = Lists.newArrayListWithCapacity(children.size());
+      for (ChildData child : children) {
+        if (child.getData() != null && child.getData().length > 0) {
+          objects.add(transcoder.fromBytes(child.getData()));
+        }
+      }
+      onSnapshot.accept(objects);
+    }, (child) -> {
+      if (child.getData() != null && child.getData().length > 0) {
+        onUpdate.accept(transcoder.fromBytes(child.getData()));
+      }
+    }, onRemove);
+  }
+
+  protected <T extends SingularityId> PathChildrenCache watchChildrenAsIds(final String rootPath, final IdTranscoder<T> idTranscoder, final Executor executor,
+                                                                         final Consumer<List<T>> onSnapshot, final Consumer<T> onAdd, final Consumer<T> onRemove) {
+    return watchChildData(rootPath, false, executor, (children) -> {
+      final List<T> ids = Lists.newArrayListWithCapacity(children.size());
+      for (ChildData child : children) {
+        ids.add(idTranscoder.fromString(ZKPaths.getNodeFromPath(child.getPath())));
+      }
+      onSnapshot.accept(ids);
+    }, (child) -> onAdd.accept(idTranscoder.fromString(ZKPaths.getNodeFromPath(child.getPath()))),
+        (id) -> onRemove.accept(idTranscoder.fromString(id)));
+  }
+
+  private PathChildrenCache watchChildData(final String rootPath, final boolean cacheData, final Executor executor,
+                                          final Consumer<List<ChildData>> onSnapshot, final Consumer<ChildData> onUpdate, final Consumer<String> onRemove) {
+    final long start = System.currentTimeMillis();
+    final PathChildrenCache cache = new PathChildrenCache(curator, rootPath, cacheData);
+
+    cache.getListenable().addListener((client, event) -> {
+      try {
+        switch (event.getType()) {
+          case CHILD_ADDED:
+          case CHILD_UPDATED:
+            if (isSuperseded(event.getData())) {
+              LOG.trace("Dropping superseded {} for {}", event.getType(), event.getData().getPath());
+              supersededEventMeter.mark();
+              break;
+            }
+            onUpdate.accept(event.getData());
+            if (cacheData) {
+              // Events share their child data with the cache, only clear it if no newer version has been queued since
+              cache.clearDataBytes(event.getData().getPath(), event.getData().getStat().getVersion());
+            }
+            break;
+          case CHILD_REMOVED:
+            if (exists(event.getData().getPath())) {
+              LOG.trace("Dropping superseded {} for {}", event.getType(), event.getData().getPath());
+              supersededEventMeter.mark();
+              break;
+            }
+            onRemove.accept(ZKPaths.getNodeFromPath(event.getData().getPath()));
+            break;
+          default:
+            LOG.debug("Ignoring {} for watched path {}", event.getType(), rootPath);
+            break;
+        }
+      } catch (Throwable t) {
+        LOG.error("While applying {} for watched path {}", event.getType(), rootPath, t);
+      }
+    }, executor);
+
+    int numChildren = 0;
+
+    try {
+      cache.start(StartMode.BUILD_INITIAL_CACHE);
+
+      final List<ChildData> children = cache.getCurrentData();
+      numChildren = children.size();
+      onSnapshot.accept(children);
+
+      if (cacheData) {
+        for (ChildData child : children) {
+          cache.clearDataBytes(child.getPath(), child.getStat().getVersion());
+        }
+      }
+
+      return cache;
+    } catch (Throwable t) {
+      CloseableUtils.closeQuietly(cache);
+      throw Throwables.propagate(t);
+    } finally {
+      log(OperationType.GET_CHILDREN, Optional.of(numChildren), Optional.<Integer>absent(), start, rootPath);
+    }
+  }
+
+  /**
+   * True if the node has been deleted or modified since the change the event was generated for.
+   */
+  private boolean isSuperseded(ChildData child) {
+    if (child.getStat() == null) {
+      return false;
+    }
+
+    Optional<Stat> current = checkExists(child.getPath());
+    return !current.isPresent() || current.get().getMzxid() > child.getStat().getMzxid();
+  }
+
   private <T extends SingularityId> List<T> existsThrows(final String pathNameforLogs, final Collection<String> paths, final IdTranscoder<T> idTranscoder) throws Exception {
     if (paths.isEmpty()) {
       return Collections.emptyList();
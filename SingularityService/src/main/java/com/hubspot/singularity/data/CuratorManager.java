@@ -1,5 +1,6 @@
 package com.hubspot.singularity.data;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -9,6 +10,9 @@ import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.framework.api.GetDataBuilder;
 import org.apache.curator.framework.api.ProtectACLCreateModePathAndBytesable;
 import org.apache.curator.framework.api.SetDataBuilder;
+import org.apache.curator.framework.api.transaction.CuratorTransaction;
+import org.apache.curator.framework.api.transaction.CuratorTransactionFinal;
+import org.apache.curator.utils.ZKPaths;
 import org.apache.zookeeper.KeeperException.NoNodeException;
 import org.apache.zookeeper.KeeperException.NodeExistsException;
 import org.apache.zookeeper.data.Stat;
@@ -157,6 +161,63 @@ public abstract class CuratorManager {
     }
   }
 
+  /**
+   * Deletes path and everything under it in a single multi-op transaction, rather than one delete round trip per node
+   * like deletingChildrenIfNeeded. If the tree changes while it is being read we fall back to a plain delete.
+   */
+  protected SingularityDeleteResult deleteTree(String path) {
+    final long start = System.currentTimeMillis();
+    final List<String> paths = new ArrayList<>();
+
+    try {
+      collectTree(path, paths);
+
+      if (paths.isEmpty()) {
+        return SingularityDeleteResult.DIDNT_EXIST;
+      }
+
+      CuratorTransaction transaction = curator.inTransaction();
+      // collected parents first, so walk backwards to delete children before their parents
+      for (int i = paths.size() - 1; i >= 0; i--) {
+        transaction = transaction.delete().forPath(paths.get(i)).and();
+      }
+      ((CuratorTransactionFinal) transaction).commit();
+
+      return SingularityDeleteResult.DELETED;
+    } catch (Throwable t) {
+      LOG.debug("Couldn't delete {} ({} nodes) in one transaction ({}), deleting node by node", path, paths.size(), t.getMessage());
+      return delete(path);
+    } finally {
+      log(OperationType.DELETE, Optional.of(paths.size()), Optional.<Integer> absent(), start, path);
+    }
+  }
+
+  private void collectTree(String path, List<String> paths) throws Exception {
+    final List<String> children;
+    try {
+      children = curator.getChildren().forPath(path);
+    } catch (NoNodeException nne) {
+      return;
+    }
+
+    paths.add(path);
+
+    for (String child : children) {
+      collectTree(ZKPaths.makePath(path, child), paths);
+    }
+  }
+
+  protected SingularityDeleteResult delete(String path, ZkWriteBatcher writeBatcher) {
+    final long start = System.currentTimeMillis();
+
+    if (writeBatcher.delete(path)) {
+      log(OperationType.DELETE, Optional.absent(), Optional.<Integer> absent(), start, path);
+      return SingularityDeleteResult.DELETED;
+    }
+
+    return delete(path);
+  }
+
   protected SingularityCreateResult create(String path) {
     return create(path, Optional.<byte[]>absent());
   }
@@ -177,6 +238,18 @@ public abstract class CuratorManager {
     }
   }
 
+  protected <T> SingularityCreateResult create(String path, T object, Transcoder<T> transcoder, ZkWriteBatcher writeBatcher) {
+    final Optional<byte[]> data = Optional.of(transcoder.toBytes(object));
+    final long start = System.currentTimeMillis();
+
+    if (writeBatcher.create(path, data)) {
+      log(OperationType.WRITE, Optional.absent(), Optional.of(data.get().length), start, path);
+      return SingularityCreateResult.CREATED;
+    }
+
+    return create(path, data);
+  }
+
   private void privateCreate(String path, Optional<byte[]> data) throws Exception {
     final long start = System.currentTimeMillis();
 
@@ -210,6 +283,22 @@ public abstract class CuratorManager {
     }
   }
 
+  /**
+   * Batched saves are written as a set, since most saves overwrite an existing node. A missing node fails
+   * the batch and the write falls back to a regular save.
+   */
+  protected <T> SingularityCreateResult save(String path, T object, Transcoder<T> transcoder, ZkWriteBatcher writeBatcher) {
+    final Optional<byte[]> data = Optional.of(transcoder.toBytes(object));
+    final long start = System.currentTimeMillis();
+
+    if (writeBatcher.set(path, data)) {
+      log(OperationType.WRITE, Optional.absent(), Optional.of(data.get().length), start, path);
+      return SingularityCreateResult.EXISTED;
+    }
+
+    return save(path, data);
+  }
+
   private void privateSet(String path, Optional<byte[]> data) throws Exception {
     final long start = System.currentTimeMillis();
 
@@ -4,9 +4,11 @@ import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.cache.PathChildrenCache;
 import org.apache.curator.utils.ZKPaths;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -43,6 +45,7 @@ import com.hubspot.singularity.expiring.SingularityExpiringRequestActionParent;
 import com.hubspot.singularity.expiring.SingularityExpiringScale;
 import com.hubspot.singularity.expiring.SingularityExpiringSkipHealthchecks;
 import com.hubspot.singularity.scheduler.SingularityLeaderCache;
+import com.hubspot.singularity.scheduler.SingularityLeaderCacheChanges;
 
 @Singleton
 public class RequestManager extends CuratorAsyncManager {
@@ -59,6 +62,7 @@ public class RequestManager extends CuratorAsyncManager {
 
   private final SingularityWebCache webCache;
   private final SingularityLeaderCache leaderCache;
+  private final ZkWriteBatcher writeBatcher;
 
   private static final String REQUEST_ROOT = "/requests";
 
@@ -88,7 +92,7 @@ public class RequestManager extends CuratorAsyncManager {
       Transcoder<SingularityRequestCleanup> requestCleanupTranscoder, Transcoder<SingularityRequestWithState> requestTranscoder, Transcoder<SingularityRequestLbCleanup> requestLbCleanupTranscoder,
       Transcoder<SingularityPendingRequest> pendingRequestTranscoder, Transcoder<SingularityRequestHistory> requestHistoryTranscoder, Transcoder<SingularityExpiringBounce> expiringBounceTranscoder,
       Transcoder<SingularityExpiringScale> expiringScaleTranscoder,  Transcoder<SingularityExpiringPause> expiringPauseTranscoder, Transcoder<SingularityExpiringSkipHealthchecks> expiringSkipHealthchecksTranscoder,
-      SingularityWebCache webCache, SingularityLeaderCache leaderCache) {
+      SingularityWebCache webCache, SingularityLeaderCache leaderCache, ZkWriteBatcher writeBatcher) {
     super(curator, configuration, metricRegistry);
     this.requestTranscoder = requestTranscoder;
     this.requestCleanupTranscoder = requestCleanupTranscoder;
@@ -106,6 +110,7 @@ public class RequestManager extends CuratorAsyncManager {
 
     this.leaderCache = leaderCache;
     this.webCache = webCache;
+    this.writeBatcher = writeBatcher;
   }
 
   private String getRequestPath(String requestId) {
@@ -238,7 +243,7 @@ public class RequestManager extends CuratorAsyncManager {
   }
 
   public SingularityCreateResult addToPendingQueue(SingularityPendingRequest pendingRequest) {
-    SingularityCreateResult result = create(getPendingPath(pendingRequest), pendingRequest, pendingRequestTranscoder);
+    SingularityCreateResult result = create(getPendingPath(pendingRequest), pendingRequest, pendingRequestTranscoder, writeBatcher);
 
     if (result == SingularityCreateResult.EXISTED) {
       Optional<SingularityPendingRequest> existingPendingRequest = getPendingRequest(pendingRequest.getRequestId(), pendingRequest.getDeployId());
@@ -382,6 +387,10 @@ public class RequestManager extends CuratorAsyncManager {
     leaderCache.cacheRequests(fetchRequests());
   }
 
+  public PathChildrenCache watchLeaderCache(Executor executor) {
+    return watchChildren(NORMAL_PATH_ROOT, requestTranscoder, executor, leaderCache::cacheRequests, leaderCache::putRequest, leaderCache::deleteRequest);
+  }
+
   public List<SingularityRequestWithState> getRequests() {
     return getRequests(false);
   }
@@ -402,6 +411,23 @@ public class RequestManager extends CuratorAsyncManager {
     return requests;
   }
 
+  /**
+   * Version of the requests and request deploy states in the leader cache, only known on the leader
+   */
+  public Optional<Long> getRequestsVersion() {
+    if (!leaderCache.active()) {
+      return Optional.absent();
+    }
+    return Optional.of(leaderCache.getRequestsVersion());
+  }
+
+  public Optional<SingularityLeaderCacheChanges<String>> getRequestChangesSince(long version) {
+    if (!leaderCache.active()) {
+      return Optional.absent();
+    }
+    return leaderCache.getRequestChangesSince(version);
+  }
+
   public List<SingularityRequestWithState> fetchRequests() {
     return getAsyncChildren(NORMAL_PATH_ROOT, requestTranscoder);
   }
@@ -33,6 +33,7 @@ public class SingularityDataModule extends AbstractModule {
     bind(NotificationsManager.class).in(Scopes.SINGLETON);
 
     bind(SingularityWebCache.class).in(Scopes.SINGLETON);
+    bind(ZkWriteBatcher.class).in(Scopes.SINGLETON);
 
     bind(ExecutorIdGenerator.class).in(Scopes.SINGLETON);
     bind(WebhookManager.class).in(Scopes.SINGLETON);
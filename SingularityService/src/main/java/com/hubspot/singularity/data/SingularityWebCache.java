@@ -42,6 +42,7 @@ public class SingularityWebCache {
   private volatile long lastRequestUtilizationCache;
 
   private final long cacheForMillis;
+  private final long createdAt;
 
   private final Meter cleanupHitMeter;
   private final Meter cleanupMissMeter;
@@ -64,6 +65,7 @@ public class SingularityWebCache {
   @Inject
   public SingularityWebCache(SingularityConfiguration configuration, MetricRegistry metrics) {
     this.cacheForMillis = configuration.getCacheForWebForMillis();
+    this.createdAt = System.currentTimeMillis();
 
     this.cleanupHitMeter = metrics.meter("zk.web.caches.cleanup.hits");
     this.cleanupMissMeter = metrics.meter("zk.web.caches.cleanup.miss");
@@ -112,6 +114,19 @@ public class SingularityWebCache {
     return lastCache >= 0 && (System.currentTimeMillis() - lastCache) < cacheForMillis;
   }
 
+  /**
+   * Identifies the snapshot currently cached, for callers that want to tell whether anything could have changed
+   * since a previous response. Only present while the cached copy is still being served.
+   */
+  public Optional<String> getCachedActiveTasksVersion() {
+    final long lastCache = lastActiveTaskCache;
+    if (!useCache(lastCache)) {
+      return Optional.absent();
+    }
+    // Snapshot times alone could repeat on another instance behind the same load balancer
+    return Optional.of(String.format("%s.%s", createdAt, lastCache));
+  }
+
   public List<SingularityPendingTask> getPendingTasks() {
     pendingHitMeter.mark();
     return new ArrayList<>(cachedPendingTasks.values());
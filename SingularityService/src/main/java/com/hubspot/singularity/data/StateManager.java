@@ -6,6 +6,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 import javax.inject.Singleton;
@@ -68,6 +69,7 @@ public class StateManager extends CuratorManager {
   private final PriorityManager priorityManager;
   private final AtomicLong statusUpdateDeltaAvg;
   private final AtomicLong lastHeartbeatTime;
+  private final AtomicReference<SingularityState> publishedState;
 
   @Inject
   public StateManager(CuratorFramework curatorFramework,
@@ -101,6 +103,7 @@ public class StateManager extends CuratorManager {
     this.taskReconciliationStatisticsTranscoder = taskReconciliationStatisticsTranscoder;
     this.statusUpdateDeltaAvg = statusUpdateDeltaAvg;
     this.lastHeartbeatTime = lastHeartbeatTime;
+    this.publishedState = new AtomicReference<>();
   }
 
   public SingularityCreateResult saveTaskReconciliationStatistics(SingularityTaskReconciliationStatistics taskReconciliationStatistics) {
@@ -129,24 +132,25 @@ public class StateManager extends CuratorManager {
   }
 
   public SingularityState getState(boolean skipCache, boolean includeRequestIds) {
-    Optional<SingularityState> fromZk = Optional.absent();
+    Optional<SingularityState> published = Optional.absent();
 
     if (!skipCache) {
-      fromZk = getData(STATE_PATH, stateTranscoder);
+      published = getPublishedState();
     }
 
-    if (fromZk.isPresent()) {
+    if (published.isPresent()) {
       final long now = System.currentTimeMillis();
-      final long delta = now - fromZk.get().getGeneratedAt();
+      final long delta = now - published.get().getGeneratedAt();
 
       if (delta < singularityConfiguration.getCacheStateForMillis()) {
-        return fromZk.get();
+        return includeRequestIds ? published.get() : published.get().withoutRequestIds();
       }
     }
 
+    // Only reached if the leader hasn't published recently, or the caller asked to skip the cache
     final long start = System.currentTimeMillis();
 
-    SingularityState newState = generateState(includeRequestIds);
+    SingularityState newState = generateState(true);
 
     if (!skipCache) {
       final byte[] bytes = stateTranscoder.toBytes(newState);
@@ -155,7 +159,31 @@ public class StateManager extends CuratorManager {
       LOG.info("Generated new state and saved {} bytes in {}", bytes.length, JavaUtils.duration(start));
     }
 
-    return newState;
+    return includeRequestIds ? newState : newState.withoutRequestIds();
+  }
+
+  /**
+   * Called on the leader every publishStateEveryMillis. The leader then answers from memory and every other instance
+   * reads the single STATE node, so /state stops generating state on request threads.
+   */
+  public void publishState() {
+    final long start = System.currentTimeMillis();
+
+    SingularityState newState = generateState(true);
+    publishedState.set(newState);
+
+    final byte[] bytes = stateTranscoder.toBytes(newState);
+    save(STATE_PATH, Optional.of(bytes));
+
+    LOG.debug("Published new state and saved {} bytes in {}", bytes.length, JavaUtils.duration(start));
+  }
+
+  private Optional<SingularityState> getPublishedState() {
+    SingularityState state = publishedState.get();
+    if (state != null && System.currentTimeMillis() - state.getGeneratedAt() < singularityConfiguration.getCacheStateForMillis()) {
+      return Optional.of(state);
+    }
+    return getData(STATE_PATH, stateTranscoder);
   }
 
   public SingularityState generateState(boolean includeRequestIds) {
@@ -3,14 +3,18 @@ package com.hubspot.singularity.data;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.framework.api.transaction.CuratorTransactionFinal;
+import org.apache.curator.framework.recipes.cache.PathChildrenCache;
 import org.apache.curator.utils.ZKPaths;
 import org.apache.zookeeper.KeeperException;
 import org.apache.zookeeper.data.Stat;
@@ -61,6 +65,7 @@ import com.hubspot.singularity.data.transcoders.StringTranscoder;
 import com.hubspot.singularity.data.transcoders.Transcoder;
 import com.hubspot.singularity.event.SingularityEventListener;
 import com.hubspot.singularity.scheduler.SingularityLeaderCache;
+import com.hubspot.singularity.scheduler.SingularityLeaderCacheChanges;
 
 @Singleton
 public class TaskManager extends CuratorAsyncManager {
@@ -119,6 +124,7 @@ public class TaskManager extends CuratorAsyncManager {
   private final ZkCache<SingularityTask> taskCache;
   private final SingularityWebCache webCache;
   private final SingularityLeaderCache leaderCache;
+  private final ZkWriteBatcher writeBatcher;
 
   private final SingularityEventListener singularityEventListener;
   private final String serverId;
@@ -130,7 +136,7 @@ public class TaskManager extends CuratorAsyncManager {
       Transcoder<SingularityTaskCleanup> taskCleanupTranscoder, Transcoder<SingularityTaskHistoryUpdate> taskHistoryUpdateTranscoder, Transcoder<SingularityPendingTask> pendingTaskTranscoder,
       Transcoder<SingularityKilledTaskIdRecord> killedTaskIdRecordTranscoder, Transcoder<SingularityTaskShellCommandRequest> taskShellCommandRequestTranscoder,
       Transcoder<SingularityTaskShellCommandUpdate> taskShellCommandUpdateTranscoder,  Transcoder<SingularityTaskMetadata> taskMetadataTranscoder,
-      ZkCache<SingularityTask> taskCache, SingularityWebCache webCache, SingularityLeaderCache leaderCache,
+      ZkCache<SingularityTask> taskCache, SingularityWebCache webCache, SingularityLeaderCache leaderCache, ZkWriteBatcher writeBatcher,
       @Named(SingularityMainModule.SERVER_ID_PROPERTY) String serverId) {
     super(curator, configuration, metricRegistry);
 
@@ -152,6 +158,7 @@ public class TaskManager extends CuratorAsyncManager {
 
     this.webCache = webCache;
     this.leaderCache = leaderCache;
+    this.writeBatcher = writeBatcher;
     this.serverId = serverId;
   }
 
@@ -313,7 +320,7 @@ public class TaskManager extends CuratorAsyncManager {
 
   @Timed
   public void saveLastActiveTaskStatus(SingularityTaskStatusHolder taskStatus) {
-    save(getLastActiveTaskStatusPath(taskStatus.getTaskId()), taskStatus, taskStatusTranscoder);
+    save(getLastActiveTaskStatusPath(taskStatus.getTaskId()), taskStatus, taskStatusTranscoder, writeBatcher);
   }
 
   public Optional<String> getDirectory(SingularityTaskId taskId) {
@@ -330,6 +337,9 @@ public class TaskManager extends CuratorAsyncManager {
 
       save(getHealthcheckPath(healthcheckResult), bytes);
       save(getLastHealthcheckPath(healthcheckResult.getTaskId()), bytes);
+      if (leaderCache.active()) {
+        leaderCache.putLastHealthcheck(healthcheckResult);
+      }
     } else {
       LOG.warn("Healthchecks have finished, could not save new result {}", healthcheckResult);
     }
@@ -457,6 +467,35 @@ public class TaskManager extends CuratorAsyncManager {
     return activeTasks;
   }
 
+  /**
+   * Identifies the data getActiveTasks(useWebCache) would return right now, or absent if that isn't known without reading it
+   */
+  public Optional<String> getActiveTasksVersion(boolean useWebCache) {
+    if (useWebCache && webCache.useCachedActiveTasks()) {
+      return webCache.getCachedActiveTasksVersion();
+    }
+
+    if (leaderCache.active()) {
+      return Optional.of(Long.toString(leaderCache.getActiveTasksVersion()));
+    }
+
+    return Optional.absent();
+  }
+
+  public Optional<Long> getActiveTasksDeltaVersion() {
+    if (!leaderCache.active()) {
+      return Optional.absent();
+    }
+    return Optional.of(leaderCache.getActiveTasksVersion());
+  }
+
+  public Optional<SingularityLeaderCacheChanges<SingularityTaskId>> getActiveTaskChangesSince(long version) {
+    if (!leaderCache.active()) {
+      return Optional.absent();
+    }
+    return leaderCache.getActiveTaskChangesSince(version);
+  }
+
   public List<SingularityTaskStatusHolder> getLastActiveTaskStatuses() {
     return getAsyncChildren(LAST_ACTIVE_TASK_STATUSES_PATH_ROOT, taskStatusTranscoder);
   }
@@ -492,6 +531,7 @@ public class TaskManager extends CuratorAsyncManager {
 
   public List<SingularityTaskHistoryUpdate> getTaskHistoryUpdates(SingularityTaskId taskId) {
     if (leaderCache.active()) {
+      loadTaskHistoryUpdatesIfNecessary(Collections.singletonList(taskId));
       return leaderCache.getTaskHistoryUpdates(taskId);
     }
     List<SingularityTaskHistoryUpdate> updates = getAsyncChildren(getUpdatesPath(taskId), taskHistoryUpdateTranscoder);
@@ -505,8 +545,20 @@ public class TaskManager extends CuratorAsyncManager {
 
   public Map<SingularityTaskId, List<SingularityTaskHistoryUpdate>> getTaskHistoryUpdates(Collection<SingularityTaskId> taskIds) {
     if (leaderCache.active()) {
+      loadTaskHistoryUpdatesIfNecessary(taskIds);
       return leaderCache.getTaskHistoryUpdates(taskIds);
     }
+    return fetchTaskHistoryUpdates(taskIds);
+  }
+
+  private void loadTaskHistoryUpdatesIfNecessary(Collection<SingularityTaskId> taskIds) {
+    List<SingularityTaskId> toLoad = leaderCache.getTaskIdsWithoutHistoryUpdates(taskIds);
+    if (!toLoad.isEmpty()) {
+      leaderCache.loadTaskHistoryUpdates(toLoad, fetchTaskHistoryUpdates(toLoad));
+    }
+  }
+
+  private Map<SingularityTaskId, List<SingularityTaskHistoryUpdate>> fetchTaskHistoryUpdates(Collection<SingularityTaskId> taskIds) {
     Map<String, SingularityTaskId> pathsMap = Maps.newHashMap();
     for (SingularityTaskId taskId : taskIds) {
       pathsMap.put(getHistoryPath(taskId), taskId);
@@ -551,19 +603,59 @@ public class TaskManager extends CuratorAsyncManager {
     }
   }
 
+  /**
+   * Every result is saved through the leader, so while the leader cache is active each task's last result is only
+   * read from zk once.
+   */
   public Optional<SingularityTaskHealthcheckResult> getLastHealthcheck(SingularityTaskId taskId) {
-    return getData(getLastHealthcheckPath(taskId), healthcheckResultTranscoder);
+    if (leaderCache.active()) {
+      Optional<Optional<SingularityTaskHealthcheckResult>> cached = leaderCache.getLastHealthcheck(taskId);
+      if (cached.isPresent()) {
+        return cached.get();
+      }
+    }
+
+    Optional<SingularityTaskHealthcheckResult> lastHealthcheck = getData(getLastHealthcheckPath(taskId), healthcheckResultTranscoder);
+
+    if (leaderCache.active()) {
+      leaderCache.cacheLastHealthcheck(taskId, lastHealthcheck);
+    }
+
+    return lastHealthcheck;
   }
 
   public Map<SingularityTaskId, SingularityTaskHealthcheckResult> getLastHealthcheck(Collection<SingularityTaskId> taskIds) {
-    List<String> paths = Lists.newArrayListWithCapacity(taskIds.size());
+    Map<SingularityTaskId, SingularityTaskHealthcheckResult> lastHealthchecks = new HashMap<>(taskIds.size());
+    List<SingularityTaskId> uncached = new ArrayList<>();
+
     for (SingularityTaskId taskId : taskIds) {
+      Optional<Optional<SingularityTaskHealthcheckResult>> cached = leaderCache.active() ? leaderCache.getLastHealthcheck(taskId) : Optional.absent();
+      if (!cached.isPresent()) {
+        uncached.add(taskId);
+      } else if (cached.get().isPresent()) {
+        lastHealthchecks.put(taskId, cached.get().get());
+      }
+    }
+
+    if (uncached.isEmpty()) {
+      return lastHealthchecks;
+    }
+
+    List<String> paths = Lists.newArrayListWithCapacity(uncached.size());
+    for (SingularityTaskId taskId : uncached) {
       paths.add(getLastHealthcheckPath(taskId));
     }
 
     List<SingularityTaskHealthcheckResult> healthcheckResults = getAsync("getLastHealthcheck", paths, healthcheckResultTranscoder);
+    Map<SingularityTaskId, SingularityTaskHealthcheckResult> loaded = Maps.uniqueIndex(healthcheckResults, SingularityTaskIdHolder.getTaskIdFunction());
 
-    return Maps.uniqueIndex(healthcheckResults, SingularityTaskIdHolder.getTaskIdFunction());
+    // A node missing from a batch read can't be told apart from a failed read, so only found results are cached
+    if (leaderCache.active()) {
+      loaded.forEach((taskId, healthcheckResult) -> leaderCache.cacheLastHealthcheck(taskId, Optional.of(healthcheckResult)));
+    }
+
+    lastHealthchecks.putAll(loaded);
+    return lastHealthchecks;
   }
 
   public SingularityCreateResult saveTaskHistoryUpdate(SingularityTaskHistoryUpdate taskHistoryUpdate) {
@@ -590,12 +682,12 @@ public class TaskManager extends CuratorAsyncManager {
         leaderCache.saveTaskHistoryUpdate(updateWithPrevious, overwriteExisting);
       }
 
-      return save(getUpdatePath(taskHistoryUpdate.getTaskId(), taskHistoryUpdate.getTaskState()), updateWithPrevious, taskHistoryUpdateTranscoder);
+      return save(getUpdatePath(taskHistoryUpdate.getTaskId(), taskHistoryUpdate.getTaskState()), updateWithPrevious, taskHistoryUpdateTranscoder, writeBatcher);
     } else {
       if (leaderCache.active()) {
         leaderCache.saveTaskHistoryUpdate(taskHistoryUpdate, overwriteExisting);
       }
-      return create(getUpdatePath(taskHistoryUpdate.getTaskId(), taskHistoryUpdate.getTaskState()), taskHistoryUpdate, taskHistoryUpdateTranscoder);
+      return create(getUpdatePath(taskHistoryUpdate.getTaskId(), taskHistoryUpdate.getTaskState()), taskHistoryUpdate, taskHistoryUpdateTranscoder, writeBatcher);
     }
   }
 
@@ -768,6 +860,67 @@ public class TaskManager extends CuratorAsyncManager {
     return Optional.of(new SingularityTaskHistory(taskUpdates, directory, containerId, healthchecks, task.get(), loadBalancerUpdates, shellCommandHistory, taskMetadata));
   }
 
+  /**
+   * Bulk version of getTaskHistory, reads each part of the task histories for all taskIds in one batch of async zk calls.
+   * Tasks that are no longer in zk are left out of the result.
+   */
+  public Map<SingularityTaskId, SingularityTaskHistory> getTaskHistories(Collection<SingularityTaskId> taskIds) {
+    final Map<SingularityTaskId, SingularityTask> tasks = getTasks(taskIds);
+
+    if (tasks.isEmpty()) {
+      return Collections.emptyMap();
+    }
+
+    final Map<String, SingularityTaskId> historyPaths = new HashMap<>(tasks.size());
+    final Map<String, SingularityTaskId> directoryPaths = new HashMap<>(tasks.size());
+    final Map<String, SingularityTaskId> containerIdPaths = new HashMap<>(tasks.size());
+    final Map<String, SingularityTaskId> loadBalancerPaths = new HashMap<>(tasks.size() * 2);
+
+    for (SingularityTaskId taskId : tasks.keySet()) {
+      historyPaths.put(getHistoryPath(taskId), taskId);
+      directoryPaths.put(getDirectoryPath(taskId), taskId);
+      containerIdPaths.put(getContainerIdPath(taskId), taskId);
+      loadBalancerPaths.put(getLoadBalancerStatePath(taskId, LoadBalancerRequestType.ADD), taskId);
+      loadBalancerPaths.put(getLoadBalancerStatePath(taskId, LoadBalancerRequestType.REMOVE), taskId);
+    }
+
+    final Map<SingularityTaskId, List<SingularityTaskHistoryUpdate>> updates = getTaskHistoryUpdates(tasks.keySet());
+    final Map<SingularityTaskId, List<SingularityTaskHealthcheckResult>> healthchecks = getAsyncNestedChildDataAsMap("getTaskHistories.healthchecks", historyPaths, HEALTHCHECKS_PATH, healthcheckResultTranscoder);
+    final Map<SingularityTaskId, List<SingularityTaskMetadata>> metadata = getAsyncNestedChildDataAsMap("getTaskHistories.metadata", historyPaths, METADATA_PATH, taskMetadataTranscoder);
+    final Map<String, String> directories = getAsyncWithPath("getTaskHistories.directories", directoryPaths.keySet(), StringTranscoder.INSTANCE);
+    final Map<String, String> containerIds = getAsyncWithPath("getTaskHistories.containerIds", containerIdPaths.keySet(), StringTranscoder.INSTANCE);
+    final Map<String, SingularityLoadBalancerUpdate> loadBalancerUpdates = getAsyncWithPath("getTaskHistories.loadBalancerUpdates", loadBalancerPaths.keySet(), taskLoadBalancerUpdateTranscoder);
+
+    final Map<SingularityTaskId, SingularityTaskHistory> taskHistories = new HashMap<>(tasks.size());
+
+    for (Map.Entry<SingularityTaskId, SingularityTask> entry : tasks.entrySet()) {
+      final SingularityTaskId taskId = entry.getKey();
+
+      List<SingularityTaskHistoryUpdate> taskUpdates = new ArrayList<>(updates.getOrDefault(taskId, Collections.emptyList()));
+      Collections.sort(taskUpdates);
+
+      List<SingularityTaskHealthcheckResult> taskHealthchecks = new ArrayList<>(healthchecks.getOrDefault(taskId, Collections.emptyList()));
+      Collections.sort(taskHealthchecks);
+
+      List<SingularityTaskMetadata> taskMetadata = new ArrayList<>(metadata.getOrDefault(taskId, Collections.emptyList()));
+      Collections.sort(taskMetadata);
+
+      List<SingularityLoadBalancerUpdate> taskLoadBalancerUpdates = Lists.newArrayListWithCapacity(2);
+      for (LoadBalancerRequestType lbRequestType : Arrays.asList(LoadBalancerRequestType.ADD, LoadBalancerRequestType.REMOVE)) {
+        SingularityLoadBalancerUpdate loadBalancerUpdate = loadBalancerUpdates.get(getLoadBalancerStatePath(taskId, lbRequestType));
+        if (loadBalancerUpdate != null) {
+          taskLoadBalancerUpdates.add(loadBalancerUpdate);
+        }
+      }
+
+      // shell commands are rare and nested two levels deep, so these are still read per task
+      taskHistories.put(taskId, new SingularityTaskHistory(taskUpdates, Optional.fromNullable(directories.get(getDirectoryPath(taskId))),
+          Optional.fromNullable(containerIds.get(getContainerIdPath(taskId))), taskHealthchecks, entry.getValue(), taskLoadBalancerUpdates, getTaskShellCommandHistory(taskId), taskMetadata));
+    }
+
+    return taskHistories;
+  }
+
   public List<SingularityTaskShellCommandHistory> getTaskShellCommandHistory(SingularityTaskId taskId) {
     List<SingularityTaskShellCommandRequest> shellRequests = getTaskShellCommandRequestsForTask(taskId);
     List<SingularityTaskShellCommandHistory> shellCommandHistory = new ArrayList<>(shellRequests.size());
@@ -836,6 +989,24 @@ public class TaskManager extends CuratorAsyncManager {
     leaderCache.cacheTaskHistoryUpdates(getAllTaskHistoryUpdates());
   }
 
+  public void activateUnwatchedLeaderCache() {
+    leaderCache.cachePendingTasksToDelete(getPendingTasksMarkedForDeletion());
+    // Reading every task's history updates would undo most of what watching the rest of the cache saves
+    leaderCache.cacheTaskHistoryUpdatesOnDemand();
+  }
+
+  public List<PathChildrenCache> watchLeaderCache(Executor executor) {
+    return Arrays.asList(
+        watchChildren(PENDING_PATH_ROOT, pendingTaskTranscoder, executor, leaderCache::cachePendingTasks, leaderCache::savePendingTask,
+            (pendingTaskId) -> leaderCache.deletePendingTask(pendingTaskIdTranscoder.fromString(pendingTaskId))),
+        watchChildrenAsIds(ACTIVE_PATH_ROOT, taskIdTranscoder, executor, leaderCache::cacheActiveTaskIds, leaderCache::putActiveTaskId,
+            (taskId) -> leaderCache.deleteActiveTaskId(taskId.getId())),
+        watchChildren(CLEANUP_PATH_ROOT, taskCleanupTranscoder, executor, leaderCache::cacheCleanupTasks, leaderCache::saveTaskCleanup,
+            (taskId) -> leaderCache.deleteTaskCleanup(taskIdTranscoder.fromString(taskId))),
+        watchChildren(DRIVER_KILLED_PATH_ROOT, killedTaskIdRecordTranscoder, executor, leaderCache::cacheKilledTasks, leaderCache::addKilledTask,
+            (taskId) -> leaderCache.deleteKilledTask(taskIdTranscoder.fromString(taskId))));
+  }
+
   private List<SingularityPendingTask> fetchPendingTasks() {
     return getAsyncChildren(PENDING_PATH_ROOT, pendingTaskTranscoder);
   }
@@ -1090,7 +1261,7 @@ public class TaskManager extends CuratorAsyncManager {
 
   public void deletePendingTask(SingularityPendingTaskId pendingTaskId) {
     leaderCache.deletePendingTask(pendingTaskId);
-    delete(getPendingPath(pendingTaskId));
+    delete(getPendingPath(pendingTaskId), writeBatcher);
     delete(getPendingTasksToDeletePath(pendingTaskId));
   }
 
@@ -1120,6 +1291,19 @@ public class TaskManager extends CuratorAsyncManager {
     return delete(getHistoryPath(taskId));
   }
 
+  /**
+   * Like deleteTaskHistory, but removes each task's subtree in a single zk transaction
+   */
+  public void deleteTaskHistories(Collection<SingularityTaskId> taskIds) {
+    for (SingularityTaskId taskId : taskIds) {
+      taskCache.delete(getTaskPath(taskId));
+      if (leaderCache.active()) {
+        leaderCache.deleteTaskHistory(taskId);
+      }
+      deleteTree(getHistoryPath(taskId));
+    }
+  }
+
   public void purgeStaleRequests(List<String> activeRequestIds, long deleteBeforeTime) {
     final List<String> requestIds = getChildren(HISTORY_PATH_ROOT);
     for (String requestId : requestIds) {
@@ -1,12 +1,13 @@
 package com.hubspot.singularity.data;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -29,6 +30,7 @@ import com.hubspot.singularity.SingularityTaskId;
 import com.hubspot.singularity.SingularityTaskUsage;
 import com.hubspot.singularity.config.SingularityConfiguration;
 import com.hubspot.singularity.data.transcoders.Transcoder;
+import com.hubspot.singularity.data.usage.UsageStore;
 import com.hubspot.singularity.scheduler.SingularityLeaderCache;
 
 @Singleton
@@ -41,16 +43,17 @@ public class UsageManager extends CuratorAsyncManager {
   private static final String REQUESTS_PATH = ROOT_PATH + "/requests";
   private static final String USAGE_SUMMARY_PATH = ROOT_PATH + "/summary";
 
-  private static final String USAGE_HISTORY_PATH_KEY = "history";
   private static final String CURRENT_USAGE_NODE_KEY = "CURRENT";
 
   private final Transcoder<SingularitySlaveUsage> slaveUsageTranscoder;
-  private final Transcoder<SingularityTaskUsage> taskUsageTranscoder;
   private final Transcoder<SingularityTaskCurrentUsage> taskCurrentUsageTranscoder;
   private final Transcoder<SingularityClusterUtilization> clusterUtilizationTranscoder;
   private final Transcoder<RequestUtilization> requestUtilizationTranscoder;
   private final SingularityWebCache webCache;
   private final SingularityLeaderCache leaderCache;
+  private final UsageStore usageStore;
+  // The utilization this instance last wrote to zk for each request, used by the usage poller to skip small changes
+  private final ConcurrentMap<String, RequestUtilization> persistedRequestUtilizations;
 
   @Inject
   public UsageManager(CuratorFramework curator,
@@ -58,30 +61,38 @@ public class UsageManager extends CuratorAsyncManager {
                       MetricRegistry metricRegistry,
                       SingularityWebCache webCache,
                       SingularityLeaderCache leaderCache,
+                      UsageStore usageStore,
                       Transcoder<SingularitySlaveUsage> slaveUsageTranscoder,
-                      Transcoder<SingularityTaskUsage> taskUsageTranscoder,
                       Transcoder<SingularityTaskCurrentUsage> taskCurrentUsageTranscoder,
                       Transcoder<SingularityClusterUtilization> clusterUtilizationTranscoder,
                       Transcoder<RequestUtilization> requestUtilizationTranscoder) {
     super(curator, configuration, metricRegistry);
     this.webCache = webCache;
     this.leaderCache = leaderCache;
+    this.usageStore = usageStore;
+    this.persistedRequestUtilizations = new ConcurrentHashMap<>();
     this.slaveUsageTranscoder = slaveUsageTranscoder;
-    this.taskUsageTranscoder = taskUsageTranscoder;
     this.taskCurrentUsageTranscoder = taskCurrentUsageTranscoder;
     this.clusterUtilizationTranscoder = clusterUtilizationTranscoder;
     this.requestUtilizationTranscoder = requestUtilizationTranscoder;
   }
 
+  // A task or slave can have a current usage in zk with no samples left in an off-zk store, e.g. after a leader change
+  private List<String> getIdsWithUsage(String path, List<String> idsInStore) {
+    Set<String> ids = new LinkedHashSet<>(getChildren(path));
+    ids.addAll(idsInStore);
+    return new ArrayList<>(ids);
+  }
+
   public List<String> getSlavesWithUsage() {
-    return getChildren(SLAVE_PATH);
+    return getIdsWithUsage(SLAVE_PATH, usageStore.getSlavesWithUsage());
   }
 
   public int getNumSlavesWithUsage() {
     return getNumChildren(SLAVE_PATH);
   }
   public List<String> getTasksWithUsage() {
-    return getChildren(TASK_PATH);
+    return getIdsWithUsage(TASK_PATH, usageStore.getTasksWithUsage());
   }
 
   // /slaves/<slaveid>/CURRENT
@@ -102,22 +113,6 @@ public class UsageManager extends CuratorAsyncManager {
     return ZKPaths.makePath(TASK_PATH, taskId);
   }
 
-  private String getSlaveUsageHistoryPath(String slaveId) {
-    return ZKPaths.makePath(getSlaveUsagePath(slaveId), USAGE_HISTORY_PATH_KEY);
-  }
-
-  private String getTaskUsageHistoryPath(String taskId) {
-    return ZKPaths.makePath(getTaskUsagePath(taskId), USAGE_HISTORY_PATH_KEY);
-  }
-
-  private String getSpecificSlaveUsagePath(String slaveId, long timestamp) {
-    return ZKPaths.makePath(getSlaveUsageHistoryPath(slaveId), Long.toString(timestamp));
-  }
-
-  private String getSpecificTaskUsagePath(String taskId, double timestamp) {
-    return ZKPaths.makePath(getTaskUsageHistoryPath(taskId), Double.toString(timestamp));
-  }
-
   private String getCurrentSlaveUsagePath(String slaveId) {
     return ZKPaths.makePath(getSlaveUsagePath(slaveId), CURRENT_USAGE_NODE_KEY);
   }
@@ -131,19 +126,21 @@ public class UsageManager extends CuratorAsyncManager {
   }
 
   public SingularityDeleteResult deleteSlaveUsage(String slaveId) {
+    usageStore.deleteSlaveUsage(slaveId);
     return delete(getSlaveUsagePath(slaveId));
   }
 
   public SingularityDeleteResult deleteTaskUsage(String taskId) {
+    usageStore.deleteTaskUsage(taskId);
     return delete(getTaskUsagePath(taskId));
   }
 
   public SingularityDeleteResult deleteSpecificSlaveUsage(String slaveId, long timestamp) {
-    return delete(getSpecificSlaveUsagePath(slaveId, timestamp));
+    return usageStore.deleteSlaveUsage(slaveId, timestamp);
   }
 
   public SingularityDeleteResult deleteSpecificTaskUsage(String taskId, double timestamp) {
-    return delete(getSpecificTaskUsagePath(taskId, timestamp));
+    return usageStore.deleteTaskUsage(taskId, timestamp);
   }
 
   public SingularityCreateResult saveCurrentTaskUsage(String taskId, SingularityTaskCurrentUsage usage) {
@@ -151,7 +148,11 @@ public class UsageManager extends CuratorAsyncManager {
   }
 
   public SingularityCreateResult saveSpecificTaskUsage(String taskId, SingularityTaskUsage usage) {
-    return save(getSpecificTaskUsagePath(taskId, usage.getTimestamp()), usage, taskUsageTranscoder);
+    return usageStore.saveTaskUsage(taskId, usage);
+  }
+
+  public void flushUsageHistory() {
+    usageStore.flush();
   }
 
   public SingularityCreateResult saveClusterUtilization(SingularityClusterUtilization utilization) {
@@ -160,31 +161,19 @@ public class UsageManager extends CuratorAsyncManager {
 
   public SingularityCreateResult saveSpecificSlaveUsageAndSetCurrent(String slaveId, SingularitySlaveUsage usage) {
     set(getCurrentSlaveUsagePath(slaveId), usage, slaveUsageTranscoder);
-    return save(getSpecificSlaveUsagePath(slaveId, usage.getTimestamp()), usage, slaveUsageTranscoder);
+    return usageStore.saveSlaveUsage(slaveId, usage);
   }
 
-  private static final Comparator<SingularitySlaveUsage> SLAVE_USAGE_COMPARATOR_TIMESTAMP_ASC = Comparator.comparingLong(SingularitySlaveUsage::getTimestamp);
-
   public List<SingularitySlaveUsage> getSlaveUsage(String slaveId) {
-    List<SingularitySlaveUsage> children = getAsyncChildren(getSlaveUsageHistoryPath(slaveId), slaveUsageTranscoder);
-    children.sort(SLAVE_USAGE_COMPARATOR_TIMESTAMP_ASC);
-    return children;
+    return usageStore.getSlaveUsage(slaveId);
   }
 
-  private static final Comparator<SingularityTaskUsage> TASK_USAGE_COMPARATOR_TIMESTAMP_ASC = Comparator.comparingDouble(SingularityTaskUsage::getTimestamp);
-
   public List<SingularityTaskUsage> getTaskUsage(String taskId) {
-    List<SingularityTaskUsage> children = getAsyncChildren(getTaskUsageHistoryPath(taskId), taskUsageTranscoder);
-    children.sort(TASK_USAGE_COMPARATOR_TIMESTAMP_ASC);
-    return children;
+    return usageStore.getTaskUsage(taskId);
   }
 
-  private static final Comparator<String> TASK_USAGE_PATH_COMPARATOR_TIMESTAMP_ASC = Comparator.comparingDouble(Double::parseDouble);
-
-  public List<String> getTaskUsagePaths(String taskId) {
-    List<String> children = getChildren(getTaskUsageHistoryPath(taskId));
-    children.sort(TASK_USAGE_PATH_COMPARATOR_TIMESTAMP_ASC);
-    return children;
+  public List<Double> getTaskUsageTimestamps(String taskId) {
+    return usageStore.getTaskUsageTimestamps(taskId);
   }
 
   public Optional<SingularityClusterUtilization> getClusterUtilization() {
@@ -192,6 +181,8 @@ public class UsageManager extends CuratorAsyncManager {
   }
 
   public void activateLeaderCache() {
+    // Another leader may have written utilizations since this instance last did, so don't skip any writes at first
+    persistedRequestUtilizations.clear();
     leaderCache.cacheRequestUtilizations(getRequestUtilizations(false));
   }
 
@@ -229,17 +220,37 @@ public class UsageManager extends CuratorAsyncManager {
     return getData(getRequestPath(requestId), requestUtilizationTranscoder);
   }
 
+  public void cacheRequestUtilization(RequestUtilization requestUtilization) {
+    if (leaderCache.active()) {
+      leaderCache.putRequestUtilization(requestUtilization);
+    }
+  }
+
   public SingularityCreateResult saveRequestUtilization(RequestUtilization requestUtilization) {
     if (leaderCache.active()) {
       leaderCache.putRequestUtilization(requestUtilization);
     }
-    return save(getRequestPath(requestUtilization.getRequestId()), requestUtilization, requestUtilizationTranscoder);
+    SingularityCreateResult result = save(getRequestPath(requestUtilization.getRequestId()), requestUtilization, requestUtilizationTranscoder);
+    persistedRequestUtilizations.put(requestUtilization.getRequestId(), requestUtilization);
+    return result;
+  }
+
+  /**
+   * The utilization this instance last wrote to zk for a request during the current leadership term
+   */
+  public Optional<RequestUtilization> getPersistedRequestUtilization(String requestId) {
+    return Optional.fromNullable(persistedRequestUtilizations.get(requestId));
+  }
+
+  public void retainPersistedRequestUtilizations(Set<String> requestIds) {
+    persistedRequestUtilizations.keySet().retainAll(requestIds);
   }
 
   public SingularityDeleteResult deleteRequestUtilization(String requestId) {
     if (leaderCache.active()) {
       leaderCache.removeRequestUtilization(requestId);
     }
+    persistedRequestUtilizations.remove(requestId);
     return delete(getRequestPath(requestId));
   }
 
@@ -260,13 +271,7 @@ public class UsageManager extends CuratorAsyncManager {
   }
 
   public List<Long> getSlaveUsageTimestamps(String slaveId) {
-    List<String> timestampStrings = getChildren(getSlaveUsageHistoryPath(slaveId));
-    List<Long> timestamps = new ArrayList<>(timestampStrings.size());
-    for (String timestampString : timestampStrings) {
-      timestamps.add(Long.parseLong(timestampString));
-    }
-    Collections.sort(timestamps);
-    return timestamps;
+    return usageStore.getSlaveUsageTimestamps(slaveId);
   }
 
   public List<SingularityTaskCurrentUsageWithId> getTaskCurrentUsages(List<SingularityTaskId> taskIds) {
@@ -0,0 +1,69 @@
+package com.hubspot.singularity.data;
+
+import java.util.Objects;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ComparisonChain;
+
+/**
+ * Points at an event in the webhook event log: the segment it was appended to and its sequence within that segment.
+ * A sequence of -1 points before the first event of the segment.
+ */
+public class WebhookEventLogPosition implements Comparable<WebhookEventLogPosition> {
+
+  private final long segment;
+  private final long sequence;
+
+  public WebhookEventLogPosition(long segment, long sequence) {
+    this.segment = segment;
+    this.sequence = sequence;
+  }
+
+  public static WebhookEventLogPosition beforeSegment(long segment) {
+    return new WebhookEventLogPosition(segment, -1);
+  }
+
+  public static WebhookEventLogPosition valueOf(String string) {
+    String[] parts = string.split(":");
+    Preconditions.checkArgument(parts.length == 2, "%s is not a webhook event log position", string);
+    return new WebhookEventLogPosition(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+  }
+
+  public long getSegment() {
+    return segment;
+  }
+
+  public long getSequence() {
+    return sequence;
+  }
+
+  @Override
+  public int compareTo(WebhookEventLogPosition o) {
+    return ComparisonChain.start()
+        .compare(segment, o.segment)
+        .compare(sequence, o.sequence)
+        .result();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    WebhookEventLogPosition that = (WebhookEventLogPosition) o;
+    return segment == that.segment && sequence == that.sequence;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(segment, sequence);
+  }
+
+  @Override
+  public String toString() {
+    return segment + ":" + sequence;
+  }
+}
@@ -1,41 +1,74 @@
 package com.hubspot.singularity.data;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
 
 import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.api.transaction.CuratorTransactionResult;
 import org.apache.curator.utils.ZKPaths;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException.BadVersionException;
+import org.apache.zookeeper.KeeperException.NoNodeException;
+import org.apache.zookeeper.KeeperException.NodeExistsException;
+import org.apache.zookeeper.data.Stat;
 
 import com.codahale.metrics.MetricRegistry;
+import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
+import com.google.common.base.Throwables;
 import com.google.common.collect.Iterables;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.hubspot.singularity.SingularityCreateResult;
 import com.hubspot.singularity.SingularityDeleteResult;
-import com.hubspot.singularity.SingularityDeployKey;
 import com.hubspot.singularity.SingularityDeployUpdate;
 import com.hubspot.singularity.SingularityRequestHistory;
 import com.hubspot.singularity.SingularityTaskHistoryUpdate;
 import com.hubspot.singularity.SingularityWebhook;
+import com.hubspot.singularity.SingularityWebhookDeliveryStats;
 import com.hubspot.singularity.SingularityWebhookSummary;
 import com.hubspot.singularity.WebhookType;
 import com.hubspot.singularity.config.SingularityConfiguration;
 import com.hubspot.singularity.data.transcoders.Transcoder;
 import com.hubspot.singularity.event.SingularityEventListener;
 
+/**
+ * Updates are appended once to a log per webhook type, no matter how many webhooks of that type there are, and
+ * each webhook keeps a cursor pointing at the last update it is done with.
+ *
+ * The log is split into segments, which hold sequential event nodes. Appends check the data version of the
+ * segment in the same transaction, so once a full segment has been sealed (by bumping its version) nothing else
+ * can land in it and readers can move past it. Segments behind the slowest cursor are deleted as a whole.
+ */
 @Singleton
 public class WebhookManager extends CuratorAsyncManager implements SingularityEventListener {
 
   private static final String ROOT_PATH = "/hooks";
-  private static final String QUEUES_PATH = ROOT_PATH + "/queues";
   private static final String ACTIVE_PATH = ROOT_PATH + "/active";
+  private static final String LOG_PATH = ROOT_PATH + "/log";
+  private static final String CURSORS_PATH = ROOT_PATH + "/cursors";
+
+  private static final String EVENT_PREFIX = "event-";
+  private static final byte[] SEALED = "sealed".getBytes(StandardCharsets.UTF_8);
+  private static final int MAX_APPEND_ATTEMPTS = 3;
 
   private final Transcoder<SingularityWebhook> webhookTranscoder;
   private final Transcoder<SingularityRequestHistory> requestHistoryTranscoder;
   private final Transcoder<SingularityTaskHistoryUpdate> taskHistoryUpdateTranscoder;
   private final Transcoder<SingularityDeployUpdate> deployWebhookTranscoder;
 
+  private final ConcurrentMap<WebhookType, Long> currentSegments;
+
   @Inject
   public WebhookManager(CuratorFramework curator, SingularityConfiguration configuration, MetricRegistry metricRegistry, Transcoder<SingularityWebhook> webhookTranscoder,
       Transcoder<SingularityRequestHistory> requestHistoryTranscoder, Transcoder<SingularityTaskHistoryUpdate> taskHistoryUpdateTranscoder, Transcoder<SingularityDeployUpdate> deployWebhookTranscoder) {
@@ -45,6 +78,8 @@ public class WebhookManager extends CuratorAsyncManager implements SingularityEv
     this.taskHistoryUpdateTranscoder = taskHistoryUpdateTranscoder;
     this.requestHistoryTranscoder = requestHistoryTranscoder;
     this.deployWebhookTranscoder = deployWebhookTranscoder;
+
+    this.currentSegments = new ConcurrentHashMap<>();
   }
 
   public List<SingularityWebhook> getActiveWebhooks() {
@@ -62,115 +97,344 @@ public class WebhookManager extends CuratorAsyncManager implements SingularityEv
     });
   }
 
-  private String getTaskHistoryUpdateId(SingularityTaskHistoryUpdate taskUpdate) {
-    return taskUpdate.getTaskId() + "-" + taskUpdate.getTaskState().name();
+  private String getWebhookPath(String webhookId) {
+    return ZKPaths.makePath(ACTIVE_PATH, webhookId);
   }
 
-  private String getRequestHistoryUpdateId(SingularityRequestHistory requestUpdate) {
-    return requestUpdate.getRequest().getId() + "-" + requestUpdate.getEventType().name() + "-" + requestUpdate.getCreatedAt();
+  private String getCursorPath(String webhookId) {
+    return ZKPaths.makePath(CURSORS_PATH, webhookId);
   }
 
-  private String getDeployUpdateId(SingularityDeployUpdate deployUpdate) {
-    return SingularityDeployKey.fromDeployMarker(deployUpdate.getDeployMarker()) + "-" + deployUpdate.getEventType().name();
+  private String getLogPath(WebhookType type) {
+    return ZKPaths.makePath(LOG_PATH, type.name());
   }
 
-  private String getWebhookPath(String webhookId) {
-    return ZKPaths.makePath(ACTIVE_PATH, webhookId);
+  private String getSegmentPath(WebhookType type, long segment) {
+    return ZKPaths.makePath(getLogPath(type), String.format("%010d", segment));
   }
 
-  private String getEnqueuePathForWebhook(String webhookId, WebhookType type) {
-    return ZKPaths.makePath(ZKPaths.makePath(QUEUES_PATH, type.name()), webhookId);
+  public SingularityCreateResult addWebhook(SingularityWebhook webhook) {
+    final String path = getWebhookPath(webhook.getId());
+
+    if (exists(path)) {
+      // batched isn't part of the id, so adding the same webhook again is how it is switched on or off
+      Optional<SingularityWebhook> existing = getData(path, webhookTranscoder);
+      if (existing.isPresent() && existing.get().isBatched() != webhook.isBatched()) {
+        save(path, new SingularityWebhook(existing.get().getUri(), Optional.of(existing.get().getTimestamp()), existing.get().getUser(), existing.get().getType(),
+            Optional.of(webhook.isBatched())), webhookTranscoder);
+      }
+      return SingularityCreateResult.EXISTED;
+    }
+
+    // New webhooks only get updates from after they were added
+    saveCursor(webhook.getId(), getEventLogTail(webhook.getType()));
+
+    return create(path, webhook, webhookTranscoder);
   }
 
-  private String getEnqueuePathForRequestUpdate(String webhookId, SingularityRequestHistory requestUpdate) {
-    return ZKPaths.makePath(getEnqueuePathForWebhook(webhookId, WebhookType.REQUEST), getRequestHistoryUpdateId(requestUpdate));
+  public SingularityDeleteResult deleteWebhook(String webhookId) {
+    final String path = getWebhookPath(webhookId);
+
+    // Webhook first, so a cursor move that lands in between fails its check instead of leaving a cursor behind
+    final SingularityDeleteResult result = delete(path);
+    delete(getCursorPath(webhookId));
+
+    return result;
   }
 
-  private String getEnqueuePathForTaskUpdate(String webhookId, SingularityTaskHistoryUpdate taskUpdate) {
-    return ZKPaths.makePath(getEnqueuePathForWebhook(webhookId, WebhookType.TASK), getTaskHistoryUpdateId(taskUpdate));
+  public Optional<WebhookEventLogPosition> getCursor(String webhookId) {
+    return getStringData(getCursorPath(webhookId)).transform(WebhookEventLogPosition::valueOf);
   }
 
-  private String getEnqueuePathForDeployUpdate(String webhookId, SingularityDeployUpdate deployUpdate) {
-    return ZKPaths.makePath(getEnqueuePathForWebhook(webhookId, WebhookType.DEPLOY), getDeployUpdateId(deployUpdate));
+  /**
+   * Webhooks that don't have a cursor yet start from the oldest update still in the log.
+   */
+  public WebhookEventLogPosition getCursorOrHead(SingularityWebhook webhook) {
+    return getCursor(webhook.getId()).or(() -> getEventLogHead(webhook.getType()));
   }
 
-  public SingularityCreateResult addWebhook(SingularityWebhook webhook) {
-    final String path = getWebhookPath(webhook.getId());
+  public SingularityCreateResult saveCursor(String webhookId, WebhookEventLogPosition position) {
+    return save(getCursorPath(webhookId), Optional.of(position.toString().getBytes(StandardCharsets.UTF_8)));
+  }
 
-    return create(path, webhook, webhookTranscoder);
+  /**
+   * Deliveries finish after the check that sent them, so the webhook may have been deleted in the meantime. Its cursor
+   * is only moved if it is still there, otherwise the cursor would be brought back and never cleaned up. The webhook is
+   * checked in the same transaction that writes the cursor, so a delete can't slip in between.
+   */
+  public boolean moveCursor(String webhookId, WebhookEventLogPosition position) {
+    final long start = System.currentTimeMillis();
+    final String webhookPath = getWebhookPath(webhookId);
+    final String cursorPath = getCursorPath(webhookId);
+    final byte[] data = position.toString().getBytes(StandardCharsets.UTF_8);
+
+    try {
+      for (int attempt = 0; attempt < 2; attempt++) {
+        try {
+          curator.inTransaction()
+              .check().forPath(webhookPath).and()
+              .setData().forPath(cursorPath, data).and()
+              .commit();
+          return true;
+        } catch (NoNodeException e) {
+          // Either the webhook is gone or it doesn't have a cursor yet
+        }
+
+        try {
+          curator.inTransaction()
+              .check().forPath(webhookPath).and()
+              .create().forPath(cursorPath, data).and()
+              .commit();
+          return true;
+        } catch (NoNodeException e) {
+          return false;
+        } catch (NodeExistsException e) {
+          // Someone else created the cursor in the meantime, set it on the next attempt
+        }
+      }
+      return false;
+    } catch (Throwable t) {
+      throw Throwables.propagate(t);
+    } finally {
+      log(OperationType.WRITE, Optional.absent(), Optional.of(data.length), start, cursorPath);
+    }
   }
 
-  public SingularityDeleteResult deleteWebhook(String webhookId) {
-    final String path = getWebhookPath(webhookId);
+  private List<Long> getSegments(WebhookType type) {
+    List<Long> segments = new ArrayList<>();
+    for (String child : getChildren(getLogPath(type))) {
+      segments.add(Long.parseLong(child));
+    }
+    Collections.sort(segments);
+    return segments;
+  }
 
-    return delete(path);
+  public WebhookEventLogPosition getEventLogHead(WebhookType type) {
+    List<Long> segments = getSegments(type);
+    return WebhookEventLogPosition.beforeSegment(segments.isEmpty() ? 0 : segments.get(0));
   }
 
-  public SingularityDeleteResult deleteTaskUpdate(SingularityWebhook webhook, SingularityTaskHistoryUpdate taskUpdate) {
-    final String path = getEnqueuePathForTaskUpdate(webhook.getId(), taskUpdate);
+  public WebhookEventLogPosition getEventLogTail(WebhookType type) {
+    final long segment = refreshCurrentSegment(type);
+
+    long lastSequence = -1;
+    for (String child : getChildren(getSegmentPath(type, segment))) {
+      lastSequence = Math.max(lastSequence, getSequence(child));
+    }
 
-    return delete(path);
+    return new WebhookEventLogPosition(segment, lastSequence);
   }
 
-  public SingularityDeleteResult deleteDeployUpdate(SingularityWebhook webhook, SingularityDeployUpdate deployUpdate) {
-    final String path = getEnqueuePathForDeployUpdate(webhook.getId(), deployUpdate);
+  private long getSequence(String eventNode) {
+    return Long.parseLong(eventNode.substring(EVENT_PREFIX.length()));
+  }
 
-    return delete(path);
+  private boolean isSealed(WebhookType type, long segment) {
+    Optional<Stat> stat = checkExists(getSegmentPath(type, segment));
+    return stat.isPresent() && stat.get().getVersion() > 0;
   }
 
-  public SingularityDeleteResult deleteRequestUpdate(SingularityWebhook webhook, SingularityRequestHistory requestUpdate) {
-    final String path = getEnqueuePathForRequestUpdate(webhook.getId(), requestUpdate);
+  private long refreshCurrentSegment(WebhookType type) {
+    List<Long> segments = getSegments(type);
 
-    return delete(path);
+    long segment = segments.isEmpty() ? 0 : segments.get(segments.size() - 1);
+    if (!segments.isEmpty() && isSealed(type, segment)) {
+      // Whoever sealed it went away before creating the next one
+      segment++;
+    }
+    create(getSegmentPath(type, segment));
+
+    currentSegments.merge(type, segment, Math::max);
+    return segment;
+  }
+
+  private void sealSegment(WebhookType type, long segment) {
+    try {
+      curator.setData().withVersion(0).forPath(getSegmentPath(type, segment), SEALED);
+    } catch (BadVersionException | NoNodeException e) {
+      // someone else sealed it
+    } catch (Throwable t) {
+      throw Throwables.propagate(t);
+    }
+
+    create(getSegmentPath(type, segment + 1));
+    currentSegments.merge(type, segment + 1, Math::max);
+  }
+
+  private long appendToSegment(WebhookType type, long segment, byte[] data) throws Exception {
+    final long start = System.currentTimeMillis();
+    final String segmentPath = getSegmentPath(type, segment);
+    final String eventPathPrefix = ZKPaths.makePath(segmentPath, EVENT_PREFIX);
+
+    try {
+      Collection<CuratorTransactionResult> results = curator.inTransaction()
+          .check().withVersion(0).forPath(segmentPath).and()
+          .create().withMode(CreateMode.PERSISTENT_SEQUENTIAL).forPath(eventPathPrefix, data).and()
+          .commit();
+
+      for (CuratorTransactionResult result : results) {
+        if (result.getResultPath() != null && result.getResultPath().startsWith(eventPathPrefix)) {
+          return getSequence(ZKPaths.getNodeFromPath(result.getResultPath()));
+        }
+      }
+
+      throw new IllegalStateException(String.format("No event was created in %s", segmentPath));
+    } finally {
+      log(OperationType.WRITE, Optional.absent(), Optional.of(data.length), start, segmentPath);
+    }
+  }
+
+  private <T> void appendEvent(WebhookType type, T update, Transcoder<T> transcoder) {
+    // TODO consider caching the list of hooks (at the expense of needing to refresh the cache and not
+    // immediately make some webhooks)
+    if (Iterables.isEmpty(getActiveWebhooksByType(type))) {
+      return;
+    }
+
+    final byte[] data = transcoder.toBytes(update);
+
+    for (int attempt = 0; attempt < MAX_APPEND_ATTEMPTS; attempt++) {
+      final Long current = currentSegments.get(type);
+      final long segment = current != null ? current : refreshCurrentSegment(type);
+
+      try {
+        long sequence = appendToSegment(type, segment, data);
+        if (sequence + 1 >= configuration.getWebhookEventLogSegmentSize()) {
+          sealSegment(type, segment);
+        }
+        return;
+      } catch (BadVersionException | NoNodeException e) {
+        // the segment was sealed, or not created yet
+        refreshCurrentSegment(type);
+      } catch (Throwable t) {
+        throw Throwables.propagate(t);
+      }
+    }
+
+    throw new IllegalStateException(String.format("Couldn't append %s to the %s webhook event log after %s attempts", update, type, MAX_APPEND_ATTEMPTS));
+  }
+
+  private <T> SortedMap<WebhookEventLogPosition, T> getEventsAfter(WebhookType type, WebhookEventLogPosition after, Transcoder<T> transcoder) {
+    final Map<String, WebhookEventLogPosition> paths = new HashMap<>();
+
+    for (long segment : getSegments(type)) {
+      if (segment < after.getSegment()) {
+        continue;
+      }
+
+      final String segmentPath = getSegmentPath(type, segment);
+      for (String child : getChildren(segmentPath)) {
+        WebhookEventLogPosition position = new WebhookEventLogPosition(segment, getSequence(child));
+        if (position.compareTo(after) > 0) {
+          paths.put(ZKPaths.makePath(segmentPath, child), position);
+        }
+      }
+    }
+
+    final SortedMap<WebhookEventLogPosition, T> events = new TreeMap<>();
+    getAsyncWithPath("getEventsAfter", new ArrayList<>(paths.keySet()), transcoder).forEach((path, update) -> events.put(paths.get(path), update));
+    return events;
+  }
+
+  public SortedMap<WebhookEventLogPosition, SingularityTaskHistoryUpdate> getTaskUpdatesAfter(WebhookEventLogPosition after) {
+    return getEventsAfter(WebhookType.TASK, after, taskHistoryUpdateTranscoder);
+  }
+
+  public SortedMap<WebhookEventLogPosition, SingularityRequestHistory> getRequestUpdatesAfter(WebhookEventLogPosition after) {
+    return getEventsAfter(WebhookType.REQUEST, after, requestHistoryTranscoder);
+  }
+
+  public SortedMap<WebhookEventLogPosition, SingularityDeployUpdate> getDeployUpdatesAfter(WebhookEventLogPosition after) {
+    return getEventsAfter(WebhookType.DEPLOY, after, deployWebhookTranscoder);
+  }
+
+  public int getNumEventsAfter(WebhookType type, WebhookEventLogPosition after) {
+    int numEvents = 0;
+
+    for (long segment : getSegments(type)) {
+      if (segment == after.getSegment()) {
+        for (String child : getChildren(getSegmentPath(type, segment))) {
+          if (getSequence(child) > after.getSequence()) {
+            numEvents++;
+          }
+        }
+      } else if (segment > after.getSegment()) {
+        numEvents += getNumChildren(getSegmentPath(type, segment));
+      }
+    }
+
+    return numEvents;
+  }
+
+  /**
+   * Deletes the segments every cursor has moved past. The newest segment is always kept so that segment numbers
+   * keep growing.
+   */
+  public int trimEventLog(WebhookType type, WebhookEventLogPosition slowestCursor) {
+    List<Long> segments = getSegments(type);
+    int deleted = 0;
+
+    for (int i = 0; i < segments.size() - 1; i++) {
+      if (segments.get(i) >= slowestCursor.getSegment()) {
+        break;
+      }
+      deleteTree(getSegmentPath(type, segments.get(i)));
+      deleted++;
+    }
+
+    return deleted;
+  }
+
+  private Optional<SingularityWebhook> getWebhook(String webhookId, WebhookType type) {
+    Optional<SingularityWebhook> webhook = getData(getWebhookPath(webhookId), webhookTranscoder);
+    return webhook.isPresent() && webhook.get().getType() == type ? webhook : Optional.absent();
   }
 
   public List<SingularityDeployUpdate> getQueuedDeployUpdatesForHook(String webhookId) {
-    return getAsyncChildren(getEnqueuePathForWebhook(webhookId, WebhookType.DEPLOY), deployWebhookTranscoder);
+    Optional<SingularityWebhook> webhook = getWebhook(webhookId, WebhookType.DEPLOY);
+    if (!webhook.isPresent()) {
+      return Collections.emptyList();
+    }
+    return new ArrayList<>(getDeployUpdatesAfter(getCursorOrHead(webhook.get())).values());
   }
 
   public List<SingularityTaskHistoryUpdate> getQueuedTaskUpdatesForHook(String webhookId) {
-    return getAsyncChildren(getEnqueuePathForWebhook(webhookId, WebhookType.TASK), taskHistoryUpdateTranscoder);
+    Optional<SingularityWebhook> webhook = getWebhook(webhookId, WebhookType.TASK);
+    if (!webhook.isPresent()) {
+      return Collections.emptyList();
+    }
+    return new ArrayList<>(getTaskUpdatesAfter(getCursorOrHead(webhook.get())).values());
   }
 
   public List<SingularityRequestHistory> getQueuedRequestHistoryForHook(String webhookId) {
-    return getAsyncChildren(getEnqueuePathForWebhook(webhookId, WebhookType.REQUEST), requestHistoryTranscoder);
+    Optional<SingularityWebhook> webhook = getWebhook(webhookId, WebhookType.REQUEST);
+    if (!webhook.isPresent()) {
+      return Collections.emptyList();
+    }
+    return new ArrayList<>(getRequestUpdatesAfter(getCursorOrHead(webhook.get())).values());
   }
 
-  public List<SingularityWebhookSummary> getWebhooksWithQueueSize() {
+  public List<SingularityWebhookSummary> getWebhooksWithQueueSize(Function<String, Optional<SingularityWebhookDeliveryStats>> deliveryStats) {
     List<SingularityWebhookSummary> webhooks = new ArrayList<>();
     for (SingularityWebhook webhook : getActiveWebhooks()) {
-      webhooks.add(new SingularityWebhookSummary(webhook, getNumChildren(getEnqueuePathForWebhook(webhook.getId(), webhook.getType()))));
+      webhooks.add(new SingularityWebhookSummary(webhook, getNumEventsAfter(webhook.getType(), getCursorOrHead(webhook)), deliveryStats.apply(webhook.getId())));
     }
     return webhooks;
   }
 
-  // TODO consider caching the list of hooks (at the expense of needing to refresh the cache and not
-  // immediately make some webhooks)
   @Override
   public void requestHistoryEvent(SingularityRequestHistory requestUpdate) {
-    for (SingularityWebhook webhook : getActiveWebhooksByType(WebhookType.REQUEST)) {
-      final String enqueuePath = getEnqueuePathForRequestUpdate(webhook.getId(), requestUpdate);
-
-      save(enqueuePath, requestUpdate, requestHistoryTranscoder);
-    }
+    appendEvent(WebhookType.REQUEST, requestUpdate, requestHistoryTranscoder);
   }
 
   @Override
   public void taskHistoryUpdateEvent(SingularityTaskHistoryUpdate taskUpdate) {
-    for (SingularityWebhook webhook : getActiveWebhooksByType(WebhookType.TASK)) {
-      final String enqueuePath = getEnqueuePathForTaskUpdate(webhook.getId(), taskUpdate);
-
-      save(enqueuePath, taskUpdate, taskHistoryUpdateTranscoder);
-    }
+    appendEvent(WebhookType.TASK, taskUpdate, taskHistoryUpdateTranscoder);
   }
 
   @Override
   public void deployHistoryEvent(SingularityDeployUpdate deployUpdate) {
-    for (SingularityWebhook webhook : getActiveWebhooksByType(WebhookType.DEPLOY)) {
-      final String enqueuePath = getEnqueuePathForDeployUpdate(webhook.getId(), deployUpdate);
-
-      save(enqueuePath, deployUpdate, deployWebhookTranscoder);
-    }
+    appendEvent(WebhookType.DEPLOY, deployUpdate, deployWebhookTranscoder);
   }
 
 }
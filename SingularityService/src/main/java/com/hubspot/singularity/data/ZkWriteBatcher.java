@@ -0,0 +1,281 @@
+package com.hubspot.singularity.data;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.api.transaction.CuratorTransaction;
+import org.apache.curator.framework.api.transaction.CuratorTransactionFinal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.base.Optional;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.hubspot.singularity.config.SingularityConfiguration;
+import com.hubspot.singularity.config.ZooKeeperConfiguration;
+
+import io.dropwizard.lifecycle.Managed;
+
+/**
+ * Groups independent zk writes from concurrent callers into multi-op transactions.
+ *
+ * A single flusher thread drains queued operations in submission order, so writes to the same path are applied in the
+ * order they were issued. The flusher only reports whether a write was committed; a write that wasn't is done by its
+ * caller, on the caller's thread, as a regular write. A write that finds nothing else queued is handed back right away
+ * instead of waiting for company.
+ *
+ * If a transaction fails (node already exists, node or parent missing, etc.) the batch is split in half and each half is
+ * retried, so a single write with an unmet precondition only sends itself back to its caller, and the rest are still
+ * committed together. Once a write has been handed back, later writes to the same path in that flush are handed back
+ * too so that they can't overtake it.
+ */
+@Singleton
+public class ZkWriteBatcher implements Managed {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ZkWriteBatcher.class);
+
+  private final CuratorFramework curator;
+  private final ZooKeeperConfiguration zooKeeperConfiguration;
+  private final BlockingQueue<BatchedWrite> queue;
+
+  private final Histogram batchSizeHistogram;
+  private final Timer batchTimer;
+  private final Timer queuedTimer;
+  private final Meter fallbackMeter;
+
+  private volatile ExecutorService flusher;
+  private volatile boolean stopped;
+
+  @Inject
+  public ZkWriteBatcher(CuratorFramework curator, SingularityConfiguration configuration, MetricRegistry metricRegistry) {
+    this.curator = curator;
+    this.zooKeeperConfiguration = configuration.getZooKeeperConfiguration();
+    this.queue = new LinkedBlockingQueue<>();
+
+    this.batchSizeHistogram = metricRegistry.histogram("zk.batch.size");
+    this.batchTimer = metricRegistry.timer("zk.batch.commit");
+    this.queuedTimer = metricRegistry.timer("zk.batch.latency");
+    this.fallbackMeter = metricRegistry.meter("zk.batch.fallbacks");
+  }
+
+  public boolean isEnabled() {
+    return zooKeeperConfiguration.isBatchWrites() && !stopped;
+  }
+
+  /**
+   * @return true if the node was created as part of a batch, false if the caller needs to create it itself
+   */
+  public boolean create(String path, Optional<byte[]> data) {
+    return submit(new BatchedWrite(WriteType.CREATE, path, data));
+  }
+
+  /**
+   * @return true if the data was set as part of a batch, false if the caller needs to write it itself
+   */
+  public boolean set(String path, Optional<byte[]> data) {
+    return submit(new BatchedWrite(WriteType.SET, path, data));
+  }
+
+  /**
+   * @return true if the node was deleted as part of a batch, false if the caller needs to delete it itself
+   */
+  public boolean delete(String path) {
+    return submit(new BatchedWrite(WriteType.DELETE, path, Optional.absent()));
+  }
+
+  private boolean submit(BatchedWrite write) {
+    if (!isEnabled()) {
+      return false;
+    }
+
+    startFlusherIfNecessary();
+    queue.add(write);
+
+    if (stopped) {
+      handBackQueuedWrites();
+    }
+
+    return write.result.join();
+  }
+
+  private void startFlusherIfNecessary() {
+    if (flusher == null) {
+      synchronized (this) {
+        if (flusher == null) {
+          ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("zk-write-batcher-%d").setDaemon(true).build());
+          executor.submit(this::flushLoop);
+          flusher = executor;
+        }
+      }
+    }
+  }
+
+  @Override
+  public void start() {}
+
+  @Override
+  public void stop() {
+    stopped = true;
+
+    synchronized (this) {
+      if (flusher != null) {
+        flusher.shutdownNow();
+      }
+    }
+
+    handBackQueuedWrites();
+  }
+
+  private void handBackQueuedWrites() {
+    List<BatchedWrite> remaining = new ArrayList<>();
+    queue.drainTo(remaining);
+    remaining.forEach(BatchedWrite::handBack);
+  }
+
+  private void flushLoop() {
+    while (!Thread.currentThread().isInterrupted()) {
+      List<BatchedWrite> batch = new ArrayList<>(zooKeeperConfiguration.getBatchWritesMaxOperations());
+
+      try {
+        batch.add(queue.take());
+
+        // Only linger while other writes are queued behind the first one, a lone write shouldn't wait for company
+        long lingerUntil = System.currentTimeMillis() + zooKeeperConfiguration.getBatchWritesLingerMillis();
+        while (batch.size() < zooKeeperConfiguration.getBatchWritesMaxOperations()) {
+          BatchedWrite next = queue.poll();
+          if (next == null && batch.size() > 1) {
+            long remaining = lingerUntil - System.currentTimeMillis();
+            next = remaining > 0 ? queue.poll(remaining, TimeUnit.MILLISECONDS) : null;
+          }
+          if (next == null) {
+            break;
+          }
+          batch.add(next);
+        }
+      } catch (InterruptedException ie) {
+        Thread.currentThread().interrupt();
+      }
+
+      try {
+        if (!batch.isEmpty()) {
+          batchSizeHistogram.update(batch.size());
+          flush(batch, new HashSet<>(), false);
+        }
+      } catch (Throwable t) {
+        LOG.error("Uncaught exception in zk write batcher", t);
+        batch.forEach(BatchedWrite::handBack);
+      }
+    }
+  }
+
+  private void flush(List<BatchedWrite> batch, Set<String> handedBackPaths, boolean split) {
+    List<BatchedWrite> toCommit = new ArrayList<>(batch.size());
+    for (BatchedWrite write : batch) {
+      if (handedBackPaths.contains(write.path)) {
+        fallbackMeter.mark();
+        write.handBack();
+      } else {
+        toCommit.add(write);
+      }
+    }
+
+    if (toCommit.isEmpty()) {
+      return;
+    }
+
+    if (toCommit.size() == 1) {
+      // Nothing to gain from a transaction, and the caller's regular write handles a failed precondition itself
+      if (split) {
+        fallbackMeter.mark();
+      }
+      handedBackPaths.add(toCommit.get(0).path);
+      toCommit.get(0).handBack();
+      return;
+    }
+
+    final long start = System.currentTimeMillis();
+    try {
+      commit(toCommit);
+      toCommit.forEach(BatchedWrite::complete);
+      return;
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+      toCommit.forEach(BatchedWrite::handBack);
+      return;
+    } catch (Throwable t) {
+      LOG.debug("Batch of {} zk writes failed ({}), splitting it", toCommit.size(), t.getMessage());
+    } finally {
+      batchTimer.update(System.currentTimeMillis() - start, TimeUnit.MILLISECONDS);
+    }
+
+    int middle = toCommit.size() / 2;
+    flush(toCommit.subList(0, middle), handedBackPaths, true);
+    flush(toCommit.subList(middle, toCommit.size()), handedBackPaths, true);
+  }
+
+  private void commit(List<BatchedWrite> batch) throws Exception {
+    CuratorTransaction transaction = curator.inTransaction();
+
+    for (BatchedWrite write : batch) {
+      switch (write.type) {
+        case CREATE:
+          transaction = write.data.isPresent() ? transaction.create().forPath(write.path, write.data.get()).and() : transaction.create().forPath(write.path).and();
+          break;
+        case SET:
+          transaction = write.data.isPresent() ? transaction.setData().forPath(write.path, write.data.get()).and() : transaction.setData().forPath(write.path).and();
+          break;
+        case DELETE:
+          transaction = transaction.delete().forPath(write.path).and();
+          break;
+        default:
+          throw new IllegalStateException(String.format("Unknown write type %s", write.type));
+      }
+    }
+
+    ((CuratorTransactionFinal) transaction).commit();
+  }
+
+  private enum WriteType {
+    CREATE, SET, DELETE;
+  }
+
+  private class BatchedWrite {
+    private final WriteType type;
+    private final String path;
+    private final Optional<byte[]> data;
+    private final CompletableFuture<Boolean> result;
+    private final long queuedAt;
+
+    BatchedWrite(WriteType type, String path, Optional<byte[]> data) {
+      this.type = type;
+      this.path = path;
+      this.data = data;
+      this.result = new CompletableFuture<>();
+      this.queuedAt = System.currentTimeMillis();
+    }
+
+    void complete() {
+      queuedTimer.update(System.currentTimeMillis() - queuedAt, TimeUnit.MILLISECONDS);
+      result.complete(true);
+    }
+
+    void handBack() {
+      queuedTimer.update(System.currentTimeMillis() - queuedAt, TimeUnit.MILLISECONDS);
+      result.complete(false);
+    }
+  }
+}
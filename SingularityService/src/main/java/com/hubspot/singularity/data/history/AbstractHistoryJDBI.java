@@ -18,9 +18,20 @@ import com.hubspot.singularity.SingularityTaskIdHistory;
 public abstract class AbstractHistoryJDBI implements HistoryJDBI {
     protected static final Logger LOG = LoggerFactory.getLogger(HistoryJDBI.class);
 
+    // Rows per JDBC batch, callers already limit how many rows they hand over at once with persistHistoryBatchSize
+    protected static final int BATCH_CHUNK_SIZE = 500;
+
     private static final String GET_TASK_ID_HISTORY_QUERY = "SELECT taskId, requestId, updatedAt, lastTaskStatus, runId FROM taskHistory";
     private static final String GET_TASK_ID_HISTORY_COUNT_QUERY = "SELECT COUNT(*) FROM taskHistory";
 
+    /**
+     * taskId as cursor queries compare and sort it. Cursors break ties with Java's String ordering, so this has to order
+     * task ids by code point whatever the column's collation is. The mysql column is utf8_bin, so it can be used as is
+     */
+    protected String getBinaryOrderedTaskId() {
+        return "taskId";
+    }
+
     protected void addWhereOrAnd(StringBuilder sqlBuilder, boolean shouldUseWhere) {
         if (shouldUseWhere) {
             sqlBuilder.append(" WHERE ");
@@ -128,6 +139,49 @@ public abstract class AbstractHistoryJDBI implements HistoryJDBI {
         return query.list();
     }
 
+    @Override
+    public List<SingularityTaskIdHistory> getTaskIdHistoryAfterCursor(String requestId, Optional<String> deployId, Optional<String> runId, Optional<String> host,
+                                                                      Optional<ExtendedTaskState> lastTaskStatus, Optional<Long> startedBefore, Optional<Long> startedAfter, Optional<Long> updatedBefore,
+                                                                      Optional<Long> updatedAfter, Optional<OrderDirection> orderDirection, Optional<TaskHistoryCursor> cursor, Integer limitCount) {
+
+        final Map<String, Object> binds = new HashMap<>();
+        final StringBuilder sqlBuilder = new StringBuilder(GET_TASK_ID_HISTORY_QUERY);
+
+        applyTaskIdHistoryBaseQuery(sqlBuilder, binds, Optional.of(requestId), deployId, runId, host, lastTaskStatus, startedBefore, startedAfter, updatedBefore, updatedAfter);
+
+        final String direction = orderDirection.or(OrderDirection.DESC).name();
+
+        // Keyset pagination, seeks straight to the cursor on the (requestId, updatedAt, taskId) index instead of reading and discarding an OFFSET
+        if (cursor.isPresent()) {
+            final String comparison = orderDirection.or(OrderDirection.DESC) == OrderDirection.ASC ? ">" : "<";
+            addWhereOrAnd(sqlBuilder, binds.isEmpty());
+            sqlBuilder.append(String.format("(updatedAt %s :cursorUpdatedAt OR (updatedAt = :cursorUpdatedAt AND %s %s :cursorTaskId))", comparison, getBinaryOrderedTaskId(), comparison));
+            binds.put("cursorUpdatedAt", new Date(cursor.get().getUpdatedAt()));
+            binds.put("cursorTaskId", cursor.get().getTaskId());
+        }
+
+        sqlBuilder.append(" ORDER BY updatedAt ");
+        sqlBuilder.append(direction);
+        sqlBuilder.append(", ");
+        sqlBuilder.append(getBinaryOrderedTaskId());
+        sqlBuilder.append(" ");
+        sqlBuilder.append(direction);
+
+        sqlBuilder.append(" LIMIT :limitCount");
+        binds.put("limitCount", limitCount);
+
+        final String sql = sqlBuilder.toString();
+
+        LOG.trace("Generated sql for task search after cursor: {}, binds: {}", sql, binds);
+
+        final Query<SingularityTaskIdHistory> query = getHandle().createQuery(sql).mapTo(SingularityTaskIdHistory.class);
+        for (Map.Entry<String, Object> entry : binds.entrySet()) {
+            query.bind(entry.getKey(), entry.getValue());
+        }
+
+        return query.list();
+    }
+
     @Override
     public int getTaskIdHistoryCount(Optional<String> requestId, Optional<String> deployId, Optional<String> runId, Optional<String> host,
                                      Optional<ExtendedTaskState> lastTaskStatus, Optional<Long> startedBefore, Optional<Long> startedAfter, Optional<Long> updatedBefore,
@@ -150,4 +204,9 @@ public abstract class AbstractHistoryJDBI implements HistoryJDBI {
         return query.first();
     }
 
+    @Override
+    public Optional<Long> getReplicationLagSeconds(String replicationLagQuery) {
+        return Optional.fromNullable(getHandle().createQuery(replicationLagQuery).mapTo(Long.class).first());
+    }
+
 }
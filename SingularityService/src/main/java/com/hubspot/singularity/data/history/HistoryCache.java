@@ -0,0 +1,87 @@
+package com.hubspot.singularity.data.history;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.base.Optional;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.hubspot.singularity.config.SingularityConfiguration;
+
+/**
+ * Read-through cache for history blobs that no longer change once they are in the database. Entries are weighed by
+ * the size of the stored blob, so historyCacheMaxBytes roughly bounds the database bytes held, not the number of items.
+ * Lookups that find nothing are not cached, since the item may still be persisted later.
+ */
+class HistoryCache<T> {
+
+  private final Optional<Cache<String, CachedHistory<T>>> cache;
+  private final Meter hits;
+  private final Meter misses;
+  private final Meter evictions;
+
+  HistoryCache(SingularityConfiguration configuration, MetricRegistry metricRegistry, String name) {
+    this.hits = metricRegistry.meter(String.format("history.cache.%s.hits", name));
+    this.misses = metricRegistry.meter(String.format("history.cache.%s.misses", name));
+    this.evictions = metricRegistry.meter(String.format("history.cache.%s.evictions", name));
+
+    if (configuration.getHistoryCacheMaxBytes() > 0) {
+      this.cache = Optional.of(CacheBuilder.newBuilder()
+          .maximumWeight(configuration.getHistoryCacheMaxBytes())
+          .<String, CachedHistory<T>>weigher((key, value) -> value.bytes)
+          .expireAfterWrite(configuration.getHistoryCacheExpireAfterMillis(), TimeUnit.MILLISECONDS)
+          .<String, CachedHistory<T>>removalListener((notification) -> {
+            if (notification.wasEvicted()) {
+              evictions.mark();
+            }
+          })
+          .build());
+    } else {
+      this.cache = Optional.absent();
+    }
+  }
+
+  Optional<T> get(String key, Supplier<byte[]> loader, Function<byte[], T> transcoder) {
+    if (cache.isPresent()) {
+      CachedHistory<T> cached = cache.get().getIfPresent(key);
+      if (cached != null) {
+        hits.mark();
+        return Optional.of(cached.value);
+      }
+    }
+
+    misses.mark();
+
+    byte[] historyBytes = loader.get();
+    if (historyBytes == null || historyBytes.length == 0) {
+      return Optional.absent();
+    }
+
+    T value = transcoder.apply(historyBytes);
+
+    if (cache.isPresent()) {
+      cache.get().put(key, new CachedHistory<>(value, historyBytes.length));
+    }
+
+    return Optional.of(value);
+  }
+
+  void invalidateAll() {
+    if (cache.isPresent()) {
+      cache.get().invalidateAll();
+    }
+  }
+
+  private static class CachedHistory<T> {
+    private final T value;
+    private final int bytes;
+
+    private CachedHistory(T value, int bytes) {
+      this.value = value;
+      this.bytes = bytes;
+    }
+  }
+}
@@ -21,6 +21,13 @@ public interface HistoryJDBI extends GetHandle {
                          String lastTaskStatus, String runId,String deployId, String host,
                          Date startedAt);
 
+  void insertRequestHistories(List<String> requestIds, List<byte[]> requests, List<Date> createdAts, List<String> requestStates, List<String> users, List<String> messages);
+  void insertDeployHistories(List<String> requestIds, List<String> deployIds, List<Date> createdAts, List<String> users, List<String> messages, List<Date> deployStateAts, List<String> deployStates,
+                             List<byte[]> bytes);
+  void insertTaskHistories(List<String> requestIds, List<String> taskIds, List<byte[]> bytes, List<Date> updatedAts, List<String> lastTaskStatuses, List<String> runIds, List<String> deployIds,
+                           List<String> hosts, List<Date> startedAts);
+  List<String> getTaskIdsInHistory(List<String> taskIds);
+
   byte[] getTaskHistoryForTask(String taskId);
   byte[] getTaskHistoryForTaskByRunId(String requestId, String runId);
 
@@ -35,16 +42,28 @@ public interface HistoryJDBI extends GetHandle {
 
   Date getMinUpdatedAtWithLimitForRequest(String requestId, Integer limit);
 
-  void updateTaskHistoryNullBytesForRequestBefore(String requestId, Date updatedAtBefore, Integer purgeLimitPerQuery);
-  void deleteTaskHistoryForRequestBefore(String requestId,Date updatedAtBefore, Integer purgeLimitPerQuery);
+  int updateTaskHistoryNullBytesForRequestBefore(String requestId, Date updatedAtBefore, Integer purgeLimitPerQuery);
+  int deleteTaskHistoryForRequestBefore(String requestId,Date updatedAtBefore, Integer purgeLimitPerQuery);
+  Date getUpdatedAtAtOffsetForRequestBefore(String requestId, Date updatedAtBefore, Integer offset);
+  Date getUnpurgedUpdatedAtAtOffsetForRequestBefore(String requestId, Date updatedAtBefore, Integer offset);
+  Optional<Long> getReplicationLagSeconds(String replicationLagQuery);
   List<String> getRequestIdsInTaskHistory();
   int getUnpurgedTaskHistoryCountByRequestBefore(String requestId, Date updatedAtBefore);
 
+  void upsertUsages(List<String> usageTypes, List<String> ids, List<Double> sampledAts, List<byte[]> bytes);
+  List<byte[]> getUsage(String usageType, String id);
+  List<String> getIdsWithUsage(String usageType);
+  void deleteUsages(List<String> usageTypes, List<String> ids, List<Double> sampledAts);
+  void deleteUsageForId(String usageType, String id);
+
   void close();
 
   List<SingularityTaskIdHistory> getTaskIdHistory(Optional<String> requestId, Optional<String> deployId, Optional<String> runId, Optional<String> host,
                                                   Optional<ExtendedTaskState> lastTaskStatus, Optional<Long> startedBefore, Optional<Long> startedAfter, Optional<Long> updatedBefore,
                                                   Optional<Long> updatedAfter, Optional<OrderDirection> orderDirection, Optional<Integer> limitStart, Integer limitCount);
+  List<SingularityTaskIdHistory> getTaskIdHistoryAfterCursor(String requestId, Optional<String> deployId, Optional<String> runId, Optional<String> host,
+                                                             Optional<ExtendedTaskState> lastTaskStatus, Optional<Long> startedBefore, Optional<Long> startedAfter, Optional<Long> updatedBefore,
+                                                             Optional<Long> updatedAfter, Optional<OrderDirection> orderDirection, Optional<TaskHistoryCursor> cursor, Integer limitCount);
   int getTaskIdHistoryCount(Optional<String> requestId, Optional<String> deployId, Optional<String> runId, Optional<String> host,
                             Optional<ExtendedTaskState> lastTaskStatus, Optional<Long> startedBefore, Optional<Long> startedAfter, Optional<Long> updatedBefore,
                             Optional<Long> updatedAfter);
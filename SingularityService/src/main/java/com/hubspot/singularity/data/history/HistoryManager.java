@@ -20,6 +20,12 @@ public interface HistoryManager {
 
   void saveDeployHistory(SingularityDeployHistory deployHistory);
 
+  void saveRequestHistoryUpdates(List<SingularityRequestHistory> requestHistories);
+
+  void saveTaskHistories(List<SingularityTaskHistory> taskHistories);
+
+  void saveDeployHistories(List<SingularityDeployHistory> deployHistories);
+
   Optional<SingularityDeployHistory> getDeployHistory(String requestId, String deployId);
 
   List<SingularityDeployHistory> getDeployHistoryForRequest(String requestId, Integer limitStart, Integer limitCount);
@@ -30,6 +36,10 @@ public interface HistoryManager {
       Optional<ExtendedTaskState> lastTaskStatus, Optional<Long> startedBefore, Optional<Long> startedAfter, Optional<Long> updatedBefore,
       Optional<Long> updatedAfter, Optional<OrderDirection> orderDirection, Optional<Integer> limitStart, Integer limitCount);
 
+  List<SingularityTaskIdHistory> getTaskIdHistoryAfterCursor(String requestId, Optional<String> deployId, Optional<String> runId, Optional<String> host, Optional<ExtendedTaskState> lastTaskStatus,
+      Optional<Long> startedBefore, Optional<Long> startedAfter, Optional<Long> updatedBefore, Optional<Long> updatedAfter, Optional<OrderDirection> orderDirection,
+      Optional<TaskHistoryCursor> cursor, Integer limitCount);
+
   int getTaskIdHistoryCount(Optional<String> requestId, Optional<String> deployId, Optional<String> runId, Optional<String> host,
       Optional<ExtendedTaskState> lastTaskStatus, Optional<Long> startedBefore, Optional<Long> startedAfter,
       Optional<Long> updatedBefore, Optional<Long> updatedAfter);
@@ -50,6 +60,15 @@ public interface HistoryManager {
 
   int getUnpurgedTaskHistoryCountByRequestBefore(String requestId, Date before);
 
-  void purgeTaskHistory(String requestId, int count, Optional<Integer> limit, Optional<Date> purgeBefore, boolean deleteRowInsteadOfUpdate, Integer maxPurgeCount);
+  Date getMinUpdatedAtWithLimitForRequest(String requestId, int limit);
+
+  /**
+   * Purges (or deletes) at most chunkSize of the oldest task history rows for requestId updated before purgeBefore
+   *
+   * @return the number of rows affected, fewer than chunkSize once there is nothing left to purge
+   */
+  int purgeTaskHistoryChunk(String requestId, Date purgeBefore, boolean deleteRowInsteadOfUpdate, int chunkSize);
+
+  Optional<Long> getReplicationLagSeconds(String replicationLagQuery);
 
 }
@@ -1,11 +1,15 @@
 package com.hubspot.singularity.data.history;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.annotation.Timed;
 import com.google.common.base.Optional;
 import com.google.inject.Inject;
@@ -17,8 +21,10 @@ import com.hubspot.singularity.SingularityRequest;
 import com.hubspot.singularity.SingularityRequestHistory;
 import com.hubspot.singularity.SingularityTaskHistory;
 import com.hubspot.singularity.SingularityTaskIdHistory;
+import com.hubspot.singularity.config.SingularityConfiguration;
 import com.hubspot.singularity.data.history.SingularityMappers.SingularityRequestIdCount;
 import com.hubspot.singularity.data.transcoders.Transcoder;
+import com.hubspot.singularity.data.transcoders.Transcoders;
 
 public class JDBIHistoryManager implements HistoryManager {
 
@@ -28,14 +34,21 @@ public class JDBIHistoryManager implements HistoryManager {
   private final Transcoder<SingularityTaskHistory> taskHistoryTranscoder;
   private final Transcoder<SingularityDeployHistory> deployHistoryTranscoder;
   private final Transcoder<SingularityRequest> singularityRequestTranscoder;
+  private final HistoryCache<SingularityTaskHistory> taskHistoryCache;
+  private final HistoryCache<SingularityTaskHistory> taskHistoryByRunIdCache;
+  private final HistoryCache<SingularityDeployHistory> deployHistoryCache;
 
   @Inject
   public JDBIHistoryManager(HistoryJDBI history, Transcoder<SingularityTaskHistory> taskHistoryTranscoder, Transcoder<SingularityDeployHistory> deployHistoryTranscoder,
-      Transcoder<SingularityRequest> singularityRequestTranscoder) {
-    this.taskHistoryTranscoder = taskHistoryTranscoder;
-    this.deployHistoryTranscoder = deployHistoryTranscoder;
-    this.singularityRequestTranscoder = singularityRequestTranscoder;
+      Transcoder<SingularityRequest> singularityRequestTranscoder, SingularityConfiguration configuration, MetricRegistry metricRegistry) {
+    // writeBinaryData only applies to zk, rows in the history tables are always written as JSON
+    this.taskHistoryTranscoder = Transcoders.withoutBinaryWrites(taskHistoryTranscoder);
+    this.deployHistoryTranscoder = Transcoders.withoutBinaryWrites(deployHistoryTranscoder);
+    this.singularityRequestTranscoder = Transcoders.withoutBinaryWrites(singularityRequestTranscoder);
     this.history = history;
+    this.taskHistoryCache = new HistoryCache<>(configuration, metricRegistry, "tasks");
+    this.taskHistoryByRunIdCache = new HistoryCache<>(configuration, metricRegistry, "tasksByRunId");
+    this.deployHistoryCache = new HistoryCache<>(configuration, metricRegistry, "deploys");
   }
 
   @Override
@@ -51,6 +64,20 @@ public class JDBIHistoryManager implements HistoryManager {
     return taskIdHistoryList;
   }
 
+  @Override
+  @Timed
+  public List<SingularityTaskIdHistory> getTaskIdHistoryAfterCursor(String requestId, Optional<String> deployId, Optional<String> runId, Optional<String> host, Optional<ExtendedTaskState> lastTaskStatus,
+      Optional<Long> startedBefore, Optional<Long> startedAfter, Optional<Long> updatedBefore, Optional<Long> updatedAfter, Optional<OrderDirection> orderDirection,
+      Optional<TaskHistoryCursor> cursor, Integer limitCount) {
+    List<SingularityTaskIdHistory> taskIdHistoryList = history.getTaskIdHistoryAfterCursor(requestId, deployId, runId, host, lastTaskStatus, startedBefore, startedAfter, updatedBefore, updatedAfter,
+        orderDirection, cursor, limitCount);
+    if (LOG.isTraceEnabled()) {
+      LOG.trace("getTaskIdHistoryAfterCursor taskIdHistory {}", taskIdHistoryList);
+    }
+
+    return taskIdHistoryList;
+  }
+
   @Override
   @Timed
   public int getTaskIdHistoryCount(Optional<String> requestId, Optional<String> deployId, Optional<String> runId, Optional<String> host, Optional<ExtendedTaskState> lastTaskStatus, Optional<Long> startedBefore,
@@ -111,15 +138,68 @@ public class JDBIHistoryManager implements HistoryManager {
   }
 
   @Override
-  public Optional<SingularityDeployHistory> getDeployHistory(String requestId, String deployId) {
-    byte[] historyBytes = history.getDeployHistoryForDeploy(requestId, deployId);
+  @Timed
+  public void saveRequestHistoryUpdates(List<SingularityRequestHistory> requestHistories) {
+    if (requestHistories.isEmpty()) {
+      return;
+    }
 
-    Optional<SingularityDeployHistory> historyOptional = Optional.absent();
+    final int size = requestHistories.size();
+    final List<String> requestIds = new ArrayList<>(size);
+    final List<byte[]> requests = new ArrayList<>(size);
+    final List<Date> createdAts = new ArrayList<>(size);
+    final List<String> requestStates = new ArrayList<>(size);
+    final List<String> users = new ArrayList<>(size);
+    final List<String> messages = new ArrayList<>(size);
+
+    for (SingularityRequestHistory requestHistory : requestHistories) {
+      requestIds.add(requestHistory.getRequest().getId());
+      requests.add(singularityRequestTranscoder.toBytes(requestHistory.getRequest()));
+      createdAts.add(new Date(requestHistory.getCreatedAt()));
+      requestStates.add(requestHistory.getEventType().name());
+      users.add(getUserField(requestHistory.getUser()));
+      messages.add(getMessageField(requestHistory.getMessage()));
+    }
+
+    history.insertRequestHistories(requestIds, requests, createdAts, requestStates, users, messages);
+  }
 
-    if (historyBytes != null) {
-      historyOptional = Optional.of(deployHistoryTranscoder.fromBytes(historyBytes));
+  @Override
+  @Timed
+  public void saveDeployHistories(List<SingularityDeployHistory> deployHistories) {
+    if (deployHistories.isEmpty()) {
+      return;
     }
 
+    final int size = deployHistories.size();
+    final List<String> requestIds = new ArrayList<>(size);
+    final List<String> deployIds = new ArrayList<>(size);
+    final List<Date> createdAts = new ArrayList<>(size);
+    final List<String> users = new ArrayList<>(size);
+    final List<String> messages = new ArrayList<>(size);
+    final List<Date> deployStateAts = new ArrayList<>(size);
+    final List<String> deployStates = new ArrayList<>(size);
+    final List<byte[]> bytes = new ArrayList<>(size);
+
+    for (SingularityDeployHistory deployHistory : deployHistories) {
+      requestIds.add(deployHistory.getDeployMarker().getRequestId());
+      deployIds.add(deployHistory.getDeployMarker().getDeployId());
+      createdAts.add(new Date(deployHistory.getDeployMarker().getTimestamp()));
+      users.add(getUserField(deployHistory.getDeployMarker().getUser()));
+      messages.add(getMessageField(deployHistory.getDeployMarker().getMessage()));
+      deployStateAts.add(deployHistory.getDeployResult().isPresent() ? new Date(deployHistory.getDeployResult().get().getTimestamp()) : new Date(deployHistory.getDeployMarker().getTimestamp()));
+      deployStates.add(deployHistory.getDeployResult().isPresent() ? deployHistory.getDeployResult().get().getDeployState().name() : DeployState.CANCELED.name());
+      bytes.add(deployHistoryTranscoder.toBytes(deployHistory));
+    }
+
+    history.insertDeployHistories(requestIds, deployIds, createdAts, users, messages, deployStateAts, deployStates, bytes);
+  }
+
+  @Override
+  public Optional<SingularityDeployHistory> getDeployHistory(String requestId, String deployId) {
+    Optional<SingularityDeployHistory> historyOptional = deployHistoryCache.get(String.format("%s-%s", requestId, deployId),
+        () -> history.getDeployHistoryForDeploy(requestId, deployId), deployHistoryTranscoder::fromBytes);
+
     if (LOG.isTraceEnabled()) {
       LOG.trace("getDeployHistory requestId {}, deployId {}, deployHistory {}",
               requestId, deployId, historyOptional);
@@ -207,12 +287,66 @@ public class JDBIHistoryManager implements HistoryManager {
   }
 
   @Override
-  public Optional<SingularityTaskHistory> getTaskHistory(String taskId) {
-    byte[] historyBytes = history.getTaskHistoryForTask(taskId);
-    Optional<SingularityTaskHistory> taskHistoryOptional = Optional.absent();
-    if (historyBytes != null && historyBytes.length > 0) {
-      taskHistoryOptional = Optional.of(taskHistoryTranscoder.fromBytes(historyBytes));;
+  @Timed
+  public void saveTaskHistories(List<SingularityTaskHistory> taskHistories) {
+    if (taskHistories.isEmpty()) {
+      return;
     }
+
+    final List<String> candidateTaskIds = new ArrayList<>(taskHistories.size());
+    for (SingularityTaskHistory taskHistory : taskHistories) {
+      candidateTaskIds.add(taskHistory.getTask().getTaskId().getId());
+    }
+
+    // One lookup for the whole batch instead of one per task as in saveTaskHistory
+    final Set<String> existingTaskIds = new HashSet<>(history.getTaskIdsInHistory(candidateTaskIds));
+
+    final int size = taskHistories.size();
+    final List<String> requestIds = new ArrayList<>(size);
+    final List<String> taskIds = new ArrayList<>(size);
+    final List<byte[]> bytes = new ArrayList<>(size);
+    final List<Date> updatedAts = new ArrayList<>(size);
+    final List<String> lastTaskStatuses = new ArrayList<>(size);
+    final List<String> runIds = new ArrayList<>(size);
+    final List<String> deployIds = new ArrayList<>(size);
+    final List<String> hosts = new ArrayList<>(size);
+    final List<Date> startedAts = new ArrayList<>(size);
+
+    for (SingularityTaskHistory taskHistory : taskHistories) {
+      if (!existingTaskIds.add(taskHistory.getTask().getTaskId().getId())) {
+        if (LOG.isTraceEnabled()) {
+          LOG.trace("saveTaskHistories -- existing taskHistory {}", taskHistory);
+        }
+        continue;
+      }
+
+      SingularityTaskIdHistory taskIdHistory = SingularityTaskIdHistory.fromTaskIdAndTaskAndUpdates(taskHistory.getTask().getTaskId(), taskHistory.getTask(), taskHistory.getTaskUpdates());
+
+      requestIds.add(taskIdHistory.getTaskId().getRequestId());
+      taskIds.add(taskIdHistory.getTaskId().getId());
+      bytes.add(taskHistoryTranscoder.toBytes(taskHistory));
+      updatedAts.add(new Date(taskIdHistory.getUpdatedAt()));
+      lastTaskStatuses.add(taskIdHistory.getLastTaskState().isPresent() ? taskIdHistory.getLastTaskState().get().name() : null);
+      runIds.add(taskHistory.getTask().getTaskRequest().getPendingTask().getRunId().orNull());
+      deployIds.add(taskIdHistory.getTaskId().getDeployId());
+      hosts.add(taskIdHistory.getTaskId().getHost());
+      startedAts.add(new Date(taskIdHistory.getTaskId().getStartedAt()));
+    }
+
+    if (taskIds.isEmpty()) {
+      return;
+    }
+
+    if (LOG.isTraceEnabled()) {
+      LOG.trace("saveTaskHistories -- will insert {} taskHistories", taskIds.size());
+    }
+
+    history.insertTaskHistories(requestIds, taskIds, bytes, updatedAts, lastTaskStatuses, runIds, deployIds, hosts, startedAts);
+  }
+
+  @Override
+  public Optional<SingularityTaskHistory> getTaskHistory(String taskId) {
+    Optional<SingularityTaskHistory> taskHistoryOptional = taskHistoryCache.get(taskId, () -> history.getTaskHistoryForTask(taskId), taskHistoryTranscoder::fromBytes);
     if (LOG.isTraceEnabled()) {
       LOG.trace("getTaskHistoryByTaskId taskId {}, taskHistory {} ", taskId, taskHistoryOptional);
     }
@@ -222,12 +356,8 @@ public class JDBIHistoryManager implements HistoryManager {
 
   @Override
   public Optional<SingularityTaskHistory> getTaskHistoryByRunId(String requestId, String runId) {
-    byte[] historyBytes = history.getTaskHistoryForTaskByRunId(requestId, runId);
-
-    Optional<SingularityTaskHistory> taskHistoryOptional = Optional.absent();
-    if (historyBytes != null && historyBytes.length > 0) {
-      taskHistoryOptional =  Optional.of(taskHistoryTranscoder.fromBytes(historyBytes));;
-    }
+    Optional<SingularityTaskHistory> taskHistoryOptional = taskHistoryByRunIdCache.get(String.format("%s-%s", requestId, runId),
+        () -> history.getTaskHistoryForTaskByRunId(requestId, runId), taskHistoryTranscoder::fromBytes);
     if (LOG.isTraceEnabled()) {
       LOG.trace("getTaskHistoryByRequestAndRun requestId {}, runId {}, taskHistory {}", requestId, runId, taskHistoryOptional);
     }
@@ -263,32 +393,43 @@ public class JDBIHistoryManager implements HistoryManager {
   }
 
   @Override
-  public void purgeTaskHistory(String requestId, int count, Optional<Integer> limit, Optional<Date> purgeBefore, boolean deleteRowInsteadOfUpdate, Integer maxPurgeCount) {
-    if (limit.isPresent() && count > limit.get()) {
-      Date beforeBasedOnLimit = history.getMinUpdatedAtWithLimitForRequest(requestId, limit.get());
+  public Date getMinUpdatedAtWithLimitForRequest(String requestId, int limit) {
+    return history.getMinUpdatedAtWithLimitForRequest(requestId, limit);
+  }
 
-      if (deleteRowInsteadOfUpdate) {
-        LOG.debug("Deleting task history for {} above {} items (before {})", requestId, limit.get(), beforeBasedOnLimit);
+  @Override
+  public int purgeTaskHistoryChunk(String requestId, Date purgeBefore, boolean deleteRowInsteadOfUpdate, int chunkSize) {
+    // Bound each statement to a contiguous range of the (requestId, updatedAt) index, oldest rows first. The
+    // chunk end is pushed 1ms past the boundary row so a run of equal timestamps can't stall the purge, LIMIT still caps it
+    Date boundary = deleteRowInsteadOfUpdate ?
+        history.getUpdatedAtAtOffsetForRequestBefore(requestId, purgeBefore, chunkSize) :
+        history.getUnpurgedUpdatedAtAtOffsetForRequestBefore(requestId, purgeBefore, chunkSize);
 
-        history.deleteTaskHistoryForRequestBefore(requestId, beforeBasedOnLimit, maxPurgeCount);
-      } else {
-        LOG.debug("Purging task history bytes for {} above {} items (before {})", requestId, limit.get(), beforeBasedOnLimit);
+    Date chunkEnd = boundary == null ? purgeBefore : new Date(Math.min(boundary.getTime() + 1, purgeBefore.getTime()));
 
-        history.updateTaskHistoryNullBytesForRequestBefore(requestId, beforeBasedOnLimit, maxPurgeCount);
-      }
-    }
+    int purged;
+    if (deleteRowInsteadOfUpdate) {
+      LOG.debug("Deleting up to {} task history rows for {} before {}", chunkSize, requestId, chunkEnd);
 
-    if (purgeBefore.isPresent()) {
-      if (deleteRowInsteadOfUpdate) {
-        LOG.debug("Deleting task history for {} before {}", requestId, purgeBefore.get());
+      purged = history.deleteTaskHistoryForRequestBefore(requestId, chunkEnd, chunkSize);
+    } else {
+      LOG.debug("Purging task history bytes for up to {} rows for {} before {}", chunkSize, requestId, chunkEnd);
 
-        history.deleteTaskHistoryForRequestBefore(requestId, purgeBefore.get(), maxPurgeCount);
-      } else {
-        LOG.debug("Purging task history bytes for {} before {}", requestId, purgeBefore.get());
+      purged = history.updateTaskHistoryNullBytesForRequestBefore(requestId, chunkEnd, chunkSize);
+    }
 
-        history.updateTaskHistoryNullBytesForRequestBefore(requestId, purgeBefore.get(), maxPurgeCount);
-      }
+    // Purges are the only thing that changes a stored task history, and they are rare enough to just start the caches over
+    if (purged > 0) {
+      taskHistoryCache.invalidateAll();
+      taskHistoryByRunIdCache.invalidateAll();
     }
+
+    return purged;
+  }
+
+  @Override
+  public Optional<Long> getReplicationLagSeconds(String replicationLagQuery) {
+    return history.getReplicationLagSeconds(replicationLagQuery);
   }
 
 }
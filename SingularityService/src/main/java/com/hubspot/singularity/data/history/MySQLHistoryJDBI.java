@@ -6,12 +6,18 @@ import java.util.List;
 import com.hubspot.singularity.SingularityDeployHistory;
 import com.hubspot.singularity.SingularityRequestHistory;
 import com.hubspot.singularity.data.history.SingularityMappers.SingularityRequestIdCount;
+import com.hubspot.singularity.data.history.SingularityMappers.SingularityTaskIdStringMapper;
+import com.hubspot.singularity.data.history.SingularityMappers.SingularityUsageIdMapper;
 
 import org.skife.jdbi.v2.sqlobject.Bind;
+import org.skife.jdbi.v2.sqlobject.SqlBatch;
 import org.skife.jdbi.v2.sqlobject.SqlQuery;
 import org.skife.jdbi.v2.sqlobject.SqlUpdate;
+import org.skife.jdbi.v2.sqlobject.customizers.BatchChunkSize;
 import org.skife.jdbi.v2.sqlobject.customizers.Define;
+import org.skife.jdbi.v2.sqlobject.customizers.Mapper;
 import org.skife.jdbi.v2.sqlobject.stringtemplate.UseStringTemplate3StatementLocator;
+import org.skife.jdbi.v2.unstable.BindIn;
 
 @UseStringTemplate3StatementLocator
 public abstract class MySQLHistoryJDBI extends AbstractHistoryJDBI {
@@ -27,6 +33,26 @@ public abstract class MySQLHistoryJDBI extends AbstractHistoryJDBI {
                                          @Bind("lastTaskStatus") String lastTaskStatus, @Bind("runId") String runId, @Bind("deployId") String deployId, @Bind("host") String host,
                                          @Bind("startedAt") Date startedAt);
 
+  @SqlBatch("INSERT INTO requestHistory (requestId, request, createdAt, requestState, user, message) VALUES (:requestId, :request, :createdAt, :requestState, :user, :message)")
+  @BatchChunkSize(BATCH_CHUNK_SIZE)
+  public abstract void insertRequestHistories(@Bind("requestId") List<String> requestIds, @Bind("request") List<byte[]> requests, @Bind("createdAt") List<Date> createdAts, @Bind("requestState") List<String> requestStates,
+                                              @Bind("user") List<String> users, @Bind("message") List<String> messages);
+
+  @SqlBatch("INSERT INTO deployHistory (requestId, deployId, createdAt, user, message, deployStateAt, deployState, bytes) VALUES (:requestId, :deployId, :createdAt, :user, :message, :deployStateAt, :deployState, :bytes)")
+  @BatchChunkSize(BATCH_CHUNK_SIZE)
+  public abstract void insertDeployHistories(@Bind("requestId") List<String> requestIds, @Bind("deployId") List<String> deployIds, @Bind("createdAt") List<Date> createdAts, @Bind("user") List<String> users,
+                                             @Bind("message") List<String> messages, @Bind("deployStateAt") List<Date> deployStateAts, @Bind("deployState") List<String> deployStates, @Bind("bytes") List<byte[]> bytes);
+
+  @SqlBatch("INSERT INTO taskHistory (requestId, taskId, bytes, updatedAt, lastTaskStatus, runId, deployId, host, startedAt, purged) VALUES (:requestId, :taskId, :bytes, :updatedAt, :lastTaskStatus, :runId, :deployId, :host, :startedAt, false)")
+  @BatchChunkSize(BATCH_CHUNK_SIZE)
+  public abstract void insertTaskHistories(@Bind("requestId") List<String> requestIds, @Bind("taskId") List<String> taskIds, @Bind("bytes") List<byte[]> bytes, @Bind("updatedAt") List<Date> updatedAts,
+                                           @Bind("lastTaskStatus") List<String> lastTaskStatuses, @Bind("runId") List<String> runIds, @Bind("deployId") List<String> deployIds, @Bind("host") List<String> hosts,
+                                           @Bind("startedAt") List<Date> startedAts);
+
+  @SqlQuery("SELECT taskId FROM taskHistory WHERE taskId IN (<taskIds>)")
+  @Mapper(SingularityTaskIdStringMapper.class)
+  public abstract List<String> getTaskIdsInHistory(@BindIn("taskIds") List<String> taskIds);
+
   @SqlQuery("SELECT bytes FROM taskHistory WHERE taskId = :taskId")
   public abstract byte[] getTaskHistoryForTask(@Bind("taskId") String taskId);
 
@@ -58,10 +84,16 @@ public abstract class MySQLHistoryJDBI extends AbstractHistoryJDBI {
   public abstract Date getMinUpdatedAtWithLimitForRequest(@Bind("requestId") String requestId, @Bind("limit") Integer limit);
 
   @SqlUpdate("UPDATE taskHistory SET bytes = '', purged = true WHERE requestId = :requestId AND purged = false AND updatedAt \\< :updatedAtBefore LIMIT :purgeLimitPerQuery")
-  public abstract void updateTaskHistoryNullBytesForRequestBefore(@Bind("requestId") String requestId, @Bind("updatedAtBefore") Date updatedAtBefore, @Bind("purgeLimitPerQuery") Integer purgeLimitPerQuery);
+  public abstract int updateTaskHistoryNullBytesForRequestBefore(@Bind("requestId") String requestId, @Bind("updatedAtBefore") Date updatedAtBefore, @Bind("purgeLimitPerQuery") Integer purgeLimitPerQuery);
 
   @SqlUpdate("DELETE FROM taskHistory WHERE requestId = :requestId AND updatedAt \\< :updatedAtBefore LIMIT :purgeLimitPerQuery")
-  public abstract void deleteTaskHistoryForRequestBefore(@Bind("requestId") String requestId, @Bind("updatedAtBefore") Date updatedAtBefore, @Bind("purgeLimitPerQuery") Integer purgeLimitPerQuery);
+  public abstract int deleteTaskHistoryForRequestBefore(@Bind("requestId") String requestId, @Bind("updatedAtBefore") Date updatedAtBefore, @Bind("purgeLimitPerQuery") Integer purgeLimitPerQuery);
+
+  @SqlQuery("SELECT updatedAt FROM taskHistory WHERE requestId = :requestId AND updatedAt \\< :updatedAtBefore ORDER BY updatedAt ASC LIMIT 1 OFFSET :offset")
+  public abstract Date getUpdatedAtAtOffsetForRequestBefore(@Bind("requestId") String requestId, @Bind("updatedAtBefore") Date updatedAtBefore, @Bind("offset") Integer offset);
+
+  @SqlQuery("SELECT updatedAt FROM taskHistory WHERE requestId = :requestId AND purged = false AND updatedAt \\< :updatedAtBefore ORDER BY updatedAt ASC LIMIT 1 OFFSET :offset")
+  public abstract Date getUnpurgedUpdatedAtAtOffsetForRequestBefore(@Bind("requestId") String requestId, @Bind("updatedAtBefore") Date updatedAtBefore, @Bind("offset") Integer offset);
 
   @SqlQuery("SELECT DISTINCT requestId FROM taskHistory")
   public abstract List<String> getRequestIdsInTaskHistory();
@@ -69,6 +101,24 @@ public abstract class MySQLHistoryJDBI extends AbstractHistoryJDBI {
   @SqlQuery("SELECT COUNT(*) FROM taskHistory WHERE requestId = :requestId AND purged = false AND updatedAt \\< :updatedAtBefore")
   public abstract int getUnpurgedTaskHistoryCountByRequestBefore(@Bind("requestId") String requestId, @Bind("updatedAtBefore") Date updatedAtBefore);
 
+  @SqlBatch("INSERT INTO usageHistory (usageType, id, sampledAt, bytes) VALUES (:usageType, :id, :sampledAt, :bytes) ON DUPLICATE KEY UPDATE bytes = VALUES(bytes)")
+  @BatchChunkSize(BATCH_CHUNK_SIZE)
+  public abstract void upsertUsages(@Bind("usageType") List<String> usageTypes, @Bind("id") List<String> ids, @Bind("sampledAt") List<Double> sampledAts, @Bind("bytes") List<byte[]> bytes);
+
+  @SqlQuery("SELECT bytes FROM usageHistory WHERE usageType = :usageType AND id = :id ORDER BY sampledAt ASC")
+  public abstract List<byte[]> getUsage(@Bind("usageType") String usageType, @Bind("id") String id);
+
+  @SqlQuery("SELECT DISTINCT id FROM usageHistory WHERE usageType = :usageType")
+  @Mapper(SingularityUsageIdMapper.class)
+  public abstract List<String> getIdsWithUsage(@Bind("usageType") String usageType);
+
+  @SqlBatch("DELETE FROM usageHistory WHERE usageType = :usageType AND id = :id AND sampledAt = :sampledAt")
+  @BatchChunkSize(BATCH_CHUNK_SIZE)
+  public abstract void deleteUsages(@Bind("usageType") List<String> usageTypes, @Bind("id") List<String> ids, @Bind("sampledAt") List<Double> sampledAts);
+
+  @SqlUpdate("DELETE FROM usageHistory WHERE usageType = :usageType AND id = :id")
+  public abstract void deleteUsageForId(@Bind("usageType") String usageType, @Bind("id") String id);
+
 
   public abstract void close();
 
@@ -36,6 +36,21 @@ public class NoopHistoryManager implements HistoryManager {
     throw new UnsupportedOperationException("NoopHistoryManager can not save");
   }
 
+  @Override
+  public void saveRequestHistoryUpdates(List<SingularityRequestHistory> requestHistories) {
+    throw new UnsupportedOperationException("NoopHistoryManager can not save");
+  }
+
+  @Override
+  public void saveTaskHistories(List<SingularityTaskHistory> taskHistories) {
+    throw new UnsupportedOperationException("NoopHistoryManager can not save");
+  }
+
+  @Override
+  public void saveDeployHistories(List<SingularityDeployHistory> deployHistories) {
+    throw new UnsupportedOperationException("NoopHistoryManager can not save");
+  }
+
   @Override
   public Optional<SingularityDeployHistory> getDeployHistory(String requestId, String deployId) {
     return Optional.absent();
@@ -57,6 +72,13 @@ public class NoopHistoryManager implements HistoryManager {
     return Collections.emptyList();
   }
 
+  @Override
+  public List<SingularityTaskIdHistory> getTaskIdHistoryAfterCursor(String requestId, Optional<String> deployId, Optional<String> runId, Optional<String> host, Optional<ExtendedTaskState> lastTaskStatus,
+      Optional<Long> startedBefore, Optional<Long> startedAfter, Optional<Long> updatedBefore, Optional<Long> updatedAfter, Optional<OrderDirection> orderDirection,
+      Optional<TaskHistoryCursor> cursor, Integer limitCount) {
+    return Collections.emptyList();
+  }
+
   @Override
   public int getTaskIdHistoryCount(Optional<String> requestId, Optional<String> deployId, Optional<String> runId, Optional<String> host, Optional<ExtendedTaskState> lastTaskStatus, Optional<Long> startedBefore,
         Optional<Long> startedAfter, Optional<Long> updatedBefore, Optional<Long> updatedAfter) {
@@ -104,8 +126,18 @@ public class NoopHistoryManager implements HistoryManager {
   }
 
   @Override
-  public void purgeTaskHistory(String requestId, int count, Optional<Integer> limit, Optional<Date> purgeBefore, boolean deleteRowInsteadOfUpdate, Integer maxPurgeCount) {
+  public Date getMinUpdatedAtWithLimitForRequest(String requestId, int limit) {
+    throw new UnsupportedOperationException("NoopHistoryManager can not update/delete");
+  }
+
+  @Override
+  public int purgeTaskHistoryChunk(String requestId, Date purgeBefore, boolean deleteRowInsteadOfUpdate, int chunkSize) {
     throw new UnsupportedOperationException("NoopHistoryManager can not update/delete");
   }
 
+  @Override
+  public Optional<Long> getReplicationLagSeconds(String replicationLagQuery) {
+    return Optional.absent();
+  }
+
 }
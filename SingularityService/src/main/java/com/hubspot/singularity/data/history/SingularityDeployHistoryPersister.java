@@ -1,5 +1,6 @@
 package com.hubspot.singularity.data.history;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -12,6 +13,7 @@ import javax.inject.Singleton;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.base.Optional;
 import com.google.common.collect.TreeMultimap;
 import com.google.inject.Inject;
@@ -39,8 +41,9 @@ public class SingularityDeployHistoryPersister extends SingularityHistoryPersist
                                            DeployManager deployManager,
                                            HistoryManager historyManager,
                                            SingularitySchedulerLock schedulerLock,
-                                           @Named(SingularityHistoryModule.PERSISTER_LOCK) ReentrantLock persisterLock) {
-    super(configuration, persisterLock);
+                                           @Named(SingularityHistoryModule.PERSISTER_LOCK) ReentrantLock persisterLock,
+                                           MetricRegistry metricRegistry) {
+    super(configuration, persisterLock, metricRegistry, "deploys");
 
     this.schedulerLock = schedulerLock;
     this.deployManager = deployManager;
@@ -80,16 +83,12 @@ public class SingularityDeployHistoryPersister extends SingularityHistoryPersist
         }
       }
 
+      setBacklog(deployHistoryByRequestId.size());
+
       for (Map.Entry<String, Collection<SingularityDeployHistory>> deployHistoryForRequest : deployHistoryByRequestId.asMap().entrySet()) {
         schedulerLock.runWithRequestLock(() -> {
-          int i = 0;
-          for (SingularityDeployHistory deployHistory : deployHistoryForRequest.getValue()) {
-            if (moveToHistoryOrCheckForPurge(deployHistory, i++)) {
-              numTransferred.increment();
-            }
-
-            numTotal.increment();
-          }
+          numTransferred.add(moveToHistoryOrCheckForPurge(new ArrayList<>(deployHistoryForRequest.getValue())));
+          numTotal.add(deployHistoryForRequest.getValue().size());
         }, deployHistoryForRequest.getKey(), getClass().getSimpleName());
       }
 
@@ -126,6 +125,18 @@ public class SingularityDeployHistoryPersister extends SingularityHistoryPersist
     return true;
   }
 
+  @Override
+  protected List<SingularityDeployHistory> moveToHistory(List<SingularityDeployHistory> deployHistories) {
+    try {
+      historyManager.saveDeployHistories(deployHistories);
+    } catch (Throwable t) {
+      LOG.warn("Failed to persist batch of {} deploys, retrying individually", deployHistories.size(), t);
+      return moveToHistoryIndividually(deployHistories);
+    }
+
+    return deployHistories;
+  }
+
   @Override
   protected boolean moveToHistory(SingularityDeployHistory deployHistory) {
     try {
@@ -24,6 +24,8 @@ import com.google.inject.matcher.Matchers;
 import com.google.inject.multibindings.Multibinder;
 import com.google.inject.name.Named;
 import com.hubspot.singularity.config.SingularityConfiguration;
+import com.hubspot.singularity.data.usage.UsageStore;
+import com.hubspot.singularity.data.usage.UsageStoreType;
 
 import io.dropwizard.db.DataSourceFactory;
 import io.dropwizard.jdbi.DBIFactory;
@@ -33,10 +35,12 @@ public class SingularityHistoryModule extends AbstractModule {
   public static final String PERSISTER_LOCK = "hsitory.persister.lock";
 
   private final Optional<DataSourceFactory> configuration;
+  private final UsageStoreType usageStoreType;
 
   public SingularityHistoryModule(SingularityConfiguration configuration) {
     checkNotNull(configuration, "configuration is null");
     this.configuration = configuration.getDatabaseConfiguration();
+    this.usageStoreType = configuration.getUsageStore();
   }
 
   @Override
@@ -67,7 +71,12 @@ public class SingularityHistoryModule extends AbstractModule {
       bindMethodInterceptorForStringTemplateClassLoaderWorkaround();
     } else {
       bind(HistoryManager.class).to(NoopHistoryManager.class).in(Scopes.SINGLETON);
+      if (usageStoreType == UsageStoreType.DATABASE) {
+        throw new IllegalStateException("usageStore DATABASE requires a database configuration");
+      }
     }
+
+    bind(UsageStore.class).to(usageStoreType.getUsageStoreClass()).in(Scopes.SINGLETON);
   }
 
   private void bindSpecificDatabase() {
@@ -1,12 +1,20 @@
 package com.hubspot.singularity.data.history;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.google.common.base.Optional;
+import com.google.common.collect.Lists;
 import com.hubspot.mesos.JavaUtils;
 import com.hubspot.singularity.SingularityDeleteResult;
 import com.hubspot.singularity.SingularityHistoryItem;
@@ -20,11 +28,20 @@ public abstract class SingularityHistoryPersister<T extends SingularityHistoryIt
   protected final SingularityConfiguration configuration;
   protected final ReentrantLock persisterLock;
 
-  public SingularityHistoryPersister(SingularityConfiguration configuration, ReentrantLock persisterLock) {
+  private final AtomicInteger backlog;
+  private final Meter transferredMeter;
+  private final Timer batchTimer;
+
+  public SingularityHistoryPersister(SingularityConfiguration configuration, ReentrantLock persisterLock, MetricRegistry metricRegistry, String metricName) {
     super(configuration.getPersistHistoryEverySeconds(), TimeUnit.SECONDS);
 
     this.configuration = configuration;
     this.persisterLock = persisterLock;
+
+    this.backlog = new AtomicInteger();
+    this.transferredMeter = metricRegistry.meter(String.format("history.%s.transferred", metricName));
+    this.batchTimer = metricRegistry.timer(String.format("history.%s.batch", metricName));
+    metricRegistry.register(String.format("history.%s.backlog", metricName), (Gauge<Integer>) backlog::get);
   }
 
   @Override
@@ -47,13 +64,83 @@ public abstract class SingularityHistoryPersister<T extends SingularityHistoryIt
 
   protected abstract boolean moveToHistory(T object);
 
+  /**
+   * Save a batch of objects at once, returning the ones that are now in history and can be removed from zk. Persisters
+   * override this with a bulk insert, anything that fails in bulk is retried one at a time through moveToHistory(T)
+   */
+  protected List<T> moveToHistory(List<T> objects) {
+    return moveToHistoryIndividually(objects);
+  }
+
+  protected List<T> moveToHistoryIndividually(List<T> objects) {
+    List<T> moved = new ArrayList<>(objects.size());
+    for (T object : objects) {
+      if (moveToHistory(object)) {
+        moved.add(object);
+      }
+    }
+    return moved;
+  }
+
   protected abstract SingularityDeleteResult purgeFromZk(T object);
 
+  protected void purgeFromZk(List<T> objects) {
+    for (T object : objects) {
+      purgeFromZk(object);
+    }
+  }
+
+  /**
+   * Records how many items are waiting to be moved out of zk at the start of a run, exposed as the history.*.backlog gauge
+   */
+  protected void setBacklog(int numItems) {
+    backlog.set(numItems);
+  }
+
+  /**
+   * Moves objects to history in chunks of persistHistoryBatchSize, or if there is no database, purges the ones that are
+   * too old or past the max number of items (objects should be ordered newest first for the latter).
+   *
+   * @return the number of objects removed from zk
+   */
+  protected int moveToHistoryOrCheckForPurge(List<T> objects) {
+    int numTransferred = 0;
+
+    if (persistsHistoryInsteadOfPurging()) {
+      for (List<T> batch : Lists.partition(objects, configuration.getPersistHistoryBatchSize())) {
+        final long start = System.currentTimeMillis();
+
+        List<T> moved = moveToHistory(batch);
+        purgeFromZk(moved);
+
+        batchTimer.update(System.currentTimeMillis() - start, TimeUnit.MILLISECONDS);
+        transferredMeter.mark(moved.size());
+        backlog.addAndGet(-moved.size());
+        numTransferred += moved.size();
+
+        LOG.debug("Persisted {} of {} items in {}", moved.size(), batch.size(), JavaUtils.duration(start));
+      }
+
+      return numTransferred;
+    }
+
+    int index = 0;
+    for (T object : objects) {
+      if (moveToHistoryOrCheckForPurge(object, index++)) {
+        numTransferred++;
+      }
+    }
+
+    return numTransferred;
+  }
+
   protected boolean moveToHistoryOrCheckForPurge(T object, int index) {
     final long start = System.currentTimeMillis();
 
     if (moveToHistoryOrCheckForPurgeAndShouldDelete(object, index)) {
       SingularityDeleteResult deleteResult = purgeFromZk(object);
+      transferredMeter.mark();
+      backlog.decrementAndGet();
       LOG.debug("{} {} (deleted: {}) in {}", persistsHistoryInsteadOfPurging() ? "Persisted" : "Purged", object, deleteResult, JavaUtils.duration(start));
       return true;
     }
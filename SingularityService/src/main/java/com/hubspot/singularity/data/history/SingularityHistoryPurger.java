@@ -3,6 +3,7 @@ package com.hubspot.singularity.data.history;
 import java.util.Date;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.inject.Singleton;
 
@@ -27,6 +28,9 @@ public class SingularityHistoryPurger extends SingularityLeaderOnlyPoller {
 
   private static final Logger LOG = LoggerFactory.getLogger(SingularityHistoryPurger.class);
 
+  private static final long REPLICATION_LAG_CHECK_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(5);
+  private static final long MAX_REPLICATION_LAG_WAIT_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
   private final HistoryPurgingConfiguration historyPurgingConfiguration;
   private final HistoryManager historyManager;
   private final TaskManager taskManager;
@@ -59,26 +63,31 @@ public class SingularityHistoryPurger extends SingularityLeaderOnlyPoller {
   public void runActionOnPoll() {
     final long start = System.currentTimeMillis();
     for (String requestId : historyManager.getRequestIdsInTaskHistory()) {
-      lock.runWithRequestLock(() -> {
-        HistoryPurgeRequestSettings settings = getRequestPurgeSettings(requestId);
-
-        LOG.debug("Attempting to purge tasks for {}, using purge settings {}", requestId, settings);
-        if (settings.getDeleteTaskHistoryAfterTasksPerRequest().isPresent() || settings.getDeleteTaskHistoryAfterDays().isPresent()) {
-          purge(requestId, start, settings.getDeleteTaskHistoryAfterTasksPerRequest(), settings.getDeleteTaskHistoryAfterDays(), true);
-        } else {
-          LOG.debug("No purge settings for deleting task row, skipping for request {}", requestId);
+      HistoryPurgeRequestSettings settings = getRequestPurgeSettings(requestId);
+
+      LOG.debug("Attempting to purge tasks for {}, using purge settings {}", requestId, settings);
+      if (settings.getDeleteTaskHistoryAfterTasksPerRequest().isPresent() || settings.getDeleteTaskHistoryAfterDays().isPresent()) {
+        if (!purge(requestId, start, settings.getDeleteTaskHistoryAfterTasksPerRequest(), settings.getDeleteTaskHistoryAfterDays(), true)) {
+          break;
         }
-        if (settings.getDeleteTaskHistoryBytesAfterTasksPerRequest().isPresent() || settings.getDeleteTaskHistoryBytesAfterDays().isPresent()) {
-          purge(requestId, start, settings.getDeleteTaskHistoryBytesAfterTasksPerRequest(), settings.getDeleteTaskHistoryBytesAfterDays(), false);
-        } else {
-          LOG.debug("No purge settings for removing task bytes, skipping for request {}", requestId);
+      } else {
+        LOG.debug("No purge settings for deleting task row, skipping for request {}", requestId);
+      }
+      if (settings.getDeleteTaskHistoryBytesAfterTasksPerRequest().isPresent() || settings.getDeleteTaskHistoryBytesAfterDays().isPresent()) {
+        if (!purge(requestId, start, settings.getDeleteTaskHistoryBytesAfterTasksPerRequest(), settings.getDeleteTaskHistoryBytesAfterDays(), false)) {
+          break;
         }
-      }, requestId, getClass().getSimpleName());
+      } else {
+        LOG.debug("No purge settings for removing task bytes, skipping for request {}", requestId);
+      }
     }
     purgeStaleZkData();
   }
 
-  private void purge(String requestId, long start, Optional<Integer> afterTasksPerRequest, Optional<Integer> afterDays, boolean deleteRow) {
+  /**
+   * @return false if the purge had to stop early and the rest of this run should be skipped
+   */
+  private boolean purge(String requestId, long start, Optional<Integer> afterTasksPerRequest, Optional<Integer> afterDays, boolean deleteRow) {
     Optional<Date> purgeBefore = Optional.absent();
     Date checkBefore = new Date();
 
@@ -102,14 +111,110 @@ public class SingularityHistoryPurger extends SingularityLeaderOnlyPoller {
     if (!afterDays.isPresent() && afterTasksPerRequest.isPresent() &&
       unpurgedCount < afterTasksPerRequest.get()) {
       LOG.debug("Not purging old taskHistory for {} - {} count is less than {}", requestId, unpurgedCount, afterTasksPerRequest.get());
-      return;
+      return true;
+    }
+
+    // Purging everything before the later of the two cutoffs satisfies both limits in one pass
+    if (afterTasksPerRequest.isPresent() && unpurgedCount > afterTasksPerRequest.get()) {
+      Optional<Date> beforeBasedOnLimit = Optional.fromNullable(historyManager.getMinUpdatedAtWithLimitForRequest(requestId, afterTasksPerRequest.get()));
+
+      if (beforeBasedOnLimit.isPresent() && (!purgeBefore.isPresent() || beforeBasedOnLimit.get().after(purgeBefore.get()))) {
+        purgeBefore = beforeBasedOnLimit;
+      }
+    }
+
+    if (!purgeBefore.isPresent()) {
+      return true;
     }
 
+    return purgeInChunks(requestId, purgeBefore.get(), unpurgedCount, deleteRow);
+  }
+
+  private boolean purgeInChunks(String requestId, Date purgeBefore, int unpurgedCount, boolean deleteRow) {
     final long startRequestId = System.currentTimeMillis();
+    final int chunkSize = historyPurgingConfiguration.getPurgeLimitPerQuery();
+    final AtomicInteger purgedInChunk = new AtomicInteger();
+
+    int purged = 0;
+
+    do {
+      if (!waitForReplicationLag()) {
+        return false;
+      }
+
+      final long chunkStart = System.currentTimeMillis();
+
+      // Only hold the request lock for the statement itself, not while throttling between chunks
+      lock.runWithRequestLock(() -> purgedInChunk.set(historyManager.purgeTaskHistoryChunk(requestId, purgeBefore, deleteRow, chunkSize)), requestId, getClass().getSimpleName());
+      purged += purgedInChunk.get();
+
+      if (!throttle(purgedInChunk.get(), chunkStart)) {
+        return false;
+      }
+    } while (purgedInChunk.get() >= chunkSize);
+
+    LOG.info("Purged {} old taskHistory rows before {} for {} ({} count) in {} (deleteRows: {})", purged, purgeBefore, requestId, unpurgedCount, JavaUtils.duration(startRequestId), deleteRow);
+
+    return true;
+  }
+
+  private boolean throttle(int rowsPurged, long chunkStart) {
+    if (historyPurgingConfiguration.getPurgeMaxRowsPerSecond() < 1) {
+      return true;
+    }
+
+    final long minChunkMillis = TimeUnit.SECONDS.toMillis(rowsPurged) / historyPurgingConfiguration.getPurgeMaxRowsPerSecond();
+
+    return sleep(minChunkMillis - (System.currentTimeMillis() - chunkStart));
+  }
+
+  private boolean waitForReplicationLag() {
+    if (historyPurgingConfiguration.getMaxReplicationLagSeconds() < 1 || !historyPurgingConfiguration.getReplicationLagQuery().isPresent()) {
+      return true;
+    }
 
-    historyManager.purgeTaskHistory(requestId, unpurgedCount, afterTasksPerRequest, purgeBefore, deleteRow, historyPurgingConfiguration.getPurgeLimitPerQuery());
+    final long start = System.currentTimeMillis();
+
+    while (true) {
+      final Optional<Long> lagSeconds;
+
+      try {
+        lagSeconds = historyManager.getReplicationLagSeconds(historyPurgingConfiguration.getReplicationLagQuery().get());
+      } catch (Exception e) {
+        LOG.error("Could not check replication lag, skipping the rest of this purge", e);
+        return false;
+      }
+
+      if (!lagSeconds.isPresent() || lagSeconds.get() <= historyPurgingConfiguration.getMaxReplicationLagSeconds()) {
+        return true;
+      }
 
-    LOG.info("Purged old taskHistory for {} ({} count) in {} (deleteRows: {})", requestId, unpurgedCount, JavaUtils.duration(startRequestId), deleteRow);
+      if (System.currentTimeMillis() - start > MAX_REPLICATION_LAG_WAIT_MILLIS) {
+        LOG.warn("Replication lag still {}s after waiting {}, skipping the rest of this purge", lagSeconds.get(), JavaUtils.duration(start));
+        return false;
+      }
+
+      LOG.info("Replication lag {}s is over {}s, pausing purge", lagSeconds.get(), historyPurgingConfiguration.getMaxReplicationLagSeconds());
+
+      if (!sleep(REPLICATION_LAG_CHECK_INTERVAL_MILLIS)) {
+        return false;
+      }
+    }
+  }
+
+  private boolean sleep(long millis) {
+    if (millis <= 0) {
+      return true;
+    }
+
+    try {
+      Thread.sleep(millis);
+      return true;
+    } catch (InterruptedException e) {
+      LOG.info("Interrupted while throttling purge");
+      Thread.currentThread().interrupt();
+      return false;
+    }
   }
 
   private HistoryPurgeRequestSettings getRequestPurgeSettings(String requestId) {
@@ -75,6 +75,26 @@ public class SingularityMappers {
 
   }
 
+  // Not registered with the other mappers since it would clash with the requestId mapper, used through @Mapper instead
+  public static class SingularityUsageIdMapper implements ResultSetMapper<String> {
+
+    @Override
+    public String map(int index, ResultSet r, StatementContext ctx) throws SQLException {
+      return r.getString("id");
+    }
+
+  }
+
+  // Same as above, the task id column as a plain string
+  public static class SingularityTaskIdStringMapper implements ResultSetMapper<String> {
+
+    @Override
+    public String map(int index, ResultSet r, StatementContext ctx) throws SQLException {
+      return r.getString("taskId");
+    }
+
+  }
+
   static class SingularityRequestHistoryMapper implements ResultSetMapper<SingularityRequestHistory> {
     private final Transcoder<SingularityRequest> singularityRequestTranscoder;
     private final String userColumn;
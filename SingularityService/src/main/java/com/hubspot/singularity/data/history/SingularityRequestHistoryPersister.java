@@ -13,7 +13,9 @@ import javax.inject.Singleton;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.base.Optional;
+import com.google.common.collect.Lists;
 import com.google.common.primitives.Longs;
 import com.google.inject.Inject;
 import com.google.inject.name.Named;
@@ -40,8 +42,9 @@ public class SingularityRequestHistoryPersister extends SingularityHistoryPersis
                                             RequestManager requestManager,
                                             HistoryManager historyManager,
                                             SingularitySchedulerLock lock,
-                                            @Named(SingularityHistoryModule.PERSISTER_LOCK) ReentrantLock persisterLock) {
-    super(configuration, persisterLock);
+                                            @Named(SingularityHistoryModule.PERSISTER_LOCK) ReentrantLock persisterLock,
+                                            MetricRegistry metricRegistry) {
+    super(configuration, persisterLock, metricRegistry, "requests");
 
     this.requestManager = requestManager;
     this.historyManager = historyManager;
@@ -127,6 +130,8 @@ public class SingularityRequestHistoryPersister extends SingularityHistoryPersis
 
       Collections.sort(requestHistoryParents, Collections.reverseOrder());  // createdAt descending
 
+      setBacklog(requestHistoryParents.size());
+
       AtomicInteger i = new AtomicInteger();
       for (SingularityRequestHistoryParent requestHistoryParent : requestHistoryParents) {
         lock.runWithRequestLock(() -> {
@@ -154,7 +159,21 @@ public class SingularityRequestHistoryPersister extends SingularityHistoryPersis
 
   @Override
   protected boolean moveToHistory(SingularityRequestHistoryParent object) {
-    for (SingularityRequestHistory requestHistory : object.history) {
+    try {
+      for (List<SingularityRequestHistory> batch : Lists.partition(object.history, configuration.getPersistHistoryBatchSize())) {
+        historyManager.saveRequestHistoryUpdates(batch);
+
+        for (SingularityRequestHistory requestHistory : batch) {
+          requestManager.deleteHistoryItem(requestHistory);
+        }
+      }
+
+      return true;
+    } catch (Throwable t) {
+      LOG.warn("Failed to persist history for {} in bulk, retrying individually", object.requestId, t);
+    }
+
+    for (SingularityRequestHistory requestHistory : requestManager.getRequestHistory(object.requestId)) {
       try {
         historyManager.saveRequestHistoryUpdate(requestHistory);
       } catch (Throwable t) {
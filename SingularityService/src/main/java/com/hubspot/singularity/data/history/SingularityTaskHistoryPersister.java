@@ -1,5 +1,6 @@
 package com.hubspot.singularity.data.history;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -12,6 +13,7 @@ import javax.inject.Singleton;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.base.Optional;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Ordering;
@@ -41,8 +43,8 @@ public class SingularityTaskHistoryPersister extends SingularityHistoryPersister
 
   @Inject
   public SingularityTaskHistoryPersister(SingularityConfiguration configuration, SingularityTaskMetadataConfiguration taskMetadataConfiguration, TaskManager taskManager,
-      DeployManager deployManager, HistoryManager historyManager, @Named(SingularityHistoryModule.PERSISTER_LOCK) ReentrantLock persisterLock) {
-    super(configuration, persisterLock);
+      DeployManager deployManager, HistoryManager historyManager, @Named(SingularityHistoryModule.PERSISTER_LOCK) ReentrantLock persisterLock, MetricRegistry metricRegistry) {
+    super(configuration, persisterLock, metricRegistry, "tasks");
 
     this.taskManager = taskManager;
     this.historyManager = historyManager;
@@ -78,8 +80,13 @@ public class SingularityTaskHistoryPersister extends SingularityHistoryPersister
         eligibleTaskIdByRequestId.put(taskId.getRequestId(), taskId);
       }
 
+      // with a database every eligible task is persisted, so batches can span requests. Purging still needs them grouped by request
+      final List<List<SingularityTaskId>> taskIdGroups = new ArrayList<>();
+      final List<SingularityTaskId> allEligibleTaskIds = new ArrayList<>();
+
       for (Map.Entry<String, Collection<SingularityTaskId>> entry : eligibleTaskIdByRequestId.asMap().entrySet()) {
-        int i = 0;
+        final List<SingularityTaskId> taskIdsForRequest = new ArrayList<>(entry.getValue().size());
+
         for (SingularityTaskId taskId : entry.getValue()) {
           final long age = start - taskId.getStartedAt();
 
@@ -89,12 +96,26 @@ public class SingularityTaskHistoryPersister extends SingularityHistoryPersister
             continue;
           }
 
-          if (moveToHistoryOrCheckForPurge(taskId, i++)) {
-            numTransferred++;
-          }
+          taskIdsForRequest.add(taskId);
+        }
 
-          numTotal++;
+        if (persistsHistoryInsteadOfPurging()) {
+          allEligibleTaskIds.addAll(taskIdsForRequest);
+        } else {
+          taskIdGroups.add(taskIdsForRequest);
         }
+
+        numTotal += taskIdsForRequest.size();
+      }
+
+      if (persistsHistoryInsteadOfPurging()) {
+        taskIdGroups.add(allEligibleTaskIds);
+      }
+
+      setBacklog(numTotal);
+
+      for (List<SingularityTaskId> taskIds : taskIdGroups) {
+        numTransferred += moveToHistoryOrCheckForPurge(taskIds);
       }
 
       LOG.info("Transferred {} out of {} inactive task ids (total {}) in {}", numTransferred, numTotal, allTaskIds.size(), JavaUtils.duration(start));
@@ -124,29 +145,61 @@ public class SingularityTaskHistoryPersister extends SingularityHistoryPersister
   }
 
   @Override
-  protected boolean moveToHistory(SingularityTaskId object) {
-    final Optional<SingularityTaskHistory> taskHistory = taskManager.getTaskHistory(object);
+  protected List<SingularityTaskId> moveToHistory(List<SingularityTaskId> taskIds) {
+    final Map<SingularityTaskId, SingularityTaskHistory> taskHistories = taskManager.getTaskHistories(taskIds);
 
-    if (taskHistory.isPresent()) {
-      if (!taskHistory.get().getTaskUpdates().isEmpty()) {
-        final long lastUpdateAt = taskHistory.get().getLastTaskUpdate().get().getTimestamp();
+    final List<SingularityTaskId> moved = new ArrayList<>(taskIds.size());
+    final List<SingularityTaskId> toSave = new ArrayList<>(taskHistories.size());
+    final List<SingularityTaskHistory> histories = new ArrayList<>(taskHistories.size());
 
-        final long timeSinceLastUpdate = System.currentTimeMillis() - lastUpdateAt;
+    for (SingularityTaskId taskId : taskIds) {
+      SingularityTaskHistory taskHistory = taskHistories.get(taskId);
 
-        if (timeSinceLastUpdate < taskMetadataConfiguration.getTaskPersistAfterFinishBufferMillis()) {
-          LOG.debug("Not persisting {} yet - lastUpdate only happened {} ago, buffer {}", JavaUtils.durationFromMillis(timeSinceLastUpdate),
-              JavaUtils.durationFromMillis(taskMetadataConfiguration.getTaskPersistAfterFinishBufferMillis()));
-          return false;
+      if (taskHistory == null) {
+        LOG.warn("Inactive task {} did not have a task to persist", taskId);
+        moved.add(taskId);
+        continue;
+      }
+
+      if (updatedTooRecently(taskHistory)) {
+        continue;
+      }
+
+      toSave.add(taskId);
+      histories.add(taskHistory);
+    }
+
+    if (histories.isEmpty()) {
+      return moved;
+    }
+
+    LOG.debug("Moving {} tasks to history", histories.size());
+    try {
+      historyManager.saveTaskHistories(histories);
+      moved.addAll(toSave);
+    } catch (Throwable t) {
+      LOG.warn("Failed to persist batch of {} tasks into History, retrying individually", histories.size(), t);
+      for (SingularityTaskHistory taskHistory : histories) {
+        if (saveTaskHistory(taskHistory)) {
+          moved.add(taskHistory.getTask().getTaskId());
         }
       }
+    }
 
-      LOG.debug("Moving {} to history", object);
-      try {
-        historyManager.saveTaskHistory(taskHistory.get());
-      } catch (Throwable t) {
-        LOG.warn("Failed to persist task into History for task {}", object, t);
+    return moved;
+  }
+
+  @Override
+  protected boolean moveToHistory(SingularityTaskId object) {
+    final Optional<SingularityTaskHistory> taskHistory = taskManager.getTaskHistory(object);
+
+    if (taskHistory.isPresent()) {
+      if (updatedTooRecently(taskHistory.get())) {
         return false;
       }
+
+      LOG.debug("Moving {} to history", object);
+      return saveTaskHistory(taskHistory.get());
     } else {
       LOG.warn("Inactive task {} did not have a task to persist", object);
     }
@@ -154,9 +207,43 @@ public class SingularityTaskHistoryPersister extends SingularityHistoryPersister
     return true;
   }
 
+  private boolean updatedTooRecently(SingularityTaskHistory taskHistory) {
+    if (taskHistory.getTaskUpdates().isEmpty()) {
+      return false;
+    }
+
+    final long lastUpdateAt = taskHistory.getLastTaskUpdate().get().getTimestamp();
+
+    final long timeSinceLastUpdate = System.currentTimeMillis() - lastUpdateAt;
+
+    if (timeSinceLastUpdate < taskMetadataConfiguration.getTaskPersistAfterFinishBufferMillis()) {
+      LOG.debug("Not persisting {} yet - lastUpdate only happened {} ago, buffer {}", taskHistory.getTask().getTaskId(), JavaUtils.durationFromMillis(timeSinceLastUpdate),
+          JavaUtils.durationFromMillis(taskMetadataConfiguration.getTaskPersistAfterFinishBufferMillis()));
+      return true;
+    }
+
+    return false;
+  }
+
+  private boolean saveTaskHistory(SingularityTaskHistory taskHistory) {
+    try {
+      historyManager.saveTaskHistory(taskHistory);
+    } catch (Throwable t) {
+      LOG.warn("Failed to persist task into History for task {}", taskHistory.getTask().getTaskId(), t);
+      return false;
+    }
+
+    return true;
+  }
+
   @Override
   protected SingularityDeleteResult purgeFromZk(SingularityTaskId object) {
     return taskManager.deleteTaskHistory(object);
   }
 
+  @Override
+  protected void purgeFromZk(List<SingularityTaskId> taskIds) {
+    taskManager.deleteTaskHistories(taskIds);
+  }
+
 }
@@ -0,0 +1,84 @@
+package com.hubspot.singularity.data.history;
+
+import java.util.Comparator;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ComparisonChain;
+import com.google.common.io.BaseEncoding;
+import com.hubspot.singularity.OrderDirection;
+import com.hubspot.singularity.SingularityTaskIdHistory;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Position in a request's task history, ordered by (updatedAt, taskId). Matches the (requestId, updatedAt, taskId)
+ * index so the next page is a range scan rather than an OFFSET that has to walk every earlier row. Task ids are compared
+ * with String ordering here, and the queries compare them by code point to match (see getBinaryOrderedTaskId).
+ */
+public class TaskHistoryCursor {
+
+  private final long updatedAt;
+  private final String taskId;
+
+  public TaskHistoryCursor(long updatedAt, String taskId) {
+    this.updatedAt = updatedAt;
+    this.taskId = taskId;
+  }
+
+  public static TaskHistoryCursor after(SingularityTaskIdHistory taskIdHistory) {
+    return new TaskHistoryCursor(taskIdHistory.getUpdatedAt(), taskIdHistory.getTaskId().getId());
+  }
+
+  public static Optional<TaskHistoryCursor> decode(String encoded) {
+    try {
+      String[] parts = new String(BaseEncoding.base64Url().omitPadding().decode(encoded), UTF_8).split(":", 2);
+      if (parts.length != 2) {
+        return Optional.absent();
+      }
+      return Optional.of(new TaskHistoryCursor(Long.parseLong(parts[0]), parts[1]));
+    } catch (IllegalArgumentException e) {
+      return Optional.absent();
+    }
+  }
+
+  public static Comparator<SingularityTaskIdHistory> comparator(OrderDirection orderDirection) {
+    return (o1, o2) -> {
+      int result = ComparisonChain.start()
+          .compare(o1.getUpdatedAt(), o2.getUpdatedAt())
+          .compare(o1.getTaskId().getId(), o2.getTaskId().getId())
+          .result();
+      return orderDirection == OrderDirection.ASC ? result : -result;
+    };
+  }
+
+  /**
+   * True if the given history item sorts after this cursor, i.e. belongs on the next page
+   */
+  public boolean isBefore(SingularityTaskIdHistory taskIdHistory, OrderDirection orderDirection) {
+    int result = ComparisonChain.start()
+        .compare(updatedAt, taskIdHistory.getUpdatedAt())
+        .compare(taskId, taskIdHistory.getTaskId().getId())
+        .result();
+    return orderDirection == OrderDirection.ASC ? result < 0 : result > 0;
+  }
+
+  public String encode() {
+    return BaseEncoding.base64Url().omitPadding().encode(String.format("%d:%s", updatedAt, taskId).getBytes(UTF_8));
+  }
+
+  public long getUpdatedAt() {
+    return updatedAt;
+  }
+
+  public String getTaskId() {
+    return taskId;
+  }
+
+  @Override
+  public String toString() {
+    return "TaskHistoryCursor{" +
+        "updatedAt=" + updatedAt +
+        ", taskId='" + taskId + '\'' +
+        '}';
+  }
+}
@@ -1,16 +1,24 @@
 package com.hubspot.singularity.data.history;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import com.google.common.base.Optional;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Collections2;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.hubspot.singularity.OrderDirection;
+import com.hubspot.singularity.SingularityCursorPaginatedResponse;
 import com.hubspot.singularity.SingularityTask;
 import com.hubspot.singularity.SingularityTaskHistory;
 import com.hubspot.singularity.SingularityTaskHistoryQuery;
@@ -23,10 +31,13 @@ import com.hubspot.singularity.data.TaskManager;
 @Singleton
 public class TaskHistoryHelper extends BlendedHistoryHelper<SingularityTaskIdHistory, SingularityTaskHistoryQuery> {
 
+  private static final int MAX_CACHED_HISTORY_COUNTS = 1000;
+
   private final TaskManager taskManager;
   private final RequestManager requestManager;
   private final HistoryManager historyManager;
   private final SingularityConfiguration configuration;
+  private final Cache<SingularityTaskHistoryQuery, Integer> historyCountCache;
 
   @Inject
   public TaskHistoryHelper(TaskManager taskManager, HistoryManager historyManager, RequestManager requestManager, SingularityConfiguration configuration) {
@@ -34,6 +45,10 @@ public class TaskHistoryHelper extends BlendedHistoryHelper<SingularityTaskIdHis
     this.historyManager = historyManager;
     this.requestManager = requestManager;
     this.configuration = configuration;
+    this.historyCountCache = CacheBuilder.newBuilder()
+        .expireAfterWrite(configuration.getCacheTaskHistoryCountsForMillis(), TimeUnit.MILLISECONDS)
+        .maximumSize(MAX_CACHED_HISTORY_COUNTS)
+        .build();
   }
 
   private List<SingularityTaskIdHistory> getFromZk(List<String> requestIds) {
@@ -65,6 +80,41 @@ public class TaskHistoryHelper extends BlendedHistoryHelper<SingularityTaskIdHis
         query.getStartedAfter(), query.getUpdatedBefore(), query.getUpdatedAfter(), query.getOrderDirection(), Optional.of(historyStart), numFromHistory);
   }
 
+  public SingularityCursorPaginatedResponse<SingularityTaskIdHistory> getBlendedHistoryAfterCursor(SingularityTaskHistoryQuery query, Optional<TaskHistoryCursor> cursor, int limitCount) {
+    final OrderDirection orderDirection = query.getOrderDirection().or(OrderDirection.DESC);
+    final Comparator<SingularityTaskIdHistory> comparator = TaskHistoryCursor.comparator(orderDirection);
+
+    // A task can briefly be in both zk and the db while it is being persisted, keep the first copy
+    final List<SingularityTaskIdHistory> merged = new ArrayList<>();
+    final Set<SingularityTaskId> seen = new HashSet<>();
+
+    final List<SingularityTaskIdHistory> candidates = new ArrayList<>();
+    for (SingularityTaskIdHistory taskIdHistory : getFromZk(query)) {
+      if (!cursor.isPresent() || cursor.get().isBefore(taskIdHistory, orderDirection)) {
+        candidates.add(taskIdHistory);
+      }
+    }
+    candidates.addAll(historyManager.getTaskIdHistoryAfterCursor(query.getRequestId().get(), query.getDeployId(), query.getRunId(), query.getHost(), query.getLastTaskStatus(),
+        query.getStartedBefore(), query.getStartedAfter(), query.getUpdatedBefore(), query.getUpdatedAfter(), query.getOrderDirection(), cursor, limitCount + 1));
+    candidates.sort(comparator);
+
+    for (SingularityTaskIdHistory taskIdHistory : candidates) {
+      if (seen.add(taskIdHistory.getTaskId())) {
+        merged.add(taskIdHistory);
+      }
+      if (merged.size() > limitCount) {
+        break;
+      }
+    }
+
+    if (merged.size() > limitCount) {
+      final List<SingularityTaskIdHistory> page = merged.subList(0, limitCount);
+      return new SingularityCursorPaginatedResponse<>(new ArrayList<>(page), Optional.of(TaskHistoryCursor.after(page.get(limitCount - 1)).encode()));
+    }
+
+    return new SingularityCursorPaginatedResponse<>(merged, Optional.absent());
+  }
+
   public Optional<SingularityTask> getTask(SingularityTaskId taskId) {
     Optional<SingularityTask> maybeTask = taskManager.getTask(taskId);
 
@@ -131,10 +181,19 @@ public class TaskHistoryHelper extends BlendedHistoryHelper<SingularityTaskIdHis
   @Override
   protected Optional<Integer> getTotalCount(SingularityTaskHistoryQuery query) {
     final int numFromZk = Collections2.filter(getFromZk(getRequestIds(query)), query.getHistoryFilter()).size();
-    final int numFromHistory = historyManager.getTaskIdHistoryCount(query.getRequestId(), query.getDeployId(), query.getRunId(), query.getHost(), query.getLastTaskStatus(), query.getStartedBefore(),
-        query.getStartedAfter(), query.getUpdatedBefore(), query.getUpdatedAfter());
+    final int numFromHistory = getCountFromHistory(query);
 
     return Optional.fromNullable(numFromZk + numFromHistory);
   }
 
+  // The db count is a full scan of the matching rows, so it is only refreshed every cacheTaskHistoryCountsForMillis
+  private int getCountFromHistory(SingularityTaskHistoryQuery query) {
+    try {
+      return historyCountCache.get(query, () -> historyManager.getTaskIdHistoryCount(query.getRequestId(), query.getDeployId(), query.getRunId(), query.getHost(),
+          query.getLastTaskStatus(), query.getStartedBefore(), query.getStartedAfter(), query.getUpdatedBefore(), query.getUpdatedAfter()));
+    } catch (ExecutionException e) {
+      throw new RuntimeException(e.getCause());
+    }
+  }
+
 }
@@ -0,0 +1,228 @@
+package com.hubspot.singularity.data.transcoders;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.Adler32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+
+import javax.annotation.Nullable;
+
+import org.iq80.snappy.CorruptionException;
+import org.iq80.snappy.Snappy;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.google.common.base.Optional;
+
+/**
+ * Writes objects as CBOR behind a two byte header: a zero byte followed by the format version. Neither JSON nor a
+ * non-empty Snappy block can start with a zero byte, so anything without the header is handed to the legacy (JSON)
+ * transcoder. Existing nodes stay readable and writes can be switched back and forth.
+ *
+ * Data compressed with a preset dictionary records the dictionary's Adler-32 checksum, which is used to pick the
+ * dictionary it was written with. New data is always written with the current dictionary; previous dictionaries are
+ * only used for reads, so a dictionary can be rotated without rewriting the nodes that use the old one.
+ */
+public class BinaryTranscoder<T> implements Transcoder<T> {
+  static final byte HEADER = 0;
+  static final byte CBOR = 1;
+  static final byte CBOR_SNAPPY = 2;
+  static final byte CBOR_DEFLATE_DICTIONARY = 3;
+
+  private static final byte[] EMPTY_BYTES = new byte[0];
+  private static final CBORFactory CBOR_FACTORY = new CBORFactory();
+
+  private final ObjectMapper objectMapper;
+  private final Class<T> clazz;
+  private final Transcoder<T> legacyTranscoder;
+  private final boolean writeBinary;
+  private final boolean compress;
+  private final Optional<byte[]> dictionary;
+  private final Collection<byte[]> previousDictionaries;
+  private final Map<Long, byte[]> dictionariesById;
+
+  BinaryTranscoder(ObjectMapper objectMapper, Class<T> clazz, Transcoder<T> legacyTranscoder, boolean writeBinary, boolean compress, Optional<byte[]> dictionary) {
+    this(objectMapper, clazz, legacyTranscoder, writeBinary, compress, dictionary, Collections.emptyList());
+  }
+
+  /**
+   * @param dictionary - Used to compress new data, and to read it back
+   * @param previousDictionaries - Only used to read data that was compressed before the current dictionary was rotated in
+   */
+  BinaryTranscoder(ObjectMapper objectMapper, Class<T> clazz, Transcoder<T> legacyTranscoder, boolean writeBinary, boolean compress, Optional<byte[]> dictionary,
+      Collection<byte[]> previousDictionaries) {
+    this.objectMapper = checkNotNull(objectMapper, "objectMapper is null");
+    this.clazz = checkNotNull(clazz, "clazz is null");
+    this.legacyTranscoder = checkNotNull(legacyTranscoder, "legacyTranscoder is null");
+    this.writeBinary = writeBinary;
+    this.compress = compress;
+    this.dictionary = checkNotNull(dictionary, "dictionary is null");
+    this.previousDictionaries = checkNotNull(previousDictionaries, "previousDictionaries is null");
+
+    this.dictionariesById = new HashMap<>();
+    for (byte[] previousDictionary : previousDictionaries) {
+      dictionariesById.put(dictionaryId(previousDictionary), previousDictionary);
+    }
+    if (dictionary.isPresent()) {
+      dictionariesById.put(dictionaryId(dictionary.get()), dictionary.get());
+    }
+  }
+
+  static long dictionaryId(byte[] dictionary) {
+    Adler32 adler = new Adler32();
+    adler.update(dictionary);
+    return adler.getValue();
+  }
+
+  /**
+   * A transcoder that reads the same data as this one but only ever writes the legacy format, for data that is kept
+   * outside of zk.
+   */
+  BinaryTranscoder<T> withoutBinaryWrites() {
+    return new BinaryTranscoder<>(objectMapper, clazz, legacyTranscoder, false, compress, dictionary, previousDictionaries);
+  }
+
+  @Override
+  public T fromBytes(@Nullable byte[] data) throws SingularityTranscoderException {
+    if (data == null || data.length == 0) {
+      return null;
+    }
+
+    if (data[0] != HEADER) {
+      return legacyTranscoder.fromBytes(data);
+    }
+
+    if (data.length < 2) {
+      throw new SingularityTranscoderException("Missing format version for %s", clazz.getSimpleName());
+    }
+
+    switch (data[1]) {
+      case CBOR:
+        return readCbor(data, 2, data.length - 2);
+      case CBOR_SNAPPY:
+        try {
+          byte[] uncompressed = Snappy.uncompress(data, 2, data.length - 2);
+          return readCbor(uncompressed, 0, uncompressed.length);
+        } catch (CorruptionException ce) {
+          throw new SingularityTranscoderException(ce);
+        }
+      case CBOR_DEFLATE_DICTIONARY:
+        byte[] inflated = inflate(data, 2, data.length - 2);
+        return readCbor(inflated, 0, inflated.length);
+      default:
+        throw new SingularityTranscoderException("Unknown format version %s for %s", data[1], clazz.getSimpleName());
+    }
+  }
+
+  @Override
+  public byte[] toBytes(@Nullable T object) throws SingularityTranscoderException {
+    if (!writeBinary) {
+      return legacyTranscoder.toBytes(object);
+    }
+
+    if (object == null) {
+      return EMPTY_BYTES;
+    }
+
+    try {
+      if (dictionary.isPresent()) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(512);
+        out.write(HEADER);
+        out.write(CBOR_DEFLATE_DICTIONARY);
+
+        Deflater deflater = new Deflater();
+        try {
+          deflater.setDictionary(dictionary.get());
+          try (DeflaterOutputStream deflaterOutputStream = new DeflaterOutputStream(out, deflater)) {
+            writeCbor(object, deflaterOutputStream);
+          }
+        } finally {
+          deflater.end();
+        }
+
+        return out.toByteArray();
+      }
+
+      if (compress) {
+        ByteArrayOutputStream cbor = new ByteArrayOutputStream(1024);
+        writeCbor(object, cbor);
+        byte[] compressed = Snappy.compress(cbor.toByteArray());
+
+        byte[] data = new byte[compressed.length + 2];
+        data[0] = HEADER;
+        data[1] = CBOR_SNAPPY;
+        System.arraycopy(compressed, 0, data, 2, compressed.length);
+        return data;
+      }
+
+      ByteArrayOutputStream out = new ByteArrayOutputStream(512);
+      out.write(HEADER);
+      out.write(CBOR);
+      writeCbor(object, out);
+      return out.toByteArray();
+    } catch (IOException e) {
+      throw new SingularityTranscoderException(e);
+    }
+  }
+
+  private void writeCbor(T object, OutputStream out) throws IOException {
+    try (JsonGenerator generator = CBOR_FACTORY.createGenerator(out)) {
+      objectMapper.writeValue(generator, object);
+    }
+  }
+
+  private T readCbor(byte[] data, int offset, int length) {
+    try {
+      return objectMapper.readValue(CBOR_FACTORY.createParser(data, offset, length), clazz);
+    } catch (IOException e) {
+      throw new SingularityTranscoderException(e);
+    }
+  }
+
+  private byte[] inflate(byte[] data, int offset, int length) {
+    Inflater inflater = new Inflater();
+
+    try {
+      inflater.setInput(data, offset, length);
+
+      ByteArrayOutputStream out = new ByteArrayOutputStream(length * 4);
+      byte[] buffer = new byte[4096];
+
+      while (!inflater.finished()) {
+        int inflated = inflater.inflate(buffer);
+
+        if (inflated == 0) {
+          if (inflater.needsDictionary()) {
+            long requiredDictionaryId = inflater.getAdler() & 0xffffffffL;
+            byte[] requiredDictionary = dictionariesById.get(requiredDictionaryId);
+            if (requiredDictionary == null) {
+              throw new SingularityTranscoderException("No dictionary with id %s configured for %s", requiredDictionaryId, clazz.getSimpleName());
+            }
+            inflater.setDictionary(requiredDictionary);
+          } else if (inflater.needsInput()) {
+            throw new SingularityTranscoderException("Truncated data for %s", clazz.getSimpleName());
+          }
+        }
+
+        out.write(buffer, 0, inflated);
+      }
+
+      return out.toByteArray();
+    } catch (DataFormatException e) {
+      throw new SingularityTranscoderException(e);
+    } finally {
+      inflater.end();
+    }
+  }
+}
@@ -0,0 +1,92 @@
+package com.hubspot.singularity.data.transcoders;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+
+/**
+ * Builds and loads the preset dictionaries used by {@link BinaryTranscoder}. Deflate only looks back 32KB, so a
+ * dictionary is a concatenation of the segments that occur most often across a set of sample objects, with the most
+ * frequent ones last where they are cheapest to reference.
+ */
+public final class BinaryTranscoderDictionaries {
+  public static final int MAX_DICTIONARY_SIZE = 32 * 1024;
+
+  private static final int SEGMENT_LENGTH = 16;
+
+  private BinaryTranscoderDictionaries() {}
+
+  public static Optional<byte[]> load(Map<String, String> dictionaryPaths, Class<?> clazz) {
+    String path = dictionaryPaths.get(clazz.getSimpleName());
+
+    if (path == null) {
+      return Optional.absent();
+    }
+
+    return Optional.of(read(path, clazz));
+  }
+
+  public static List<byte[]> loadAll(Map<String, List<String>> dictionaryPaths, Class<?> clazz) {
+    List<byte[]> dictionaries = new ArrayList<>();
+
+    for (String path : dictionaryPaths.getOrDefault(clazz.getSimpleName(), Collections.emptyList())) {
+      dictionaries.add(read(path, clazz));
+    }
+
+    return dictionaries;
+  }
+
+  private static byte[] read(String path, Class<?> clazz) {
+    try {
+      byte[] dictionary = Files.readAllBytes(Paths.get(path));
+      Preconditions.checkState(dictionary.length > 0 && dictionary.length <= MAX_DICTIONARY_SIZE, "Dictionary %s for %s must be between 1 and %s bytes", path, clazz.getSimpleName(), MAX_DICTIONARY_SIZE);
+      return dictionary;
+    } catch (IOException e) {
+      throw new IllegalStateException(String.format("Couldn't read dictionary %s for %s", path, clazz.getSimpleName()), e);
+    }
+  }
+
+  public static byte[] train(Collection<byte[]> samples, int maxSize) {
+    Preconditions.checkArgument(maxSize > 0 && maxSize <= MAX_DICTIONARY_SIZE, "maxSize must be between 1 and %s", MAX_DICTIONARY_SIZE);
+
+    Map<ByteBuffer, Integer> counts = new HashMap<>();
+
+    for (byte[] sample : samples) {
+      // Count each segment once per sample so a single large object can't dominate the dictionary
+      Set<ByteBuffer> seen = new HashSet<>();
+      for (int i = 0; i + SEGMENT_LENGTH <= sample.length; i += SEGMENT_LENGTH / 2) {
+        ByteBuffer segment = ByteBuffer.wrap(sample, i, SEGMENT_LENGTH).slice();
+        if (seen.add(segment)) {
+          counts.merge(segment, 1, Integer::sum);
+        }
+      }
+    }
+
+    List<Map.Entry<ByteBuffer, Integer>> segments = new ArrayList<>(counts.entrySet());
+    segments.removeIf((e) -> e.getValue() < 2);
+    segments.sort(Collections.reverseOrder(Map.Entry.comparingByValue()));
+
+    int numSegments = Math.min(segments.size(), maxSize / SEGMENT_LENGTH);
+    byte[] dictionary = new byte[numSegments * SEGMENT_LENGTH];
+
+    for (int i = 0; i < numSegments; i++) {
+      ByteBuffer segment = segments.get(i).getKey().duplicate();
+      segment.get(dictionary, dictionary.length - (i + 1) * SEGMENT_LENGTH, SEGMENT_LENGTH);
+    }
+
+    return dictionary;
+  }
+
+}
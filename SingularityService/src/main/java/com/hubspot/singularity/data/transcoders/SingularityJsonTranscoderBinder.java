@@ -13,6 +13,7 @@ import com.google.inject.Provider;
 import com.google.inject.Scopes;
 import com.hubspot.singularity.SingularityId;
 import com.hubspot.singularity.config.SingularityConfiguration;
+import com.hubspot.singularity.config.ZooKeeperConfiguration;
 
 @SuppressWarnings("serial")
 public final class SingularityJsonTranscoderBinder {
@@ -48,28 +49,31 @@ public final class SingularityJsonTranscoderBinder {
     binder.bind(key).toInstance(new IdTranscoder<T>(clazz));
   }
 
-  static class JsonTranscoderProvider<T> implements Provider<JsonTranscoder<T>> {
+  static class JsonTranscoderProvider<T> implements Provider<Transcoder<T>> {
     private final Class<T> clazz;
     private ObjectMapper objectMapper;
+    private SingularityConfiguration singularityConfiguration;
 
     JsonTranscoderProvider(Class<T> clazz) {
       this.clazz = clazz;
     }
 
     @Inject
-    void inject(ObjectMapper objectMapper) {
+    void inject(ObjectMapper objectMapper, SingularityConfiguration singularityConfiguration) {
       this.objectMapper = checkNotNull(objectMapper, "objectMapper is null");
+      this.singularityConfiguration = checkNotNull(singularityConfiguration, "singularityConfiguration is null");
     }
 
     @Override
-    public JsonTranscoder<T> get() {
+    public Transcoder<T> get() {
       checkState(objectMapper != null, "objectMapper was never injected!");
+      checkState(singularityConfiguration != null, "singularityConfiguration was never injected!");
 
-      return new JsonTranscoder<T>(objectMapper, clazz);
+      return binaryTranscoder(singularityConfiguration, objectMapper, clazz, new JsonTranscoder<T>(objectMapper, clazz), false);
     }
   }
 
-  static class CompressingJsonTranscoderProvider<T> implements Provider<CompressingJsonTranscoder<T>> {
+  static class CompressingJsonTranscoderProvider<T> implements Provider<Transcoder<T>> {
     private final Class<T> clazz;
     private ObjectMapper objectMapper;
     private SingularityConfiguration singularityConfiguration;
@@ -85,12 +89,22 @@ public final class SingularityJsonTranscoderBinder {
     }
 
     @Override
-    public CompressingJsonTranscoder<T> get() {
+    public Transcoder<T> get() {
       checkState(objectMapper != null, "objectMapper was never injected!");
       checkState(singularityConfiguration != null, "singularityConfiguration was never injected!");
 
-      return new CompressingJsonTranscoder<T>(singularityConfiguration, objectMapper, clazz);
+      return binaryTranscoder(singularityConfiguration, objectMapper, clazz, new CompressingJsonTranscoder<T>(singularityConfiguration, objectMapper, clazz),
+          singularityConfiguration.isCompressLargeDataObjects());
     }
   }
 
+  // Binary data is always readable so that writeBinaryData can be turned on one instance at a time
+  private static <T> Transcoder<T> binaryTranscoder(SingularityConfiguration configuration, ObjectMapper objectMapper, Class<T> clazz, Transcoder<T> legacyTranscoder, boolean compress) {
+    ZooKeeperConfiguration zooKeeperConfiguration = configuration.getZooKeeperConfiguration();
+
+    return new BinaryTranscoder<T>(objectMapper, clazz, legacyTranscoder, zooKeeperConfiguration.isWriteBinaryData(), compress,
+        BinaryTranscoderDictionaries.load(zooKeeperConfiguration.getBinaryDataDictionaries(), clazz),
+        BinaryTranscoderDictionaries.loadAll(zooKeeperConfiguration.getPreviousBinaryDataDictionaries(), clazz));
+  }
+
 }
@@ -13,6 +13,19 @@ public final class Transcoders {
     throw new AssertionError("do not instantiate");
   }
 
+  /**
+   * Keeps reading whatever format the given transcoder reads, but always writes the legacy (JSON) format. Used for
+   * data stored outside of zk, which isn't covered by switching {@code writeBinaryData} back off.
+   */
+  public static <T> Transcoder<T> withoutBinaryWrites(Transcoder<T> transcoder) {
+    checkNotNull(transcoder, "transcoder is null");
+
+    if (transcoder instanceof BinaryTranscoder) {
+      return ((BinaryTranscoder<T>) transcoder).withoutBinaryWrites();
+    }
+    return transcoder;
+  }
+
   public static <T> Function<T, byte[]> getToBytesFunction(final Transcoder<T> transcoder) {
     checkNotNull(transcoder, "transcoder is null");
 
@@ -0,0 +1,143 @@
+package com.hubspot.singularity.data.usage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.hubspot.singularity.SingularityCreateResult;
+import com.hubspot.singularity.SingularityDeleteResult;
+import com.hubspot.singularity.SingularitySlaveUsage;
+import com.hubspot.singularity.SingularityTaskUsage;
+import com.hubspot.singularity.config.SingularityConfiguration;
+
+/**
+ * Keeps usage samples in a bounded buffer per task and slave on the leader. Nothing is shared with other instances, so
+ * history is only available from the leader and starts over after a leader change.
+ */
+@Singleton
+public class InMemoryUsageStore implements UsageStore {
+
+  private final SingularityConfiguration configuration;
+  private final ConcurrentMap<String, UsageBuffer<SingularityTaskUsage>> taskUsages;
+  private final ConcurrentMap<String, UsageBuffer<SingularitySlaveUsage>> slaveUsages;
+
+  @Inject
+  public InMemoryUsageStore(SingularityConfiguration configuration) {
+    this.configuration = configuration;
+    this.taskUsages = new ConcurrentHashMap<>();
+    this.slaveUsages = new ConcurrentHashMap<>();
+  }
+
+  // The usage helper trims history down to numUsageToKeep before adding the latest sample
+  private int getCapacity() {
+    return configuration.getNumUsageToKeep() + 1;
+  }
+
+  protected Map<Double, SingularityTaskUsage> loadTaskUsage(String taskId) {
+    return Collections.emptyMap();
+  }
+
+  protected Map<Double, SingularitySlaveUsage> loadSlaveUsage(String slaveId) {
+    return Collections.emptyMap();
+  }
+
+  private <T> UsageBuffer<T> getBuffer(ConcurrentMap<String, UsageBuffer<T>> buffers, String id, boolean create, Function<String, Map<Double, T>> loader) {
+    UsageBuffer<T> buffer = buffers.get(id);
+    if (buffer != null) {
+      return buffer;
+    }
+
+    Map<Double, T> stored = loader.apply(id);
+    if (stored.isEmpty() && !create) {
+      return null;
+    }
+
+    return buffers.computeIfAbsent(id, (i) -> new UsageBuffer<>(stored));
+  }
+
+  @Override
+  public List<String> getTasksWithUsage() {
+    return new ArrayList<>(taskUsages.keySet());
+  }
+
+  @Override
+  public List<SingularityTaskUsage> getTaskUsage(String taskId) {
+    UsageBuffer<SingularityTaskUsage> buffer = getBuffer(taskUsages, taskId, false, this::loadTaskUsage);
+    return buffer == null ? new ArrayList<>() : buffer.getSamples();
+  }
+
+  @Override
+  public List<Double> getTaskUsageTimestamps(String taskId) {
+    UsageBuffer<SingularityTaskUsage> buffer = getBuffer(taskUsages, taskId, false, this::loadTaskUsage);
+    return buffer == null ? new ArrayList<>() : buffer.getTimestamps();
+  }
+
+  @Override
+  public SingularityCreateResult saveTaskUsage(String taskId, SingularityTaskUsage usage) {
+    getBuffer(taskUsages, taskId, true, this::loadTaskUsage).add(usage.getTimestamp(), usage, getCapacity());
+    return SingularityCreateResult.CREATED;
+  }
+
+  @Override
+  public SingularityDeleteResult deleteTaskUsage(String taskId, double timestamp) {
+    UsageBuffer<SingularityTaskUsage> buffer = taskUsages.get(taskId);
+    return buffer != null && buffer.remove(timestamp) ? SingularityDeleteResult.DELETED : SingularityDeleteResult.DIDNT_EXIST;
+  }
+
+  @Override
+  public SingularityDeleteResult deleteTaskUsage(String taskId) {
+    return taskUsages.remove(taskId) != null ? SingularityDeleteResult.DELETED : SingularityDeleteResult.DIDNT_EXIST;
+  }
+
+  @Override
+  public List<String> getSlavesWithUsage() {
+    return new ArrayList<>(slaveUsages.keySet());
+  }
+
+  @Override
+  public List<SingularitySlaveUsage> getSlaveUsage(String slaveId) {
+    UsageBuffer<SingularitySlaveUsage> buffer = getBuffer(slaveUsages, slaveId, false, this::loadSlaveUsage);
+    return buffer == null ? new ArrayList<>() : buffer.getSamples();
+  }
+
+  @Override
+  public List<Long> getSlaveUsageTimestamps(String slaveId) {
+    UsageBuffer<SingularitySlaveUsage> buffer = getBuffer(slaveUsages, slaveId, false, this::loadSlaveUsage);
+    if (buffer == null) {
+      return new ArrayList<>();
+    }
+
+    List<Double> timestamps = buffer.getTimestamps();
+    List<Long> longTimestamps = new ArrayList<>(timestamps.size());
+    for (Double timestamp : timestamps) {
+      longTimestamps.add(timestamp.longValue());
+    }
+    return longTimestamps;
+  }
+
+  @Override
+  public SingularityCreateResult saveSlaveUsage(String slaveId, SingularitySlaveUsage usage) {
+    getBuffer(slaveUsages, slaveId, true, this::loadSlaveUsage).add(usage.getTimestamp(), usage, getCapacity());
+    return SingularityCreateResult.CREATED;
+  }
+
+  @Override
+  public SingularityDeleteResult deleteSlaveUsage(String slaveId, long timestamp) {
+    UsageBuffer<SingularitySlaveUsage> buffer = slaveUsages.get(slaveId);
+    return buffer != null && buffer.remove(timestamp) ? SingularityDeleteResult.DELETED : SingularityDeleteResult.DIDNT_EXIST;
+  }
+
+  @Override
+  public SingularityDeleteResult deleteSlaveUsage(String slaveId) {
+    return slaveUsages.remove(slaveId) != null ? SingularityDeleteResult.DELETED : SingularityDeleteResult.DIDNT_EXIST;
+  }
+
+  @Override
+  public void flush() {}
+}
@@ -0,0 +1,310 @@
+package com.hubspot.singularity.data.usage;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.hubspot.singularity.SingularityCreateResult;
+import com.hubspot.singularity.SingularityDeleteResult;
+import com.hubspot.singularity.SingularitySlaveUsage;
+import com.hubspot.singularity.SingularityTaskUsage;
+import com.hubspot.singularity.config.SingularityConfiguration;
+import com.hubspot.singularity.data.history.HistoryJDBI;
+import com.hubspot.singularity.data.transcoders.Transcoder;
+import com.hubspot.singularity.scheduler.SingularityLeaderCache;
+
+/**
+ * Same buffers as {@link InMemoryUsageStore} on the leader, with every change mirrored to the usageHistory table. A new
+ * leader reloads a task or slave's samples from the table the first time it needs them, and other instances read the
+ * table directly. Failed reads and writes on the leader are logged and skipped so a database outage does not stop usage
+ * collection.
+ *
+ * Added and removed samples are queued and written in batches, once enough of them have piled up or when the usage
+ * poller flushes at the end of a collection run. Only the latest change to a sample is kept in the queue.
+ */
+@Singleton
+public class JDBIUsageStore extends InMemoryUsageStore {
+
+  private static final Logger LOG = LoggerFactory.getLogger(JDBIUsageStore.class);
+
+  private static final String TASK_USAGE_TYPE = "TASK";
+  private static final String SLAVE_USAGE_TYPE = "SLAVE";
+
+  private static final int MAX_PENDING_WRITES = 500;
+
+  private final HistoryJDBI history;
+  private final SingularityLeaderCache leaderCache;
+  private final Transcoder<SingularityTaskUsage> taskUsageTranscoder;
+  private final Transcoder<SingularitySlaveUsage> slaveUsageTranscoder;
+
+  // A null value is a delete
+  private final Map<UsageKey, byte[]> pendingWrites;
+  private final Object flushLock;
+
+  @Inject
+  public JDBIUsageStore(SingularityConfiguration configuration,
+                        HistoryJDBI history,
+                        SingularityLeaderCache leaderCache,
+                        Transcoder<SingularityTaskUsage> taskUsageTranscoder,
+                        Transcoder<SingularitySlaveUsage> slaveUsageTranscoder) {
+    super(configuration);
+    this.history = history;
+    this.leaderCache = leaderCache;
+    this.taskUsageTranscoder = taskUsageTranscoder;
+    this.slaveUsageTranscoder = slaveUsageTranscoder;
+    this.pendingWrites = new LinkedHashMap<>();
+    this.flushLock = new Object();
+  }
+
+  private <T> List<T> getStoredUsage(String usageType, String id, Transcoder<T> transcoder) {
+    List<byte[]> stored = history.getUsage(usageType, id);
+    List<T> usages = new ArrayList<>(stored.size());
+    for (byte[] bytes : stored) {
+      usages.add(transcoder.fromBytes(bytes));
+    }
+    return usages;
+  }
+
+  private List<String> getIdsWithUsage(String usageType, List<String> cachedIds) {
+    Set<String> ids = new LinkedHashSet<>(cachedIds);
+    ids.addAll(history.getIdsWithUsage(usageType));
+    return new ArrayList<>(ids);
+  }
+
+  private void runSafely(Runnable update, String usageType, String id) {
+    try {
+      update.run();
+    } catch (Throwable t) {
+      LOG.warn("Could not update stored {} usage for {}", usageType, id, t);
+    }
+  }
+
+  private void queueWrite(String usageType, String id, double sampledAt, byte[] bytes) {
+    boolean shouldFlush;
+    synchronized (pendingWrites) {
+      UsageKey key = new UsageKey(usageType, id, sampledAt);
+      pendingWrites.remove(key);
+      pendingWrites.put(key, bytes);
+      shouldFlush = pendingWrites.size() >= MAX_PENDING_WRITES;
+    }
+
+    if (shouldFlush) {
+      flush();
+    }
+  }
+
+  private void deleteAll(String usageType, String id) {
+    synchronized (flushLock) {
+      synchronized (pendingWrites) {
+        pendingWrites.keySet().removeIf((key) -> key.usageType.equals(usageType) && key.id.equals(id));
+      }
+      runSafely(() -> history.deleteUsageForId(usageType, id), usageType, id);
+    }
+  }
+
+  @Override
+  public void flush() {
+    // Flushes run one at a time so that an older batch can't land after a newer one
+    synchronized (flushLock) {
+      List<UsageKey> upserts = new ArrayList<>();
+      List<byte[]> upsertBytes = new ArrayList<>();
+      List<UsageKey> deletes = new ArrayList<>();
+
+      synchronized (pendingWrites) {
+        for (Map.Entry<UsageKey, byte[]> write : pendingWrites.entrySet()) {
+          if (write.getValue() == null) {
+            deletes.add(write.getKey());
+          } else {
+            upserts.add(write.getKey());
+            upsertBytes.add(write.getValue());
+          }
+        }
+        pendingWrites.clear();
+      }
+
+      // Every sample appears at most once, so upserts and deletes don't depend on each other's order
+      try {
+        if (!upserts.isEmpty()) {
+          history.upsertUsages(usageTypes(upserts), ids(upserts), sampledAts(upserts), upsertBytes);
+        }
+        if (!deletes.isEmpty()) {
+          history.deleteUsages(usageTypes(deletes), ids(deletes), sampledAts(deletes));
+        }
+      } catch (Throwable t) {
+        LOG.warn("Could not write {} stored usage samples and delete {}", upserts.size(), deletes.size(), t);
+      }
+    }
+  }
+
+  private static List<String> usageTypes(List<UsageKey> keys) {
+    return keys.stream().map((key) -> key.usageType).collect(Collectors.toList());
+  }
+
+  private static List<String> ids(List<UsageKey> keys) {
+    return keys.stream().map((key) -> key.id).collect(Collectors.toList());
+  }
+
+  private static List<Double> sampledAts(List<UsageKey> keys) {
+    return keys.stream().map((key) -> key.sampledAt).collect(Collectors.toList());
+  }
+
+  @Override
+  protected Map<Double, SingularityTaskUsage> loadTaskUsage(String taskId) {
+    Map<Double, SingularityTaskUsage> usages = new TreeMap<>();
+    try {
+      for (SingularityTaskUsage usage : getStoredUsage(TASK_USAGE_TYPE, taskId, taskUsageTranscoder)) {
+        usages.put(usage.getTimestamp(), usage);
+      }
+    } catch (Throwable t) {
+      LOG.warn("Could not load stored {} usage for {}", TASK_USAGE_TYPE, taskId, t);
+    }
+    return usages;
+  }
+
+  @Override
+  protected Map<Double, SingularitySlaveUsage> loadSlaveUsage(String slaveId) {
+    Map<Double, SingularitySlaveUsage> usages = new TreeMap<>();
+    try {
+      for (SingularitySlaveUsage usage : getStoredUsage(SLAVE_USAGE_TYPE, slaveId, slaveUsageTranscoder)) {
+        usages.put((double) usage.getTimestamp(), usage);
+      }
+    } catch (Throwable t) {
+      LOG.warn("Could not load stored {} usage for {}", SLAVE_USAGE_TYPE, slaveId, t);
+    }
+    return usages;
+  }
+
+  @Override
+  public List<String> getTasksWithUsage() {
+    return getIdsWithUsage(TASK_USAGE_TYPE, super.getTasksWithUsage());
+  }
+
+  @Override
+  public List<SingularityTaskUsage> getTaskUsage(String taskId) {
+    if (!leaderCache.active()) {
+      return getStoredUsage(TASK_USAGE_TYPE, taskId, taskUsageTranscoder);
+    }
+    return super.getTaskUsage(taskId);
+  }
+
+  @Override
+  public List<Double> getTaskUsageTimestamps(String taskId) {
+    if (!leaderCache.active()) {
+      List<Double> timestamps = new ArrayList<>();
+      for (SingularityTaskUsage usage : getStoredUsage(TASK_USAGE_TYPE, taskId, taskUsageTranscoder)) {
+        timestamps.add(usage.getTimestamp());
+      }
+      return timestamps;
+    }
+    return super.getTaskUsageTimestamps(taskId);
+  }
+
+  @Override
+  public SingularityCreateResult saveTaskUsage(String taskId, SingularityTaskUsage usage) {
+    SingularityCreateResult result = super.saveTaskUsage(taskId, usage);
+    queueWrite(TASK_USAGE_TYPE, taskId, usage.getTimestamp(), taskUsageTranscoder.toBytes(usage));
+    return result;
+  }
+
+  @Override
+  public SingularityDeleteResult deleteTaskUsage(String taskId, double timestamp) {
+    SingularityDeleteResult result = super.deleteTaskUsage(taskId, timestamp);
+    queueWrite(TASK_USAGE_TYPE, taskId, timestamp, null);
+    return result;
+  }
+
+  @Override
+  public SingularityDeleteResult deleteTaskUsage(String taskId) {
+    super.deleteTaskUsage(taskId);
+    deleteAll(TASK_USAGE_TYPE, taskId);
+    return SingularityDeleteResult.DELETED;
+  }
+
+  @Override
+  public List<String> getSlavesWithUsage() {
+    return getIdsWithUsage(SLAVE_USAGE_TYPE, super.getSlavesWithUsage());
+  }
+
+  @Override
+  public List<SingularitySlaveUsage> getSlaveUsage(String slaveId) {
+    if (!leaderCache.active()) {
+      return getStoredUsage(SLAVE_USAGE_TYPE, slaveId, slaveUsageTranscoder);
+    }
+    return super.getSlaveUsage(slaveId);
+  }
+
+  @Override
+  public List<Long> getSlaveUsageTimestamps(String slaveId) {
+    if (!leaderCache.active()) {
+      List<Long> timestamps = new ArrayList<>();
+      for (SingularitySlaveUsage usage : getStoredUsage(SLAVE_USAGE_TYPE, slaveId, slaveUsageTranscoder)) {
+        timestamps.add(usage.getTimestamp());
+      }
+      return timestamps;
+    }
+    return super.getSlaveUsageTimestamps(slaveId);
+  }
+
+  @Override
+  public SingularityCreateResult saveSlaveUsage(String slaveId, SingularitySlaveUsage usage) {
+    SingularityCreateResult result = super.saveSlaveUsage(slaveId, usage);
+    queueWrite(SLAVE_USAGE_TYPE, slaveId, usage.getTimestamp(), slaveUsageTranscoder.toBytes(usage));
+    return result;
+  }
+
+  @Override
+  public SingularityDeleteResult deleteSlaveUsage(String slaveId, long timestamp) {
+    SingularityDeleteResult result = super.deleteSlaveUsage(slaveId, timestamp);
+    queueWrite(SLAVE_USAGE_TYPE, slaveId, timestamp, null);
+    return result;
+  }
+
+  @Override
+  public SingularityDeleteResult deleteSlaveUsage(String slaveId) {
+    super.deleteSlaveUsage(slaveId);
+    deleteAll(SLAVE_USAGE_TYPE, slaveId);
+    return SingularityDeleteResult.DELETED;
+  }
+
+  private static class UsageKey {
+    private final String usageType;
+    private final String id;
+    private final double sampledAt;
+
+    UsageKey(String usageType, String id, double sampledAt) {
+      this.usageType = usageType;
+      this.id = id;
+      this.sampledAt = sampledAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      UsageKey that = (UsageKey) o;
+      return Double.compare(that.sampledAt, sampledAt) == 0 &&
+          Objects.equals(usageType, that.usageType) &&
+          Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(usageType, id, sampledAt);
+    }
+  }
+}
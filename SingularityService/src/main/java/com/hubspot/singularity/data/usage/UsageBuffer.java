@@ -0,0 +1,36 @@
+package com.hubspot.singularity.data.usage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Samples for a single task or slave ordered by timestamp. Once full, adding a sample drops the oldest one.
+ */
+class UsageBuffer<T> {
+  private final TreeMap<Double, T> samples;
+
+  UsageBuffer(Map<Double, T> initialSamples) {
+    this.samples = new TreeMap<>(initialSamples);
+  }
+
+  synchronized void add(double timestamp, T sample, int capacity) {
+    samples.put(timestamp, sample);
+    while (samples.size() > capacity) {
+      samples.pollFirstEntry();
+    }
+  }
+
+  synchronized boolean remove(double timestamp) {
+    return samples.remove(timestamp) != null;
+  }
+
+  synchronized List<T> getSamples() {
+    return new ArrayList<>(samples.values());
+  }
+
+  synchronized List<Double> getTimestamps() {
+    return new ArrayList<>(samples.keySet());
+  }
+}
@@ -0,0 +1,46 @@
+package com.hubspot.singularity.data.usage;
+
+import java.util.List;
+
+import com.hubspot.singularity.SingularityCreateResult;
+import com.hubspot.singularity.SingularityDeleteResult;
+import com.hubspot.singularity.SingularitySlaveUsage;
+import com.hubspot.singularity.SingularityTaskUsage;
+
+/**
+ * Holds the sampled usage history for tasks and slaves. Current usages and aggregates (request and cluster
+ * utilization) stay in zk through {@link com.hubspot.singularity.data.UsageManager}, only the per-sample history
+ * lives here. Samples are always returned oldest first.
+ */
+public interface UsageStore {
+
+  List<String> getTasksWithUsage();
+
+  List<SingularityTaskUsage> getTaskUsage(String taskId);
+
+  List<Double> getTaskUsageTimestamps(String taskId);
+
+  SingularityCreateResult saveTaskUsage(String taskId, SingularityTaskUsage usage);
+
+  SingularityDeleteResult deleteTaskUsage(String taskId, double timestamp);
+
+  SingularityDeleteResult deleteTaskUsage(String taskId);
+
+  List<String> getSlavesWithUsage();
+
+  List<SingularitySlaveUsage> getSlaveUsage(String slaveId);
+
+  List<Long> getSlaveUsageTimestamps(String slaveId);
+
+  SingularityCreateResult saveSlaveUsage(String slaveId, SingularitySlaveUsage usage);
+
+  SingularityDeleteResult deleteSlaveUsage(String slaveId, long timestamp);
+
+  SingularityDeleteResult deleteSlaveUsage(String slaveId);
+
+  /**
+   * Writes out any changes that are still queued. Stores that write through right away do nothing here.
+   */
+  void flush();
+
+}
@@ -0,0 +1,17 @@
+package com.hubspot.singularity.data.usage;
+
+public enum UsageStoreType {
+  ZOOKEEPER(ZkUsageStore.class),
+  MEMORY(InMemoryUsageStore.class),
+  DATABASE(JDBIUsageStore.class);
+
+  private final Class<? extends UsageStore> usageStoreClass;
+
+  UsageStoreType(Class<? extends UsageStore> usageStoreClass) {
+    this.usageStoreClass = usageStoreClass;
+  }
+
+  public Class<? extends UsageStore> getUsageStoreClass() {
+    return usageStoreClass;
+  }
+}
@@ -0,0 +1,146 @@
+package com.hubspot.singularity.data.usage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.utils.ZKPaths;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.hubspot.singularity.SingularityCreateResult;
+import com.hubspot.singularity.SingularityDeleteResult;
+import com.hubspot.singularity.SingularitySlaveUsage;
+import com.hubspot.singularity.SingularityTaskUsage;
+import com.hubspot.singularity.config.SingularityConfiguration;
+import com.hubspot.singularity.data.CuratorAsyncManager;
+import com.hubspot.singularity.data.transcoders.Transcoder;
+
+/**
+ * Keeps one zk node per sample under /usage/(tasks|slaves)/id/history, next to the CURRENT node UsageManager writes
+ */
+@Singleton
+public class ZkUsageStore extends CuratorAsyncManager implements UsageStore {
+
+  private static final String ROOT_PATH = "/usage";
+
+  private static final String SLAVE_PATH = ROOT_PATH + "/slaves";
+  private static final String TASK_PATH = ROOT_PATH + "/tasks";
+
+  private static final String USAGE_HISTORY_PATH_KEY = "history";
+
+  private static final Comparator<SingularitySlaveUsage> SLAVE_USAGE_COMPARATOR_TIMESTAMP_ASC = Comparator.comparingLong(SingularitySlaveUsage::getTimestamp);
+  private static final Comparator<SingularityTaskUsage> TASK_USAGE_COMPARATOR_TIMESTAMP_ASC = Comparator.comparingDouble(SingularityTaskUsage::getTimestamp);
+
+  private final Transcoder<SingularitySlaveUsage> slaveUsageTranscoder;
+  private final Transcoder<SingularityTaskUsage> taskUsageTranscoder;
+
+  @Inject
+  public ZkUsageStore(CuratorFramework curator,
+                      SingularityConfiguration configuration,
+                      MetricRegistry metricRegistry,
+                      Transcoder<SingularitySlaveUsage> slaveUsageTranscoder,
+                      Transcoder<SingularityTaskUsage> taskUsageTranscoder) {
+    super(curator, configuration, metricRegistry);
+    this.slaveUsageTranscoder = slaveUsageTranscoder;
+    this.taskUsageTranscoder = taskUsageTranscoder;
+  }
+
+  private String getSlaveUsageHistoryPath(String slaveId) {
+    return ZKPaths.makePath(ZKPaths.makePath(SLAVE_PATH, slaveId), USAGE_HISTORY_PATH_KEY);
+  }
+
+  private String getTaskUsageHistoryPath(String taskId) {
+    return ZKPaths.makePath(ZKPaths.makePath(TASK_PATH, taskId), USAGE_HISTORY_PATH_KEY);
+  }
+
+  private String getSpecificSlaveUsagePath(String slaveId, long timestamp) {
+    return ZKPaths.makePath(getSlaveUsageHistoryPath(slaveId), Long.toString(timestamp));
+  }
+
+  private String getSpecificTaskUsagePath(String taskId, double timestamp) {
+    return ZKPaths.makePath(getTaskUsageHistoryPath(taskId), Double.toString(timestamp));
+  }
+
+  @Override
+  public List<String> getTasksWithUsage() {
+    return getChildren(TASK_PATH);
+  }
+
+  @Override
+  public List<SingularityTaskUsage> getTaskUsage(String taskId) {
+    List<SingularityTaskUsage> children = getAsyncChildren(getTaskUsageHistoryPath(taskId), taskUsageTranscoder);
+    children.sort(TASK_USAGE_COMPARATOR_TIMESTAMP_ASC);
+    return children;
+  }
+
+  @Override
+  public List<Double> getTaskUsageTimestamps(String taskId) {
+    List<String> timestampStrings = getChildren(getTaskUsageHistoryPath(taskId));
+    List<Double> timestamps = new ArrayList<>(timestampStrings.size());
+    for (String timestampString : timestampStrings) {
+      timestamps.add(Double.parseDouble(timestampString));
+    }
+    Collections.sort(timestamps);
+    return timestamps;
+  }
+
+  @Override
+  public SingularityCreateResult saveTaskUsage(String taskId, SingularityTaskUsage usage) {
+    return save(getSpecificTaskUsagePath(taskId, usage.getTimestamp()), usage, taskUsageTranscoder);
+  }
+
+  @Override
+  public SingularityDeleteResult deleteTaskUsage(String taskId, double timestamp) {
+    return delete(getSpecificTaskUsagePath(taskId, timestamp));
+  }
+
+  @Override
+  public SingularityDeleteResult deleteTaskUsage(String taskId) {
+    return delete(getTaskUsageHistoryPath(taskId));
+  }
+
+  @Override
+  public List<String> getSlavesWithUsage() {
+    return getChildren(SLAVE_PATH);
+  }
+
+  @Override
+  public List<SingularitySlaveUsage> getSlaveUsage(String slaveId) {
+    List<SingularitySlaveUsage> children = getAsyncChildren(getSlaveUsageHistoryPath(slaveId), slaveUsageTranscoder);
+    children.sort(SLAVE_USAGE_COMPARATOR_TIMESTAMP_ASC);
+    return children;
+  }
+
+  @Override
+  public List<Long> getSlaveUsageTimestamps(String slaveId) {
+    List<String> timestampStrings = getChildren(getSlaveUsageHistoryPath(slaveId));
+    List<Long> timestamps = new ArrayList<>(timestampStrings.size());
+    for (String timestampString : timestampStrings) {
+      timestamps.add(Long.parseLong(timestampString));
+    }
+    Collections.sort(timestamps);
+    return timestamps;
+  }
+
+  @Override
+  public SingularityCreateResult saveSlaveUsage(String slaveId, SingularitySlaveUsage usage) {
+    return save(getSpecificSlaveUsagePath(slaveId, usage.getTimestamp()), usage, slaveUsageTranscoder);
+  }
+
+  @Override
+  public SingularityDeleteResult deleteSlaveUsage(String slaveId, long timestamp) {
+    return delete(getSpecificSlaveUsagePath(slaveId, timestamp));
+  }
+
+  @Override
+  public SingularityDeleteResult deleteSlaveUsage(String slaveId) {
+    return delete(getSlaveUsageHistoryPath(slaveId));
+  }
+
+  @Override
+  public void flush() {}
+}
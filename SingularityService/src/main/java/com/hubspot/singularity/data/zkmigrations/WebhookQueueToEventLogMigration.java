@@ -0,0 +1,109 @@
+package com.hubspot.singularity.data.zkmigrations;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.utils.ZKPaths;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Inject;
+import com.hubspot.mesos.JavaUtils;
+import com.hubspot.singularity.SingularityDeployUpdate;
+import com.hubspot.singularity.SingularityRequestHistory;
+import com.hubspot.singularity.SingularityTaskHistoryUpdate;
+import com.hubspot.singularity.SingularityWebhook;
+import com.hubspot.singularity.WebhookType;
+import com.hubspot.singularity.data.WebhookManager;
+import com.hubspot.singularity.data.transcoders.Transcoder;
+
+/**
+ * Moves updates still queued under the old per-webhook queues into the shared webhook event log. Every webhook of a
+ * type gets the union of what was queued for that type, so a webhook may see an update again that it had already
+ * been sent.
+ */
+public class WebhookQueueToEventLogMigration extends ZkDataMigration {
+  private static final Logger LOG = LoggerFactory.getLogger(WebhookQueueToEventLogMigration.class);
+
+  static final String QUEUES_PATH = "/hooks/queues";
+
+  private final WebhookManager webhookManager;
+  private final CuratorFramework curator;
+  private final Transcoder<SingularityRequestHistory> requestHistoryTranscoder;
+  private final Transcoder<SingularityTaskHistoryUpdate> taskHistoryUpdateTranscoder;
+  private final Transcoder<SingularityDeployUpdate> deployUpdateTranscoder;
+
+  @Inject
+  public WebhookQueueToEventLogMigration(WebhookManager webhookManager,
+                                         CuratorFramework curator,
+                                         Transcoder<SingularityRequestHistory> requestHistoryTranscoder,
+                                         Transcoder<SingularityTaskHistoryUpdate> taskHistoryUpdateTranscoder,
+                                         Transcoder<SingularityDeployUpdate> deployUpdateTranscoder) {
+    super(12);
+
+    this.webhookManager = webhookManager;
+    this.curator = curator;
+    this.requestHistoryTranscoder = requestHistoryTranscoder;
+    this.taskHistoryUpdateTranscoder = taskHistoryUpdateTranscoder;
+    this.deployUpdateTranscoder = deployUpdateTranscoder;
+  }
+
+  @Override
+  public void applyMigration() {
+    LOG.warn("Starting migration to move queued webhook updates into the webhook event log");
+
+    final long start = System.currentTimeMillis();
+    int migrated = 0;
+
+    try {
+      // Existing webhooks start right before the updates moved over for them
+      for (SingularityWebhook webhook : webhookManager.getActiveWebhooks()) {
+        if (!webhookManager.getCursor(webhook.getId()).isPresent()) {
+          webhookManager.saveCursor(webhook.getId(), webhookManager.getEventLogTail(webhook.getType()));
+        }
+      }
+
+      migrated += migrate(WebhookType.REQUEST, requestHistoryTranscoder, SingularityRequestHistory::getCreatedAt, webhookManager::requestHistoryEvent);
+      migrated += migrate(WebhookType.TASK, taskHistoryUpdateTranscoder, SingularityTaskHistoryUpdate::getTimestamp, webhookManager::taskHistoryUpdateEvent);
+      migrated += migrate(WebhookType.DEPLOY, deployUpdateTranscoder, (deployUpdate) -> deployUpdate.getDeployMarker().getTimestamp(), webhookManager::deployHistoryEvent);
+
+      if (curator.checkExists().forPath(QUEUES_PATH) != null) {
+        curator.delete().deletingChildrenIfNeeded().forPath(QUEUES_PATH);
+      }
+    } catch (Exception e) {
+      LOG.error("Failed to move queued webhook updates into the event log", e);
+      throw new RuntimeException(e);
+    }
+
+    LOG.warn("Applied WebhookQueueToEventLogMigration to {} updates in {}", migrated, JavaUtils.duration(start));
+  }
+
+  private <T> int migrate(WebhookType type, Transcoder<T> transcoder, ToLongFunction<T> timestamp, Consumer<T> append) throws Exception {
+    final String typePath = ZKPaths.makePath(QUEUES_PATH, type.name());
+    if (curator.checkExists().forPath(typePath) == null) {
+      return 0;
+    }
+
+    // The same update was queued once per webhook under the same name
+    final Map<String, T> updates = new LinkedHashMap<>();
+    for (String webhookId : curator.getChildren().forPath(typePath)) {
+      final String queuePath = ZKPaths.makePath(typePath, webhookId);
+      for (String updateId : curator.getChildren().forPath(queuePath)) {
+        if (!updates.containsKey(updateId)) {
+          updates.put(updateId, transcoder.fromBytes(curator.getData().forPath(ZKPaths.makePath(queuePath, updateId))));
+        }
+      }
+    }
+
+    final List<T> sorted = new ArrayList<>(updates.values());
+    sorted.sort((first, second) -> Long.compare(timestamp.applyAsLong(first), timestamp.applyAsLong(second)));
+    sorted.forEach(append);
+
+    return sorted.size();
+  }
+}
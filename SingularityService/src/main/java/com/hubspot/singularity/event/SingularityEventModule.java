@@ -4,6 +4,8 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.concurrent.ScheduledExecutorService;
 
+import org.apache.curator.framework.recipes.leader.LeaderLatchListener;
+
 import com.google.inject.Binder;
 import com.google.inject.Module;
 import com.google.inject.Scopes;
@@ -28,6 +30,10 @@ public class SingularityEventModule implements Module {
   public void configure(final Binder binder) {
     Multibinder<SingularityEventListener> eventListeners = Multibinder.newSetBinder(binder, SingularityEventListener.class);
     eventListeners.addBinding().to(WebhookManager.class).in(Scopes.SINGLETON);
+    eventListeners.addBinding().to(SingularityEventStream.class).in(Scopes.SINGLETON);
+
+    Multibinder<LeaderLatchListener> leaderLatchListeners = Multibinder.newSetBinder(binder, LeaderLatchListener.class);
+    leaderLatchListeners.addBinding().to(SingularityEventStream.class).in(Scopes.SINGLETON);
 
     binder.bind(SingularityEventListener.class).to(SingularityEventController.class).in(Scopes.SINGLETON);
 
@@ -0,0 +1,226 @@
+package com.hubspot.singularity.event;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.apache.curator.framework.recipes.leader.LeaderLatchListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Optional;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.hubspot.singularity.SingularityDeployUpdate;
+import com.hubspot.singularity.SingularityEventType;
+import com.hubspot.singularity.SingularityRequestHistory;
+import com.hubspot.singularity.SingularityTaskHistoryUpdate;
+import com.hubspot.singularity.config.SingularityConfiguration;
+
+/**
+ * Fans task, request and deploy updates out to the open event streams, for clients that can't take webhooks.
+ *
+ * The most recent updates are kept so that a subscriber which reconnects can resume after the last event id it saw.
+ * Event ids are only meaningful to the instance that handed them out and only while it stays the leader; resuming
+ * from any other id, or from one that has already left the buffer, starts the stream with a RESET event instead.
+ */
+@Singleton
+public class SingularityEventStream implements SingularityEventListener, LeaderLatchListener {
+  private static final Logger LOG = LoggerFactory.getLogger(SingularityEventStream.class);
+
+  private final SingularityConfiguration configuration;
+  private final ObjectMapper objectMapper;
+  private final Meter overflows;
+
+  private final Deque<SingularityStreamedEvent> replayBuffer;
+  private final Set<SingularityEventSubscriber> subscribers;
+
+  private String epoch;
+  private long sequence;
+
+  @Inject
+  public SingularityEventStream(SingularityConfiguration configuration, ObjectMapper objectMapper, MetricRegistry metricRegistry) {
+    this.configuration = configuration;
+    this.objectMapper = objectMapper;
+    this.overflows = metricRegistry.meter("events.stream.overflows");
+    this.replayBuffer = new ArrayDeque<>();
+    this.subscribers = new HashSet<>();
+    this.epoch = newEpoch();
+
+    metricRegistry.register("events.stream.subscribers", (Gauge<Integer>) this::getNumSubscribers);
+  }
+
+  @Override
+  public void requestHistoryEvent(SingularityRequestHistory singularityRequestHistory) {
+    publish(SingularityEventType.REQUEST, singularityRequestHistory.getRequest().getId(), singularityRequestHistory);
+  }
+
+  @Override
+  public void taskHistoryUpdateEvent(SingularityTaskHistoryUpdate singularityTaskHistoryUpdate) {
+    publish(SingularityEventType.TASK, singularityTaskHistoryUpdate.getTaskId().getRequestId(), singularityTaskHistoryUpdate);
+  }
+
+  @Override
+  public void deployHistoryEvent(SingularityDeployUpdate singularityDeployUpdate) {
+    publish(SingularityEventType.DEPLOY, singularityDeployUpdate.getDeployMarker().getRequestId(), singularityDeployUpdate);
+  }
+
+  /**
+   * Ids handed out before this instance became the leader again say nothing about what the other leader sent in the
+   * meantime, so they can't be resumed from.
+   */
+  @Override
+  public synchronized void isLeader() {
+    epoch = newEpoch();
+    replayBuffer.clear();
+  }
+
+  @Override
+  public synchronized void notLeader() {
+    LOG.info("No longer the leader, closing {} event stream(s)", subscribers.size());
+    subscribers.forEach(SingularityEventSubscriber::close);
+    subscribers.clear();
+  }
+
+  /**
+   * Absent if there are already as many subscribers as allowed.
+   */
+  public synchronized Optional<SingularityEventSubscriber> subscribe(Set<String> requestIds, Set<SingularityEventType> types, Optional<String> lastEventId) {
+    removeAbandonedSubscribers();
+
+    if (subscribers.size() >= configuration.getMaxEventStreamSubscribers()) {
+      return Optional.absent();
+    }
+
+    SingularityEventSubscriber subscriber = new SingularityEventSubscriber(this, requestIds, types,
+        configuration.getEventStreamSubscriberBufferSize(), configuration.getEventStreamHeartbeatMillis());
+
+    if (lastEventId.isPresent() && !replay(subscriber, lastEventId.get())) {
+      LOG.debug("Can't resume event stream from {}, sending a reset", lastEventId.get());
+      subscriber.clear();
+      subscriber.offer(new SingularityStreamedEvent(sequence, eventId(sequence), SingularityEventType.RESET, Optional.absent(), () -> "{}"));
+    }
+
+    subscribers.add(subscriber);
+    return Optional.of(subscriber);
+  }
+
+  synchronized void unsubscribe(SingularityEventSubscriber subscriber) {
+    subscribers.remove(subscriber);
+  }
+
+  /**
+   * A subscriber is only removed once its stream ends, so one whose stream never started would hold its slot forever.
+   */
+  private void removeAbandonedSubscribers() {
+    final long now = System.currentTimeMillis();
+    subscribers.removeIf((subscriber) -> {
+      if (!subscriber.isAbandoned(now, configuration.getEventStreamSubscribeTimeoutMillis())) {
+        return false;
+      }
+      LOG.debug("Removing an event stream subscriber that didn't start streaming within {}ms", configuration.getEventStreamSubscribeTimeoutMillis());
+      subscriber.close();
+      return true;
+    });
+  }
+
+  public synchronized int getNumSubscribers() {
+    return subscribers.size();
+  }
+
+  public synchronized String getLastEventId() {
+    return eventId(sequence);
+  }
+
+  private void publish(SingularityEventType type, String requestId, Object update) {
+    List<SingularityEventSubscriber> overflowed = new ArrayList<>();
+
+    synchronized (this) {
+      removeAbandonedSubscribers();
+
+      sequence++;
+      SingularityStreamedEvent event = new SingularityStreamedEvent(sequence, eventId(sequence), type, Optional.of(requestId), () -> toJson(update));
+
+      replayBuffer.addLast(event);
+      while (replayBuffer.size() > configuration.getEventStreamReplayBufferSize()) {
+        replayBuffer.removeFirst();
+      }
+
+      for (SingularityEventSubscriber subscriber : subscribers) {
+        if (subscriber.matches(event) && !subscriber.offer(event)) {
+          overflowed.add(subscriber);
+        }
+      }
+
+      subscribers.removeAll(overflowed);
+    }
+
+    for (SingularityEventSubscriber subscriber : overflowed) {
+      LOG.info("Disconnecting an event stream subscriber that fell more than {} events behind", configuration.getEventStreamSubscriberBufferSize());
+      subscriber.overflow();
+      overflows.mark();
+    }
+  }
+
+  /**
+   * Queues every buffered update after the given id for the subscriber. False if that can't be done without a gap,
+   * because the id is from elsewhere or too old, or because the backlog doesn't fit into the subscriber's buffer.
+   */
+  private boolean replay(SingularityEventSubscriber subscriber, String lastEventId) {
+    Optional<Long> resumeAfter = parseEventId(lastEventId);
+    if (!resumeAfter.isPresent() || resumeAfter.get() > sequence) {
+      return false;
+    }
+
+    long oldestBuffered = replayBuffer.isEmpty() ? sequence + 1 : replayBuffer.peekFirst().getSequence();
+    if (resumeAfter.get() < oldestBuffered - 1) {
+      return false;
+    }
+
+    for (SingularityStreamedEvent event : replayBuffer) {
+      if (event.getSequence() > resumeAfter.get() && subscriber.matches(event) && !subscriber.offer(event)) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  private String eventId(long sequence) {
+    return epoch + "-" + sequence;
+  }
+
+  private Optional<Long> parseEventId(String eventId) {
+    int separator = eventId.lastIndexOf('-');
+    if (separator < 0 || !eventId.substring(0, separator).equals(epoch)) {
+      return Optional.absent();
+    }
+
+    try {
+      return Optional.of(Long.parseLong(eventId.substring(separator + 1)));
+    } catch (NumberFormatException e) {
+      return Optional.absent();
+    }
+  }
+
+  private String toJson(Object update) {
+    try {
+      return objectMapper.writeValueAsString(update);
+    } catch (JsonProcessingException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static String newEpoch() {
+    return UUID.randomUUID().toString().substring(0, 8);
+  }
+}
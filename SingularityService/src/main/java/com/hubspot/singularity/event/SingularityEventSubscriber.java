@@ -0,0 +1,135 @@
+package com.hubspot.singularity.event;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.core.StreamingOutput;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableSet;
+import com.hubspot.singularity.SingularityEventType;
+
+/**
+ * One open event stream. Matching updates are queued here by the {@link SingularityEventStream} and written out as
+ * server-sent events by the request thread. The queue is bounded: a subscriber that falls behind is dropped from the
+ * stream, gets whatever was already queued and is then disconnected, so it can resume from the last event id it saw.
+ */
+public class SingularityEventSubscriber implements StreamingOutput {
+  private static final Logger LOG = LoggerFactory.getLogger(SingularityEventSubscriber.class);
+
+  private final SingularityEventStream eventStream;
+  private final Set<String> requestIds;
+  private final Set<SingularityEventType> types;
+  private final BlockingQueue<SingularityStreamedEvent> queue;
+  private final long heartbeatMillis;
+  private final long subscribedAt;
+
+  private volatile boolean streaming;
+  private volatile boolean overflowed;
+  private volatile boolean closed;
+
+  SingularityEventSubscriber(SingularityEventStream eventStream, Set<String> requestIds, Set<SingularityEventType> types, int bufferSize, long heartbeatMillis) {
+    this.eventStream = eventStream;
+    this.requestIds = ImmutableSet.copyOf(requestIds);
+    this.types = ImmutableSet.copyOf(types);
+    this.queue = new ArrayBlockingQueue<>(bufferSize);
+    this.heartbeatMillis = heartbeatMillis;
+    this.subscribedAt = System.currentTimeMillis();
+  }
+
+  boolean matches(SingularityStreamedEvent event) {
+    if (event.getType() == SingularityEventType.RESET) {
+      return true;
+    }
+    if (!types.isEmpty() && !types.contains(event.getType())) {
+      return false;
+    }
+    return requestIds.isEmpty() || (event.getRequestId().isPresent() && requestIds.contains(event.getRequestId().get()));
+  }
+
+  boolean offer(SingularityStreamedEvent event) {
+    return queue.offer(event);
+  }
+
+  void clear() {
+    queue.clear();
+  }
+
+  void overflow() {
+    overflowed = true;
+  }
+
+  void close() {
+    closed = true;
+  }
+
+  boolean isOverflowed() {
+    return overflowed;
+  }
+
+  /**
+   * True if the response never started streaming, e.g. because the client went away before it was written.
+   */
+  boolean isAbandoned(long now, long timeoutMillis) {
+    return !streaming && now - subscribedAt > timeoutMillis;
+  }
+
+  /**
+   * Takes the next queued event, waiting up to the heartbeat interval for one. Null means there was none.
+   */
+  SingularityStreamedEvent poll() throws InterruptedException {
+    return queue.poll(heartbeatMillis, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public void write(OutputStream output) throws IOException {
+    streaming = true;
+    final Writer writer = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+
+    try {
+      // Lets the client know the stream is open before the first update comes in
+      writer.write(": connected\n\n");
+      writer.flush();
+
+      while (true) {
+        SingularityStreamedEvent event = poll();
+
+        if (event != null) {
+          writer.write("id: " + event.getId() + "\n");
+          writer.write("event: " + event.getType().name() + "\n");
+          for (String line : event.getData().split("\n")) {
+            writer.write("data: " + line + "\n");
+          }
+          writer.write("\n");
+          if (queue.isEmpty()) {
+            writer.flush();
+          }
+        } else if (overflowed) {
+          writer.write(": subscriber buffer overflowed, resume from the last event id\n\n");
+          writer.flush();
+          return;
+        } else if (closed) {
+          return;
+        } else {
+          writer.write(": heartbeat\n\n");
+          writer.flush();
+        }
+      }
+    } catch (IOException e) {
+      LOG.debug("Event stream subscriber went away", e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      eventStream.unsubscribe(this);
+    }
+  }
+}
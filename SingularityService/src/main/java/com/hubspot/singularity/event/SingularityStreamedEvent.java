@@ -0,0 +1,46 @@
+package com.hubspot.singularity.event;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.hubspot.singularity.SingularityEventType;
+
+/**
+ * An update as kept in the event stream's replay buffer. The JSON is only built once, the first time a subscriber
+ * needs it, so buffering updates costs little while nobody is listening.
+ */
+public class SingularityStreamedEvent {
+  private final long sequence;
+  private final String id;
+  private final SingularityEventType type;
+  private final Optional<String> requestId;
+  private final Supplier<String> data;
+
+  SingularityStreamedEvent(long sequence, String id, SingularityEventType type, Optional<String> requestId, Supplier<String> data) {
+    this.sequence = sequence;
+    this.id = id;
+    this.type = type;
+    this.requestId = requestId;
+    this.data = Suppliers.memoize(data);
+  }
+
+  long getSequence() {
+    return sequence;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public SingularityEventType getType() {
+    return type;
+  }
+
+  public Optional<String> getRequestId() {
+    return requestId;
+  }
+
+  public String getData() {
+    return data.get();
+  }
+}
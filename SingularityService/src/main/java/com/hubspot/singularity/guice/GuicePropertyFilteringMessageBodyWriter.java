@@ -22,6 +22,7 @@ import org.slf4j.LoggerFactory;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.SharedMetricRegistries;
 import com.codahale.metrics.Timer;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Optional;
@@ -79,14 +80,43 @@ public class GuicePropertyFilteringMessageBodyWriter extends JacksonMessageBodyP
     final Timer.Context context = timer.time();
 
     try {
-      final JsonNode tree = objectMapper.valueToTree(o);
-      propertyFilter.filter(tree);
-      super.writeTo(tree, tree.getClass(), tree.getClass(), annotations, mediaType, httpHeaders, os);
+      if (o instanceof Iterable) {
+        writeFilteredElements((Iterable<?>) o, propertyFilter, os);
+      } else {
+        final JsonNode tree = objectMapper.valueToTree(o);
+        propertyFilter.filter(tree);
+        super.writeTo(tree, tree.getClass(), tree.getClass(), annotations, mediaType, httpHeaders, os);
+      }
     } finally {
       context.stop();
     }
   }
 
+  /**
+   * Converts, filters and writes one element at a time. Converting the whole list with valueToTree first would build a
+   * second, larger copy of every active task or request in memory before the first byte is written
+   */
+  private void writeFilteredElements(Iterable<?> elements, PropertyFilter propertyFilter, OutputStream os) throws IOException {
+    final JsonGenerator generator = objectMapper.getFactory().createGenerator(os);
+    generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    try {
+      generator.writeStartArray();
+      for (Object element : elements) {
+        final JsonNode tree = objectMapper.valueToTree(element);
+        if (tree == null) {
+          generator.writeNull();
+          continue;
+        }
+        propertyFilter.filter(tree);
+        objectMapper.writeTree(generator, tree);
+      }
+      generator.writeEndArray();
+    } finally {
+      generator.close();
+    }
+  }
+
   private Timer getTimer() {
     return getMetricRegistry().timer(MetricRegistry.name(GuicePropertyFilteringMessageBodyWriter.class, "filter"));
   }
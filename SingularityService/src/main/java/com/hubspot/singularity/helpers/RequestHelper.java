@@ -292,6 +292,13 @@ public class RequestHelper {
         .collect(Collectors.toList());
   }
 
+  /**
+   * Starred requests change which requests fillDataForRequestsAndFilter returns for a user and in what order
+   */
+  public Optional<SingularityUserSettings> getUserSettings(SingularityUser user) {
+    return userManager.getUserSettings(user.getId());
+  }
+
   public Optional<SingularityRequestHistory> getMostRecentHistoryFromZk(String requestId) {
     // Most recent history is stored in zk, don't need to check mysql
     List<SingularityRequestHistory> requestHistory = requestManager.getRequestHistory(requestId);
@@ -10,21 +10,19 @@ import com.hubspot.singularity.SingularityWebhook;
 import com.ning.http.client.AsyncCompletionHandler;
 import com.ning.http.client.Response;
 
-public abstract class AbstractSingularityWebhookAsyncHandler<T> extends AsyncCompletionHandler<Response>  {
+public class SingularityWebhookAsyncHandler extends AsyncCompletionHandler<Response>  {
 
-  private static final Logger LOG = LoggerFactory.getLogger(AbstractSingularityWebhookAsyncHandler.class);
+  private static final Logger LOG = LoggerFactory.getLogger(SingularityWebhookAsyncHandler.class);
 
-  protected final SingularityWebhook webhook;
-  protected final T update;
+  private final SingularityWebhook webhook;
+  private final Object update;
   private final long start;
-  private final boolean shouldDeleteUpdateOnFailure;
 
   private CompletableFuture<Response> completableFuture;
 
-  public AbstractSingularityWebhookAsyncHandler(SingularityWebhook webhook, T update, boolean shouldDeleteUpdateOnFailure) {
+  public SingularityWebhookAsyncHandler(SingularityWebhook webhook, Object update) {
     this.webhook = webhook;
     this.update = update;
-    this.shouldDeleteUpdateOnFailure = shouldDeleteUpdateOnFailure;
 
     this.start = System.currentTimeMillis();
   }
@@ -33,19 +31,11 @@ public abstract class AbstractSingularityWebhookAsyncHandler<T> extends AsyncCom
   public void onThrowable(Throwable t) {
     LOG.trace("Webhook {} for {} failed after {}", webhook.getUri(), update, JavaUtils.duration(start), t);
 
-    if (shouldDeleteUpdateOnFailure) {
-      deleteWebhookUpdate();
-    }
-
     if (completableFuture != null) {
       completableFuture.completeExceptionally(t);
     }
   }
 
-  public boolean shouldDeleteUpdateDueToQueueAboveCapacity() {
-    return shouldDeleteUpdateOnFailure;
-  }
-
   @Override
   public Response onCompleted(Response response) throws Exception {
     LOG.trace("Webhook {} for {} completed with {} after {}", webhook.getUri(), update, response.getStatusCode(), JavaUtils.duration(start));
@@ -54,10 +44,6 @@ public abstract class AbstractSingularityWebhookAsyncHandler<T> extends AsyncCom
       LOG.trace("Webhook response message is: '{}'", response.getResponseBody());
     }
 
-    if (JavaUtils.isHttpSuccess(response.getStatusCode()) || shouldDeleteUpdateOnFailure) {
-      deleteWebhookUpdate();
-    }
-
     if (completableFuture != null) {
       completableFuture.complete(response);
     }
@@ -65,8 +51,6 @@ public abstract class AbstractSingularityWebhookAsyncHandler<T> extends AsyncCom
     return response;
   }
 
-  public abstract void deleteWebhookUpdate();
-
   public void setCompletableFuture(CompletableFuture<Response> completableFuture) {
     this.completableFuture = completableFuture;
   }
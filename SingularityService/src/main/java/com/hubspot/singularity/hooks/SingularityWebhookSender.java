@@ -2,9 +2,19 @@ package com.hubspot.singularity.hooks;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import javax.inject.Singleton;
 import javax.ws.rs.core.HttpHeaders;
@@ -12,10 +22,13 @@ import javax.ws.rs.core.HttpHeaders;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.MetricRegistry;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Optional;
 import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import com.google.common.primitives.Longs;
 import com.google.inject.Inject;
 import com.hubspot.mesos.JavaUtils;
 import com.hubspot.singularity.SingularityDeployUpdate;
@@ -24,9 +37,12 @@ import com.hubspot.singularity.SingularityTask;
 import com.hubspot.singularity.SingularityTaskHistoryUpdate;
 import com.hubspot.singularity.SingularityTaskWebhook;
 import com.hubspot.singularity.SingularityWebhook;
+import com.hubspot.singularity.SingularityWebhookDeliveryStats;
+import com.hubspot.singularity.WebhookType;
 import com.hubspot.singularity.async.AsyncSemaphore;
 import com.hubspot.singularity.async.CompletableFutures;
 import com.hubspot.singularity.config.SingularityConfiguration;
+import com.hubspot.singularity.data.WebhookEventLogPosition;
 import com.hubspot.singularity.data.WebhookManager;
 import com.hubspot.singularity.data.history.TaskHistoryHelper;
 import com.ning.http.client.AsyncHttpClient;
@@ -43,57 +59,116 @@ public class SingularityWebhookSender {
   private final WebhookManager webhookManager;
   private final TaskHistoryHelper taskHistoryHelper;
   private final ObjectMapper objectMapper;
+  private final MetricRegistry metricRegistry;
 
   private final AsyncSemaphore<Response> webhookSemaphore;
+  private final Map<String, WebhookDeliveryState> deliveryStates;
 
   @Inject
-  public SingularityWebhookSender(SingularityConfiguration configuration, AsyncHttpClient http, ObjectMapper objectMapper, TaskHistoryHelper taskHistoryHelper, WebhookManager webhookManager) {
+  public SingularityWebhookSender(SingularityConfiguration configuration, AsyncHttpClient http, ObjectMapper objectMapper, TaskHistoryHelper taskHistoryHelper, WebhookManager webhookManager,
+                                  MetricRegistry metricRegistry) {
     this.configuration = configuration;
     this.http = http;
     this.webhookManager = webhookManager;
     this.taskHistoryHelper = taskHistoryHelper;
     this.objectMapper = objectMapper;
+    this.metricRegistry = metricRegistry;
 
     this.webhookSemaphore = AsyncSemaphore.newBuilder(configuration::getMaxConcurrentWebhooks).build();
+    this.deliveryStates = new ConcurrentHashMap<>();
   }
 
-  public void checkWebhooks() {
+  public Optional<SingularityWebhookDeliveryStats> getDeliveryStats(String webhookId) {
+    WebhookDeliveryState state = deliveryStates.get(webhookId);
+    return state == null ? Optional.absent() : Optional.of(state.getStats());
+  }
+
+  /**
+   * Sends whatever is past each webhook's cursor. Each webhook's cursor is moved once its own deliveries are done with,
+   * so a slow webhook doesn't hold back the others; a webhook is skipped until its previous check has finished.
+   *
+   * @return completes once every delivery started by this check is done with and the cursors are moved
+   */
+  public CompletableFuture<Void> checkWebhooks() {
     final long start = System.currentTimeMillis();
 
     final List<SingularityWebhook> webhooks = webhookManager.getActiveWebhooks();
-    if (webhooks.isEmpty()) {
-      return;
-    }
+    removeDeliveryStatesExcept(webhooks);
 
     int taskUpdates = 0;
     int requestUpdates = 0;
     int deployUpdates = 0;
 
-    List<CompletableFuture<Response>> webhookFutures = new ArrayList<>();
+    List<WebhookCheck> checks = new ArrayList<>();
 
-    for (SingularityWebhook webhook : webhooks) {
-      switch (webhook.getType()) {
+    for (WebhookType type : WebhookType.values()) {
+      final List<SingularityWebhook> webhooksOfType = webhooks.stream().filter((webhook) -> webhook.getType() == type).collect(Collectors.toList());
+
+      if (webhooksOfType.isEmpty()) {
+        // Nothing is appended without a webhook to deliver it to, so whatever is left can go
+        webhookManager.trimEventLog(type, WebhookEventLogPosition.beforeSegment(Long.MAX_VALUE));
+        continue;
+      }
+
+      switch (type) {
         case TASK:
-          taskUpdates += checkTaskUpdates(webhook, webhookFutures);
+          taskUpdates += checkUpdates(type, webhooksOfType, webhookManager::getTaskUpdatesAfter, SingularityTaskHistoryUpdate::getTimestamp, this::prepareTaskUpdate, checks);
           break;
         case REQUEST:
-          requestUpdates += checkRequestUpdates(webhook, webhookFutures);
+          requestUpdates += checkUpdates(type, webhooksOfType, webhookManager::getRequestUpdatesAfter, SingularityRequestHistory::getCreatedAt, this::prepareRequestUpdate, checks);
           break;
         case DEPLOY:
-          deployUpdates += checkDeployUpdates(webhook, webhookFutures);
+          deployUpdates += checkUpdates(type, webhooksOfType, webhookManager::getDeployUpdatesAfter, (deployUpdate) -> deployUpdate.getDeployMarker().getTimestamp(), this::prepareDeployUpdate, checks);
           break;
         default:
           break;
       }
     }
 
-    CompletableFutures.allOf(webhookFutures)
-        .exceptionally((t) -> {
-          LOG.error("Exception in webhook", t);
-          return null;
-        });
+    final List<CompletableFuture<Void>> finished = new ArrayList<>(checks.size());
+
+    for (WebhookCheck check : checks) {
+      final CompletableFuture<Void> checkFinished = CompletableFutures.allOf(check.deliveries.values())
+          .thenRun(() -> finishCheck(check))
+          .whenComplete((ignored, t) -> {
+            if (t != null) {
+              LOG.error("Couldn't finish check of webhook {}", check.webhook.getId(), t);
+            }
+          });
+      check.state.setCheckInFlight(checkFinished, start + configuration.getWebhookCheckTimeoutMillis());
+      finished.add(checkFinished);
+    }
 
-    LOG.info("Sent {} task, {} request, and {} deploy updates for {} webhooks in {}", taskUpdates, requestUpdates, deployUpdates, webhooks.size(), JavaUtils.duration(start));
+    if (!webhooks.isEmpty()) {
+      LOG.info("Sent {} task, {} request, and {} deploy updates for {} webhooks in {}", taskUpdates, requestUpdates, deployUpdates, webhooks.size(), JavaUtils.duration(start));
+    }
+
+    return CompletableFutures.allOf(finished);
+  }
+
+  private void finishCheck(WebhookCheck check) {
+    final boolean finished = check.state.finishCheck(check.id, () -> {
+      final WebhookEventLogPosition cursor = advanceCursor(check);
+      if (!cursor.equals(check.cursor) && !webhookManager.moveCursor(check.webhook.getId(), cursor)) {
+        LOG.debug("Webhook {} was deleted while its updates were being delivered", check.webhook.getId());
+      }
+
+      updateBackoff(check);
+    });
+
+    if (!finished) {
+      LOG.warn("Check of webhook {} finished after {}ms, a later check has taken over its cursor", check.webhook.getId(), configuration.getWebhookCheckTimeoutMillis());
+    }
+  }
+
+  private void removeDeliveryStatesExcept(List<SingularityWebhook> webhooks) {
+    final List<String> webhookIds = webhooks.stream().map(SingularityWebhook::getId).collect(Collectors.toList());
+
+    for (String webhookId : new ArrayList<>(deliveryStates.keySet())) {
+      if (!webhookIds.contains(webhookId)) {
+        deliveryStates.remove(webhookId).close();
+      }
+    }
   }
 
   private boolean shouldDeleteUpdateOnFailure(int numUpdates, long updateTimestamp) {
@@ -105,67 +180,239 @@ public class SingularityWebhookSender {
         && updateAge > TimeUnit.HOURS.toMillis(configuration.getDeleteUndeliverableWebhooksAfterHours());
   }
 
-  private int checkRequestUpdates(SingularityWebhook webhook, List<CompletableFuture<Response>> webhookFutures) {
-    final List<SingularityRequestHistory> requestUpdates = webhookManager.getQueuedRequestHistoryForHook(webhook.getId());
+  /**
+   * Drops the segments every webhook of the type is done with, then reads the log once from the slowest cursor of the
+   * webhooks that aren't still waiting on a previous check, and sends each of them whatever comes after its own
+   * cursor, unless it is backing off after failed requests.
+   */
+  private <T> int checkUpdates(WebhookType type,
+                               List<SingularityWebhook> webhooks,
+                               Function<WebhookEventLogPosition, SortedMap<WebhookEventLogPosition, T>> getUpdatesAfter,
+                               Function<T, Long> getTimestamp,
+                               UpdatePreparer<T> updatePreparer,
+                               List<WebhookCheck> checks) {
+    final long now = System.currentTimeMillis();
+
+    final Map<SingularityWebhook, WebhookEventLogPosition> cursors = new HashMap<>();
+    WebhookEventLogPosition slowestCursor = null;
+
+    for (SingularityWebhook webhook : webhooks) {
+      final WebhookEventLogPosition cursor = webhookManager.getCursorOrHead(webhook);
+      slowestCursor = slowestCursor == null || cursor.compareTo(slowestCursor) < 0 ? cursor : slowestCursor;
+
+      final WebhookDeliveryState state = deliveryStates.get(webhook.getId());
+      if (state == null || !state.isCheckInFlight(now)) {
+        cursors.put(webhook, cursor);
+      }
+    }
+
+    webhookManager.trimEventLog(type, slowestCursor);
+
+    if (cursors.isEmpty()) {
+      return 0;
+    }
+
+    final SortedMap<WebhookEventLogPosition, T> updates = getUpdatesAfter.apply(Collections.min(cursors.values()));
+
+    int numUpdates = 0;
+
+    for (Map.Entry<SingularityWebhook, WebhookEventLogPosition> entry : cursors.entrySet()) {
+      final SingularityWebhook webhook = entry.getKey();
+      final WebhookDeliveryState state = deliveryStates.computeIfAbsent(webhook.getId(), (webhookId) -> new WebhookDeliveryState(webhookId, configuration, metricRegistry));
+      final WebhookCheck check = new WebhookCheck(webhook, entry.getValue(), state, state.startCheck());
+
+      final SortedMap<WebhookEventLogPosition, T> queued = new TreeMap<>(updates.tailMap(entry.getValue()));
+      queued.remove(entry.getValue());
+
+      final List<QueuedUpdate> toSend = new ArrayList<>();
+      final boolean backingOff = state.isBackingOff(now);
+
+      for (Map.Entry<WebhookEventLogPosition, T> update : queued.entrySet()) {
+        check.timestamps.put(update.getKey(), getTimestamp.apply(update.getValue()));
+
+        // Preparing a task update looks up the task, so only updates that are actually sent are prepared
+        if (state.getDeliveredAheadOfCursor().contains(update.getKey())) {
+          check.deliveries.put(update.getKey(), CompletableFuture.completedFuture(true));
+          continue;
+        }
+
+        if (backingOff) {
+          check.deliveries.put(update.getKey(), CompletableFuture.completedFuture(false));
+          continue;
+        }
+
+        final QueuedUpdate prepared = updatePreparer.prepare(webhook, update.getKey(), update.getValue());
+        if (prepared.payload.isPresent()) {
+          toSend.add(prepared);
+        } else {
+          check.deliveries.put(update.getKey(), CompletableFuture.completedFuture(true));
+        }
+      }
+
+      if (webhook.isBatched()) {
+        numUpdates += sendBatches(check, toSend, queued.size(), now);
+      } else {
+        for (QueuedUpdate update : toSend) {
+          sendUpdates(check, update.uri, update.payload.get(), Collections.singletonList(update), queued.size());
+        }
+        numUpdates += toSend.size();
+      }
+
+      checks.add(check);
+    }
+
+    return numUpdates;
+  }
+
+  /**
+   * Updates for the same URI (which may differ per update because of placeholders) are POSTed together as a JSON
+   * array of up to maxWebhookBatchSize. A partial batch waits until its oldest update has lingered long enough.
+   */
+  private int sendBatches(WebhookCheck check, List<QueuedUpdate> toSend, int numQueued, long now) {
+    final Map<String, List<QueuedUpdate>> byUri = new LinkedHashMap<>();
+    for (QueuedUpdate update : toSend) {
+      byUri.computeIfAbsent(update.uri, (uri) -> new ArrayList<>()).add(update);
+    }
+
+    int numSent = 0;
 
-    int numRequestUpdates = 0;
+    for (Map.Entry<String, List<QueuedUpdate>> entry : byUri.entrySet()) {
+      for (List<QueuedUpdate> batch : Lists.partition(entry.getValue(), configuration.getMaxWebhookBatchSize())) {
+        final long oldest = batch.stream().mapToLong((update) -> update.timestamp).min().getAsLong();
 
-    for (SingularityRequestHistory requestUpdate : requestUpdates) {
-      String concreteUri = applyPlaceholders(webhook.getUri(), requestUpdate);
-      webhookFutures.add(webhookSemaphore.call(() ->
-          executeWebhookAsync(
-              concreteUri,
-              requestUpdate,
-              new SingularityRequestWebhookAsyncHandler(webhookManager, webhook, requestUpdate, shouldDeleteUpdateOnFailure(numRequestUpdates, requestUpdate.getCreatedAt())))
-      ));
+        if (batch.size() < configuration.getMaxWebhookBatchSize() && now - oldest < configuration.getWebhookBatchLingerMillis()) {
+          batch.forEach((update) -> check.deliveries.put(update.position, CompletableFuture.completedFuture(false)));
+          continue;
+        }
+
+        final List<Object> payloads = batch.stream().map((update) -> update.payload.get()).collect(Collectors.toList());
+        sendUpdates(check, entry.getKey(), payloads, batch, numQueued);
+        numSent += batch.size();
+      }
     }
 
-    return requestUpdates.size();
+    return numSent;
   }
 
-  private int checkDeployUpdates(SingularityWebhook webhook, List<CompletableFuture<Response>> webhookFutures) {
-    final List<SingularityDeployUpdate> deployUpdates = webhookManager.getQueuedDeployUpdatesForHook(webhook.getId());
+  /**
+   * Each update is done with once the request carrying it succeeded, or it failed and the update shouldn't be retried.
+   */
+  private void sendUpdates(WebhookCheck check, String uri, Object payload, List<QueuedUpdate> updates, int numQueued) {
+    final WebhookDeliveryState state = check.state;
+
+    final CompletableFuture<Response> request = state.getSemaphore().call(() -> webhookSemaphore.call(() -> {
+      final long start = System.currentTimeMillis();
+      return executeWebhookAsync(uri, payload, new SingularityWebhookAsyncHandler(check.webhook, payload))
+          .whenComplete((response, t) -> state.recordRequest(updates.size(), System.currentTimeMillis() - start));
+    }));
+
+    final CompletableFuture<Boolean> delivered = request.handle((response, t) -> {
+      if (t != null) {
+        LOG.debug("Exception in webhook to {}", uri, t);
+        return false;
+      }
+      return JavaUtils.isHttpSuccess(response.getStatusCode());
+    });
 
-    int numDeployUpdates = 0;
+    check.requests.add(request);
 
-    for (SingularityDeployUpdate deployUpdate : deployUpdates) {
-      String concreteUri = applyPlaceholders(webhook.getUri(), deployUpdate);
-      webhookFutures.add(webhookSemaphore.call(() ->
-          executeWebhookAsync(
-              concreteUri,
-              deployUpdate,
-              new SingularityDeployWebhookAsyncHandler(webhookManager, webhook, deployUpdate, shouldDeleteUpdateOnFailure(numDeployUpdates, deployUpdate.getDeployMarker().getTimestamp())))
-      ));
+    for (QueuedUpdate update : updates) {
+      final boolean shouldDeleteUpdateOnFailure = shouldDeleteUpdateOnFailure(numQueued, update.timestamp);
+      check.deliveries.put(update.position, delivered.thenApply((success) -> success || shouldDeleteUpdateOnFailure));
+    }
+  }
+
+  /**
+   * The cursor moves past every update that is done with, up to the first one that still has to be retried. Updates
+   * after that which did get through are remembered so they aren't sent again along with the retry.
+   */
+  private WebhookEventLogPosition advanceCursor(WebhookCheck check) {
+    final SortedSet<WebhookEventLogPosition> deliveredAhead = check.state.getDeliveredAheadOfCursor();
+
+    WebhookEventLogPosition cursor = check.cursor;
+    boolean blocked = false;
+
+    for (Map.Entry<WebhookEventLogPosition, CompletableFuture<Boolean>> delivery : check.deliveries.entrySet()) {
+      final boolean done = delivery.getValue().join();
+
+      if (done && !blocked) {
+        cursor = delivery.getKey();
+      } else if (done) {
+        deliveredAhead.add(delivery.getKey());
+      } else {
+        blocked = true;
+      }
     }
 
-    return deployUpdates.size();
+    deliveredAhead.headSet(cursor).clear();
+    deliveredAhead.remove(cursor);
+
+    // Lag is the age of the oldest update that still hasn't gotten through
+    final long now = System.currentTimeMillis();
+    final WebhookEventLogPosition newCursor = cursor;
+    check.state.setLagMillis(check.timestamps.tailMap(newCursor).entrySet().stream()
+        .filter((queued) -> !queued.getKey().equals(newCursor) && !deliveredAhead.contains(queued.getKey()))
+        .mapToLong((queued) -> now - queued.getValue())
+        .max()
+        .orElse(0));
+
+    return cursor;
   }
 
-  private int checkTaskUpdates(SingularityWebhook webhook, List<CompletableFuture<Response>> webhookFutures) {
-    final List<SingularityTaskHistoryUpdate> taskUpdates = webhookManager.getQueuedTaskUpdatesForHook(webhook.getId());
+  private void updateBackoff(WebhookCheck check) {
+    if (check.requests.isEmpty()) {
+      return;
+    }
 
-    int numTaskUpdates = 0;
+    boolean failed = false;
+    long retryAfterMillis = 0;
 
-    for (SingularityTaskHistoryUpdate taskUpdate : taskUpdates) {
-      Optional<SingularityTask> task = taskHistoryHelper.getTask(taskUpdate.getTaskId());
+    for (CompletableFuture<Response> request : check.requests) {
+      final Response response = request.handle((r, t) -> t == null ? r : null).join();
 
-      // TODO compress
-      if (!task.isPresent()) {
-        LOG.warn("Couldn't find task for taskUpdate {}", taskUpdate);
-        webhookManager.deleteTaskUpdate(webhook, taskUpdate);
-        continue;
+      if (response == null) {
+        failed = true;
+      } else if (!JavaUtils.isHttpSuccess(response.getStatusCode())) {
+        failed = true;
+        retryAfterMillis = Math.max(retryAfterMillis, getRetryAfterMillis(response));
       }
+    }
+
+    if (failed) {
+      check.state.recordFailure(System.currentTimeMillis(), configuration.getWebhookInitialBackoffMillis(), configuration.getWebhookMaxBackoffMillis(), retryAfterMillis);
+    } else {
+      check.state.recordSuccess();
+    }
+  }
+
+  private long getRetryAfterMillis(Response response) {
+    final String retryAfter = response.getHeader("Retry-After");
+    if (retryAfter == null) {
+      return 0;
+    }
+    // Only the delay-seconds form, an HTTP date is ignored
+    final Long seconds = Longs.tryParse(retryAfter.trim());
+    return seconds == null ? 0 : TimeUnit.SECONDS.toMillis(seconds);
+  }
+
+  private QueuedUpdate prepareRequestUpdate(SingularityWebhook webhook, WebhookEventLogPosition position, SingularityRequestHistory requestUpdate) {
+    return new QueuedUpdate(position, applyPlaceholders(webhook.getUri(), requestUpdate), Optional.of(requestUpdate), requestUpdate.getCreatedAt());
+  }
+
+  private QueuedUpdate prepareDeployUpdate(SingularityWebhook webhook, WebhookEventLogPosition position, SingularityDeployUpdate deployUpdate) {
+    return new QueuedUpdate(position, applyPlaceholders(webhook.getUri(), deployUpdate), Optional.of(deployUpdate), deployUpdate.getDeployMarker().getTimestamp());
+  }
+
+  private QueuedUpdate prepareTaskUpdate(SingularityWebhook webhook, WebhookEventLogPosition position, SingularityTaskHistoryUpdate taskUpdate) {
+    Optional<SingularityTask> task = taskHistoryHelper.getTask(taskUpdate.getTaskId());
 
-      String concreteUri = applyPlaceholders(webhook.getUri(), taskUpdate);
-      webhookFutures.add(webhookSemaphore.call(() ->
-          executeWebhookAsync(
-              concreteUri,
-              new SingularityTaskWebhook(task.get(), taskUpdate),
-              new SingularityTaskWebhookAsyncHandler(webhookManager, webhook, taskUpdate, shouldDeleteUpdateOnFailure(numTaskUpdates, taskUpdate.getTimestamp())))
-      ));
+    // TODO compress
+    if (!task.isPresent()) {
+      LOG.warn("Couldn't find task for taskUpdate {}", taskUpdate);
     }
 
-    return taskUpdates.size();
+    return new QueuedUpdate(position, applyPlaceholders(webhook.getUri(), taskUpdate),
+        task.transform((t) -> new SingularityTaskWebhook(t, taskUpdate)), taskUpdate.getTimestamp());
   }
 
   private String applyPlaceholders(String uri, SingularityRequestHistory requestHistory) {
@@ -188,7 +435,7 @@ public class SingularityWebhookSender {
   }
 
   // TODO handle retries, errors.
-  private <T> CompletableFuture<Response> executeWebhookAsync(String uri, Object payload, AbstractSingularityWebhookAsyncHandler<T> handler) {
+  private CompletableFuture<Response> executeWebhookAsync(String uri, Object payload, SingularityWebhookAsyncHandler handler) {
     LOG.trace("Sending {} to {}", payload, uri);
     BoundRequestBuilder postRequest = http.preparePost(uri);
     postRequest.setHeader(HttpHeaders.CONTENT_TYPE, "application/json");
@@ -205,14 +452,47 @@ public class SingularityWebhookSender {
       postRequest.execute(handler);
     } catch (IOException e) {
       LOG.warn("Couldn't execute webhook to {}", uri, e);
-
-      if (handler.shouldDeleteUpdateDueToQueueAboveCapacity()) {
-        handler.deleteWebhookUpdate();
-      }
       webhookFuture.completeExceptionally(e);
     }
     return webhookFuture;
   }
 
+  private interface UpdatePreparer<T> {
+    QueuedUpdate prepare(SingularityWebhook webhook, WebhookEventLogPosition position, T update);
+  }
+
+  private static class QueuedUpdate {
+    private final WebhookEventLogPosition position;
+    private final String uri;
+    // absent if there is nothing to send, e.g. the task is gone
+    private final Optional<Object> payload;
+    private final long timestamp;
+
+    private QueuedUpdate(WebhookEventLogPosition position, String uri, Optional<?> payload, long timestamp) {
+      this.position = position;
+      this.uri = uri;
+      this.payload = payload.transform((p) -> (Object) p);
+      this.timestamp = timestamp;
+    }
+  }
 
+  private static class WebhookCheck {
+    private final SingularityWebhook webhook;
+    private final WebhookEventLogPosition cursor;
+    private final WebhookDeliveryState state;
+    private final long id;
+    private final SortedMap<WebhookEventLogPosition, CompletableFuture<Boolean>> deliveries;
+    private final SortedMap<WebhookEventLogPosition, Long> timestamps;
+    private final List<CompletableFuture<Response>> requests;
+
+    private WebhookCheck(SingularityWebhook webhook, WebhookEventLogPosition cursor, WebhookDeliveryState state, long id) {
+      this.webhook = webhook;
+      this.cursor = cursor;
+      this.state = state;
+      this.id = id;
+      this.deliveries = new TreeMap<>();
+      this.timestamps = new TreeMap<>();
+      this.requests = new ArrayList<>();
+    }
+  }
 }
@@ -0,0 +1,129 @@
+package com.hubspot.singularity.hooks;
+
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.base.Optional;
+import com.hubspot.singularity.SingularityWebhookDeliveryStats;
+import com.hubspot.singularity.async.AsyncSemaphore;
+import com.hubspot.singularity.config.SingularityConfiguration;
+import com.hubspot.singularity.data.WebhookEventLogPosition;
+import com.ning.http.client.Response;
+
+/**
+ * What the leader keeps in memory about deliveries to one webhook: its own concurrency limit, its backoff after
+ * failed checks, the updates past its cursor that already got through, the check still waiting on its deliveries, and
+ * its metrics.
+ */
+class WebhookDeliveryState {
+  private final String metricPrefix;
+  private final MetricRegistry metricRegistry;
+  private final AsyncSemaphore<Response> semaphore;
+  private final SortedSet<WebhookEventLogPosition> deliveredAheadOfCursor;
+  private final Histogram batchSize;
+  private final Timer latency;
+
+  private volatile long lagMillis;
+  private volatile CompletableFuture<Void> checkInFlight;
+  private volatile long checkInFlightUntil;
+  private long latestCheck;
+  private int consecutiveFailures;
+  private Optional<Long> backoffUntil;
+
+  WebhookDeliveryState(String webhookId, SingularityConfiguration configuration, MetricRegistry metricRegistry) {
+    this.metricPrefix = MetricRegistry.name("webhooks", webhookId);
+    this.metricRegistry = metricRegistry;
+    this.semaphore = AsyncSemaphore.newBuilder(configuration::getMaxConcurrentRequestsPerWebhook).setFlushQueuePeriodically(true).build();
+    this.deliveredAheadOfCursor = new TreeSet<>();
+    this.batchSize = metricRegistry.histogram(MetricRegistry.name(metricPrefix, "batchSize"));
+    this.latency = metricRegistry.timer(MetricRegistry.name(metricPrefix, "latency"));
+    this.backoffUntil = Optional.absent();
+
+    metricRegistry.register(MetricRegistry.name(metricPrefix, "lagMillis"), (Gauge<Long>) () -> lagMillis);
+  }
+
+  AsyncSemaphore<Response> getSemaphore() {
+    return semaphore;
+  }
+
+  SortedSet<WebhookEventLogPosition> getDeliveredAheadOfCursor() {
+    return deliveredAheadOfCursor;
+  }
+
+  /**
+   * The deliveries of one check are still being sent while it is in flight, so a later check would send them again. A
+   * check that is still going past its deadline is given up on, so one that never completes can't hold the webhook back.
+   */
+  boolean isCheckInFlight(long now) {
+    return checkInFlight != null && !checkInFlight.isDone() && now < checkInFlightUntil;
+  }
+
+  void setCheckInFlight(CompletableFuture<Void> checkInFlight, long deadline) {
+    this.checkInFlightUntil = deadline;
+    this.checkInFlight = checkInFlight;
+  }
+
+  synchronized long startCheck() {
+    return ++latestCheck;
+  }
+
+  /**
+   * Runs the end of a check, unless a later check was started because this one ran past its deadline. The later check
+   * owns the cursor and the updates delivered ahead of it from then on.
+   */
+  synchronized boolean finishCheck(long check, Runnable finish) {
+    if (check != latestCheck) {
+      return false;
+    }
+
+    finish.run();
+    return true;
+  }
+
+  void recordRequest(int updates, long durationMillis) {
+    batchSize.update(updates);
+    latency.update(durationMillis, TimeUnit.MILLISECONDS);
+  }
+
+  void setLagMillis(long lagMillis) {
+    this.lagMillis = lagMillis;
+  }
+
+  synchronized boolean isBackingOff(long now) {
+    return backoffUntil.isPresent() && backoffUntil.get() > now;
+  }
+
+  synchronized void recordSuccess() {
+    consecutiveFailures = 0;
+    backoffUntil = Optional.absent();
+  }
+
+  /**
+   * Doubles the backoff with every check in a row that failed, unless the webhook asked for a longer pause itself.
+   */
+  synchronized void recordFailure(long now, long initialBackoffMillis, long maxBackoffMillis, long retryAfterMillis) {
+    consecutiveFailures++;
+    final long backoff = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(consecutiveFailures - 1, 30));
+    backoffUntil = Optional.of(now + Math.max(backoff, retryAfterMillis));
+  }
+
+  synchronized SingularityWebhookDeliveryStats getStats() {
+    return new SingularityWebhookDeliveryStats(
+        lagMillis,
+        batchSize.getSnapshot().getMean(),
+        latency.getSnapshot().getMean() / TimeUnit.MILLISECONDS.toNanos(1),
+        consecutiveFailures,
+        backoffUntil);
+  }
+
+  void close() {
+    semaphore.stopFlushingQueue();
+    metricRegistry.removeMatching((name, metric) -> name.startsWith(metricPrefix + "."));
+  }
+}
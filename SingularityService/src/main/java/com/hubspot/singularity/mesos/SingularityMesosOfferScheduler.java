@@ -3,16 +3,13 @@ package com.hubspot.singularity.mesos;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -134,7 +131,7 @@ public class SingularityMesosOfferScheduler {
 
   public Collection<SingularityOfferHolder> checkOffers(final Collection<Offer> offers) {
     for (SingularityPendingTaskId taskId : taskManager.getPendingTasksMarkedForDeletion()) {
-      lock.runWithRequestLock(() -> taskManager.deletePendingTask(taskId), taskId.getRequestId(), String.format("%s#%s", getClass().getSimpleName(), "checkOffers -> pendingTaskDeletes"));
+      lock.runWithRequestLock(() -> taskManager.deletePendingTask(taskId), taskId.getRequestId(), "SingularityMesosOfferScheduler#checkOffers -> pendingTaskDeletes");
     }
 
     scheduler.checkForDecomissions();
@@ -147,7 +144,6 @@ public class SingularityMesosOfferScheduler {
 
     final List<SingularityTaskRequestHolder> sortedTaskRequestHolders = getSortedDueTaskRequests();
     final int numDueTasks = sortedTaskRequestHolders.size();
-    Set<String> relevantRequestIds = new HashSet<>();
 
     final Map<String, SingularityOfferHolder> offerHolders = offers.stream()
         .collect(Collectors.groupingBy((o) -> o.getAgentId().getValue()))
@@ -165,13 +161,6 @@ public class SingularityMesosOfferScheduler {
               slaveAndRackHelper.getTextAttributes(offersList.get(0)),
               slaveAndRackHelper.getReservedSlaveAttributes(offersList.get(0)));
         })
-        .peek((offerHolder) -> {
-          taskManager.getActiveTaskIds().forEach((t) -> {
-            if (t.getSanitizedHost().equals(offerHolder.getSanitizedHost())) {
-              relevantRequestIds.add(t.getRequestId());
-            }
-          });
-        })
         .collect(Collectors.toMap(SingularityOfferHolder::getSlaveId, Function.identity()));
 
     if (sortedTaskRequestHolders.isEmpty()) {
@@ -180,7 +169,6 @@ public class SingularityMesosOfferScheduler {
 
     final AtomicInteger tasksScheduled = new AtomicInteger(0);
     Map<String, RequestUtilization> requestUtilizations = usageManager.getRequestUtilizations(false);
-    List<SingularityTaskId> activeTaskIds = taskManager.getActiveTaskIds();
 
     Map<String, SingularitySlaveUsageWithId> currentSlaveUsages = usageManager.getCurrentSlaveUsages(
         offerHolders.values()
@@ -197,8 +185,8 @@ public class SingularityMesosOfferScheduler {
         Optional<SingularitySlaveUsageWithId> maybeSlaveUsage = Optional.fromNullable(currentSlaveUsages.get(slaveId));
 
         if (configuration.isReCheckMetricsForLargeNewTaskCount() && maybeSlaveUsage.isPresent()) {
-          long newTaskCount = taskManager.getActiveTaskIds().stream()
-              .filter((t) -> t.getStartedAt() > maybeSlaveUsage.get().getTimestamp() && t.getSanitizedHost().equals(offerHolder.getSanitizedHost()))
+          long newTaskCount = leaderCache.getActiveTaskIdsOnHost(offerHolder.getSanitizedHost()).stream()
+              .filter((t) -> t.getStartedAt() > maybeSlaveUsage.get().getTimestamp())
               .count();
           if (newTaskCount >= maybeSlaveUsage.get().getNumTasks() / 2) {
             try {
@@ -230,7 +218,7 @@ public class SingularityMesosOfferScheduler {
               new SingularitySlaveUsageWithCalculatedScores(
                 usage,
                 mesosConfiguration.getScoreUsingSystemLoad(),
-                getMaxProbableUsageForSlave(activeTaskIds, requestUtilizations, offerHolders.get(usage.getSlaveId()).getSanitizedHost()),
+                getMaxProbableUsageForSlave(requestUtilizations, offerHolders.get(usage.getSlaveId()).getSanitizedHost()),
                 mesosConfiguration.getLoad5OverloadedThreshold(),
                 mesosConfiguration.getLoad1OverloadedThreshold(),
                 usage.getTimestamp())),
@@ -242,41 +230,29 @@ public class SingularityMesosOfferScheduler {
 
     LOG.trace("Found slave usages {}", currentSlaveUsagesBySlaveId);
 
+    SingularityOfferScoringIndex scoringIndex = new SingularityOfferScoringIndex(offerHolders.size());
+    for (SingularityOfferHolder offerHolder : offerHolders.values()) {
+      indexOffer(scoringIndex, offerHolder, currentSlaveUsagesBySlaveId);
+    }
+
     Map<String, Integer> tasksPerOfferHost = new ConcurrentHashMap<>();
 
     for (SingularityTaskRequestHolder taskRequestHolder : sortedTaskRequestHolders) {
       lock.runWithRequestLock(() -> {
-        Map<String, Double> scorePerOffer = new ConcurrentHashMap<>();
         List<SingularityTaskId> activeTaskIdsForRequest = leaderCache.getActiveTaskIdsForRequest(taskRequestHolder.getTaskRequest().getRequest().getId());
 
-        List<CompletableFuture<Void>> scoringFutures = new ArrayList<>();
-        AtomicReference<Throwable> scoringException = new AtomicReference<>(null);
-        for (SingularityOfferHolder offerHolder : offerHolders.values()) {
-          scoringFutures.add(offerScoringSemaphore.call(() ->
-              CompletableFuture.supplyAsync(() -> {
-                return calculateScore(requestUtilizations, currentSlaveUsagesBySlaveId, tasksPerOfferHost, taskRequestHolder, scorePerOffer, activeTaskIdsForRequest, scoringException, offerHolder);
-              },
-              offerScoringExecutor)));
-        }
+        Optional<SingularityOfferHolder> maybeBestOffer = findBestOffer(scoringIndex, requestUtilizations, currentSlaveUsagesBySlaveId, tasksPerOfferHost, taskRequestHolder, activeTaskIdsForRequest);
 
-        CompletableFutures.allOf(scoringFutures).join();
-
-        if (scoringException.get() != null) {
-          LOG.warn("Exception caught in offer scoring futures, semaphore info: (concurrentRequests: {}, queueSize: {})",
-              offerScoringSemaphore.getConcurrentRequests(), offerScoringSemaphore.getQueueSize());
-          // This will be caught by either the LeaderOnlyPoller or resourceOffers uncaught exception code, causing an abort
-          throw new RuntimeException(scoringException.get());
-        }
-
-        if (!scorePerOffer.isEmpty()) {
-          SingularityOfferHolder bestOffer = offerHolders.get(Collections.max(scorePerOffer.entrySet(), Map.Entry.comparingByValue()).getKey());
-          LOG.info("Best offer {}/1 is on {}", scorePerOffer.get(bestOffer.getSlaveId()), bestOffer.getSanitizedHost());
+        if (maybeBestOffer.isPresent()) {
+          SingularityOfferHolder bestOffer = maybeBestOffer.get();
+          LOG.info("Best offer {}/1 is on {}", scoringIndex.getScore(bestOffer.getSlaveId()), bestOffer.getSanitizedHost());
           SingularityMesosTaskHolder taskHolder = acceptTask(bestOffer, tasksPerOfferHost, taskRequestHolder);
           tasksScheduled.getAndIncrement();
           bestOffer.addMatchedTask(taskHolder);
           updateSlaveUsageScores(taskRequestHolder, currentSlaveUsagesBySlaveId, bestOffer.getSlaveId(), requestUtilizations);
+          indexOffer(scoringIndex, bestOffer, currentSlaveUsagesBySlaveId);
         }
-      }, taskRequestHolder.getTaskRequest().getRequest().getId(), String.format("%s#%s", getClass().getSimpleName(), "checkOffers"));
+      }, taskRequestHolder.getTaskRequest().getRequest().getId(), "SingularityMesosOfferScheduler#checkOffers");
     }
 
     LOG.info("{} tasks scheduled, {} tasks remaining after examining {} offers", tasksScheduled, numDueTasks - tasksScheduled.get(), offers.size());
@@ -284,53 +260,58 @@ public class SingularityMesosOfferScheduler {
     return offerHolders.values();
   }
 
-  private Void calculateScore(
+  private void indexOffer(SingularityOfferScoringIndex scoringIndex, SingularityOfferHolder offerHolder, Map<String, SingularitySlaveUsageWithCalculatedScores> currentSlaveUsagesBySlaveId) {
+    if (isOfferFull(offerHolder)) {
+      scoringIndex.remove(offerHolder.getSlaveId());
+    } else {
+      scoringIndex.index(offerHolder, score(offerHolder.getHostname(), Optional.fromNullable(currentSlaveUsagesBySlaveId.get(offerHolder.getSlaveId()))));
+    }
+  }
+
+  private Optional<SingularityOfferHolder> findBestOffer(
+      SingularityOfferScoringIndex scoringIndex,
       Map<String, RequestUtilization> requestUtilizations,
       Map<String, SingularitySlaveUsageWithCalculatedScores> currentSlaveUsagesBySlaveId,
       Map<String, Integer> tasksPerOfferHost,
       SingularityTaskRequestHolder taskRequestHolder,
-      Map<String, Double> scorePerOffer,
-      List<SingularityTaskId> activeTaskIdsForRequest,
-      AtomicReference<Throwable> scoringException,
-      SingularityOfferHolder offerHolder) {
-    if (isOfferFull(offerHolder)) {
-      return null;
-    }
-    String slaveId = offerHolder.getSlaveId();
-
-    try {
-      double score = calculateScore(offerHolder, currentSlaveUsagesBySlaveId, tasksPerOfferHost, taskRequestHolder, activeTaskIdsForRequest, requestUtilizations.get(taskRequestHolder.getTaskRequest().getRequest().getId()));
-      if (score != 0) {
-        scorePerOffer.put(slaveId, score);
+      List<SingularityTaskId> activeTaskIdsForRequest) {
+    RequestUtilization requestUtilization = requestUtilizations.get(taskRequestHolder.getTaskRequest().getRequest().getId());
+
+    // Candidates come back best score first, and a non-zero score is always the agent's usage score, so the first match is the best offer
+    for (SingularityOfferHolder offerHolder : scoringIndex.getCandidates(taskRequestHolder.getTotalResources(), taskRequestHolder.getTaskRequest().getRequest().getRequiredRole())) {
+      try {
+        if (calculateScore(offerHolder, currentSlaveUsagesBySlaveId, tasksPerOfferHost, taskRequestHolder, activeTaskIdsForRequest, requestUtilization) != 0) {
+          return Optional.of(offerHolder);
+        }
+      } catch (Throwable t) {
+        LOG.error("Uncaught exception while scoring offers", t);
+        // This will be caught by either the LeaderOnlyPoller or resourceOffers uncaught exception code, causing an abort
+        throw new RuntimeException(t);
       }
-    } catch (Throwable t) {
-      LOG.error("Uncaught exception while scoring offers", t);
-      scoringException.set(t);
     }
-    return null;
+
+    return Optional.absent();
   }
 
-  private MaxProbableUsage getMaxProbableUsageForSlave(List<SingularityTaskId> activeTaskIds, Map<String, RequestUtilization> requestUtilizations, String sanitizedHostname) {
+  private MaxProbableUsage getMaxProbableUsageForSlave(Map<String, RequestUtilization> requestUtilizations, String sanitizedHostname) {
     double cpu = 0;
     double memBytes = 0;
     double diskBytes = 0;
-    for (SingularityTaskId taskId : activeTaskIds) {
-      if (taskId.getSanitizedHost().equals(sanitizedHostname)) {
-        if (requestUtilizations.containsKey(taskId.getRequestId())) {
-          RequestUtilization utilization = requestUtilizations.get(taskId.getRequestId());
-          cpu += getEstimatedCpuUsageForRequest(utilization);
-          memBytes += utilization.getMaxMemBytesUsed();
-          diskBytes += utilization.getMaxDiskBytesUsed();
-        } else {
-          Optional<SingularityTask> maybeTask = taskManager.getTask(taskId);
-          if (maybeTask.isPresent()) {
-            Resources resources = maybeTask.get().getTaskRequest().getPendingTask().getResources()
-                .or(maybeTask.get().getTaskRequest().getDeploy().getResources())
-                .or(defaultResources);
-            cpu += resources.getCpus();
-            memBytes += resources.getMemoryMb() * SingularitySlaveUsage.BYTES_PER_MEGABYTE;
-            diskBytes += resources.getDiskMb() * SingularitySlaveUsage.BYTES_PER_MEGABYTE;
-          }
+    for (SingularityTaskId taskId : leaderCache.getActiveTaskIdsOnHost(sanitizedHostname)) {
+      if (requestUtilizations.containsKey(taskId.getRequestId())) {
+        RequestUtilization utilization = requestUtilizations.get(taskId.getRequestId());
+        cpu += getEstimatedCpuUsageForRequest(utilization);
+        memBytes += utilization.getMaxMemBytesUsed();
+        diskBytes += utilization.getMaxDiskBytesUsed();
+      } else {
+        Optional<SingularityTask> maybeTask = taskManager.getTask(taskId);
+        if (maybeTask.isPresent()) {
+          Resources resources = maybeTask.get().getTaskRequest().getPendingTask().getResources()
+              .or(maybeTask.get().getTaskRequest().getDeploy().getResources())
+              .or(defaultResources);
+          cpu += resources.getCpus();
+          memBytes += resources.getMemoryMb() * SingularitySlaveUsage.BYTES_PER_MEGABYTE;
+          diskBytes += resources.getDiskMb() * SingularitySlaveUsage.BYTES_PER_MEGABYTE;
         }
       }
     }
@@ -11,6 +11,7 @@ import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
@@ -33,6 +34,8 @@ import org.apache.mesos.v1.scheduler.Protos.Event.Subscribed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.codahale.metrics.annotation.Timed;
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
@@ -92,8 +95,10 @@ public class SingularityMesosSchedulerImpl extends SingularityMesosScheduler {
   private final TaskManager taskManager;
   private final Transcoder<SingularityTaskDestroyFrameworkMessage> transcoder;
   private final SingularitySchedulerLock lock;
+  private final Timer failoverTimer;
 
   private volatile SchedulerState state;
+  private volatile Optional<Long> startedAt = Optional.absent();
   private Optional<Long> lastOfferTimestamp = Optional.absent();
   private Optional<Double> heartbeatIntervalSeconds = Optional.absent();
 
@@ -117,7 +122,8 @@ public class SingularityMesosSchedulerImpl extends SingularityMesosScheduler {
                                 TaskManager taskManager,
                                 Transcoder<SingularityTaskDestroyFrameworkMessage> transcoder,
                                 @Named(SingularityMainModule.STATUS_UPDATE_DELTA_30S_AVERAGE) AtomicLong statusUpdateDeltaAvg,
-                                @Named(SingularityMainModule.LAST_MESOS_MASTER_HEARTBEAT_TIME) AtomicLong lastHeartbeatTime) {
+                                @Named(SingularityMainModule.LAST_MESOS_MASTER_HEARTBEAT_TIME) AtomicLong lastHeartbeatTime,
+                                MetricRegistry metricRegistry) {
     this.exceptionNotifier = exceptionNotifier;
     this.startup = startup;
     this.abort = abort;
@@ -141,6 +147,7 @@ public class SingularityMesosSchedulerImpl extends SingularityMesosScheduler {
     this.lock = lock;
     this.state = SchedulerState.NOT_STARTED;
     this.configuration = configuration;
+    this.failoverTimer = metricRegistry.timer("leader.failover");
   }
 
   @Override
@@ -159,6 +166,12 @@ public class SingularityMesosSchedulerImpl extends SingularityMesosScheduler {
       startup.startup(newMasterInfo);
       state = SchedulerState.SUBSCRIBED;
       queuedUpdates.forEach(this::handleStatusUpdateAsync);
+
+      if (startedAt.isPresent()) {
+        final long failoverMillis = System.currentTimeMillis() - startedAt.get();
+        failoverTimer.update(failoverMillis, TimeUnit.MILLISECONDS);
+        LOG.info("Ready to process offers {} after becoming the leader", JavaUtils.durationFromMillis(failoverMillis));
+      }
     }, "subscribed", false);
   }
 
@@ -380,6 +393,7 @@ public class SingularityMesosSchedulerImpl extends SingularityMesosScheduler {
   }
 
   public void start() throws Exception {
+    startedAt = Optional.of(System.currentTimeMillis());
     MesosConfiguration mesosConfiguration = configuration.getMesosConfiguration();
     // If more than one host is provided choose at random, we will be redirected if the host is not the master
     List<String> masters = Arrays.asList(mesosConfiguration.getMaster().split(","));
@@ -406,7 +420,7 @@ public class SingularityMesosSchedulerImpl extends SingularityMesosScheduler {
       return;
     }
     try {
-      lock.runWithOffersLock(function, String.format("%s#%s", getClass().getSimpleName(), method));
+      lock.runWithOffersLock(function, "SingularityMesosSchedulerImpl#" + method);
     } catch (Throwable t) {
       LOG.error("Scheduler threw an uncaught exception - exiting", t);
       exceptionNotifier.notify(String.format("Scheduler threw an uncaught exception (%s)", t.getMessage()), t);
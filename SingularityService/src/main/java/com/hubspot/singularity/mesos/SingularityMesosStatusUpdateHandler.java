@@ -322,7 +322,7 @@ public class SingularityMesosStatusUpdateHandler {
         schedulerLock.runWithRequestLock(
             () -> unsafeProcessStatusUpdate(status, maybeTaskId.get()),
             maybeTaskId.get().getRequestId(),
-            getClass().getSimpleName()
+            "SingularityMesosStatusUpdateHandler"
         );
         return true;
       }, statusUpdatesExecutor)
@@ -0,0 +1,95 @@
+package com.hubspot.singularity.mesos;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.Iterables;
+import com.hubspot.mesos.Resources;
+import com.hubspot.singularity.helpers.MesosUtils;
+
+/**
+ * Per-agent index of the free (unreserved) resources and usage score for each offer holder in a single offer check.
+ *
+ * The score of an offer for a task is either 0 (offer rejected) or the agent's usage score, which does not depend on the task.
+ * Walking agents in descending score order and taking the first one that accepts the task therefore gives the same result as
+ * scoring every offer and taking the max, while usually only looking at a handful of agents. Only the agent that accepted
+ * a task needs to be re-scored afterwards.
+ */
+class SingularityOfferScoringIndex {
+
+  private static final Comparator<IndexedOffer> BEST_SCORE_FIRST = Comparator.<IndexedOffer>comparingDouble((o) -> o.score)
+      .reversed()
+      .thenComparing((o) -> o.offerHolder.getSlaveId());
+
+  private final Map<String, IndexedOffer> offersBySlaveId;
+  private final TreeSet<IndexedOffer> offersByScore;
+
+  SingularityOfferScoringIndex(int expectedSize) {
+    this.offersBySlaveId = new HashMap<>(expectedSize);
+    this.offersByScore = new TreeSet<>(BEST_SCORE_FIRST);
+  }
+
+  /**
+   * Adds or replaces the entry for this offer holder. A score of 0 means the agent can never be chosen, so it is left out of the index.
+   */
+  void index(SingularityOfferHolder offerHolder, double score) {
+    remove(offerHolder.getSlaveId());
+
+    if (score == 0) {
+      return;
+    }
+
+    IndexedOffer indexedOffer = new IndexedOffer(offerHolder, score, MesosUtils.buildResourcesFromMesosResourceList(offerHolder.getCurrentResources(), Optional.absent()));
+    offersBySlaveId.put(offerHolder.getSlaveId(), indexedOffer);
+    offersByScore.add(indexedOffer);
+  }
+
+  void remove(String slaveId) {
+    IndexedOffer existing = offersBySlaveId.remove(slaveId);
+    if (existing != null) {
+      offersByScore.remove(existing);
+    }
+  }
+
+  /**
+   * Offer holders that could fit the requested resources, best score first. Only unreserved resources are pre-checked,
+   * tasks with a required role rely on the full resource match done while scoring. The returned view is lazy and must not be
+   * iterated across calls to {@link #index} or {@link #remove}.
+   */
+  Iterable<SingularityOfferHolder> getCandidates(Resources requiredResources, Optional<String> requiredRole) {
+    return Iterables.transform(
+        Iterables.filter(offersByScore, (indexedOffer) -> requiredRole.isPresent() || indexedOffer.couldFit(requiredResources)),
+        (indexedOffer) -> indexedOffer.offerHolder);
+  }
+
+  double getScore(String slaveId) {
+    IndexedOffer indexedOffer = offersBySlaveId.get(slaveId);
+    return indexedOffer == null ? 0 : indexedOffer.score;
+  }
+
+  int size() {
+    return offersBySlaveId.size();
+  }
+
+  private static class IndexedOffer {
+    private final SingularityOfferHolder offerHolder;
+    private final double score;
+    private final Resources freeResources;
+
+    IndexedOffer(SingularityOfferHolder offerHolder, double score, Resources freeResources) {
+      this.offerHolder = offerHolder;
+      this.score = score;
+      this.freeResources = freeResources;
+    }
+
+    boolean couldFit(Resources requiredResources) {
+      return freeResources.getCpus() >= requiredResources.getCpus()
+          && freeResources.getMemoryMb() >= requiredResources.getMemoryMb()
+          && freeResources.getDiskMb() >= requiredResources.getDiskMb()
+          && freeResources.getNumPorts() >= requiredResources.getNumPorts();
+    }
+  }
+}
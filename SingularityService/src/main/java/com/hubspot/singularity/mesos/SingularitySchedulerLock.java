@@ -1,50 +1,106 @@
 package com.hubspot.singularity.mesos;
 
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.google.inject.Inject;
 import com.hubspot.mesos.JavaUtils;
 
+/**
+ * Request locks only live while someone holds or waits on them, so the map is bounded by the number of requests
+ * currently being worked on rather than every request ever seen. Each caller name gets a wait and a hold timer
+ * (scheduler.lock.&lt;request|state|offers&gt;.&lt;name&gt;.wait / .hold), so callers should pass a constant name rather
+ * than building one per call.
+ */
 public class SingularitySchedulerLock {
 
   private static final Logger LOG = LoggerFactory.getLogger(SingularitySchedulerLock.class);
 
   private final ReentrantLock stateLock;
   private final ReentrantLock offersLock;
-  private final ConcurrentHashMap<String, ReentrantLock> requestLocks;
+  private final ConcurrentHashMap<String, RequestLock> requestLocks;
+  private final ConcurrentHashMap<String, LockTimers> requestLockTimers;
+  private final ConcurrentHashMap<String, LockTimers> stateLockTimers;
+  private final ConcurrentHashMap<String, LockTimers> offersLockTimers;
+  private final MetricRegistry metricRegistry;
 
   @Inject
-  public SingularitySchedulerLock() {
+  public SingularitySchedulerLock(MetricRegistry metricRegistry) {
     this.stateLock = new ReentrantLock();
     this.offersLock = new ReentrantLock();
     this.requestLocks = new ConcurrentHashMap<>();
+    this.requestLockTimers = new ConcurrentHashMap<>();
+    this.stateLockTimers = new ConcurrentHashMap<>();
+    this.offersLockTimers = new ConcurrentHashMap<>();
+    this.metricRegistry = metricRegistry;
+
+    metricRegistry.register("scheduler.lock.requests", (Gauge<Integer>) requestLocks::size);
+  }
+
+  private static class RequestLock extends ReentrantLock {
+    // Guarded by the map's compute for this request id
+    private int references;
+  }
+
+  private static class LockTimers {
+    private final Timer wait;
+    private final Timer hold;
+
+    LockTimers(Timer wait, Timer hold) {
+      this.wait = wait;
+      this.hold = hold;
+    }
   }
 
-  private long lock(String requestId, String name) {
-    final long start = System.currentTimeMillis();
-    LOG.trace("{} - Locking {}", name, requestId);
-    ReentrantLock lock = requestLocks.computeIfAbsent(requestId, (r) -> new ReentrantLock());
-    lock.lock();
-    LOG.trace("{} - Acquired lock on {} ({})", name, requestId, JavaUtils.duration(start));
-    return System.currentTimeMillis();
+  private LockTimers getTimers(ConcurrentHashMap<String, LockTimers> lockTimers, String lockType, String name) {
+    LockTimers timers = lockTimers.get(name);
+    if (timers == null) {
+      timers = lockTimers.computeIfAbsent(name, (n) -> new LockTimers(
+          metricRegistry.timer(MetricRegistry.name("scheduler.lock", lockType, n, "wait")),
+          metricRegistry.timer(MetricRegistry.name("scheduler.lock", lockType, n, "hold"))));
+    }
+    return timers;
+  }
+
+  private static RequestLock reference(String requestId, RequestLock lock) {
+    RequestLock referenced = lock == null ? new RequestLock() : lock;
+    referenced.references++;
+    return referenced;
   }
 
-  private void unlock(String requestId, String name, long start) {
-    LOG.trace("{} - Unlocking {} ({})", name, requestId, JavaUtils.duration(start));
-    ReentrantLock lock = requestLocks.computeIfAbsent(requestId, (r) -> new ReentrantLock());
-    lock.unlock();
+  private static RequestLock dereference(String requestId, RequestLock lock) {
+    return --lock.references == 0 ? null : lock;
   }
 
   public void runWithRequestLock(Runnable function, String requestId, String name) {
-    long start = lock(requestId, name);
+    LockTimers timers = getTimers(requestLockTimers, "request", name);
+    long start = System.nanoTime();
+
+    RequestLock lock = requestLocks.compute(requestId, SingularitySchedulerLock::reference);
     try {
-      function.run();
+      lock.lock();
+      long acquired = System.nanoTime();
+      timers.wait.update(acquired - start, TimeUnit.NANOSECONDS);
+
+      if (LOG.isTraceEnabled()) {
+        LOG.trace("{} - Acquired lock on {} ({})", name, requestId, JavaUtils.durationFromMillis(TimeUnit.NANOSECONDS.toMillis(acquired - start)));
+      }
+
+      try {
+        function.run();
+      } finally {
+        lock.unlock();
+        timers.hold.update(System.nanoTime() - acquired, TimeUnit.NANOSECONDS);
+      }
     } finally {
-      unlock(requestId, name, start);
+      requestLocks.computeIfPresent(requestId, SingularitySchedulerLock::dereference);
     }
   }
 
@@ -58,16 +114,20 @@ public class SingularitySchedulerLock {
   }
 
   private long lockState(String name) {
-    final long start = System.currentTimeMillis();
+    final long start = System.nanoTime();
     LOG.info("{} - Locking state lock", name);
     stateLock.lock();
-    LOG.info("{} - Acquired state lock ({})", name, JavaUtils.duration(start));
-    return System.currentTimeMillis();
+    final long acquired = System.nanoTime();
+    getTimers(stateLockTimers, "state", name).wait.update(acquired - start, TimeUnit.NANOSECONDS);
+    LOG.info("{} - Acquired state lock ({})", name, JavaUtils.durationFromMillis(TimeUnit.NANOSECONDS.toMillis(acquired - start)));
+    return acquired;
   }
 
-  private void unlockState(String name, long start) {
-    LOG.info("{} - Unlocking state lock ({})", name, JavaUtils.duration(start));
+  private void unlockState(String name, long acquired) {
+    final long held = System.nanoTime() - acquired;
+    LOG.info("{} - Unlocking state lock ({})", name, JavaUtils.durationFromMillis(TimeUnit.NANOSECONDS.toMillis(held)));
     stateLock.unlock();
+    getTimers(stateLockTimers, "state", name).hold.update(held, TimeUnit.NANOSECONDS);
   }
 
   public void runWithOffersLock(Runnable function,  String name) {
@@ -80,16 +140,24 @@ public class SingularitySchedulerLock {
   }
 
   private long lockOffers(String name) {
-    final long start = System.currentTimeMillis();
+    final long start = System.nanoTime();
     LOG.debug("{} - Locking offers lock", name);
     offersLock.lock();
-    LOG.debug("{} - Acquired offers lock ({})", name, JavaUtils.duration(start));
-    return System.currentTimeMillis();
+    final long acquired = System.nanoTime();
+    getTimers(offersLockTimers, "offers", name).wait.update(acquired - start, TimeUnit.NANOSECONDS);
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("{} - Acquired offers lock ({})", name, JavaUtils.durationFromMillis(TimeUnit.NANOSECONDS.toMillis(acquired - start)));
+    }
+    return acquired;
   }
 
-  private void unlockOffers(String name, long start) {
-    LOG.debug("{} - Unlocking offers lock ({})", name, JavaUtils.duration(start));
+  private void unlockOffers(String name, long acquired) {
+    final long held = System.nanoTime() - acquired;
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("{} - Unlocking offers lock ({})", name, JavaUtils.durationFromMillis(TimeUnit.NANOSECONDS.toMillis(held)));
+    }
     offersLock.unlock();
+    getTimers(offersLockTimers, "offers", name).hold.update(held, TimeUnit.NANOSECONDS);
   }
 
 }
@@ -139,12 +139,14 @@ public class SingularitySlaveAndRackManager {
 
     final String sanitizedHost = offerHolder.getSanitizedHost();
     final String sanitizedRackId = offerHolder.getSanitizedRackId();
-    Collection<SingularityTaskId> cleaningTasks = leaderCache.getCleanupTaskIds();
 
+    // Rack and host counts both come from the caller's snapshot of the request's tasks, so they agree with each other
+    // and with the OPTIMISTIC and attribute checks below even if the leader cache changes during the offer check
     for (SingularityTaskId taskId : activeTaskIdsForRequest) {
       // TODO consider using executorIds
+      boolean isCleaning = leaderCache.isTaskCleaning(taskId);
 
-      if (!cleaningTasks.contains(taskId) && taskRequest.getDeploy().getId().equals(taskId.getDeployId())) {
+      if (!isCleaning && taskRequest.getDeploy().getId().equals(taskId.getDeployId())) {
         countPerRack.add(taskId.getSanitizedRackId());
       }
 
@@ -153,7 +155,7 @@ public class SingularitySlaveAndRackManager {
       }
 
       if (taskRequest.getDeploy().getId().equals(taskId.getDeployId())) {
-        if (cleaningTasks.contains(taskId)) {
+        if (isCleaning) {
           numCleaningOnSlave++;
         } else {
           numOnSlave++;
@@ -546,8 +548,8 @@ public class SingularitySlaveAndRackManager {
   }
 
   private boolean hasTaskLeftOnRack(SingularityTaskId taskId, SingularityLeaderCache leaderCache) {
-    for (SingularityTaskId activeTaskId : leaderCache.getActiveTaskIds()) {
-      if (!activeTaskId.equals(taskId) && activeTaskId.getSanitizedRackId().equals(taskId.getSanitizedRackId())) {
+    for (SingularityTaskId activeTaskId : leaderCache.getActiveTaskIdsOnRack(taskId.getSanitizedRackId())) {
+      if (!activeTaskId.equals(taskId)) {
         return true;
       }
     }
@@ -556,8 +558,8 @@ public class SingularitySlaveAndRackManager {
   }
 
   private boolean hasTaskLeftOnSlave(SingularityTaskId taskId, String slaveId, SingularityLeaderCache stateCache) {
-    for (SingularityTaskId activeTaskId : stateCache.getActiveTaskIds()) {
-      if (!activeTaskId.equals(taskId) && activeTaskId.getSanitizedHost().equals(taskId.getSanitizedHost())) {
+    for (SingularityTaskId activeTaskId : stateCache.getActiveTaskIdsOnHost(taskId.getSanitizedHost())) {
+      if (!activeTaskId.equals(taskId)) {
         Optional<SingularityTask> maybeTask = taskManager.getTask(activeTaskId);
         if (maybeTask.isPresent() && slaveId.equals(maybeTask.get().getAgentId().getValue())) {
           return true;
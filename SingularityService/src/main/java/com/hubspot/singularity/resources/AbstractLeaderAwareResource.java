@@ -1,20 +1,26 @@
 package com.hubspot.singularity.resources;
 
 import java.io.IOException;
+import java.net.URI;
 import java.util.Enumeration;
 import java.util.concurrent.ExecutionException;
 import java.util.function.Supplier;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response.Status;
 
 import org.apache.curator.framework.recipes.leader.LeaderLatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Charsets;
+import com.google.common.base.Optional;
+import com.google.common.base.Strings;
 import com.ning.http.client.AsyncHttpClient;
 import com.ning.http.client.AsyncHttpClient.BoundRequestBuilder;
 import com.ning.http.client.Request;
@@ -23,6 +29,10 @@ import com.ning.http.client.Response;
 public class AbstractLeaderAwareResource {
   private static final Logger LOG = LoggerFactory.getLogger(AbstractLeaderAwareResource.class);
 
+  // The leader's response is read back into an object and written out again here, so @PropertyFiltering has to be
+  // applied by this instance. A response the leader already filtered can't be read back into its type.
+  private static final String PROPERTY_FILTER_PARAM = "property";
+
   protected final AsyncHttpClient httpClient;
   protected final LeaderLatch leaderLatch;
   protected final ObjectMapper objectMapper;
@@ -34,6 +44,14 @@ public class AbstractLeaderAwareResource {
   }
 
   protected <T, Q> T maybeProxyToLeader(HttpServletRequest request, Class<T> clazz, Q body, Supplier<T> runnable) {
+    return maybeProxyToLeader(request, objectMapper.getTypeFactory().constructType(clazz), body, runnable);
+  }
+
+  protected <T, Q> T maybeProxyToLeader(HttpServletRequest request, TypeReference<T> type, Q body, Supplier<T> runnable) {
+    return maybeProxyToLeader(request, objectMapper.getTypeFactory().constructType(type), body, runnable);
+  }
+
+  private <T, Q> T maybeProxyToLeader(HttpServletRequest request, JavaType type, Q body, Supplier<T> runnable) {
     if (leaderLatch.hasLeadership()) {
       return runnable.get();
     }
@@ -55,6 +73,9 @@ public class AbstractLeaderAwareResource {
 
     BoundRequestBuilder requestBuilder;
     switch (request.getMethod().toUpperCase()) {
+      case "GET":
+        requestBuilder = httpClient.prepareGet(url);
+        break;
       case "POST":
         requestBuilder = httpClient.preparePost(url);
         break;
@@ -94,7 +115,7 @@ public class AbstractLeaderAwareResource {
       if (response.getStatusCode() > 399) {
         throw new WebApplicationException(response.getResponseBody(Charsets.UTF_8.toString()), response.getStatusCode());
       } else {
-        return objectMapper.readValue(response.getResponseBodyAsStream(), clazz);
+        return objectMapper.readValue(response.getResponseBodyAsStream(), type);
       }
     } catch (IOException ioe) {
       String message = String.format("Request to leader succeeded with status %s, but could not interpret response", response.getStatusCode());
@@ -103,6 +124,37 @@ public class AbstractLeaderAwareResource {
     }
   }
 
+  /**
+   * For responses that can't be buffered by a proxied request, e.g. streams, send the client to the leader instead.
+   * Absent if this instance should answer the request itself.
+   */
+  protected Optional<javax.ws.rs.core.Response> maybeRedirectToLeader(HttpServletRequest request) {
+    if (leaderLatch.hasLeadership()) {
+      return Optional.absent();
+    }
+
+    String leaderUri;
+    try {
+      leaderUri = leaderLatch.getLeader().getId();
+    } catch (Exception e) {
+      throw new RuntimeException("Could not get leader uri to redirect request");
+    }
+
+    if (Strings.isNullOrEmpty(leaderUri) || leaderUri.equals(leaderLatch.getId())) {
+      LOG.warn("Got no or own leader id when not the leader! There is likely no leader, will not redirect");
+      return Optional.absent();
+    }
+
+    // The client follows the redirect itself, so it has to keep the scheme it used to reach this instance
+    String url = request.getScheme() + "://" + leaderUri + request.getContextPath() + request.getPathInfo();
+    if (request.getQueryString() != null) {
+      url = url + "?" + request.getQueryString();
+    }
+    LOG.debug("Not the leader, redirecting request to {}", url);
+
+    return Optional.of(javax.ws.rs.core.Response.status(Status.TEMPORARY_REDIRECT).location(URI.create(url)).build());
+  }
+
   private void copyHeadersAndParams(BoundRequestBuilder requestBuilder, HttpServletRequest request) {
     Enumeration<String> headerNames = request.getHeaderNames();
     if (headerNames != null) {
@@ -116,6 +168,9 @@ public class AbstractLeaderAwareResource {
     if (parameterNames != null) {
       while (parameterNames.hasMoreElements()) {
         String parameterName = parameterNames.nextElement();
+        if (parameterName.equals(PROPERTY_FILTER_PARAM)) {
+          continue;
+        }
         requestBuilder.addQueryParameter(parameterName, request.getParameter(parameterName));
         LOG.trace("Copied query param {}={}", parameterName, request.getParameter(parameterName));
       }
@@ -0,0 +1,70 @@
+package com.hubspot.singularity.resources;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+
+import com.google.common.base.Optional;
+
+/**
+ * Lets polling clients skip the body of a list response that hasn't changed since their last call, by sending the
+ * ETag they got back as If-None-Match.
+ */
+public final class ConditionalGetUtils {
+
+  private ConditionalGetUtils() {
+    throw new AssertionError("do not instantiate");
+  }
+
+  /**
+   * The tag covers the version of the data plus everything else the response depends on: the query string, which
+   * includes any property filter, and the variant, e.g. the user the response was filtered for.
+   */
+  public static Optional<EntityTag> entityTag(String resource, Optional<String> version, HttpServletRequest request, Object... variant) {
+    if (!version.isPresent()) {
+      return Optional.absent();
+    }
+
+    int variantHash = Objects.hash(request.getQueryString(), Arrays.hashCode(variant));
+    return Optional.of(new EntityTag(String.format("%s-%s-%08x", resource, version.get(), variantHash)));
+  }
+
+  public static Response conditionalResponse(HttpServletRequest request, Optional<EntityTag> entityTag, Supplier<?> entity) {
+    if (!entityTag.isPresent()) {
+      return Response.ok(entity.get()).build();
+    }
+
+    if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), entityTag.get())) {
+      return Response.notModified(entityTag.get()).build();
+    }
+
+    return Response.ok(entity.get()).tag(entityTag.get()).build();
+  }
+
+  private static boolean matches(String ifNoneMatch, EntityTag entityTag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+
+    for (String candidate : ifNoneMatch.split(",")) {
+      String value = candidate.trim();
+      if (value.equals("*")) {
+        return true;
+      }
+      // Proxies may weaken the tag, which is fine for a GET
+      if (value.startsWith("W/")) {
+        value = value.substring(2);
+      }
+      if (value.equals(String.format("\"%s\"", entityTag.getValue()))) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+}
@@ -0,0 +1,107 @@
+package com.hubspot.singularity.resources;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+import org.apache.curator.framework.recipes.leader.LeaderLatch;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Optional;
+import com.google.inject.Inject;
+import com.hubspot.singularity.SingularityAuthorizationScope;
+import com.hubspot.singularity.SingularityEventType;
+import com.hubspot.singularity.SingularityUser;
+import com.hubspot.singularity.auth.SingularityAuthorizationHelper;
+import com.hubspot.singularity.config.ApiPaths;
+import com.hubspot.singularity.event.SingularityEventStream;
+import com.hubspot.singularity.event.SingularityEventSubscriber;
+import com.ning.http.client.AsyncHttpClient;
+
+import io.dropwizard.auth.Auth;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import io.swagger.v3.oas.annotations.tags.Tags;
+
+@Path(ApiPaths.EVENTS_RESOURCE_PATH)
+@Schema(title = "Subscribe to task, request and deploy updates")
+@Tags({@Tag(name = "Events")})
+public class EventResource extends AbstractLeaderAwareResource {
+  public static final String EVENT_STREAM_MEDIA_TYPE = "text/event-stream";
+
+  private final SingularityEventStream eventStream;
+  private final SingularityAuthorizationHelper authorizationHelper;
+
+  @Inject
+  public EventResource(AsyncHttpClient httpClient, LeaderLatch leaderLatch, ObjectMapper objectMapper, SingularityEventStream eventStream,
+                       SingularityAuthorizationHelper authorizationHelper) {
+    super(httpClient, leaderLatch, objectMapper);
+    this.eventStream = eventStream;
+    this.authorizationHelper = authorizationHelper;
+  }
+
+  @GET
+  @Path("/stream")
+  @Produces(EVENT_STREAM_MEDIA_TYPE)
+  @Operation(
+      summary = "Stream task, request and deploy updates as server-sent events",
+      description = "Each event has the update type as its name, the SingularityTaskHistoryUpdate, SingularityRequestHistory or SingularityDeployUpdate as its data, "
+          + "and an id to resume from. "
+          + "A client that falls too far behind is disconnected and should reconnect with the id of the last event it got. "
+          + "A RESET event means updates may have been missed and current state should be read again",
+      responses = {
+          @ApiResponse(responseCode = "307", description = "This instance is not the leader, the stream is served by the leader"),
+          @ApiResponse(responseCode = "503", description = "Too many open event streams")
+      }
+  )
+  public Response streamEvents(
+      @Context HttpServletRequest requestContext,
+      @Parameter(hidden = true) @Auth SingularityUser user,
+      @Parameter(description = "Only send updates for these requests. Streaming updates for all requests needs admin authorization") @QueryParam("requestId") List<String> requestIds,
+      @Parameter(description = "Only send these kinds of updates") @QueryParam("type") List<SingularityEventType> types,
+      @Parameter(description = "Resume after this event id") @HeaderParam("Last-Event-ID") String lastEventIdHeader,
+      @Parameter(description = "Resume after this event id, for clients that can't set the Last-Event-ID header") @QueryParam("lastEventId") String lastEventIdParam) {
+    Optional<Response> redirect = maybeRedirectToLeader(requestContext);
+    if (redirect.isPresent()) {
+      return redirect.get();
+    }
+
+    return streamEvents(user, requestIds, types, Optional.fromNullable(lastEventIdHeader).or(Optional.fromNullable(lastEventIdParam)));
+  }
+
+  public Response streamEvents(SingularityUser user, List<String> requestIds, List<SingularityEventType> types, Optional<String> lastEventId) {
+    Set<String> requestIdFilter = requestIds == null ? Collections.emptySet() : new HashSet<>(requestIds);
+    Set<SingularityEventType> typeFilter = types == null || types.isEmpty() ? Collections.emptySet() : EnumSet.copyOf(types);
+
+    if (requestIdFilter.isEmpty()) {
+      authorizationHelper.checkAdminAuthorization(user);
+    } else {
+      requestIdFilter.forEach((requestId) -> authorizationHelper.checkForAuthorizationByRequestId(requestId, user, SingularityAuthorizationScope.READ));
+    }
+
+    Optional<SingularityEventSubscriber> subscriber = eventStream.subscribe(requestIdFilter, typeFilter, lastEventId);
+    if (!subscriber.isPresent()) {
+      return Response.status(Status.SERVICE_UNAVAILABLE).entity("Too many open event streams").type("text/plain").build();
+    }
+
+    return Response.ok(subscriber.get(), EVENT_STREAM_MEDIA_TYPE)
+        .header("Cache-Control", "no-cache")
+        .header("X-Accel-Buffering", "no")
+        .build();
+  }
+}
@@ -19,6 +19,7 @@ import com.google.inject.Inject;
 import com.hubspot.singularity.ExtendedTaskState;
 import com.hubspot.singularity.OrderDirection;
 import com.hubspot.singularity.SingularityAuthorizationScope;
+import com.hubspot.singularity.SingularityCursorPaginatedResponse;
 import com.hubspot.singularity.SingularityDeployHistory;
 import com.hubspot.singularity.SingularityDeployKey;
 import com.hubspot.singularity.SingularityPaginatedResponse;
@@ -37,6 +38,7 @@ import com.hubspot.singularity.data.history.DeployHistoryHelper;
 import com.hubspot.singularity.data.history.DeployTaskHistoryHelper;
 import com.hubspot.singularity.data.history.HistoryManager;
 import com.hubspot.singularity.data.history.RequestHistoryHelper;
+import com.hubspot.singularity.data.history.TaskHistoryCursor;
 import com.hubspot.singularity.data.history.TaskHistoryHelper;
 
 import io.dropwizard.auth.Auth;
@@ -312,6 +314,41 @@ public class HistoryResource extends AbstractHistoryResource {
     return new SingularityPaginatedResponse<>(dataCount, pageCount, Optional.fromNullable(page), data);
   }
 
+  @GET
+  @Path("/request/{requestId}/tasks/cursor")
+  @Operation(
+      summary = "Retrieve a page of inactive tasks for a specific request, ordered by last update",
+      description = "Pages are addressed by the nextCursor of the previous page rather than a page number, so deep pages cost the same as the first one"
+  )
+  public SingularityCursorPaginatedResponse<SingularityTaskIdHistory> getTaskHistoryForRequestAfterCursor(
+      @Parameter(hidden = true) @Auth SingularityUser user,
+      @Parameter(required = true, description = "Request ID to match") @PathParam("requestId") String requestId,
+      @Parameter(description = "Optional deploy ID to match") @QueryParam("deployId") Optional<String> deployId,
+      @Parameter(description = "Optional runId to match") @QueryParam("runId") Optional<String> runId,
+      @Parameter(description = "Optional host to match") @QueryParam("host") Optional<String> host,
+      @Parameter(description = "Optional last task status to match") @QueryParam("lastTaskStatus") Optional<ExtendedTaskState> lastTaskStatus,
+      @Parameter(description = "Optionally match only tasks started before") @QueryParam("startedBefore") Optional<Long> startedBefore,
+      @Parameter(description = "Optionally match only tasks started after") @QueryParam("startedAfter") Optional<Long> startedAfter,
+      @Parameter(description = "Optionally match tasks last updated before") @QueryParam("updatedBefore") Optional<Long> updatedBefore,
+      @Parameter(description = "Optionally match tasks last updated after") @QueryParam("updatedAfter") Optional<Long> updatedAfter,
+      @Parameter(description = "Sort direction (by updatedAt)") @QueryParam("orderDirection") Optional<OrderDirection> orderDirection,
+      @Parameter(description = "Maximum number of items to return") @QueryParam("count") Integer count,
+      @Parameter(description = "nextCursor from the previous page, omit for the first page") @QueryParam("cursor") Optional<String> cursor) {
+    authorizationHelper.checkForAuthorizationByRequestId(requestId, user, SingularityAuthorizationScope.READ);
+
+    Optional<TaskHistoryCursor> maybeCursor = Optional.absent();
+    if (cursor.isPresent()) {
+      maybeCursor = TaskHistoryCursor.decode(cursor.get());
+      checkBadRequest(maybeCursor.isPresent(), "%s is not a valid cursor", cursor.get());
+    }
+
+    final int limitCount = getLimitCount(count);
+    checkBadRequest(limitCount > 0, "count param must be greater than 0 when paging by cursor");
+
+    return taskHistoryHelper.getBlendedHistoryAfterCursor(new SingularityTaskHistoryQuery(Optional.of(requestId), deployId, runId, host, lastTaskStatus, startedBefore, startedAfter, updatedBefore, updatedAfter, orderDirection),
+        maybeCursor, limitCount);
+  }
+
   @GET
   @Path("/request/{requestId}/run/{runId}")
   @Operation(
@@ -5,6 +5,8 @@ import static com.hubspot.singularity.WebExceptions.checkConflict;
 import static com.hubspot.singularity.WebExceptions.checkNotNullBadRequest;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
@@ -21,6 +23,7 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
@@ -28,6 +31,7 @@ import org.apache.curator.framework.recipes.leader.LeaderLatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Optional;
 import com.google.common.collect.Lists;
@@ -42,6 +46,7 @@ import com.hubspot.singularity.SingularityAction;
 import com.hubspot.singularity.SingularityAuthorizationScope;
 import com.hubspot.singularity.SingularityCreateResult;
 import com.hubspot.singularity.SingularityDeleteResult;
+import com.hubspot.singularity.SingularityDeltaResponse;
 import com.hubspot.singularity.SingularityPendingDeploy;
 import com.hubspot.singularity.SingularityPendingRequest;
 import com.hubspot.singularity.SingularityPendingRequest.PendingType;
@@ -86,12 +91,15 @@ import com.hubspot.singularity.expiring.SingularityExpiringScale;
 import com.hubspot.singularity.expiring.SingularityExpiringSkipHealthchecks;
 import com.hubspot.singularity.helpers.RebalancingHelper;
 import com.hubspot.singularity.helpers.RequestHelper;
+import com.hubspot.singularity.scheduler.SingularityLeaderCacheChanges;
 import com.hubspot.singularity.smtp.SingularityMailer;
 import com.ning.http.client.AsyncHttpClient;
 
 import io.dropwizard.auth.Auth;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.parameters.RequestBody;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -704,17 +712,72 @@ public class RequestResource extends AbstractRequestResource {
 
   @GET
   @PropertyFiltering
-  @Operation(summary = "Retrieve the list of all requests")
-  public List<SingularityRequestParent> getRequests(
+  @Operation(
+      summary = "Retrieve the list of all requests",
+      description = "Responses from the leader without full request data carry an ETag. Send it back as If-None-Match to get a 304 while nothing has changed",
+      responses = {
+          @ApiResponse(responseCode = "200", content = @Content(array = @ArraySchema(schema = @Schema(implementation = SingularityRequestParent.class)))),
+          @ApiResponse(responseCode = "304", description = "Nothing changed since the response the If-None-Match ETag came from")
+      }
+  )
+  public Response getRequests(
+      @Context HttpServletRequest requestContext,
       @Parameter(hidden = true) @Auth SingularityUser user,
       @Parameter(description = "Fetched a cached version of this data to limit expensive operations") @QueryParam("useWebCache") Boolean useWebCache,
       @Parameter(description = "Only include requests that the user has operated on or is in a group for") @QueryParam("filterRelevantForUser") Boolean filterRelevantForUser,
       @Parameter(description = "Return full data, including deploy data and active task ids") @QueryParam("includeFullRequestData") Boolean includeFullRequestData,
       @Parameter(description = "The maximum number of results to return") @QueryParam("limit") Integer limit,
       @Parameter(description = "Only return requests of these types") @QueryParam("requestType") List<RequestType> requestTypes) {
-    return requestHelper.fillDataForRequestsAndFilter(
+    // Full request data also comes from request history, expiring actions and tasks, which the version doesn't cover
+    Optional<String> version = valueOrFalse(includeFullRequestData) ? Optional.absent() : requestManager.getRequestsVersion().transform((v) -> Long.toString(v));
+    Optional<EntityTag> entityTag = version.isPresent() ?
+        ConditionalGetUtils.entityTag("requests", version, requestContext, user, requestHelper.getUserSettings(user)) :
+        Optional.absent();
+
+    return ConditionalGetUtils.conditionalResponse(requestContext, entityTag, () -> requestHelper.fillDataForRequestsAndFilter(
         filterAutorized(requestManager.getRequests(useWebCache(useWebCache)), SingularityAuthorizationScope.READ, user),
-        user, valueOrFalse(filterRelevantForUser), valueOrFalse(includeFullRequestData), Optional.fromNullable(limit), requestTypes);
+        user, valueOrFalse(filterRelevantForUser), valueOrFalse(includeFullRequestData), Optional.fromNullable(limit), requestTypes));
+  }
+
+  @GET
+  @PropertyFiltering
+  @Path("/delta")
+  @Operation(
+      summary = "Retrieve the requests that changed or were removed since a previous version",
+      description = "Returns every request, with full set to true, when since is absent or no longer known to the leader. Property filters apply to the whole response, e.g. property=objects.request"
+  )
+  public SingularityDeltaResponse<SingularityRequestParent> getRequestsDelta(
+      @Context HttpServletRequest requestContext,
+      @Parameter(hidden = true) @Auth SingularityUser user,
+      @Parameter(description = "The version from a previous delta response") @QueryParam("since") Long since) {
+    return maybeProxyToLeader(requestContext, new TypeReference<SingularityDeltaResponse<SingularityRequestParent>>() {}, null, () -> getRequestsDelta(user, Optional.fromNullable(since)));
+  }
+
+  public SingularityDeltaResponse<SingularityRequestParent> getRequestsDelta(SingularityUser user, Optional<Long> since) {
+    // Read the version before the data, so that a change made in between is sent again rather than missed
+    final Optional<Long> version = requestManager.getRequestsVersion();
+    final Optional<SingularityLeaderCacheChanges<String>> changes = since.isPresent() ? requestManager.getRequestChangesSince(since.get()) : Optional.absent();
+
+    if (!version.isPresent() || !changes.isPresent()) {
+      List<SingularityRequestParent> requests = requestHelper.fillDataForRequestsAndFilter(
+          filterAutorized(requestManager.getRequests(false), SingularityAuthorizationScope.READ, user), user, false, false, Optional.absent(), Collections.emptyList());
+      return new SingularityDeltaResponse<>(version.or(0L), true, requests, Collections.emptyList());
+    }
+
+    List<SingularityRequestWithState> changed = filterAutorized(requestManager.getRequests(new HashSet<>(changes.get().getChanged()), false), SingularityAuthorizationScope.READ, user);
+    Set<String> changedIds = changed.stream().map((r) -> r.getRequest().getId()).collect(Collectors.toSet());
+
+    // Requests that are gone by now, or that the user may no longer read, have to be dropped by the client as well
+    List<String> removedIds = new ArrayList<>(changes.get().getRemoved());
+    changes.get().getChanged().stream()
+        .filter((requestId) -> !changedIds.contains(requestId))
+        .forEach(removedIds::add);
+
+    return new SingularityDeltaResponse<>(
+        changes.get().getVersion(),
+        false,
+        requestHelper.fillDataForRequestsAndFilter(changed, user, false, false, Optional.absent(), Collections.emptyList()),
+        removedIds);
   }
 
   private boolean valueOrFalse(Boolean input) {
@@ -2,11 +2,15 @@ package com.hubspot.singularity.resources;
 
 import java.util.List;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
 
 import com.google.common.base.Optional;
 import com.google.inject.Inject;
@@ -16,6 +20,7 @@ import com.hubspot.singularity.config.ApiPaths;
 import com.hubspot.singularity.data.StateManager;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -34,9 +39,20 @@ public class StateResource {
   }
 
   @GET
-  @Operation(summary = "Retrieve information about the current state of Singularity.")
-  public SingularityState getState(@QueryParam("skipCache") boolean skipCache, @QueryParam("includeRequestIds") boolean includeRequestIds) {
-    return stateManager.getState(skipCache, includeRequestIds);
+  @Operation(
+      summary = "Retrieve information about the current state of Singularity.",
+      description = "Responses carry an ETag. Send it back as If-None-Match to get a 304 until the state is generated again",
+      responses = {
+          @ApiResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = SingularityState.class))),
+          @ApiResponse(responseCode = "304", description = "The state hasn't been generated again since the response the If-None-Match ETag came from")
+      }
+  )
+  public Response getState(@Context HttpServletRequest requestContext, @QueryParam("skipCache") boolean skipCache, @QueryParam("includeRequestIds") boolean includeRequestIds) {
+    final SingularityState state = stateManager.getState(skipCache, includeRequestIds);
+    // The state is only regenerated every publishStateEveryMillis, and every instance serves the same published copy
+    final Optional<EntityTag> entityTag = ConditionalGetUtils.entityTag("state", Optional.of(Long.toString(state.getGeneratedAt())), requestContext);
+
+    return ConditionalGetUtils.conditionalResponse(requestContext, entityTag, () -> state);
   }
 
   @GET
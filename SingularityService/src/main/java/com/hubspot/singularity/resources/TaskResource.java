@@ -9,8 +9,10 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.net.ConnectException;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 
 import javax.activation.MimetypesFileTypeMap;
@@ -25,6 +27,7 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.ResponseBuilder;
@@ -35,6 +38,7 @@ import org.apache.curator.framework.recipes.leader.LeaderLatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
@@ -50,6 +54,7 @@ import com.hubspot.singularity.RequestType;
 import com.hubspot.singularity.SingularityAction;
 import com.hubspot.singularity.SingularityAuthorizationScope;
 import com.hubspot.singularity.SingularityCreateResult;
+import com.hubspot.singularity.SingularityDeltaResponse;
 import com.hubspot.singularity.SingularityKilledTaskIdRecord;
 import com.hubspot.singularity.SingularityPendingRequest;
 import com.hubspot.singularity.SingularityPendingRequest.PendingType;
@@ -87,6 +92,7 @@ import com.hubspot.singularity.data.SlaveManager;
 import com.hubspot.singularity.data.TaskManager;
 import com.hubspot.singularity.data.TaskRequestManager;
 import com.hubspot.singularity.helpers.RequestHelper;
+import com.hubspot.singularity.scheduler.SingularityLeaderCacheChanges;
 import com.ning.http.client.AsyncHandler;
 import com.ning.http.client.AsyncHttpClient;
 import com.ning.http.client.AsyncHttpClient.BoundRequestBuilder;
@@ -98,6 +104,8 @@ import com.ning.http.client.PerRequestConfig;
 import io.dropwizard.auth.Auth;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.parameters.RequestBody;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -299,11 +307,62 @@ public class TaskResource extends AbstractLeaderAwareResource {
   @GET
   @PropertyFiltering
   @Path("/active")
-  @Operation(summary = "Retrieve the list of active tasks for all requests")
-  public List<SingularityTask> getActiveTasks(
+  @Operation(
+      summary = "Retrieve the list of active tasks for all requests",
+      description = "Responses from the leader, or served from the web cache, carry an ETag. Send it back as If-None-Match to get a 304 while nothing has changed",
+      responses = {
+          @ApiResponse(responseCode = "200", content = @Content(array = @ArraySchema(schema = @Schema(implementation = SingularityTask.class)))),
+          @ApiResponse(responseCode = "304", description = "Nothing changed since the response the If-None-Match ETag came from")
+      }
+  )
+  public Response getActiveTasks(
+      @Context HttpServletRequest requestContext,
       @Parameter(hidden = true) @Auth SingularityUser user,
       @Parameter(description = "Use the cached version of this data to limit expensive api calls") @QueryParam("useWebCache") Boolean useWebCache) {
-    return authorizationHelper.filterByAuthorizedRequests(user, taskManager.getActiveTasks(useWebCache(useWebCache)), SingularityTransformHelpers.TASK_TO_REQUEST_ID, SingularityAuthorizationScope.READ);
+    Optional<EntityTag> entityTag = ConditionalGetUtils.entityTag("tasks", taskManager.getActiveTasksVersion(useWebCache(useWebCache)), requestContext, user);
+
+    return ConditionalGetUtils.conditionalResponse(requestContext, entityTag, () ->
+        authorizationHelper.filterByAuthorizedRequests(user, taskManager.getActiveTasks(useWebCache(useWebCache)), SingularityTransformHelpers.TASK_TO_REQUEST_ID, SingularityAuthorizationScope.READ));
+  }
+
+  @GET
+  @PropertyFiltering
+  @Path("/active/delta")
+  @Operation(
+      summary = "Retrieve the active tasks that started or finished since a previous version",
+      description = "Returns every active task, with full set to true, when since is absent or no longer known to the leader. Property filters apply to the whole response, e.g. property=objects.taskId"
+  )
+  public SingularityDeltaResponse<SingularityTask> getActiveTasksDelta(
+      @Context HttpServletRequest requestContext,
+      @Parameter(hidden = true) @Auth SingularityUser user,
+      @Parameter(description = "The version from a previous delta response") @QueryParam("since") Long since) {
+    return maybeProxyToLeader(requestContext, new TypeReference<SingularityDeltaResponse<SingularityTask>>() {}, null, () -> getActiveTasksDelta(user, Optional.fromNullable(since)));
+  }
+
+  public SingularityDeltaResponse<SingularityTask> getActiveTasksDelta(SingularityUser user, Optional<Long> since) {
+    // Read the version before the data, so that a change made in between is sent again rather than missed
+    final Optional<Long> version = taskManager.getActiveTasksDeltaVersion();
+    final Optional<SingularityLeaderCacheChanges<SingularityTaskId>> changes = since.isPresent() ? taskManager.getActiveTaskChangesSince(since.get()) : Optional.absent();
+
+    if (!version.isPresent() || !changes.isPresent()) {
+      List<SingularityTask> tasks = authorizationHelper.filterByAuthorizedRequests(user, taskManager.getActiveTasks(false), SingularityTransformHelpers.TASK_TO_REQUEST_ID, SingularityAuthorizationScope.READ);
+      return new SingularityDeltaResponse<>(version.or(0L), true, tasks, Collections.emptyList());
+    }
+
+    Map<SingularityTaskId, SingularityTask> started = taskManager.getTasks(changes.get().getChanged());
+
+    List<String> removedIds = new ArrayList<>();
+    changes.get().getRemoved().forEach((taskId) -> removedIds.add(taskId.getId()));
+    // Already cleaned up from zk, so they can't be active any more either
+    changes.get().getChanged().stream()
+        .filter((taskId) -> !started.containsKey(taskId))
+        .forEach((taskId) -> removedIds.add(taskId.getId()));
+
+    return new SingularityDeltaResponse<>(
+        changes.get().getVersion(),
+        false,
+        authorizationHelper.filterByAuthorizedRequests(user, new ArrayList<>(started.values()), SingularityTransformHelpers.TASK_TO_REQUEST_ID, SingularityAuthorizationScope.READ),
+        removedIds);
   }
 
   @GET
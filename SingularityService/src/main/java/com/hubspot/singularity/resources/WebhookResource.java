@@ -2,6 +2,7 @@ package com.hubspot.singularity.resources;
 
 import java.util.List;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
@@ -10,8 +11,13 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 
+import org.apache.curator.framework.recipes.leader.LeaderLatch;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.inject.Inject;
 import com.hubspot.mesos.JavaUtils;
 import com.hubspot.singularity.SingularityAction;
@@ -27,6 +33,8 @@ import com.hubspot.singularity.auth.SingularityAuthorizationHelper;
 import com.hubspot.singularity.config.ApiPaths;
 import com.hubspot.singularity.data.SingularityValidator;
 import com.hubspot.singularity.data.WebhookManager;
+import com.hubspot.singularity.hooks.SingularityWebhookSender;
+import com.ning.http.client.AsyncHttpClient;
 
 import io.dropwizard.auth.Auth;
 import io.swagger.v3.oas.annotations.Operation;
@@ -41,14 +49,18 @@ import io.swagger.v3.oas.annotations.tags.Tags;
 @Produces({ MediaType.APPLICATION_JSON })
 @Schema(title = "Manage Singularity webhooks")
 @Tags({@Tag(name = "Webhooks")})
-public class WebhookResource {
+public class WebhookResource extends AbstractLeaderAwareResource {
   private final WebhookManager webhookManager;
+  private final SingularityWebhookSender webhookSender;
   private final SingularityAuthorizationHelper authorizationHelper;
   private final SingularityValidator validator;
 
   @Inject
-  public WebhookResource(WebhookManager webhookManager, SingularityAuthorizationHelper authorizationHelper, SingularityValidator validator) {
+  public WebhookResource(AsyncHttpClient httpClient, LeaderLatch leaderLatch, ObjectMapper objectMapper, WebhookManager webhookManager, SingularityWebhookSender webhookSender,
+                         SingularityAuthorizationHelper authorizationHelper, SingularityValidator validator) {
+    super(httpClient, leaderLatch, objectMapper);
     this.webhookManager = webhookManager;
+    this.webhookSender = webhookSender;
     this.authorizationHelper = authorizationHelper;
     this.validator = validator;
   }
@@ -62,16 +74,24 @@ public class WebhookResource {
 
   @GET
   @Path("/summary")
-  @Operation(summary = "Retrieve a summary of each active webhook")
-  public List<SingularityWebhookSummary> getWebhooksWithQueueSize(@Parameter(hidden = true) @Auth SingularityUser user) {
+  @Operation(summary = "Retrieve a summary of each active webhook, including how deliveries to it have been going")
+  public List<SingularityWebhookSummary> getWebhooksWithQueueSize(
+      @Context HttpServletRequest requestContext,
+      @Parameter(hidden = true) @Auth SingularityUser user) {
+    // Delivery stats only live on the leader
+    return maybeProxyToLeader(requestContext, new TypeReference<List<SingularityWebhookSummary>>() {}, null, () -> getWebhooksWithQueueSize(user));
+  }
+
+  public List<SingularityWebhookSummary> getWebhooksWithQueueSize(SingularityUser user) {
     authorizationHelper.checkAdminAuthorization(user);
-    return webhookManager.getWebhooksWithQueueSize();
+    return webhookManager.getWebhooksWithQueueSize(webhookSender::getDeliveryStats);
   }
 
   @POST
   @Consumes({ MediaType.APPLICATION_JSON })
   @Operation(
       summary = "Add a new webhook",
+      description = "Adding a webhook that already exists updates whether it is batched",
       responses = {
           @ApiResponse(responseCode = "409", description = "Adding new webhooks is currently disabled")
       }
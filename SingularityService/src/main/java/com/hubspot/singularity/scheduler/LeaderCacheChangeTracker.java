@@ -0,0 +1,102 @@
+package com.hubspot.singularity.scheduler;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Optional;
+
+/**
+ * Remembers the state version at which each key of a leader cache collection last changed or was removed, so that
+ * polling clients can ask for only what changed after a version they already saw. Only the most recent removals are
+ * kept; asking for changes from before the oldest dropped removal returns absent and the caller has to read everything.
+ */
+class LeaderCacheChangeTracker<K> {
+  private final AtomicLong stateVersion;
+  private final int maxRemoved;
+
+  private final Map<K, Long> changed;
+  // Versions are handed out under the lock, so insertion order is version order
+  private final LinkedHashMap<K, Long> removed;
+
+  private long floor;
+  private long version;
+
+  LeaderCacheChangeTracker(AtomicLong stateVersion, int maxRemoved) {
+    this.stateVersion = stateVersion;
+    this.maxRemoved = maxRemoved;
+    this.changed = new HashMap<>();
+    this.removed = new LinkedHashMap<>();
+  }
+
+  synchronized void reset(Collection<K> keys) {
+    final long next = stateVersion.incrementAndGet();
+    changed.clear();
+    removed.clear();
+    keys.forEach((key) -> changed.put(key, next));
+    floor = next;
+    version = next;
+  }
+
+  /**
+   * Versions handed out before this call can't be compared with the ones after it, e.g. because they came from
+   * another leader, so any client that asks for changes since one of them gets everything.
+   */
+  synchronized void rebase() {
+    final long next = stateVersion.incrementAndGet();
+    floor = next;
+    version = next;
+  }
+
+  synchronized void markChanged(K key) {
+    final long next = stateVersion.incrementAndGet();
+    changed.put(key, next);
+    removed.remove(key);
+    version = next;
+  }
+
+  synchronized void markRemoved(K key) {
+    final long next = stateVersion.incrementAndGet();
+    changed.remove(key);
+    removed.remove(key);
+    removed.put(key, next);
+    version = next;
+
+    Iterator<Map.Entry<K, Long>> oldest = removed.entrySet().iterator();
+    while (removed.size() > maxRemoved && oldest.hasNext()) {
+      floor = oldest.next().getValue();
+      oldest.remove();
+    }
+  }
+
+  synchronized long getVersion() {
+    return version;
+  }
+
+  synchronized Optional<SingularityLeaderCacheChanges<K>> getChangesSince(long since) {
+    if (since < floor || since > version) {
+      return Optional.absent();
+    }
+
+    List<K> changedKeys = new ArrayList<>();
+    changed.forEach((key, changedAt) -> {
+      if (changedAt > since) {
+        changedKeys.add(key);
+      }
+    });
+
+    List<K> removedKeys = new ArrayList<>();
+    removed.forEach((key, removedAt) -> {
+      if (removedAt > since) {
+        removedKeys.add(key);
+      }
+    });
+
+    return Optional.of(new SingularityLeaderCacheChanges<>(version, changedKeys, removedKeys));
+  }
+}
@@ -332,7 +332,7 @@ public class SingularityCleaner {
     cleanupRequests.parallelStream().forEach((requestCleanup) -> {
       lock.runWithRequestLock(() -> {
         processRequestCleanup(start, numTasksKilled, numScheduledTasksRemoved, requestCleanup);
-      }, requestCleanup.getRequestId(), String.format("%s#%s", getClass().getSimpleName(), "drainRequestCleanupQueue"));
+      }, requestCleanup.getRequestId(), "SingularityCleaner#drainRequestCleanupQueue");
     });
 
     LOG.info("Killed {} tasks (removed {} scheduled) in {}", numTasksKilled.get(), numScheduledTasksRemoved.get(), JavaUtils.duration(start));
@@ -587,7 +587,7 @@ public class SingularityCleaner {
                 waiting.getAndIncrement();
               }
             }
-          }, killedTaskIdRecordsForRequest.getKey(), String.format("%s#%s", getClass().getSimpleName(), "checkKilledTaskIdRecords"));
+          }, killedTaskIdRecordsForRequest.getKey(), "SingularityCleaner#checkKilledTaskIdRecords");
         });
 
     LOG.info("{} obsolete, {} waiting, {} rekilled tasks based on {} killedTaskIdRecords", obsolete, waiting, rekilled, killedTaskIdRecords.size());
@@ -611,7 +611,7 @@ public class SingularityCleaner {
         .forEach((taskCleanupsForRequest) -> {
           lock.runWithRequestLock(() -> {
             processTaskCleanupsForRequest(taskCleanupsForRequest.getKey(), taskCleanupsForRequest.getValue(), killedTasks);
-          }, taskCleanupsForRequest.getKey(), String.format("%s#%s", getClass().getSimpleName(), "drainTaskCleanupQueue"));
+          }, taskCleanupsForRequest.getKey(), "SingularityCleaner#drainTaskCleanupQueue");
         });
 
     LOG.info("Killed {} tasks in {}", killedTasks, JavaUtils.duration(start));
@@ -848,7 +848,7 @@ public class SingularityCleaner {
 
               taskManager.deleteLBCleanupTask(taskId);
             }
-          }, lbCleanupsForRequest.getKey(), String.format("%s#%s", getClass().getSimpleName(), "drainLBTaskCleanupQueue"));
+          }, lbCleanupsForRequest.getKey(), "SingularityCleaner#drainLBTaskCleanupQueue");
         });
 
     LOG.info("LB cleaned {} tasks ({} left, {} obsolete) in {}", cleanedTasks, lbCleanupTasks.size() - (ignoredTasks.get() + cleanedTasks.get()), ignoredTasks, JavaUtils.duration(start));
@@ -891,7 +891,7 @@ public class SingularityCleaner {
         }
 
         requestManager.deleteLbCleanupRequest(cleanup.getRequestId());
-      }, cleanup.getRequestId(), String.format("%s#%s", getClass().getSimpleName(), "drainLBRequestCleanupQueue"));
+      }, cleanup.getRequestId(), "SingularityCleaner#drainLBRequestCleanupQueue");
     });
     LOG.info("LB cleaned {} requests ({} left, {} obsolete) in {}", cleanedRequests, lbCleanupRequests.size() - (ignoredRequests.get() + cleanedRequests.get()), ignoredRequests, JavaUtils.duration(start));
   }
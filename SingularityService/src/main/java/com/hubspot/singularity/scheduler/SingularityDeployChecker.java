@@ -107,7 +107,7 @@ public class SingularityDeployChecker {
     pendingDeploys.parallelStream().forEach((pendingDeploy) -> {
       lock.runWithRequestLock(() -> {
         checkDeploy(pendingDeploy, cancelDeploys, pendingDeployToKey, deployKeyToDeploy, updateRequests);
-      }, pendingDeploy.getDeployMarker().getRequestId(), getClass().getSimpleName());
+      }, pendingDeploy.getDeployMarker().getRequestId(), "SingularityDeployChecker");
     });
 
     cancelDeploys.forEach(deployManager::deleteCancelDeployRequest);
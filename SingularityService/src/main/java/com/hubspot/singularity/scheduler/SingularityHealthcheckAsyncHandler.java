@@ -2,6 +2,7 @@ package com.hubspot.singularity.scheduler;
 
 import java.net.ConnectException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,6 +29,7 @@ public class SingularityHealthcheckAsyncHandler extends AsyncCompletionHandler<R
   private final TaskManager taskManager;
   private final int maxHealthcheckResponseBodyBytes;
   private final List<Integer> failureStatusCodes;
+  private final CompletableFuture<Void> finished;
 
   public SingularityHealthcheckAsyncHandler(SingularityExceptionNotifier exceptionNotifier, SingularityConfiguration configuration, SingularityHealthchecker healthchecker,
       SingularityNewTaskChecker newTaskChecker, TaskManager taskManager, SingularityTask task) {
@@ -41,9 +43,18 @@ public class SingularityHealthcheckAsyncHandler extends AsyncCompletionHandler<R
       task.getTaskRequest().getDeploy().getHealthcheck().get().getFailureStatusCodes().or(configuration.getHealthcheckFailureStatusCodes()) :
       configuration.getHealthcheckFailureStatusCodes();
 
+    this.finished = new CompletableFuture<>();
+
     startTime = System.currentTimeMillis();
   }
 
+  /**
+   * Completes once the result has been saved, whether or not the healthcheck passed.
+   */
+  public CompletableFuture<Void> getFinished() {
+    return finished;
+  }
+
   @Override
   public Response onCompleted(Response response) throws Exception {
     Optional<String> responseBody = Optional.absent();
@@ -99,6 +110,8 @@ public class SingularityHealthcheckAsyncHandler extends AsyncCompletionHandler<R
       exceptionNotifier.notify(String.format("Error saving healthcheck (%s)", t.getMessage()), t, ImmutableMap.of("taskId", task.getTaskId().toString()));
 
       healthchecker.reEnqueueOrAbort(task, inStartup);
+    } finally {
+      finished.complete(null);
     }
   }
 
@@ -1,10 +1,17 @@
 package com.hubspot.singularity.scheduler;
 
+import java.util.ArrayDeque;
 import java.util.Collection;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 import javax.inject.Singleton;
 
@@ -12,6 +19,9 @@ import org.apache.commons.lang3.time.DurationFormatUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.codahale.metrics.annotation.Timed;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Optional;
@@ -33,6 +43,8 @@ import com.hubspot.singularity.SingularityTask;
 import com.hubspot.singularity.SingularityTaskHealthcheckResult;
 import com.hubspot.singularity.SingularityTaskHistoryUpdate;
 import com.hubspot.singularity.SingularityTaskId;
+import com.hubspot.singularity.async.HashedTimerWheel;
+import com.hubspot.singularity.async.HashedTimerWheel.WheelTask;
 import com.hubspot.singularity.config.SingularityConfiguration;
 import com.hubspot.singularity.data.DisasterManager;
 import com.hubspot.singularity.data.TaskManager;
@@ -41,9 +53,17 @@ import com.ning.http.client.AsyncHttpClient;
 import com.ning.http.client.PerRequestConfig;
 import com.ning.http.client.RequestBuilder;
 
+/**
+ * Healthchecks are scheduled on a timer wheel rather than as one ScheduledFuture each, so that tens of thousands of
+ * starting tasks stay cheap to track. A check that comes due waits for a slot on its agent before it is issued. The
+ * time from when it was due until it is actually issued is recorded as healthchecks.lateness. An agent's slots are
+ * dropped once it has no checks waiting or in flight.
+ */
 @Singleton
 public class SingularityHealthchecker {
   private static final HealthcheckProtocol DEFAULT_HEALTH_CHECK_SCHEME = HealthcheckProtocol.HTTP;
+  // With the default tick of 100ms, one turn of the wheel is about a minute
+  private static final int TIMER_WHEEL_SIZE = 512;
 
   private static final Logger LOG = LoggerFactory.getLogger(SingularityHealthchecker.class);
 
@@ -53,9 +73,14 @@ public class SingularityHealthchecker {
   private final SingularityAbort abort;
   private final SingularityNewTaskChecker newTaskChecker;
 
-  private final Map<String, ScheduledFuture<?>> taskIdToHealthcheck;
+  private final Map<String, WheelTask> taskIdToHealthcheck;
+  private final ConcurrentMap<String, AgentHealthchecks> agentHealthchecks;
+  // A check only knows it is still current once it is in taskIdToHealthcheck, so it's scheduled and put there as one
+  private final Object scheduleLock;
+  private final AtomicInteger inFlight;
 
-  private final ScheduledExecutorService executorService;
+  private final HashedTimerWheel timerWheel;
+  private final Timer lateness;
 
   private final SingularityExceptionNotifier exceptionNotifier;
   private final DisasterManager disasterManager;
@@ -65,7 +90,7 @@ public class SingularityHealthchecker {
   public SingularityHealthchecker(@Named(SingularityMainModule.HEALTHCHECK_THREADPOOL_NAME) ScheduledExecutorService executorService,
                                   AsyncHttpClient http, SingularityConfiguration configuration, SingularityNewTaskChecker newTaskChecker,
                                   TaskManager taskManager, SingularityAbort abort, SingularityExceptionNotifier exceptionNotifier, DisasterManager disasterManager,
-                                  MesosProtosUtils mesosProtosUtils) {
+                                  MesosProtosUtils mesosProtosUtils, MetricRegistry metricRegistry) {
     this.http = http;
     this.configuration = configuration;
     this.newTaskChecker = newTaskChecker;
@@ -74,10 +99,17 @@ public class SingularityHealthchecker {
     this.exceptionNotifier = exceptionNotifier;
 
     this.taskIdToHealthcheck = Maps.newConcurrentMap();
+    this.agentHealthchecks = Maps.newConcurrentMap();
+    this.scheduleLock = new Object();
+    this.inFlight = new AtomicInteger();
 
-    this.executorService = executorService;
+    this.timerWheel = new HashedTimerWheel(executorService, configuration.getHealthcheckTimerTickMillis(), TIMER_WHEEL_SIZE);
+    this.lateness = metricRegistry.timer("healthchecks.lateness");
     this.disasterManager = disasterManager;
     this.mesosProtosUtils = mesosProtosUtils;
+
+    metricRegistry.register("healthchecks.scheduled", (Gauge<Integer>) timerWheel::size);
+    metricRegistry.register("healthchecks.inFlight", (Gauge<Integer>) inFlight::get);
   }
 
   public void enqueueHealthcheck(SingularityTask task, boolean ignoreExisting, boolean inStartup, boolean isFirstCheck) {
@@ -100,9 +132,11 @@ public class SingularityHealthchecker {
       return;
     }
 
-    ScheduledFuture<?> future = enqueueHealthcheckWithDelay(task, getDelaySeconds(task.getTaskId(), options, inStartup, isFirstCheck), inStartup);
-
-    ScheduledFuture<?> existing = taskIdToHealthcheck.put(task.getTaskId().getId(), future);
+    WheelTask existing;
+    synchronized (scheduleLock) {
+      WheelTask future = enqueueHealthcheckWithDelay(task, getDelaySeconds(task.getTaskId(), options, inStartup, isFirstCheck), inStartup);
+      existing = taskIdToHealthcheck.put(task.getTaskId().getId(), future);
+    }
 
     if (existing != null) {
       boolean canceledExisting = existing.cancel(false);
@@ -156,16 +190,30 @@ public class SingularityHealthchecker {
   }
 
   @VisibleForTesting
-  Collection<ScheduledFuture<?>> getHealthCheckFutures() {
+  Collection<WheelTask> getHealthCheckFutures() {
     return taskIdToHealthcheck.values();
   }
 
+  @VisibleForTesting
+  int getNumAgentsWithHealthchecks() {
+    return agentHealthchecks.size();
+  }
+
+  /**
+   * A check that was cancelled or replaced after it came due may still be waiting for a slot on its agent.
+   */
+  private boolean isCurrent(SingularityTaskId taskId, AtomicReference<WheelTask> healthcheck) {
+    synchronized (scheduleLock) {
+      return taskIdToHealthcheck.get(taskId.getId()) == healthcheck.get();
+    }
+  }
+
   public void markHealthcheckFinished(String taskId) {
     taskIdToHealthcheck.remove(taskId);
   }
 
   public boolean cancelHealthcheck(String taskId) {
-    ScheduledFuture<?> future = taskIdToHealthcheck.remove(taskId);
+    WheelTask future = taskIdToHealthcheck.remove(taskId);
 
     if (future == null) {
       return false;
@@ -178,15 +226,18 @@ public class SingularityHealthchecker {
     return canceled;
   }
 
-  private ScheduledFuture<?> enqueueHealthcheckWithDelay(final SingularityTask task, long delaySeconds, final boolean inStartup) {
+  private WheelTask enqueueHealthcheckWithDelay(final SingularityTask task, long delaySeconds, final boolean inStartup) {
     LOG.trace("Enqueuing a healthcheck for task {} with delay {}", task.getTaskId(), DurationFormatUtils.formatDurationHMS(TimeUnit.SECONDS.toMillis(delaySeconds)));
 
-    return executorService.schedule(new Runnable() {
+    final long dueAt = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(delaySeconds);
+    final AtomicReference<WheelTask> self = new AtomicReference<>();
+
+    WheelTask healthcheck = timerWheel.schedule(new Runnable() {
 
       @Override
       public void run() {
         try {
-          asyncHealthcheck(task);
+          asyncHealthcheck(task, dueAt, self);
         } catch (Throwable t) {
           LOG.error("Uncaught throwable in async healthcheck", t);
           exceptionNotifier.notify(String.format("Uncaught throwable in async healthcheck (%s)", t.getMessage()), t, ImmutableMap.of("taskId", task.getTaskId().toString()));
@@ -196,6 +247,9 @@ public class SingularityHealthchecker {
       }
 
     }, delaySeconds, TimeUnit.SECONDS);
+
+    self.set(healthcheck);
+    return healthcheck;
   }
 
   public void reEnqueueOrAbort(SingularityTask task, boolean inStartup) {
@@ -274,28 +328,115 @@ public class SingularityHealthchecker {
     return true;
   }
 
-  private void asyncHealthcheck(final SingularityTask task) {
-    final SingularityHealthcheckAsyncHandler handler = new SingularityHealthcheckAsyncHandler(exceptionNotifier, configuration, this, newTaskChecker, taskManager, task);
+  private void asyncHealthcheck(final SingularityTask task, final long dueAt, final AtomicReference<WheelTask> healthcheck) {
     final Optional<String> uri = getHealthcheckUri(task);
 
     if (!uri.isPresent()) {
-      saveFailure(handler, "Invalid healthcheck uri or ports not present");
+      saveFailure(newHandler(task), "Invalid healthcheck uri or ports not present");
       return;
     }
 
     final Integer timeoutSeconds = task.getTaskRequest().getDeploy().getHealthcheck().isPresent() ?
       task.getTaskRequest().getDeploy().getHealthcheck().get().getResponseTimeoutSeconds().or(configuration.getHealthcheckTimeoutSeconds()) : configuration.getHealthcheckTimeoutSeconds();
 
+    final Supplier<CompletableFuture<Void>> check = () -> {
+      if (!isCurrent(task.getTaskId(), healthcheck)) {
+        LOG.debug("Not issuing healthcheck for {}, it was cancelled or replaced while waiting for a slot", task.getTaskId());
+        return CompletableFuture.completedFuture(null);
+      }
+
+      lateness.update(Math.max(System.currentTimeMillis() - dueAt, 0), TimeUnit.MILLISECONDS);
+      inFlight.incrementAndGet();
+
+      // Created once a slot is free, so the recorded duration doesn't include waiting for one
+      SingularityHealthcheckAsyncHandler handler = newHandler(task);
+      handler.getFinished().whenComplete((result, t) -> inFlight.decrementAndGet());
+      issueHealthcheck(task, handler, uri.get(), timeoutSeconds);
+      return handler.getFinished();
+    };
+
+    final AtomicBoolean slotTaken = new AtomicBoolean();
+    agentHealthchecks.compute(task.getHostname(), (host, existing) -> {
+      AgentHealthchecks current = existing == null ? new AgentHealthchecks() : existing;
+      if (current.running < configuration.getMaxConcurrentHealthchecksPerAgent()) {
+        current.running++;
+        slotTaken.set(true);
+      } else {
+        current.waiting.add(check);
+      }
+      return current;
+    });
+
+    if (slotTaken.get()) {
+      runOnAgent(task.getHostname(), check);
+    }
+  }
+
+  /**
+   * Runs the check in a slot that was already taken for it, then hands that slot to whichever check has waited on the
+   * agent the longest. Checks that finish right away, e.g. because they were cancelled while waiting, are looped over
+   * here rather than run from each other's completion, so a long line of them doesn't grow the stack.
+   */
+  private void runOnAgent(String host, Supplier<CompletableFuture<Void>> check) {
+    Supplier<CompletableFuture<Void>> next = check;
+
+    while (next != null) {
+      CompletableFuture<Void> finished;
+      try {
+        finished = next.get();
+      } catch (Throwable t) {
+        LOG.error("Unexpected exception while issuing a healthcheck on {}", host, t);
+        finished = CompletableFuture.completedFuture(null);
+      }
+
+      if (!finished.isDone()) {
+        finished.whenComplete((result, t) -> {
+          Supplier<CompletableFuture<Void>> following = releaseSlot(host);
+          if (following != null) {
+            runOnAgent(host, following);
+          }
+        });
+        return;
+      }
+
+      next = releaseSlot(host);
+    }
+  }
+
+  /**
+   * The next check waiting on the agent, which keeps the slot, or null once none is left and the slot was given back.
+   * Taking from the queue and giving back the slot happen under the same lock as queueing a check, so a check can't be
+   * queued just as the last slot is given back and then wait for a completion that never comes.
+   */
+  private Supplier<CompletableFuture<Void>> releaseSlot(String host) {
+    final AtomicReference<Supplier<CompletableFuture<Void>>> next = new AtomicReference<>();
+
+    agentHealthchecks.computeIfPresent(host, (ignored, current) -> {
+      next.set(current.waiting.poll());
+      if (next.get() != null) {
+        return current;
+      }
+      return --current.running == 0 ? null : current;
+    });
+
+    return next.get();
+  }
+
+  private SingularityHealthcheckAsyncHandler newHandler(SingularityTask task) {
+    return new SingularityHealthcheckAsyncHandler(exceptionNotifier, configuration, this, newTaskChecker, taskManager, task);
+  }
+
+  private void issueHealthcheck(SingularityTask task, SingularityHealthcheckAsyncHandler handler, String uri, int timeoutSeconds) {
     try {
       PerRequestConfig prc = new PerRequestConfig();
       prc.setRequestTimeoutInMs((int) TimeUnit.SECONDS.toMillis(timeoutSeconds));
 
       RequestBuilder builder = new RequestBuilder("GET");
       builder.setFollowRedirects(true);
-      builder.setUrl(uri.get());
+      builder.setUrl(uri);
       builder.setPerRequestConfig(prc);
 
-      LOG.trace("Issuing a healthcheck ({}) for task {} with timeout {}s", uri.get(), task.getTaskId(), timeoutSeconds);
+      LOG.trace("Issuing a healthcheck ({}) for task {} with timeout {}s", uri, task.getTaskId(), timeoutSeconds);
 
       http.prepareRequest(builder.build()).execute(handler);
     } catch (Throwable t) {
@@ -305,4 +446,15 @@ public class SingularityHealthchecker {
     }
   }
 
+  /**
+   * Slots in use and checks waiting for one on a single agent. Only read or changed while its map entry is locked.
+   */
+  private static class AgentHealthchecks {
+    private final Queue<Supplier<CompletableFuture<Void>>> waiting;
+    private int running;
+
+    private AgentHealthchecks() {
+      this.waiting = new ArrayDeque<>();
+    }
+  }
 }
@@ -10,6 +10,8 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -21,6 +23,7 @@ import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.hubspot.singularity.ExtendedTaskState;
 import com.hubspot.singularity.RequestUtilization;
+import com.hubspot.singularity.SingularityDeployKey;
 import com.hubspot.singularity.SingularityKilledTaskIdRecord;
 import com.hubspot.singularity.SingularityPendingTask;
 import com.hubspot.singularity.SingularityPendingTaskId;
@@ -30,8 +33,10 @@ import com.hubspot.singularity.SingularityRequestWithState;
 import com.hubspot.singularity.SingularitySlave;
 import com.hubspot.singularity.SingularityTask;
 import com.hubspot.singularity.SingularityTaskCleanup;
+import com.hubspot.singularity.SingularityTaskHealthcheckResult;
 import com.hubspot.singularity.SingularityTaskHistoryUpdate;
 import com.hubspot.singularity.SingularityTaskId;
+import com.hubspot.singularity.config.SingularityConfiguration;
 
 @Singleton
 public class SingularityLeaderCache {
@@ -40,27 +45,60 @@ public class SingularityLeaderCache {
 
   private Map<SingularityPendingTaskId, SingularityPendingTask> pendingTaskIdToPendingTask;
   private Set<SingularityTaskId> activeTaskIds;
+  private ConcurrentMap<String, Set<SingularityTaskId>> activeTaskIdsByRequestId;
+  private ConcurrentMap<SingularityDeployKey, Set<SingularityTaskId>> activeTaskIdsByDeployKey;
+  private ConcurrentMap<String, Set<SingularityTaskId>> activeTaskIdsBySanitizedHost;
+  private ConcurrentMap<String, Set<SingularityTaskId>> activeTaskIdsBySanitizedRackId;
   private Map<String, SingularityRequestWithState> requests;
   private Map<SingularityTaskId, SingularityTaskCleanup> cleanupTasks;
   private Map<String, SingularityRequestDeployState> requestIdToDeployState;
   private Map<SingularityTaskId, SingularityKilledTaskIdRecord> killedTasks;
   private Map<SingularityTaskId, Map<ExtendedTaskState, SingularityTaskHistoryUpdate>> historyUpdates;
+  private Set<SingularityTaskId> taskIdsWithLoadedHistoryUpdates;
   private Map<String, SingularitySlave> slaves;
   private Map<String, SingularityRack> racks;
   private Set<SingularityPendingTaskId> pendingTaskIdsToDelete;
   private ConcurrentMap<String, RequestUtilization> requestUtilizations;
+  private ConcurrentMap<SingularityTaskId, Optional<SingularityTaskHealthcheckResult>> lastHealthchecks;
+
+  private final AtomicLong stateVersion;
+  private final LeaderCacheChangeTracker<String> requestChanges;
+  private final LeaderCacheChangeTracker<SingularityTaskId> activeTaskChanges;
 
   private volatile boolean active;
+  private volatile boolean replicating;
 
   @Inject
-  public SingularityLeaderCache() {
+  public SingularityLeaderCache(SingularityConfiguration configuration) {
+    this.stateVersion = new AtomicLong();
+    this.requestChanges = new LeaderCacheChangeTracker<>(stateVersion, configuration.getMaxRemovedIdsForDeltas());
+    this.activeTaskChanges = new LeaderCacheChangeTracker<>(stateVersion, configuration.getMaxRemovedIdsForDeltas());
     this.active = false;
+    this.replicating = false;
   }
 
   public void activate() {
+    // Start above anything a previous leader could have handed out, so versions keep increasing across leader changes
+    stateVersion.accumulateAndGet(TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis()), Math::max);
+    requestChanges.rebase();
+    activeTaskChanges.rebase();
+    // Filled as results are read or saved, results seen during an earlier term may be stale
+    lastHealthchecks = new ConcurrentHashMap<>();
     active = true;
   }
 
+  /**
+   * Accept updates (but don't serve reads) before this instance is the leader, so that a warm standby can keep the
+   * watched parts of the cache in sync and only has to load the rest when it becomes active.
+   */
+  public void startReplicating() {
+    if (pendingTaskIdsToDelete == null) {
+      // Not watched, but touched when a pending task is removed
+      cachePendingTasksToDelete(Collections.emptyList());
+    }
+    replicating = true;
+  }
+
   public void cachePendingTasks(List<SingularityPendingTask> pendingTasks) {
     this.pendingTaskIdToPendingTask = new ConcurrentHashMap<>(pendingTasks.size());
     pendingTasks.forEach((t) -> pendingTaskIdToPendingTask.put(t.getPendingTaskId(), t));
@@ -73,12 +111,58 @@ public class SingularityLeaderCache {
 
   public void cacheActiveTaskIds(List<SingularityTaskId> activeTaskIds) {
     this.activeTaskIds = Collections.synchronizedSet(new HashSet<SingularityTaskId>(activeTaskIds.size()));
-    activeTaskIds.forEach(this.activeTaskIds::add);
+    this.activeTaskIdsByRequestId = new ConcurrentHashMap<>();
+    this.activeTaskIdsByDeployKey = new ConcurrentHashMap<>();
+    this.activeTaskIdsBySanitizedHost = new ConcurrentHashMap<>();
+    this.activeTaskIdsBySanitizedRackId = new ConcurrentHashMap<>();
+    activeTaskIds.forEach(this::addActiveTaskId);
+    activeTaskChanges.reset(activeTaskIds);
+  }
+
+  private void addActiveTaskId(SingularityTaskId taskId) {
+    activeTaskIds.add(taskId);
+    addToIndex(activeTaskIdsByRequestId, taskId.getRequestId(), taskId);
+    addToIndex(activeTaskIdsByDeployKey, SingularityDeployKey.fromTaskId(taskId), taskId);
+    addToIndex(activeTaskIdsBySanitizedHost, taskId.getSanitizedHost(), taskId);
+    addToIndex(activeTaskIdsBySanitizedRackId, taskId.getSanitizedRackId(), taskId);
+  }
+
+  private void removeActiveTaskId(SingularityTaskId taskId) {
+    activeTaskIds.remove(taskId);
+    removeFromIndex(activeTaskIdsByRequestId, taskId.getRequestId(), taskId);
+    removeFromIndex(activeTaskIdsByDeployKey, SingularityDeployKey.fromTaskId(taskId), taskId);
+    removeFromIndex(activeTaskIdsBySanitizedHost, taskId.getSanitizedHost(), taskId);
+    removeFromIndex(activeTaskIdsBySanitizedRackId, taskId.getSanitizedRackId(), taskId);
+    if (lastHealthchecks != null) {
+      lastHealthchecks.remove(taskId);
+    }
+  }
+
+  private static <K> void addToIndex(ConcurrentMap<K, Set<SingularityTaskId>> index, K key, SingularityTaskId taskId) {
+    index.compute(key, (k, taskIds) -> {
+      Set<SingularityTaskId> updated = taskIds == null ? ConcurrentHashMap.newKeySet() : taskIds;
+      updated.add(taskId);
+      return updated;
+    });
+  }
+
+  private static <K> void removeFromIndex(ConcurrentMap<K, Set<SingularityTaskId>> index, K key, SingularityTaskId taskId) {
+    // Drop empty entries so the index does not grow with every host, rack or deploy ever seen
+    index.computeIfPresent(key, (k, taskIds) -> {
+      taskIds.remove(taskId);
+      return taskIds.isEmpty() ? null : taskIds;
+    });
+  }
+
+  private static <K> List<SingularityTaskId> getFromIndex(ConcurrentMap<K, Set<SingularityTaskId>> index, K key) {
+    Set<SingularityTaskId> taskIds = index.get(key);
+    return taskIds == null ? new ArrayList<>() : new ArrayList<>(taskIds);
   }
 
   public void cacheRequests(List<SingularityRequestWithState> requestsWithState) {
     this.requests = new ConcurrentHashMap<>(requestsWithState.size());
     requestsWithState.forEach((r) -> requests.put(r.getRequest().getId(), r));
+    requestChanges.reset(requests.keySet());
   }
 
   public void cacheCleanupTasks(List<SingularityTaskCleanup> cleanups) {
@@ -97,6 +181,7 @@ public class SingularityLeaderCache {
   }
 
   public void cacheTaskHistoryUpdates(Map<SingularityTaskId, List<SingularityTaskHistoryUpdate>> historyUpdates) {
+    this.taskIdsWithLoadedHistoryUpdates = null;
     this.historyUpdates = new ConcurrentHashMap<>(historyUpdates.size());
     historyUpdates.entrySet().stream().forEach((e) ->
         this.historyUpdates.put(
@@ -106,6 +191,44 @@ public class SingularityLeaderCache {
     );
   }
 
+  /**
+   * Start without any history updates and load each task's updates the first time they are read, see
+   * {@link #getTaskIdsWithoutHistoryUpdates} and {@link #loadTaskHistoryUpdates}. Updates saved in the meantime are kept.
+   */
+  public void cacheTaskHistoryUpdatesOnDemand() {
+    this.taskIdsWithLoadedHistoryUpdates = ConcurrentHashMap.newKeySet();
+    this.historyUpdates = new ConcurrentHashMap<>();
+  }
+
+  public List<SingularityTaskId> getTaskIdsWithoutHistoryUpdates(Collection<SingularityTaskId> taskIds) {
+    Set<SingularityTaskId> loaded = taskIdsWithLoadedHistoryUpdates;
+    if (loaded == null) {
+      return Collections.emptyList();
+    }
+    return taskIds.stream()
+        .filter((taskId) -> !loaded.contains(taskId))
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Merges updates read from zk for these tasks into the cache. Anything saved to the cache since they were read is newer, so it is kept.
+   */
+  public void loadTaskHistoryUpdates(Collection<SingularityTaskId> taskIds, Map<SingularityTaskId, List<SingularityTaskHistoryUpdate>> loadedHistoryUpdates) {
+    Set<SingularityTaskId> loaded = taskIdsWithLoadedHistoryUpdates;
+    if (loaded == null) {
+      return;
+    }
+
+    for (SingularityTaskId taskId : taskIds) {
+      List<SingularityTaskHistoryUpdate> updates = loadedHistoryUpdates.getOrDefault(taskId, Collections.emptyList());
+      if (!updates.isEmpty()) {
+        Map<ExtendedTaskState, SingularityTaskHistoryUpdate> cached = historyUpdates.computeIfAbsent(taskId, (k) -> new ConcurrentHashMap<>());
+        updates.forEach((update) -> cached.putIfAbsent(update.getTaskState(), update));
+      }
+      loaded.add(taskId);
+    }
+  }
+
   public void cacheSlaves(List<SingularitySlave> slaves) {
     this.slaves = slaves.stream().collect(Collectors.toConcurrentMap(SingularitySlave::getId, Function.identity()));
   }
@@ -115,6 +238,7 @@ public class SingularityLeaderCache {
   }
   public void stop() {
     active = false;
+    replicating = false;
   }
 
   public void cacheRequestUtilizations(Map<String, RequestUtilization> requestUtilizations) {
@@ -125,6 +249,14 @@ public class SingularityLeaderCache {
     return active;
   }
 
+  public boolean replicating() {
+    return replicating;
+  }
+
+  private boolean writable() {
+    return active || replicating;
+  }
+
   public List<SingularityPendingTask> getPendingTasks() {
     return new ArrayList<>(pendingTaskIdToPendingTask.values());
   }
@@ -151,7 +283,7 @@ public class SingularityLeaderCache {
   }
 
   public void deletePendingTask(SingularityPendingTaskId pendingTaskId) {
-    if (!active) {
+    if (!writable()) {
       LOG.warn("deletePendingTask {}, but not active", pendingTaskId);
       return;
     }
@@ -166,7 +298,7 @@ public class SingularityLeaderCache {
   }
 
   public void savePendingTask(SingularityPendingTask pendingTask) {
-    if (!active) {
+    if (!writable()) {
       LOG.warn("savePendingTask {}, but not active", pendingTask);
       return;
     }
@@ -175,12 +307,14 @@ public class SingularityLeaderCache {
   }
 
   public void deleteActiveTaskId(String taskId) {
-    if (!active) {
+    if (!writable()) {
       LOG.warn("deleteActiveTask {}, but not active", taskId);
       return;
     }
 
-    activeTaskIds.remove(SingularityTaskId.valueOf(taskId));
+    SingularityTaskId activeTaskId = SingularityTaskId.valueOf(taskId);
+    removeActiveTaskId(activeTaskId);
+    activeTaskChanges.markRemoved(activeTaskId);
   }
 
   public List<SingularityTaskId> exists(List<SingularityTaskId> taskIds) {
@@ -198,13 +332,19 @@ public class SingularityLeaderCache {
   }
 
   public List<SingularityTaskId> getActiveTaskIdsForRequest(String requestId) {
-    Set<SingularityTaskId> allActiveTaskIds;
-    synchronized (activeTaskIds) {
-      allActiveTaskIds = new HashSet<>(activeTaskIds);
-    }
-    return allActiveTaskIds.stream()
-        .filter(t -> t.getRequestId().equals(requestId))
-        .collect(Collectors.toList());
+    return getFromIndex(activeTaskIdsByRequestId, requestId);
+  }
+
+  public List<SingularityTaskId> getActiveTaskIdsForDeploy(String requestId, String deployId) {
+    return getFromIndex(activeTaskIdsByDeployKey, new SingularityDeployKey(requestId, deployId));
+  }
+
+  public List<SingularityTaskId> getActiveTaskIdsOnHost(String sanitizedHost) {
+    return getFromIndex(activeTaskIdsBySanitizedHost, sanitizedHost);
+  }
+
+  public List<SingularityTaskId> getActiveTaskIdsOnRack(String sanitizedRackId) {
+    return getFromIndex(activeTaskIdsBySanitizedRackId, sanitizedRackId);
   }
 
   public List<String> getActiveTaskIdsAsStrings() {
@@ -239,12 +379,23 @@ public class SingularityLeaderCache {
   }
 
   public void putActiveTask(SingularityTask task) {
-    if (!active) {
+    if (!writable()) {
       LOG.warn("putActiveTask {}, but not active", task.getTaskId());
       return;
     }
 
-    activeTaskIds.add(task.getTaskId());
+    addActiveTaskId(task.getTaskId());
+    activeTaskChanges.markChanged(task.getTaskId());
+  }
+
+  public void putActiveTaskId(SingularityTaskId taskId) {
+    if (!writable()) {
+      LOG.warn("putActiveTaskId {}, but not active", taskId);
+      return;
+    }
+
+    addActiveTaskId(taskId);
+    activeTaskChanges.markChanged(taskId);
   }
 
   public List<SingularityRequestWithState> getRequests() {
@@ -256,21 +407,23 @@ public class SingularityLeaderCache {
   }
 
   public void putRequest(SingularityRequestWithState requestWithState) {
-    if (!active) {
+    if (!writable()) {
       LOG.warn("putRequest {}, but not active", requestWithState.getRequest().getId());
       return;
     }
 
     requests.put(requestWithState.getRequest().getId(), requestWithState);
+    requestChanges.markChanged(requestWithState.getRequest().getId());
   }
 
   public void deleteRequest(String reqeustId) {
-    if (!active) {
+    if (!writable()) {
       LOG.warn("deleteRequest {}, but not active", reqeustId);
       return;
     }
 
     requests.remove(reqeustId);
+    requestChanges.markRemoved(reqeustId);
   }
 
   public List<SingularityTaskCleanup> getCleanupTasks() {
@@ -281,12 +434,16 @@ public class SingularityLeaderCache {
     return new ArrayList<>(cleanupTasks.keySet());
   }
 
+  public boolean isTaskCleaning(SingularityTaskId taskId) {
+    return cleanupTasks.containsKey(taskId);
+  }
+
   public Optional<SingularityTaskCleanup> getTaskCleanup(SingularityTaskId taskId) {
     return Optional.fromNullable(cleanupTasks.get(taskId));
   }
 
   public void deleteTaskCleanup(SingularityTaskId taskId) {
-    if (!active) {
+    if (!writable()) {
       LOG.warn("deleteTaskCleanup {}, but not active", taskId);
       return;
     }
@@ -295,7 +452,7 @@ public class SingularityLeaderCache {
   }
 
   public void saveTaskCleanup(SingularityTaskCleanup cleanup) {
-    if (!active) {
+    if (!writable()) {
       LOG.warn("saveTaskCleanup {}, but not active", cleanup);
       return;
     }
@@ -304,7 +461,7 @@ public class SingularityLeaderCache {
   }
 
   public void createTaskCleanupIfNotExists(SingularityTaskCleanup cleanup) {
-    if (!active) {
+    if (!writable()) {
       LOG.warn("createTaskCleanupIfNotExists {}, but not active", cleanup);
       return;
     }
@@ -329,21 +486,46 @@ public class SingularityLeaderCache {
   }
 
   public void deleteRequestDeployState(String requestId) {
-    if (!active) {
+    if (!writable()) {
       LOG.warn("deleteRequestDeployState {}, but not active", requestId);
       return;
     }
 
     requestIdToDeployState.remove(requestId);
+    markRequestDeployStateChanged(requestId);
   }
 
   public void putRequestDeployState(SingularityRequestDeployState requestDeployState) {
-    if (!active) {
+    if (!writable()) {
       LOG.warn("putRequestDeployState {}, but not active", requestDeployState.getRequestId());
       return;
     }
 
     requestIdToDeployState.put(requestDeployState.getRequestId(), requestDeployState);
+    markRequestDeployStateChanged(requestDeployState.getRequestId());
+  }
+
+  private void markRequestDeployStateChanged(String requestId) {
+    // The deploy state is part of what the request list returns, but a deleted request was already marked as removed
+    if (requests != null && requests.containsKey(requestId)) {
+      requestChanges.markChanged(requestId);
+    }
+  }
+
+  public long getRequestsVersion() {
+    return requestChanges.getVersion();
+  }
+
+  public Optional<SingularityLeaderCacheChanges<String>> getRequestChangesSince(long version) {
+    return requestChanges.getChangesSince(version);
+  }
+
+  public long getActiveTasksVersion() {
+    return activeTaskChanges.getVersion();
+  }
+
+  public Optional<SingularityLeaderCacheChanges<SingularityTaskId>> getActiveTaskChangesSince(long version) {
+    return activeTaskChanges.getChangesSince(version);
   }
 
   public List<SingularityKilledTaskIdRecord> getKilledTasks() {
@@ -351,7 +533,7 @@ public class SingularityLeaderCache {
   }
 
   public void addKilledTask(SingularityKilledTaskIdRecord killedTask) {
-    if (!active) {
+    if (!writable()) {
       LOG.warn("addKilledTask {}, but not active", killedTask.getTaskId().getId());
       return;
     }
@@ -359,7 +541,7 @@ public class SingularityLeaderCache {
   }
 
   public void deleteKilledTask(SingularityTaskId killedTaskId) {
-    if (!active) {
+    if (!writable()) {
       LOG.warn("deleteKilledTask {}, but not active", killedTaskId.getId());
       return;
     }
@@ -381,7 +563,7 @@ public class SingularityLeaderCache {
   }
 
   public void saveTaskHistoryUpdate(SingularityTaskHistoryUpdate taskHistoryUpdate, boolean overwrite) {
-    if (!active) {
+    if (!writable()) {
       LOG.warn("saveTaskHistoryUpdate {}, but not active", taskHistoryUpdate);
       return;
     }
@@ -394,7 +576,7 @@ public class SingularityLeaderCache {
   }
 
   public void deleteTaskHistoryUpdate(SingularityTaskId taskId, ExtendedTaskState state) {
-    if (!active) {
+    if (!writable()) {
       LOG.warn("deleteTaskHistoryUpdate {}, but not active", taskId);
       return;
     }
@@ -402,11 +584,43 @@ public class SingularityLeaderCache {
   }
 
   public void deleteTaskHistory(SingularityTaskId taskId) {
-    if (!active) {
+    if (!writable()) {
       LOG.warn("deleteTaskHistory {}, but not active", taskId);
       return;
     }
     historyUpdates.remove(taskId);
+    if (taskIdsWithLoadedHistoryUpdates != null) {
+      taskIdsWithLoadedHistoryUpdates.remove(taskId);
+    }
+  }
+
+  /**
+   * Only kept for active tasks. Absent if nothing is known about the task's last healthcheck yet, which is different
+   * from knowing that it has none.
+   */
+  public Optional<Optional<SingularityTaskHealthcheckResult>> getLastHealthcheck(SingularityTaskId taskId) {
+    return Optional.fromNullable(lastHealthchecks.get(taskId));
+  }
+
+  /**
+   * Remembers a result read from zk for an active task, unless a newer one was saved in the meantime.
+   */
+  public void cacheLastHealthcheck(SingularityTaskId taskId, Optional<SingularityTaskHealthcheckResult> lastHealthcheck) {
+    if (!active || !activeTaskIds.contains(taskId)) {
+      return;
+    }
+    lastHealthchecks.putIfAbsent(taskId, lastHealthcheck);
+  }
+
+  public void putLastHealthcheck(SingularityTaskHealthcheckResult healthcheckResult) {
+    if (!active) {
+      return;
+    }
+    if (activeTaskIds.contains(healthcheckResult.getTaskId())) {
+      lastHealthchecks.put(healthcheckResult.getTaskId(), Optional.of(healthcheckResult));
+    } else {
+      lastHealthchecks.remove(healthcheckResult.getTaskId());
+    }
   }
 
   public Collection<SingularitySlave> getSlaves() {
@@ -418,7 +632,7 @@ public class SingularityLeaderCache {
   }
 
   public void putSlave(SingularitySlave slave) {
-    if (!active) {
+    if (!writable()) {
       LOG.warn("putSlave {}, but not active", slave);
     }
 
@@ -434,7 +648,7 @@ public class SingularityLeaderCache {
   }
 
   public void putRack(SingularityRack rack) {
-    if (!active) {
+    if (!writable()) {
       LOG.warn("putSlave {}, but not active", rack);
     }
 
@@ -442,7 +656,7 @@ public class SingularityLeaderCache {
   }
 
   public void putRequestUtilization(RequestUtilization requestUtilization) {
-    if (!active) {
+    if (!writable()) {
       LOG.warn("putRequestUtilization {}, but not active", requestUtilization);
     }
 
@@ -450,7 +664,7 @@ public class SingularityLeaderCache {
   }
 
   public void removeRequestUtilization(String requestId) {
-    if (!active) {
+    if (!writable()) {
       LOG.warn("removeRequestUtilization {}, but not active", requestId);
       return;
     }
@@ -0,0 +1,36 @@
+package com.hubspot.singularity.scheduler;
+
+import java.util.List;
+
+public class SingularityLeaderCacheChanges<K> {
+  private final long version;
+  private final List<K> changed;
+  private final List<K> removed;
+
+  public SingularityLeaderCacheChanges(long version, List<K> changed, List<K> removed) {
+    this.version = version;
+    this.changed = changed;
+    this.removed = removed;
+  }
+
+  public long getVersion() {
+    return version;
+  }
+
+  public List<K> getChanged() {
+    return changed;
+  }
+
+  public List<K> getRemoved() {
+    return removed;
+  }
+
+  @Override
+  public String toString() {
+    return "SingularityLeaderCacheChanges{" +
+        "version=" + version +
+        ", changed=" + changed +
+        ", removed=" + removed +
+        '}';
+  }
+}
@@ -1,7 +1,26 @@
 package com.hubspot.singularity.scheduler;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.curator.framework.recipes.cache.PathChildrenCache;
+import org.apache.curator.utils.CloseableUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import com.hubspot.mesos.JavaUtils;
+import com.hubspot.singularity.config.SingularityConfiguration;
 import com.hubspot.singularity.data.DeployManager;
 import com.hubspot.singularity.data.RackManager;
 import com.hubspot.singularity.data.RequestManager;
@@ -12,6 +31,8 @@ import com.hubspot.singularity.data.UsageManager;
 @Singleton
 public class SingularityLeaderCacheCoordinator {
 
+  private static final Logger LOG = LoggerFactory.getLogger(SingularityLeaderCacheCoordinator.class);
+
   private final TaskManager taskManager;
   private final DeployManager deployManager;
   private final RequestManager requestManager;
@@ -19,6 +40,12 @@ public class SingularityLeaderCacheCoordinator {
   private final RackManager rackManager;
   private final UsageManager usageManager;
   private final SingularityLeaderCache leaderCache;
+  private final SingularityConfiguration configuration;
+
+  private final Timer activationTimer;
+
+  private final List<PathChildrenCache> watchers;
+  private ExecutorService watchExecutor;
 
   @Inject
   public SingularityLeaderCacheCoordinator(TaskManager taskManager,
@@ -27,7 +54,9 @@ public class SingularityLeaderCacheCoordinator {
                                            SlaveManager slaveManager,
                                            RackManager rackManager,
                                            UsageManager usageManager,
-                                           SingularityLeaderCache leaderCache) {
+                                           SingularityLeaderCache leaderCache,
+                                           SingularityConfiguration configuration,
+                                           MetricRegistry metricRegistry) {
     this.taskManager = taskManager;
     this.deployManager = deployManager;
     this.requestManager = requestManager;
@@ -35,9 +64,19 @@ public class SingularityLeaderCacheCoordinator {
     this.rackManager = rackManager;
     this.usageManager = usageManager;
     this.leaderCache = leaderCache;
+    this.configuration = configuration;
+    this.watchers = new ArrayList<>();
+    this.activationTimer = metricRegistry.timer("leader.cache.activation");
   }
 
-  public void activateLeaderCache() {
+  public synchronized void activateLeaderCache() {
+    if (configuration.isWatchLeaderCache()) {
+      activateWatchedLeaderCache();
+      return;
+    }
+
+    final long start = System.currentTimeMillis();
+
     taskManager.activateLeaderCache();
     deployManager.activateLeaderCache();
     requestManager.activateLeaderCache();
@@ -45,10 +84,99 @@ public class SingularityLeaderCacheCoordinator {
     rackManager.activateLeaderCache();
     usageManager.activateLeaderCache();
     leaderCache.activate();
+
+    activationTimer.update(System.currentTimeMillis() - start, TimeUnit.MILLISECONDS);
   }
 
-  public void stopLeaderCache() {
+  /**
+   * Start keeping the watched parts of the leader cache in sync while this instance is not (yet) the leader, so
+   * that becoming the leader only needs to load the unwatched parts.
+   */
+  public synchronized void startReplica() {
+    if (!configuration.isWatchLeaderCache()) {
+      LOG.warn("Not starting a leader cache replica, watchLeaderCache is disabled");
+      return;
+    }
+
+    if (!watchers.isEmpty()) {
+      return;
+    }
+
+    final long start = System.currentTimeMillis();
+
+    try {
+      startWatchers(leaderCache::startReplicating);
+    } catch (Throwable t) {
+      // Not fatal, the leader cache is fully loaded from zk when this instance becomes the leader
+      LOG.error("Unable to start leader cache replica", t);
+      leaderCache.stop();
+      closeWatchers();
+      return;
+    }
+
+    LOG.info("Started leader cache replica with {} zk watchers in {}", watchers.size(), JavaUtils.duration(start));
+  }
+
+  private void activateWatchedLeaderCache() {
+    final long start = System.currentTimeMillis();
+    final boolean fromReplica = leaderCache.replicating() && !watchers.isEmpty();
+
+    final Runnable activateUnwatched = () -> {
+      taskManager.activateUnwatchedLeaderCache();
+      deployManager.activateLeaderCache();
+      slaveManager.activateLeaderCache();
+      rackManager.activateLeaderCache();
+      usageManager.activateLeaderCache();
+      leaderCache.activate();
+    };
+
+    if (fromReplica) {
+      activateUnwatched.run();
+    } else {
+      startWatchers(activateUnwatched);
+    }
+
+    final long duration = System.currentTimeMillis() - start;
+    activationTimer.update(duration, TimeUnit.MILLISECONDS);
+
+    LOG.info("Activated leader cache {} with {} zk watchers in {}", fromReplica ? "from replica" : "from zk snapshots", watchers.size(), JavaUtils.durationFromMillis(duration));
+  }
+
+  private void startWatchers(Runnable afterSnapshots) {
+    closeWatchers();
+
+    // Changes seen while the initial snapshots are loading are held back until afterSnapshots has run, then applied in zk order
+    final CountDownLatch snapshotsLoaded = new CountDownLatch(1);
+    watchExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("leader-cache-watcher-%d").setDaemon(true).build());
+    watchExecutor.submit(() -> Uninterruptibles.awaitUninterruptibly(snapshotsLoaded));
+
+    try {
+      watchers.addAll(taskManager.watchLeaderCache(watchExecutor));
+      watchers.add(requestManager.watchLeaderCache(watchExecutor));
+      afterSnapshots.run();
+    } finally {
+      snapshotsLoaded.countDown();
+    }
+  }
+
+  public synchronized void stopLeaderCache() {
     leaderCache.stop();
+    closeWatchers();
+  }
+
+  @VisibleForTesting
+  synchronized List<PathChildrenCache> getWatchers() {
+    return new ArrayList<>(watchers);
+  }
+
+  private void closeWatchers() {
+    watchers.forEach(CloseableUtils::closeQuietly);
+    watchers.clear();
+
+    if (watchExecutor != null) {
+      watchExecutor.shutdownNow();
+      watchExecutor = null;
+    }
   }
 
 }
@@ -6,11 +6,16 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TimeZone;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
@@ -24,7 +29,10 @@ import org.quartz.CronExpression;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.codahale.metrics.annotation.Timed;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Optional;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
@@ -32,6 +40,7 @@ import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
 import com.hubspot.mesos.JavaUtils;
 import com.hubspot.mesos.Resources;
@@ -66,6 +75,8 @@ import com.hubspot.singularity.SingularityTaskId;
 import com.hubspot.singularity.SingularityTaskRequest;
 import com.hubspot.singularity.SingularityTaskShellCommandRequestId;
 import com.hubspot.singularity.TaskCleanupType;
+import com.hubspot.singularity.async.AsyncSemaphore;
+import com.hubspot.singularity.async.CompletableFutures;
 import com.hubspot.singularity.config.SingularityConfiguration;
 import com.hubspot.singularity.data.AbstractMachineManager;
 import com.hubspot.singularity.data.DeployManager;
@@ -98,11 +109,15 @@ public class SingularityScheduler {
   private final SingularityLeaderCache leaderCache;
   private final SingularitySchedulerLock lock;
 
+  private final AsyncSemaphore<Void> pendingQueueSemaphore;
+  private final ExecutorService pendingQueueExecutor;
+  private final Timer drainTimer;
+
   @Inject
   public SingularityScheduler(TaskRequestManager taskRequestManager, SingularityConfiguration configuration, SingularityCooldown cooldown, DeployManager deployManager,
                               TaskManager taskManager, RequestManager requestManager, SlaveManager slaveManager, RebalancingHelper rebalancingHelper,
                               RackManager rackManager, SingularityMailer mailer,
-                              SingularityLeaderCache leaderCache, SingularitySchedulerLock lock) {
+                              SingularityLeaderCache leaderCache, SingularitySchedulerLock lock, MetricRegistry metricRegistry) {
     this.taskRequestManager = taskRequestManager;
     this.configuration = configuration;
     this.deployManager = deployManager;
@@ -115,6 +130,10 @@ public class SingularityScheduler {
     this.cooldown = cooldown;
     this.leaderCache = leaderCache;
     this.lock = lock;
+
+    this.pendingQueueSemaphore = AsyncSemaphore.newBuilder(configuration::getMaxConcurrentPendingQueueDrains).setFlushQueuePeriodically(true).build();
+    this.pendingQueueExecutor = Executors.newCachedThreadPool(new ThreadFactoryBuilder().setNameFormat("pending-queue-drain-%d").build());
+    this.drainTimer = metricRegistry.timer("scheduler.pendingQueue.drain");
   }
 
   private void cleanupTaskDueToDecomission(final Map<String, Optional<String>> requestIdsToUserToReschedule, final Set<SingularityTaskId> matchingTaskIds, SingularityTask task,
@@ -233,23 +252,49 @@ public class SingularityScheduler {
 
     LOG.info("Pending queue had {} requests", pendingRequests.size());
 
-    Map<SingularityDeployKey, List<SingularityPendingRequest>> deployKeyToPendingRequests = pendingRequests.stream()
-        .collect(Collectors.groupingBy((request) -> new SingularityDeployKey(request.getRequestId(), request.getDeployId())));
+    // Deploy keys for the same request share a request lock, so they are handled one after another on the same thread
+    // and only separate requests are drained concurrently
+    Map<String, Map<SingularityDeployKey, List<SingularityPendingRequest>>> requestIdToPendingRequests = pendingRequests.stream()
+        .collect(Collectors.groupingBy(
+            SingularityPendingRequest::getRequestId,
+            LinkedHashMap::new,
+            Collectors.groupingBy((request) -> new SingularityDeployKey(request.getRequestId(), request.getDeployId()), LinkedHashMap::new, Collectors.toList())));
 
     AtomicInteger totalNewScheduledTasks = new AtomicInteger(0);
     AtomicInteger heldForScheduledActiveTask = new AtomicInteger(0);
     AtomicInteger obsoleteRequests = new AtomicInteger(0);
 
-    deployKeyToPendingRequests.forEach((deployKey, pendingRequestsForDeployKey) -> {
-          lock.runWithRequestLock(
-              () -> handlePendingRequestsForDeployKey(obsoleteRequests, heldForScheduledActiveTask, totalNewScheduledTasks, deployKey, pendingRequestsForDeployKey),
-              deployKey.getRequestId(),
-              String.format("%s#%s", getClass().getSimpleName(), "drainPendingQueue"));
-        });
+    List<CompletableFuture<Void>> drainFutures = new ArrayList<>(requestIdToPendingRequests.size());
+
+    requestIdToPendingRequests.forEach((requestId, deployKeyToPendingRequests) -> {
+      drainFutures.add(pendingQueueSemaphore.call(() ->
+          CompletableFuture.runAsync(() -> {
+            deployKeyToPendingRequests.forEach((deployKey, pendingRequestsForDeployKey) -> {
+              lock.runWithRequestLock(
+                  () -> handlePendingRequestsForDeployKey(obsoleteRequests, heldForScheduledActiveTask, totalNewScheduledTasks, deployKey, pendingRequestsForDeployKey),
+                  requestId,
+                  "SingularityScheduler#drainPendingQueue");
+            });
+          }, pendingQueueExecutor)
+      ));
+    });
+
+    try {
+      CompletableFutures.allOf(drainFutures).join();
+    } catch (CompletionException ce) {
+      throw Throwables.propagate(ce.getCause());
+    } finally {
+      drainTimer.update(System.currentTimeMillis() - start, TimeUnit.MILLISECONDS);
+    }
 
     LOG.info("Scheduled {} new tasks ({} obsolete requests, {} held) in {}", totalNewScheduledTasks.get(), obsoleteRequests.get(), heldForScheduledActiveTask.get(), JavaUtils.duration(start));
   }
 
+  @VisibleForTesting
+  int getPendingQueueDrainsInFlight() {
+    return pendingQueueSemaphore.getConcurrentRequests();
+  }
+
   private void handlePendingRequestsForDeployKey(AtomicInteger obsoleteRequests, AtomicInteger heldForScheduledActiveTask, AtomicInteger totalNewScheduledTasks, SingularityDeployKey deployKey, List<SingularityPendingRequest> pendingRequestsForDeploy) {
     final String requestId = deployKey.getRequestId();
     final Optional<SingularityRequestWithState> maybeRequest = requestManager.getRequest(requestId);
@@ -427,18 +472,14 @@ public class SingularityScheduler {
   }
 
   private List<SingularityTaskId> getMatchingTaskIds(SingularityRequest request, SingularityDeployKey deployKey) {
-    List<SingularityTaskId> activeTaskIdsForRequest = leaderCache.getActiveTaskIdsForRequest(deployKey.getRequestId());
     if (request.isLongRunning()) {
       Set<SingularityTaskId> killedTaskIds = leaderCache.getKilledTasks().stream()
           .map(SingularityKilledTaskIdRecord::getTaskId)
           .collect(Collectors.toSet());
 
       List<SingularityTaskId> matchingTaskIds = new ArrayList<>();
-      for (SingularityTaskId taskId : activeTaskIdsForRequest) {
-        if (!taskId.getDeployId().equals(deployKey.getDeployId())) {
-          continue;
-        }
-        if (leaderCache.getCleanupTaskIds().contains(taskId)) {
+      for (SingularityTaskId taskId : leaderCache.getActiveTaskIdsForDeploy(deployKey.getRequestId(), deployKey.getDeployId())) {
+        if (leaderCache.isTaskCleaning(taskId)) {
           continue;
         }
         if (killedTaskIds.contains(taskId)) {
@@ -448,7 +489,7 @@ public class SingularityScheduler {
       }
       return matchingTaskIds;
     } else {
-      return new ArrayList<>(activeTaskIdsForRequest);
+      return leaderCache.getActiveTaskIdsForRequest(deployKey.getRequestId());
     }
   }
 
@@ -0,0 +1,24 @@
+package com.hubspot.singularity.scheduler;
+
+import java.util.concurrent.TimeUnit;
+
+import com.google.inject.Inject;
+import com.hubspot.singularity.config.SingularityConfiguration;
+import com.hubspot.singularity.data.StateManager;
+
+public class SingularityStatePublishPoller extends SingularityLeaderOnlyPoller {
+
+  private final StateManager stateManager;
+
+  @Inject
+  SingularityStatePublishPoller(SingularityConfiguration configuration, StateManager stateManager) {
+    super(configuration.getPublishStateEveryMillis(), TimeUnit.MILLISECONDS);
+
+    this.stateManager = stateManager;
+  }
+
+  @Override
+  public void runActionOnPoll() {
+    stateManager.publishState();
+  }
+}
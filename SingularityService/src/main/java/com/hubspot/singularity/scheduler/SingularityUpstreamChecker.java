@@ -197,7 +197,7 @@ public class SingularityUpstreamChecker {
   public void syncUpstreams() {
     for (SingularityRequestWithState singularityRequestWithState: requestManager.getActiveRequests()){
       final SingularityRequest singularityRequest = singularityRequestWithState.getRequest();
-      lock.runWithRequestLock(() -> syncUpstreamsForService(singularityRequest), singularityRequest.getId(), getClass().getSimpleName());
+      lock.runWithRequestLock(() -> syncUpstreamsForService(singularityRequest), singularityRequest.getId(), "SingularityUpstreamChecker");
     }
   }
 }
@@ -6,7 +6,9 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
@@ -14,6 +16,7 @@ import java.util.concurrent.locks.ReentrantLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Optional;
 import com.google.common.util.concurrent.AtomicDouble;
@@ -37,6 +40,7 @@ import com.hubspot.singularity.SingularityTaskHistoryUpdate;
 import com.hubspot.singularity.SingularityTaskId;
 import com.hubspot.singularity.SingularityTaskUsage;
 import com.hubspot.singularity.TaskCleanupType;
+import com.hubspot.singularity.async.AsyncSemaphore;
 import com.hubspot.singularity.config.SingularityConfiguration;
 import com.hubspot.singularity.data.RequestManager;
 import com.hubspot.singularity.data.SlaveManager;
@@ -56,8 +60,11 @@ public class SingularityUsageHelper {
   private final SlaveManager slaveManager;
   private final TaskManager taskManager;
   private final UsageManager usageManager;
+  private final MetricRegistry metricRegistry;
 
   private final ConcurrentHashMap<String, ReentrantLock> requestLocks;
+  private final ConcurrentHashMap<String, Integer> consecutiveUsageCollectionFailures;
+  private final ConcurrentHashMap<String, Long> skipUsageCollectionUntil;
 
   @Inject
   public SingularityUsageHelper(
@@ -67,7 +74,8 @@ public class SingularityUsageHelper {
       RequestManager requestManager,
       SlaveManager slaveManager,
       TaskManager taskManager,
-      UsageManager usageManager) {
+      UsageManager usageManager,
+      MetricRegistry metricRegistry) {
     this.mesosClient = mesosClient;
     this.configuration = configuration;
     this.exceptionNotifier = exceptionNotifier;
@@ -75,8 +83,11 @@ public class SingularityUsageHelper {
     this.slaveManager = slaveManager;
     this.taskManager = taskManager;
     this.usageManager = usageManager;
+    this.metricRegistry = metricRegistry;
 
     this.requestLocks = new ConcurrentHashMap<>();
+    this.consecutiveUsageCollectionFailures = new ConcurrentHashMap<>();
+    this.skipUsageCollectionUntil = new ConcurrentHashMap<>();
   }
 
   public Set<String> getSlaveIdsToTrackUsageFor() {
@@ -94,6 +105,8 @@ public class SingularityUsageHelper {
 
     for (SingularitySlave slave : slaves) {
       if (slave.getCurrentState().getState().isInactive() || slave.getCurrentState().getState() == MachineState.DECOMMISSIONED) {
+        // Usage isn't collected for this slave anymore, so don't keep reporting a stale per-host timer for it
+        metricRegistry.remove(getUsageCollectionTimerName(slave.getHost()));
         continue;
       }
 
@@ -107,7 +120,13 @@ public class SingularityUsageHelper {
     return mesosClient.getSlaveMetricsSnapshot(host, true);
   }
 
-  public void collectSlaveUsage(
+  /**
+   * Fetches the task statistics and metrics snapshot for a slave in parallel without tying up a thread, then processes
+   * them on the given executor. A permit from the usage collection semaphore is held for both the fetch and the
+   * processing, which bounds the requests in flight to slaves. Slaves that keep failing are skipped for
+   * usageCollectionBackoffMillis.
+   */
+  public CompletableFuture<Void> collectSlaveUsage(
       SingularitySlave slave,
       long now,
       Map<String, RequestUtilization> utilizationPerRequestId,
@@ -119,7 +138,67 @@ public class SingularityUsageHelper {
       AtomicDouble totalCpuAvailable,
       AtomicLong totalDiskBytesUsed,
       AtomicLong totalDiskBytesAvailable,
-      boolean useShortTimeout) {
+      AsyncSemaphore<Void> usageCollectionSemaphore,
+      Executor executor) {
+    Long skipUntil = skipUsageCollectionUntil.get(slave.getHost());
+    if (skipUntil != null && skipUntil > System.currentTimeMillis()) {
+      LOG.debug("Skipping usage collection for {} after {} consecutive failures", slave.getHost(), consecutiveUsageCollectionFailures.get(slave.getHost()));
+      return CompletableFuture.completedFuture(null);
+    }
+
+    return usageCollectionSemaphore.call(() -> {
+      final long start = System.currentTimeMillis();
+      CompletableFuture<List<MesosTaskMonitorObject>> allTaskUsage = mesosClient.getSlaveResourceUsageAsync(slave.getHost(), false);
+      CompletableFuture<MesosSlaveMetricsSnapshotObject> slaveMetricsSnapshot = mesosClient.getSlaveMetricsSnapshotAsync(slave.getHost(), false);
+
+      return CompletableFuture.allOf(allTaskUsage, slaveMetricsSnapshot)
+          .whenComplete((ignored, t) -> recordUsageCollection(slave.getHost(), start, t))
+          .thenRunAsync(() -> collectSlaveUsage(slave, allTaskUsage.join(), slaveMetricsSnapshot.join(), now, utilizationPerRequestId, previousUtilizations, overLoadedHosts,
+              totalMemBytesUsed, totalMemBytesAvailable, totalCpuUsed, totalCpuAvailable, totalDiskBytesUsed, totalDiskBytesAvailable), executor);
+    }).exceptionally((t) -> {
+      String message = String.format("Could not get slave usage for host %s", slave.getHost());
+      LOG.error(message, t);
+      exceptionNotifier.notify(message, t);
+      return null;
+    });
+  }
+
+  private void recordUsageCollection(String host, long start, Throwable t) {
+    long duration = System.currentTimeMillis() - start;
+    metricRegistry.timer("usage.collection").update(duration, TimeUnit.MILLISECONDS);
+    metricRegistry.timer(getUsageCollectionTimerName(host)).update(duration, TimeUnit.MILLISECONDS);
+
+    if (t == null) {
+      consecutiveUsageCollectionFailures.remove(host);
+      skipUsageCollectionUntil.remove(host);
+      return;
+    }
+
+    // After the backoff a single attempt is allowed through; another failure starts a new backoff right away
+    int failures = consecutiveUsageCollectionFailures.merge(host, 1, Integer::sum);
+    if (failures >= configuration.getMaxUsageCollectionFailuresBeforeBackoff()) {
+      skipUsageCollectionUntil.put(host, System.currentTimeMillis() + configuration.getUsageCollectionBackoffMillis());
+    }
+  }
+
+  private static String getUsageCollectionTimerName(String host) {
+    return MetricRegistry.name("usage.collection", host);
+  }
+
+  private void collectSlaveUsage(
+      SingularitySlave slave,
+      List<MesosTaskMonitorObject> allTaskUsage,
+      MesosSlaveMetricsSnapshotObject slaveMetricsSnapshot,
+      long now,
+      Map<String, RequestUtilization> utilizationPerRequestId,
+      Map<String, RequestUtilization> previousUtilizations,
+      Map<SingularitySlaveUsage, List<TaskIdWithUsage>> overLoadedHosts,
+      AtomicLong totalMemBytesUsed,
+      AtomicLong totalMemBytesAvailable,
+      AtomicDouble totalCpuUsed,
+      AtomicDouble totalCpuAvailable,
+      AtomicLong totalDiskBytesUsed,
+      AtomicLong totalDiskBytesAvailable) {
     Optional<Long> memoryMbTotal = Optional.absent();
     Optional<Double> cpusTotal = Optional.absent();
     Optional<Long> diskMbTotal = Optional.absent();
@@ -133,8 +212,6 @@ public class SingularityUsageHelper {
     long diskMbUsedOnSlave = 0;
 
     try {
-      List<MesosTaskMonitorObject> allTaskUsage = mesosClient.getSlaveResourceUsage(slave.getHost(), useShortTimeout);
-      MesosSlaveMetricsSnapshotObject slaveMetricsSnapshot = mesosClient.getSlaveMetricsSnapshot(slave.getHost());
       double systemMemTotalBytes = 0;
       double systemMemFreeBytes = 0;
       double systemLoad1Min = 0;
@@ -462,9 +539,8 @@ public class SingularityUsageHelper {
 
   @VisibleForTesting
   void clearOldUsage(String taskId) {
-    usageManager.getTaskUsagePaths(taskId)
+    usageManager.getTaskUsageTimestamps(taskId)
         .stream()
-        .map(Double::parseDouble)
         .skip(configuration.getNumUsageToKeep())
         .forEach((pathId) -> {
           SingularityDeleteResult result = usageManager.deleteSpecificTaskUsage(taskId, pathId);
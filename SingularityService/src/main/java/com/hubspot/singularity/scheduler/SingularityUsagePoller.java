@@ -3,6 +3,7 @@ package com.hubspot.singularity.scheduler;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
@@ -91,27 +92,61 @@ public class SingularityUsagePoller extends SingularityLeaderOnlyPoller {
     List<CompletableFuture<Void>> usageFutures = new ArrayList<>();
 
     usageHelper.getSlavesToTrackUsageFor().forEach((slave) -> {
-      usageFutures.add(usageCollectionSemaphore.call(() ->
-          CompletableFuture.runAsync(() -> {
-            usageHelper.collectSlaveUsage(slave, now, utilizationPerRequestId, previousUtilizations, overLoadedHosts, totalMemBytesUsed, totalMemBytesAvailable,
-                totalCpuUsed, totalCpuAvailable, totalDiskBytesUsed, totalDiskBytesAvailable, false);
-          }, usageExecutor)
-      ));
+      usageFutures.add(usageHelper.collectSlaveUsage(slave, now, utilizationPerRequestId, previousUtilizations, overLoadedHosts, totalMemBytesUsed, totalMemBytesAvailable,
+          totalCpuUsed, totalCpuAvailable, totalDiskBytesUsed, totalDiskBytesAvailable, usageCollectionSemaphore, usageExecutor));
     });
 
     CompletableFutures.allOf(usageFutures).join();
+    usageManager.flushUsageHistory();
+
+    // Offer scoring reads from the leader cache, so make the new values available there before writing anything to zk
+    utilizationPerRequestId.values().forEach(usageManager::cacheRequestUtilization);
 
     usageManager.saveClusterUtilization(
         getClusterUtilization(
             utilizationPerRequestId, totalMemBytesUsed.get(), totalMemBytesAvailable.get(),
             totalCpuUsed.get(), totalCpuAvailable.get(), totalDiskBytesUsed.get(), totalDiskBytesAvailable.get(), now));
-    utilizationPerRequestId.values().forEach(usageManager::saveRequestUtilization);
+    persistChangedRequestUtilizations(utilizationPerRequestId);
 
     if (configuration.isShuffleTasksForOverloadedSlaves()) {
       shuffleTasksOnOverloadedHosts(overLoadedHosts);
     }
   }
 
+  private void persistChangedRequestUtilizations(Map<String, RequestUtilization> utilizationPerRequestId) {
+    int skipped = 0;
+    for (RequestUtilization utilization : utilizationPerRequestId.values()) {
+      Optional<RequestUtilization> persisted = usageManager.getPersistedRequestUtilization(utilization.getRequestId());
+      if (persisted.isPresent() && !hasChangedSignificantly(persisted.get(), utilization)) {
+        skipped++;
+        continue;
+      }
+      usageManager.saveRequestUtilization(utilization);
+    }
+    usageManager.retainPersistedRequestUtilizations(utilizationPerRequestId.keySet());
+    LOG.debug("Persisted {} request utilizations, {} unchanged", utilizationPerRequestId.size() - skipped, skipped);
+  }
+
+  // Compared against the last value written to zk rather than the last poll, so slow drift is still persisted eventually
+  private boolean hasChangedSignificantly(RequestUtilization persisted, RequestUtilization current) {
+    double threshold = configuration.getMinRequestUtilizationChangeToPersist();
+    return !Objects.equals(persisted.getDeployId(), current.getDeployId())
+        || hasChanged(persisted.getAvgCpuUsed(), current.getAvgCpuUsed(), threshold)
+        || hasChanged(persisted.getAvgMemBytesUsed(), current.getAvgMemBytesUsed(), threshold)
+        || hasChanged(persisted.getAvgDiskBytesUsed(), current.getAvgDiskBytesUsed(), threshold)
+        || hasChanged(persisted.getAvgPercentCpuTimeThrottled(), current.getAvgPercentCpuTimeThrottled(), threshold)
+        || hasChanged(persisted.getMaxCpuUsed(), current.getMaxCpuUsed(), threshold)
+        || hasChanged(persisted.getMaxMemBytesUsed(), current.getMaxMemBytesUsed(), threshold)
+        || hasChanged(persisted.getCpuBurstRating(), current.getCpuBurstRating(), threshold);
+  }
+
+  private boolean hasChanged(double previous, double current, double threshold) {
+    if (previous == current) {
+      return false;
+    }
+    return Math.abs(current - previous) > threshold * Math.max(Math.abs(previous), Math.abs(current));
+  }
+
   public void runWithRequestLock(Runnable function, String requestId) {
     ReentrantLock lock = requestLocks.computeIfAbsent(requestId, (r) -> new ReentrantLock());
     lock.lock();
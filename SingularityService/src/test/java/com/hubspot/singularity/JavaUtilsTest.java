@@ -78,6 +78,35 @@ public class JavaUtilsTest {
     assertEquals(fromId, fromJson);
   }
 
+  @Test
+  public void testSingularityTaskIdRoundTrip() throws Exception {
+    String[] ids = {
+        "rid-did-100-1-host-rack",
+        "request-with-dashes-did-100-1-host-rack",
+        "rid-did-100-1-host-rack--",
+        "rid-did-" + Long.MAX_VALUE + "-" + Integer.MAX_VALUE + "-host_with_underscores-rack_id"
+    };
+
+    for (String id : ids) {
+      SingularityTaskId taskId = SingularityTaskId.valueOf(id);
+
+      Assert.assertEquals(id.replaceAll("-+$", ""), taskId.getId());
+      Assert.assertSame(taskId.getId(), taskId.getId());
+      Assert.assertEquals(taskId.getId(), taskId.toString());
+      assertEquals(taskId, SingularityTaskId.valueOf(taskId.getId()));
+      assertEquals(taskId, new SingularityTaskId(taskId.getRequestId(), taskId.getDeployId(), taskId.getStartedAt(), taskId.getInstanceNo(), taskId.getSanitizedHost(), taskId.getSanitizedRackId()));
+      Assert.assertEquals(taskId.hashCode(), SingularityTaskId.valueOf(id).hashCode());
+    }
+
+    Assert.assertEquals("request-with-dashes", SingularityTaskId.valueOf(ids[1]).getRequestId());
+
+    try {
+      SingularityTaskId.valueOf("rid-did-notanumber-1-host-rack");
+      Assert.fail("A task id with a non-numeric startedAt shouldn't parse");
+    } catch (InvalidSingularityTaskIdException expected) {
+    }
+  }
+
   private void assertEquals(SingularityTaskId one, SingularityTaskId two) {
 
     Assert.assertEquals(one, two);
@@ -3,6 +3,7 @@ package com.hubspot.singularity;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
@@ -16,6 +17,7 @@ import org.junit.Test;
 import org.skife.jdbi.v2.DBI;
 import org.skife.jdbi.v2.Handle;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.base.Optional;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
@@ -30,6 +32,7 @@ import com.hubspot.singularity.data.history.HistoryManager;
 import com.hubspot.singularity.data.history.SingularityHistoryPurger;
 import com.hubspot.singularity.data.history.SingularityRequestHistoryPersister;
 import com.hubspot.singularity.data.history.SingularityTaskHistoryPersister;
+import com.hubspot.singularity.data.history.TaskHistoryCursor;
 import com.hubspot.singularity.data.history.TaskHistoryHelper;
 import com.hubspot.singularity.mesos.SingularitySchedulerLock;
 import com.hubspot.singularity.scheduler.SingularitySchedulerTestBase;
@@ -66,6 +69,9 @@ public class SingularityHistoryTest extends SingularitySchedulerTestBase {
   @Inject
   protected SingularitySchedulerLock lock;
 
+  @Inject
+  protected MetricRegistry metricRegistry;
+
   public SingularityHistoryTest() {
     super(true);
   }
@@ -155,6 +161,25 @@ public class SingularityHistoryTest extends SingularitySchedulerTestBase {
     Assert.assertTrue(!historyManager.getTaskHistory(taskHistory.getTask().getTaskId().getId()).isPresent());
   }
 
+  @Test
+  public void testTaskHistoryCache() {
+    initRequest();
+    initFirstDeploy();
+
+    SingularityTaskHistory taskHistory = buildTask(System.currentTimeMillis());
+    String taskId = taskHistory.getTask().getTaskId().getId();
+
+    Assert.assertFalse(historyManager.getTaskHistory(taskId).isPresent());
+
+    historyManager.saveTaskHistory(taskHistory);
+
+    Assert.assertTrue(historyManager.getTaskHistory(taskId).isPresent());
+    Assert.assertTrue(historyManager.getTaskHistory(taskId).isPresent());
+
+    Assert.assertEquals(1, metricRegistry.meter("history.cache.tasks.hits").getCount());
+    Assert.assertEquals(2, metricRegistry.meter("history.cache.tasks.misses").getCount());
+  }
+
   @Test
   public void historyPurgerTest() {
     initRequest();
@@ -194,6 +219,36 @@ public class SingularityHistoryTest extends SingularitySchedulerTestBase {
     Assert.assertEquals(1, getTaskHistoryForRequest(requestId, 0, 10).size());
   }
 
+  @Test
+  public void historyPurgerChunksTest() {
+    initRequest();
+    initFirstDeploy();
+
+    saveTasks(5, System.currentTimeMillis());
+    saveTasks(7, System.currentTimeMillis() - TimeUnit.DAYS.toMillis(20));
+
+    Assert.assertEquals(12, getTaskHistoryForRequest(requestId, 0, 20).size());
+
+    HistoryPurgingConfiguration historyPurgingConfiguration = new HistoryPurgingConfiguration();
+    historyPurgingConfiguration.setEnabled(true);
+    historyPurgingConfiguration.setDeleteTaskHistoryAfterDays(10);
+    historyPurgingConfiguration.setPurgeLimitPerQuery(2);
+    historyPurgingConfiguration.setMaxReplicationLagSeconds(1);
+    historyPurgingConfiguration.setReplicationLagQuery(Optional.of("SELECT 0"));
+
+    SingularityHistoryPurger purger = new SingularityHistoryPurger(historyPurgingConfiguration, historyManager, taskManager, deployManager, requestManager, metadataManager, lock);
+
+    purger.runActionOnPoll();
+
+    Assert.assertEquals(5, getTaskHistoryForRequest(requestId, 0, 20).size());
+
+    historyPurgingConfiguration.setDeleteTaskHistoryAfterTasksPerRequest(3);
+
+    purger.runActionOnPoll();
+
+    Assert.assertEquals(3, getTaskHistoryForRequest(requestId, 0, 20).size());
+  }
+
   @Test
   public void testRunId() {
     initScheduledRequest();
@@ -255,6 +310,34 @@ public class SingularityHistoryTest extends SingularitySchedulerTestBase {
     Assert.assertEquals(0, taskManager.getAllTaskIds().size());
   }
 
+  @Test
+  public void testTaskPersistInBatches() {
+    initOnDemandRequest();
+    initFirstDeploy();
+
+    configuration.setPersistHistoryBatchSize(2);
+    configuration.setTaskPersistAfterStartupBufferMillis(0);
+    taskMetadataConfiguration.setTaskPersistAfterFinishBufferMillis(0);
+
+    List<SingularityTask> tasks = new ArrayList<>();
+    for (int i = 1; i <= 5; i++) {
+      SingularityTask task = launchTask(request, firstDeploy, 10000L * i, 10L, i, TaskState.TASK_RUNNING, true);
+      statusUpdate(task, TaskState.TASK_FINISHED);
+      tasks.add(task);
+    }
+
+    // already in the db from an earlier run that failed to clean up zk, should not fail the batch it lands in
+    historyManager.saveTaskHistory(taskManager.getTaskHistory(tasks.get(2).getTaskId()).get());
+
+    taskHistoryPersister.runActionOnPoll();
+
+    Assert.assertEquals(0, taskManager.getAllTaskIds().size());
+    for (SingularityTask task : tasks) {
+      Assert.assertTrue(historyManager.getTaskHistory(task.getTaskId().getId()).isPresent());
+    }
+    Assert.assertEquals(5, getTaskHistoryForRequest(requestId, 0, 10).size());
+  }
+
   @Test
   public void testPersisterRaceCondition() {
     final TaskManager taskManagerSpy = spy(taskManager);
@@ -472,6 +555,53 @@ public class SingularityHistoryTest extends SingularitySchedulerTestBase {
       taskFive);
   }
 
+  @Test
+  public void testTaskSearchAfterCursorBlended() {
+    initOnDemandRequest();
+    initFirstDeploy();
+
+    SingularityTask taskOne = launchTask(request, firstDeploy, 10000L, 10L, 1, TaskState.TASK_RUNNING, true);
+    SingularityTask taskTwo = launchTask(request, firstDeploy, 20000L, 10L, 2, TaskState.TASK_RUNNING, true);
+    SingularityTask taskThree = launchTask(request, firstDeploy, 30000L, 10L, 3, TaskState.TASK_RUNNING, true);
+    SingularityTask taskFour = launchTask(request, firstDeploy, 40000L, 10L, 4, TaskState.TASK_RUNNING, true);
+    SingularityTask taskFive = launchTask(request, firstDeploy, 50000L, 10L, 5, TaskState.TASK_RUNNING, true);
+    SingularityTask taskSix = launchTask(request, firstDeploy, 60000L, 10L, 6, TaskState.TASK_RUNNING, true);
+    SingularityTask taskSeven = launchTask(request, firstDeploy, 70000L, 10L, 7, TaskState.TASK_RUNNING, true);
+
+    statusUpdate(taskOne, TaskState.TASK_FAILED, Optional.of(80000L));
+    statusUpdate(taskTwo, TaskState.TASK_FINISHED, Optional.of(90000L));
+    statusUpdate(taskSix, TaskState.TASK_KILLED, Optional.of(100000L));
+    statusUpdate(taskFour, TaskState.TASK_LOST, Optional.of(110000L));
+
+    taskHistoryPersister.runActionOnPoll();
+
+    statusUpdate(taskThree, TaskState.TASK_FAILED, Optional.of(120000L));
+    statusUpdate(taskFive, TaskState.TASK_FINISHED, Optional.of(130000L));
+    statusUpdate(taskSeven, TaskState.TASK_KILLED, Optional.of(140000L));
+
+    SingularityTaskHistoryQuery query = new SingularityTaskHistoryQuery(requestId);
+
+    SingularityCursorPaginatedResponse<SingularityTaskIdHistory> page = taskHistoryHelper.getBlendedHistoryAfterCursor(query, Optional.absent(), 3);
+    match(page.getObjects(), 3, taskSeven, taskFive, taskThree);
+
+    page = taskHistoryHelper.getBlendedHistoryAfterCursor(query, TaskHistoryCursor.decode(page.getNextCursor().get()), 3);
+    match(page.getObjects(), 3, taskFour, taskSix, taskTwo);
+
+    page = taskHistoryHelper.getBlendedHistoryAfterCursor(query, TaskHistoryCursor.decode(page.getNextCursor().get()), 3);
+    match(page.getObjects(), 1, taskOne);
+    Assert.assertFalse(page.getNextCursor().isPresent());
+
+    SingularityTaskHistoryQuery ascending = new SingularityTaskHistoryQuery(Optional.of(requestId), Optional.absent(), Optional.absent(), Optional.absent(), Optional.absent(), Optional.absent(),
+        Optional.absent(), Optional.absent(), Optional.absent(), Optional.of(OrderDirection.ASC));
+
+    page = taskHistoryHelper.getBlendedHistoryAfterCursor(ascending, Optional.absent(), 4);
+    match(page.getObjects(), 4, taskOne, taskTwo, taskSix, taskFour);
+
+    page = taskHistoryHelper.getBlendedHistoryAfterCursor(ascending, TaskHistoryCursor.decode(page.getNextCursor().get()), 4);
+    match(page.getObjects(), 3, taskThree, taskFive, taskSeven);
+    Assert.assertFalse(page.getNextCursor().isPresent());
+  }
+
   private void match(List<SingularityTaskIdHistory> history, int num, SingularityTask... tasks) {
     Assert.assertEquals(num, history.size());
 
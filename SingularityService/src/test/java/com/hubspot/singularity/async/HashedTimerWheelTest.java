@@ -0,0 +1,71 @@
+package com.hubspot.singularity.async;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.hubspot.singularity.async.HashedTimerWheel.WheelTask;
+
+public class HashedTimerWheelTest {
+
+  private ScheduledExecutorService executor;
+  private HashedTimerWheel timerWheel;
+
+  @Before
+  public void setup() {
+    executor = Executors.newScheduledThreadPool(2);
+    // Small enough that the longer delays below need more than one turn of the wheel
+    timerWheel = new HashedTimerWheel(executor, 5, 4);
+  }
+
+  @After
+  public void teardown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void itRunsTasksInDeadlineOrder() throws Exception {
+    List<Integer> ran = new CopyOnWriteArrayList<>();
+
+    WheelTask later = timerWheel.schedule(() -> ran.add(3), 120, TimeUnit.MILLISECONDS);
+    WheelTask soon = timerWheel.schedule(() -> ran.add(1), 0, TimeUnit.MILLISECONDS);
+    WheelTask afterAWhile = timerWheel.schedule(() -> ran.add(2), 60, TimeUnit.MILLISECONDS);
+
+    later.get(5, TimeUnit.SECONDS);
+    soon.get(5, TimeUnit.SECONDS);
+    afterAWhile.get(5, TimeUnit.SECONDS);
+
+    assertTrue(later.getDeadlineMillis() <= System.currentTimeMillis());
+    assertEquals(3, ran.size());
+    assertEquals(1, (int) ran.get(0));
+    assertEquals(3, (int) ran.get(2));
+    assertEquals(0, timerWheel.size());
+  }
+
+  @Test
+  public void itDoesntRunCancelledTasks() throws Exception {
+    List<String> ran = new CopyOnWriteArrayList<>();
+
+    WheelTask cancelled = timerWheel.schedule(() -> ran.add("cancelled"), 500, TimeUnit.MILLISECONDS);
+    WheelTask kept = timerWheel.schedule(() -> ran.add("kept"), 1000, TimeUnit.MILLISECONDS);
+
+    assertTrue(cancelled.cancel(false));
+    assertEquals(1, timerWheel.size());
+
+    kept.get(5, TimeUnit.SECONDS);
+
+    assertTrue(cancelled.isCancelled());
+    assertFalse(ran.contains("cancelled"));
+    assertEquals(1, ran.size());
+  }
+}
@@ -1,5 +1,6 @@
 package com.hubspot.singularity.data;
 
+import java.util.Collections;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.mesos.v1.Protos.TaskState;
@@ -61,6 +62,31 @@ public class StateManagerTest extends SingularitySchedulerTestBase{
     Assert.assertEquals(1, stateManager.getState(true, false).getOverProvisionedRequests());
   }
 
+  @Test
+  public void itServesThePublishedStateUntilItIsStale() {
+    initRequest();
+    initFirstDeploy();
+
+    SingularityRequest request = requestResource.getRequest(requestId, singularityUser).getRequest();
+    saveAndSchedule(request.toBuilder().setInstances(Optional.of(1)));
+    resourceOffers();
+
+    stateManager.publishState();
+    SingularityState published = stateManager.getState(false, true);
+    Assert.assertEquals(0, published.getOverProvisionedRequests());
+    Assert.assertEquals(Collections.emptyList(), published.getOverProvisionedRequestIds());
+    Assert.assertNull(stateManager.getState(false, false).getOverProvisionedRequestIds());
+
+    launchTask(request, firstDeploy, 2, TaskState.TASK_RUNNING);
+
+    // Readers keep getting the published copy, skipCache always generates a fresh one
+    Assert.assertEquals(published.getGeneratedAt(), stateManager.getState(false, false).getGeneratedAt());
+    Assert.assertEquals(1, stateManager.getState(true, false).getOverProvisionedRequests());
+
+    stateManager.publishState();
+    Assert.assertEquals(Collections.singletonList(requestId), stateManager.getState(false, true).getOverProvisionedRequestIds());
+  }
+
   @Test
   public void itDoesntFlagPendingRequestsForUnderOrOverProvisioning() {
     initRequest();
@@ -0,0 +1,161 @@
+package com.hubspot.singularity.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.mesos.v1.Protos.TaskState;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.base.Optional;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.google.inject.Inject;
+import com.hubspot.singularity.ExtendedTaskState;
+import com.hubspot.singularity.SingularityCreateResult;
+import com.hubspot.singularity.SingularityTask;
+import com.hubspot.singularity.SingularityTaskHistoryUpdate;
+import com.hubspot.singularity.SingularityTaskStatusHolder;
+import com.hubspot.singularity.scheduler.SingularitySchedulerTestBase;
+
+public class ZkWriteBatcherTest extends SingularitySchedulerTestBase {
+
+  @Inject
+  private MetricRegistry metricRegistry;
+
+  @Inject
+  private ZkWriteBatcher writeBatcher;
+
+  public ZkWriteBatcherTest() {
+    super(false, (configuration) -> {
+      configuration.getZooKeeperConfiguration().setBatchWrites(true);
+      configuration.getZooKeeperConfiguration().setBatchWritesLingerMillis(20);
+      return null;
+    });
+  }
+
+  @Test
+  public void itReturnsPerOperationResultsForConcurrentWrites() {
+    initRequest();
+    initFirstDeploy();
+
+    List<SingularityTask> tasks = new ArrayList<>();
+    for (int i = 1; i <= 10; i++) {
+      tasks.add(launchTask(request, firstDeploy, i, TaskState.TASK_RUNNING));
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+    try {
+      List<CompletableFuture<SingularityCreateResult>> creates = new ArrayList<>();
+      List<CompletableFuture<SingularityCreateResult>> duplicates = new ArrayList<>();
+      for (SingularityTask task : tasks) {
+        SingularityTaskHistoryUpdate update = new SingularityTaskHistoryUpdate(task.getTaskId(), System.currentTimeMillis(), ExtendedTaskState.TASK_FINISHED, Optional.absent(), Optional.absent());
+        creates.add(CompletableFuture.supplyAsync(() -> taskManager.saveTaskHistoryUpdate(update), executor));
+      }
+      creates.forEach((f) -> Assert.assertEquals(SingularityCreateResult.CREATED, f.join()));
+
+      for (SingularityTask task : tasks) {
+        SingularityTaskHistoryUpdate update = new SingularityTaskHistoryUpdate(task.getTaskId(), System.currentTimeMillis(), ExtendedTaskState.TASK_FINISHED, Optional.absent(), Optional.absent());
+        duplicates.add(CompletableFuture.supplyAsync(() -> taskManager.saveTaskHistoryUpdate(update), executor));
+      }
+      duplicates.forEach((f) -> Assert.assertEquals(SingularityCreateResult.EXISTED, f.join()));
+
+      List<CompletableFuture<Void>> statusSaves = new ArrayList<>();
+      for (SingularityTask task : tasks) {
+        statusSaves.add(CompletableFuture.runAsync(() -> taskManager.saveLastActiveTaskStatus(
+            new SingularityTaskStatusHolder(task.getTaskId(), Optional.absent(), System.currentTimeMillis(), serverId, Optional.absent())), executor));
+      }
+      statusSaves.forEach(CompletableFuture::join);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    for (SingularityTask task : tasks) {
+      Assert.assertTrue(taskManager.getTaskHistoryUpdate(task.getTaskId(), ExtendedTaskState.TASK_FINISHED).isPresent());
+      Assert.assertTrue(taskManager.getLastActiveTaskStatus(task.getTaskId()).isPresent());
+    }
+
+    Assert.assertTrue(metricRegistry.histogram("zk.batch.size").getCount() > 0);
+  }
+
+  @Test
+  public void itCommitsConcurrentWritesTogether() throws Exception {
+    cf.create().forPath("/batched");
+    int numWrites = 20;
+
+    ExecutorService executor = Executors.newFixedThreadPool(numWrites);
+    try {
+      CountDownLatch ready = new CountDownLatch(numWrites);
+      List<CompletableFuture<Boolean>> writes = new ArrayList<>();
+      for (int i = 0; i < numWrites; i++) {
+        String path = "/batched/node-" + i;
+        writes.add(CompletableFuture.supplyAsync(() -> {
+          ready.countDown();
+          Uninterruptibles.awaitUninterruptibly(ready);
+          return writeBatcher.create(path, Optional.of(new byte[] {1}));
+        }, executor));
+      }
+
+      int committed = 0;
+      for (CompletableFuture<Boolean> write : writes) {
+        if (write.join()) {
+          committed++;
+        }
+      }
+
+      long commits = metricRegistry.timer("zk.batch.commit").getCount();
+      Assert.assertTrue(String.format("%s writes committed in %s transactions", committed, commits), committed > commits);
+      Assert.assertTrue(metricRegistry.histogram("zk.batch.size").getSnapshot().getMax() > 1);
+      Assert.assertEquals(0, metricRegistry.meter("zk.batch.fallbacks").getCount());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void itOnlyHandsBackTheWriteThatFailed() throws Exception {
+    cf.create().forPath("/batched");
+    cf.create().forPath("/batched/existing");
+    int numWrites = 10;
+
+    ExecutorService executor = Executors.newFixedThreadPool(numWrites + 1);
+    try {
+      CountDownLatch ready = new CountDownLatch(numWrites + 1);
+      List<CompletableFuture<Boolean>> writes = new ArrayList<>();
+      for (int i = 0; i < numWrites; i++) {
+        String path = "/batched/node-" + i;
+        writes.add(CompletableFuture.supplyAsync(() -> {
+          ready.countDown();
+          Uninterruptibles.awaitUninterruptibly(ready);
+          return writeBatcher.create(path, Optional.absent());
+        }, executor));
+      }
+      CompletableFuture<Boolean> duplicate = CompletableFuture.supplyAsync(() -> {
+        ready.countDown();
+        Uninterruptibles.awaitUninterruptibly(ready);
+        return writeBatcher.create("/batched/existing", Optional.absent());
+      }, executor);
+
+      Assert.assertFalse(duplicate.join());
+
+      int handedBack = 0;
+      for (int i = 0; i < numWrites; i++) {
+        if (!writes.get(i).join()) {
+          handedBack++;
+          // Callers do their own write when a batch doesn't take it
+          cf.create().forPath("/batched/node-" + i);
+        }
+      }
+
+      // Only writes that ended up alone after splitting around the failed one are handed back, the rest are committed
+      Assert.assertTrue(String.format("%s writes were handed back", handedBack), handedBack < numWrites);
+      Assert.assertEquals(numWrites + 1, cf.getChildren().forPath("/batched").size());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,148 @@
+package com.hubspot.singularity.data.transcoders;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.mesos.v1.Protos.TaskState;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Optional;
+import com.google.inject.Inject;
+import com.hubspot.singularity.SingularityTask;
+import com.hubspot.singularity.config.SingularityConfiguration;
+import com.hubspot.singularity.scheduler.SingularitySchedulerTestBase;
+
+public class BinaryTranscoderTest extends SingularitySchedulerTestBase {
+
+  @Inject
+  private ObjectMapper objectMapper;
+
+  @Inject
+  private SingularityConfiguration configuration;
+
+  public BinaryTranscoderTest() {
+    super(false);
+  }
+
+  @Test
+  public void itReadsLegacyAndBinaryData() throws Exception {
+    SingularityTask task = launchTestTask(1);
+
+    Transcoder<SingularityTask> json = new JsonTranscoder<>(objectMapper, SingularityTask.class);
+    Transcoder<SingularityTask> compressedJson = new CompressingJsonTranscoder<>(configuration, objectMapper, SingularityTask.class);
+
+    BinaryTranscoder<SingularityTask> reader = new BinaryTranscoder<>(objectMapper, SingularityTask.class, json, false, false, Optional.absent());
+    BinaryTranscoder<SingularityTask> writer = new BinaryTranscoder<>(objectMapper, SingularityTask.class, json, true, false, Optional.absent());
+    BinaryTranscoder<SingularityTask> compressingWriter = new BinaryTranscoder<>(objectMapper, SingularityTask.class, compressedJson, true, true, Optional.absent());
+
+    assertSameTask(task, reader.fromBytes(json.toBytes(task)));
+    assertSameTask(task, compressingWriter.fromBytes(compressedJson.toBytes(task)));
+
+    byte[] binary = writer.toBytes(task);
+    Assert.assertEquals(BinaryTranscoder.HEADER, binary[0]);
+    Assert.assertEquals(BinaryTranscoder.CBOR, binary[1]);
+    Assert.assertTrue(binary.length < json.toBytes(task).length);
+    assertSameTask(task, reader.fromBytes(binary));
+
+    byte[] compressed = compressingWriter.toBytes(task);
+    Assert.assertEquals(BinaryTranscoder.CBOR_SNAPPY, compressed[1]);
+    assertSameTask(task, reader.fromBytes(compressed));
+
+    Assert.assertArrayEquals(json.toBytes(task), reader.toBytes(task));
+    Assert.assertNull(reader.fromBytes(new byte[0]));
+  }
+
+  @Test
+  public void itCompressesWithATrainedDictionary() throws Exception {
+    BinaryTranscoder<SingularityTask> plain = new BinaryTranscoder<>(objectMapper, SingularityTask.class, new JsonTranscoder<>(objectMapper, SingularityTask.class), true, false, Optional.absent());
+
+    List<byte[]> samples = new ArrayList<>();
+    for (int i = 1; i <= 10; i++) {
+      byte[] data = plain.toBytes(launchTestTask(i));
+      byte[] sample = new byte[data.length - 2];
+      System.arraycopy(data, 2, sample, 0, sample.length);
+      samples.add(sample);
+    }
+
+    byte[] dictionary = BinaryTranscoderDictionaries.train(samples, BinaryTranscoderDictionaries.MAX_DICTIONARY_SIZE);
+    Assert.assertTrue(dictionary.length > 0);
+
+    BinaryTranscoder<SingularityTask> withDictionary = new BinaryTranscoder<>(objectMapper, SingularityTask.class, new JsonTranscoder<>(objectMapper, SingularityTask.class), true, false, Optional.of(dictionary));
+
+    SingularityTask task = launchTestTask(11);
+    byte[] data = withDictionary.toBytes(task);
+
+    Assert.assertEquals(BinaryTranscoder.CBOR_DEFLATE_DICTIONARY, data[1]);
+    Assert.assertTrue(data.length < plain.toBytes(task).length / 2);
+    assertSameTask(task, withDictionary.fromBytes(data));
+
+    try {
+      plain.fromBytes(data);
+      Assert.fail("Data compressed with a dictionary shouldn't be readable without it");
+    } catch (SingularityTranscoderException expected) {
+    }
+  }
+
+  @Test
+  public void itReadsDataWrittenWithAPreviousDictionary() throws Exception {
+    Transcoder<SingularityTask> json = new JsonTranscoder<>(objectMapper, SingularityTask.class);
+    BinaryTranscoder<SingularityTask> plain = new BinaryTranscoder<>(objectMapper, SingularityTask.class, json, true, false, Optional.absent());
+
+    List<byte[]> samples = new ArrayList<>();
+    for (int i = 1; i <= 10; i++) {
+      byte[] data = plain.toBytes(launchTestTask(i));
+      samples.add(Arrays.copyOfRange(data, 2, data.length));
+    }
+
+    byte[] oldDictionary = BinaryTranscoderDictionaries.train(samples.subList(0, 5), BinaryTranscoderDictionaries.MAX_DICTIONARY_SIZE);
+    byte[] newDictionary = BinaryTranscoderDictionaries.train(samples, BinaryTranscoderDictionaries.MAX_DICTIONARY_SIZE);
+    Assert.assertNotEquals(BinaryTranscoder.dictionaryId(oldDictionary), BinaryTranscoder.dictionaryId(newDictionary));
+
+    SingularityTask oldTask = launchTestTask(11);
+    byte[] oldData = new BinaryTranscoder<>(objectMapper, SingularityTask.class, json, true, false, Optional.of(oldDictionary)).toBytes(oldTask);
+
+    BinaryTranscoder<SingularityTask> rotated = new BinaryTranscoder<>(objectMapper, SingularityTask.class, json, true, false, Optional.of(newDictionary),
+        Collections.singletonList(oldDictionary));
+
+    SingularityTask newTask = launchTestTask(12);
+    byte[] newData = rotated.toBytes(newTask);
+
+    assertSameTask(oldTask, rotated.fromBytes(oldData));
+    assertSameTask(newTask, rotated.fromBytes(newData));
+
+    try {
+      new BinaryTranscoder<>(objectMapper, SingularityTask.class, json, true, false, Optional.of(newDictionary)).fromBytes(oldData);
+      Assert.fail("Data compressed with a dictionary that was dropped shouldn't be readable");
+    } catch (SingularityTranscoderException expected) {
+    }
+  }
+
+  @Test
+  public void itOnlyWritesJsonOutsideOfZk() throws Exception {
+    SingularityTask task = launchTestTask(1);
+
+    Transcoder<SingularityTask> json = new JsonTranscoder<>(objectMapper, SingularityTask.class);
+    BinaryTranscoder<SingularityTask> writer = new BinaryTranscoder<>(objectMapper, SingularityTask.class, json, true, false, Optional.absent());
+    Transcoder<SingularityTask> jsonOnly = Transcoders.withoutBinaryWrites(writer);
+
+    Assert.assertArrayEquals(json.toBytes(task), jsonOnly.toBytes(task));
+    assertSameTask(task, jsonOnly.fromBytes(writer.toBytes(task)));
+    Assert.assertSame(json, Transcoders.withoutBinaryWrites(json));
+  }
+
+  private SingularityTask launchTestTask(int instanceNo) {
+    if (request == null) {
+      initRequest();
+      initFirstDeploy();
+    }
+    return launchTask(request, firstDeploy, instanceNo, TaskState.TASK_RUNNING);
+  }
+
+  private void assertSameTask(SingularityTask expected, SingularityTask actual) throws Exception {
+    Assert.assertEquals(objectMapper.writeValueAsString(expected), objectMapper.writeValueAsString(actual));
+  }
+}
@@ -0,0 +1,108 @@
+package com.hubspot.singularity.data.transcoders;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.mesos.v1.Protos.TaskState;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Optional;
+import com.google.inject.Inject;
+import com.hubspot.mesos.JavaUtils;
+import com.hubspot.singularity.SingularityRequestWithState;
+import com.hubspot.singularity.SingularityTask;
+import com.hubspot.singularity.SingularityTaskHistoryUpdate;
+import com.hubspot.singularity.config.SingularityConfiguration;
+import com.hubspot.singularity.scheduler.SingularitySchedulerTestBase;
+
+public class SingularityTranscoderPerformanceTestRunner extends SingularitySchedulerTestBase {
+
+  private static final int ITERATIONS = 100000;
+
+  @Inject
+  private ObjectMapper objectMapper;
+
+  @Inject
+  private SingularityConfiguration configuration;
+
+  public SingularityTranscoderPerformanceTestRunner() {
+    super(false);
+  }
+
+  @Test(timeout = 600000L)
+  @Ignore
+  public void testTranscoderPerformance() {
+    initRequest();
+    initFirstDeploy();
+
+    List<SingularityTask> tasks = new ArrayList<>();
+    for (int i = 1; i <= 50; i++) {
+      tasks.add(launchTask(request, firstDeploy, i, TaskState.TASK_RUNNING));
+    }
+
+    SingularityRequestWithState requestWithState = requestManager.getRequest(requestId).get();
+    SingularityTaskHistoryUpdate update = taskManager.getTaskHistoryUpdates(tasks.get(0).getTaskId()).get(0);
+
+    compare(SingularityTask.class, tasks, true);
+    compare(SingularityRequestWithState.class, requestWithState, false);
+    compare(SingularityTaskHistoryUpdate.class, update, false);
+  }
+
+  private <T> void compare(Class<T> clazz, T sample, boolean compressed) {
+    List<T> samples = new ArrayList<>();
+    samples.add(sample);
+    compare(clazz, samples, compressed);
+  }
+
+  private <T> void compare(Class<T> clazz, List<T> samples, boolean compressed) {
+    Transcoder<T> legacy = compressed ? new CompressingJsonTranscoder<>(configuration, objectMapper, clazz) : new JsonTranscoder<>(objectMapper, clazz);
+    BinaryTranscoder<T> binary = new BinaryTranscoder<>(objectMapper, clazz, legacy, true, compressed, Optional.absent());
+
+    List<byte[]> trainingData = new ArrayList<>();
+    for (T sample : samples) {
+      byte[] data = new BinaryTranscoder<>(objectMapper, clazz, legacy, true, false, Optional.absent()).toBytes(sample);
+      byte[] cbor = new byte[data.length - 2];
+      System.arraycopy(data, 2, cbor, 0, cbor.length);
+      trainingData.add(cbor);
+    }
+    // A single sample trains a dictionary on itself, which flatters the result, so only use one when there are several
+    Optional<byte[]> dictionary = samples.size() > 1 ? Optional.of(BinaryTranscoderDictionaries.train(trainingData, BinaryTranscoderDictionaries.MAX_DICTIONARY_SIZE)) : Optional.absent();
+    BinaryTranscoder<T> binaryWithDictionary = new BinaryTranscoder<>(objectMapper, clazz, legacy, true, compressed, dictionary);
+
+    run(clazz.getSimpleName() + " json", legacy, samples);
+    run(clazz.getSimpleName() + " cbor", binary, samples);
+    if (dictionary.isPresent()) {
+      run(clazz.getSimpleName() + " cbor+dictionary", binaryWithDictionary, samples);
+    }
+  }
+
+  private <T> void run(String name, Transcoder<T> transcoder, List<T> samples) {
+    long bytes = 0;
+    for (T sample : samples) {
+      bytes += transcoder.toBytes(sample).length;
+    }
+
+    long start = System.currentTimeMillis();
+    for (int i = 0; i < ITERATIONS; i++) {
+      transcoder.toBytes(samples.get(i % samples.size()));
+    }
+    long encodeMillis = Math.max(System.currentTimeMillis() - start, 1);
+
+    List<byte[]> encoded = new ArrayList<>();
+    for (T sample : samples) {
+      encoded.add(transcoder.toBytes(sample));
+    }
+
+    start = System.currentTimeMillis();
+    for (int i = 0; i < ITERATIONS; i++) {
+      transcoder.fromBytes(encoded.get(i % encoded.size()));
+    }
+    long decodeMillis = Math.max(System.currentTimeMillis() - start, 1);
+
+    System.out.println(String.format("%s: %s bytes avg, %s encodes/s (%s), %s decodes/s (%s)", name, bytes / samples.size(),
+        ITERATIONS * 1000L / encodeMillis, JavaUtils.durationFromMillis(encodeMillis),
+        ITERATIONS * 1000L / decodeMillis, JavaUtils.durationFromMillis(decodeMillis)));
+  }
+}
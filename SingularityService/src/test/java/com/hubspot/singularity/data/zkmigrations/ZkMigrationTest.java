@@ -19,11 +19,19 @@ import com.hubspot.singularity.SingularityDeployKey;
 import com.hubspot.singularity.SingularityPendingRequest;
 import com.hubspot.singularity.SingularityPendingRequest.PendingType;
 import com.hubspot.singularity.SingularityPendingTaskId;
+import com.hubspot.singularity.SingularityRequest;
+import com.hubspot.singularity.SingularityRequestBuilder;
+import com.hubspot.singularity.SingularityRequestHistory;
+import com.hubspot.singularity.SingularityRequestHistory.RequestHistoryType;
 import com.hubspot.singularity.SingularityTestBaseNoDb;
+import com.hubspot.singularity.SingularityWebhook;
+import com.hubspot.singularity.WebhookType;
 import com.hubspot.singularity.data.MetadataManager;
 import com.hubspot.singularity.data.RequestManager;
 import com.hubspot.singularity.data.TaskManager;
+import com.hubspot.singularity.data.WebhookManager;
 import com.hubspot.singularity.data.transcoders.StringTranscoder;
+import com.hubspot.singularity.data.transcoders.Transcoder;
 import com.hubspot.singularity.data.zkmigrations.SingularityCmdLineArgsMigration.SingularityPendingRequestPrevious;
 
 public class ZkMigrationTest extends SingularityTestBaseNoDb {
@@ -42,6 +50,12 @@ public class ZkMigrationTest extends SingularityTestBaseNoDb {
   private CuratorFramework curator;
   @Inject
   private List<ZkDataMigration> migrations;
+  @Inject
+  private WebhookManager webhookManager;
+  @Inject
+  private Transcoder<SingularityWebhook> webhookTranscoder;
+  @Inject
+  private Transcoder<SingularityRequestHistory> requestHistoryTranscoder;
 
   @Test
   public void testMigrationRunner() {
@@ -239,4 +253,33 @@ public class ZkMigrationTest extends SingularityTestBaseNoDb {
   }
 
 
+
+  @Test
+  public void testWebhookQueueToEventLogMigration() throws Exception {
+    metadataManager.setZkDataVersion("11");
+
+    SingularityRequest request = new SingularityRequestBuilder("r1", RequestType.WORKER).build();
+    SingularityWebhook first = new SingularityWebhook("http://first", Optional.absent(), Optional.absent(), WebhookType.REQUEST);
+    SingularityWebhook second = new SingularityWebhook("http://second", Optional.absent(), Optional.absent(), WebhookType.REQUEST);
+    SingularityRequestHistory created = new SingularityRequestHistory(1L, Optional.absent(), RequestHistoryType.CREATED, request, Optional.absent());
+    SingularityRequestHistory paused = new SingularityRequestHistory(2L, Optional.absent(), RequestHistoryType.PAUSED, request, Optional.absent());
+
+    for (SingularityWebhook webhook : ImmutableList.of(first, second)) {
+      curator.create().creatingParentsIfNeeded().forPath(ZKPaths.makePath("/hooks/active", webhook.getId()), webhookTranscoder.toBytes(webhook));
+    }
+    String queuePath = ZKPaths.makePath(WebhookQueueToEventLogMigration.QUEUES_PATH, WebhookType.REQUEST.name());
+    curator.create().creatingParentsIfNeeded().forPath(ZKPaths.makePath(queuePath, first.getId(), "r1-PAUSED-2"), requestHistoryTranscoder.toBytes(paused));
+    curator.create().creatingParentsIfNeeded().forPath(ZKPaths.makePath(queuePath, first.getId(), "r1-CREATED-1"), requestHistoryTranscoder.toBytes(created));
+    curator.create().creatingParentsIfNeeded().forPath(ZKPaths.makePath(queuePath, second.getId(), "r1-PAUSED-2"), requestHistoryTranscoder.toBytes(paused));
+
+    migrationRunner.checkMigrations();
+
+    Assert.assertNull(curator.checkExists().forPath(WebhookQueueToEventLogMigration.QUEUES_PATH));
+    for (SingularityWebhook webhook : ImmutableList.of(first, second)) {
+      Assertions.assertThat(webhookManager.getQueuedRequestHistoryForHook(webhook.getId()))
+          .as("Queued updates are moved to the log once, in the order they happened")
+          .extracting(SingularityRequestHistory::getEventType)
+          .containsExactly(RequestHistoryType.CREATED, RequestHistoryType.PAUSED);
+    }
+  }
 }
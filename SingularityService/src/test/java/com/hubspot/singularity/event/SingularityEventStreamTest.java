@@ -0,0 +1,186 @@
+package com.hubspot.singularity.event;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.base.Optional;
+import com.hubspot.mesos.JavaUtils;
+import com.hubspot.singularity.ExtendedTaskState;
+import com.hubspot.singularity.SingularityEventType;
+import com.hubspot.singularity.SingularityTaskHistoryUpdate;
+import com.hubspot.singularity.SingularityTaskId;
+import com.hubspot.singularity.config.SingularityConfiguration;
+
+public class SingularityEventStreamTest {
+
+  private SingularityConfiguration configuration;
+  private SingularityEventStream eventStream;
+
+  @Before
+  public void setup() {
+    configuration = new SingularityConfiguration();
+    configuration.setEventStreamReplayBufferSize(5);
+    configuration.setEventStreamSubscriberBufferSize(3);
+    configuration.setMaxEventStreamSubscribers(2);
+    configuration.setEventStreamHeartbeatMillis(10);
+
+    eventStream = new SingularityEventStream(configuration, JavaUtils.newObjectMapper(), new MetricRegistry());
+  }
+
+  @Test
+  public void itOnlySendsMatchingUpdates() throws Exception {
+    SingularityEventSubscriber subscriber = eventStream.subscribe(Collections.singleton("request1"), Collections.emptySet(), Optional.absent()).get();
+    SingularityEventSubscriber deploysOnly = eventStream.subscribe(Collections.emptySet(), Collections.singleton(SingularityEventType.DEPLOY), Optional.absent()).get();
+
+    taskUpdate("request1", 1);
+    taskUpdate("request2", 1);
+    taskUpdate("request1", 2);
+
+    List<SingularityStreamedEvent> received = drain(subscriber);
+    assertEquals(2, received.size());
+    assertTrue(received.stream().allMatch((event) -> event.getType() == SingularityEventType.TASK && event.getRequestId().get().equals("request1")));
+    assertTrue(received.get(0).getData().contains("\"instanceNo\":1"));
+
+    assertTrue(drain(deploysOnly).isEmpty());
+  }
+
+  @Test
+  public void itLimitsTheNumberOfSubscribers() {
+    assertTrue(eventStream.subscribe(Collections.emptySet(), Collections.emptySet(), Optional.absent()).isPresent());
+    assertTrue(eventStream.subscribe(Collections.emptySet(), Collections.emptySet(), Optional.absent()).isPresent());
+    assertFalse(eventStream.subscribe(Collections.emptySet(), Collections.emptySet(), Optional.absent()).isPresent());
+  }
+
+  @Test
+  public void itResumesAfterTheLastEventId() throws Exception {
+    taskUpdate("request1", 1);
+    String lastEventId = eventStream.getLastEventId();
+    taskUpdate("request1", 2);
+    taskUpdate("request1", 3);
+
+    List<SingularityStreamedEvent> replayed = drain(eventStream.subscribe(Collections.emptySet(), Collections.emptySet(), Optional.of(lastEventId)).get());
+    assertEquals(2, replayed.size());
+    assertTrue(replayed.get(0).getData().contains("\"instanceNo\":2"));
+    assertEquals(eventStream.getLastEventId(), replayed.get(1).getId());
+  }
+
+  @Test
+  public void itResetsWhenItCantResume() throws Exception {
+    taskUpdate("request1", 1);
+    String lastEventId = eventStream.getLastEventId();
+
+    // Pushes the event after lastEventId out of the replay buffer
+    for (int i = 2; i <= 7; i++) {
+      taskUpdate("request1", i);
+    }
+
+    assertReset(eventStream.subscribe(Collections.emptySet(), Collections.emptySet(), Optional.of(lastEventId)).get());
+    assertReset(eventStream.subscribe(Collections.emptySet(), Collections.emptySet(), Optional.of("unknown-1")).get());
+
+    eventStream.notLeader();
+    String beforeLeadershipChange = eventStream.getLastEventId();
+    eventStream.isLeader();
+
+    assertReset(eventStream.subscribe(Collections.emptySet(), Collections.emptySet(), Optional.of(beforeLeadershipChange)).get());
+  }
+
+  @Test
+  public void itDisconnectsSubscribersThatFallBehind() throws Exception {
+    SingularityEventSubscriber subscriber = eventStream.subscribe(Collections.emptySet(), Collections.emptySet(), Optional.absent()).get();
+
+    for (int i = 1; i <= 4; i++) {
+      taskUpdate("request1", i);
+    }
+
+    assertTrue(subscriber.isOverflowed());
+    assertEquals(0, eventStream.getNumSubscribers());
+
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    subscriber.write(output);
+    String written = new String(output.toByteArray(), StandardCharsets.UTF_8);
+
+    // Whatever was queued before the overflow still goes out, so the client can resume without a gap
+    assertEquals(3, written.split("event: TASK\n", -1).length - 1);
+    assertTrue(written.endsWith(": subscriber buffer overflowed, resume from the last event id\n\n"));
+  }
+
+  @Test
+  public void itClosesStreamsWhenLosingLeadership() throws Exception {
+    SingularityEventSubscriber subscriber = eventStream.subscribe(Collections.emptySet(), Collections.emptySet(), Optional.absent()).get();
+    taskUpdate("request1", 1);
+
+    eventStream.notLeader();
+    assertEquals(0, eventStream.getNumSubscribers());
+
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    subscriber.write(output);
+    String written = new String(output.toByteArray(), StandardCharsets.UTF_8);
+
+    assertTrue(written.startsWith(": connected\n\n"));
+    assertTrue(written.contains("id: " + eventStream.getLastEventId() + "\nevent: TASK\ndata: {"));
+  }
+
+  @Test
+  public void itRemovesSubscribersWhoseStreamNeverStarts() throws Exception {
+    configuration.setEventStreamSubscribeTimeoutMillis(20);
+
+    assertTrue(eventStream.subscribe(Collections.emptySet(), Collections.emptySet(), Optional.absent()).isPresent());
+    SingularityEventSubscriber streaming = eventStream.subscribe(Collections.emptySet(), Collections.emptySet(), Optional.absent()).get();
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<?> written = executor.submit(() -> {
+        streaming.write(new ByteArrayOutputStream());
+        return null;
+      });
+      Thread.sleep(50);
+
+      // The slot of the stream that never started is free again, the open one keeps its own
+      assertTrue(eventStream.subscribe(Collections.emptySet(), Collections.emptySet(), Optional.absent()).isPresent());
+      assertEquals(2, eventStream.getNumSubscribers());
+
+      eventStream.notLeader();
+      written.get(10, TimeUnit.SECONDS);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private void assertReset(SingularityEventSubscriber subscriber) throws Exception {
+    List<SingularityStreamedEvent> received = drain(subscriber);
+    assertEquals(1, received.size());
+    assertEquals(SingularityEventType.RESET, received.get(0).getType());
+    assertEquals(eventStream.getLastEventId(), received.get(0).getId());
+  }
+
+  private List<SingularityStreamedEvent> drain(SingularityEventSubscriber subscriber) throws Exception {
+    List<SingularityStreamedEvent> events = new ArrayList<>();
+    SingularityStreamedEvent event;
+    while ((event = subscriber.poll()) != null) {
+      events.add(event);
+    }
+    assertNull(subscriber.poll());
+    return events;
+  }
+
+  private void taskUpdate(String requestId, int instanceNo) {
+    SingularityTaskId taskId = new SingularityTaskId(requestId, "deploy", 1, instanceNo, "host", "rack");
+    eventStream.taskHistoryUpdateEvent(new SingularityTaskHistoryUpdate(taskId, System.currentTimeMillis(), ExtendedTaskState.TASK_RUNNING, Optional.absent(), Optional.absent()));
+  }
+}
@@ -0,0 +1,102 @@
+package com.hubspot.singularity.guice;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.stream.IntStream;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.UriInfo;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import com.hubspot.singularity.SingularityPendingRequest.PendingType;
+import com.hubspot.singularity.SingularityPendingTaskId;
+import com.hubspot.singularity.SingularityUser;
+import com.hubspot.singularity.resources.TaskResource;
+
+import io.dropwizard.jackson.Jackson;
+import io.dropwizard.setup.Environment;
+
+public class GuicePropertyFilteringMessageBodyWriterTest {
+
+  private static final int ELEMENTS = 10000;
+
+  private final ObjectMapper objectMapper = Jackson.newObjectMapper().setSerializationInclusion(Include.NON_NULL);
+
+  @Test
+  public void itFiltersEveryElementOfAStreamedIterable() throws Exception {
+    Annotation[] annotations = TaskResource.class.getMethod("getScheduledTaskIds", SingularityUser.class, Boolean.class).getAnnotations();
+    GuicePropertyFilteringMessageBodyWriter writer = newWriter("requestId", "instanceNo");
+
+    // Single pass and not a Collection, so the writer can only get at the elements by iterating
+    Iterable<SingularityPendingTaskId> pendingTaskIds = () -> pendingTaskIds(ELEMENTS);
+    Assert.assertTrue(writer.isWriteable(pendingTaskIds.getClass(), pendingTaskIds.getClass(), annotations, MediaType.APPLICATION_JSON_TYPE));
+
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    writer.writeTo(pendingTaskIds, pendingTaskIds.getClass(), pendingTaskIds.getClass(), annotations, MediaType.APPLICATION_JSON_TYPE, new MultivaluedHashMap<>(), os);
+
+    JsonNode written = objectMapper.readTree(os.toByteArray());
+    Assert.assertTrue(written.isArray());
+    Assert.assertEquals(ELEMENTS, written.size());
+
+    for (int i = 0; i < ELEMENTS; i++) {
+      JsonNode element = written.get(i);
+      Assert.assertEquals(ImmutableSet.of("requestId", "instanceNo"), Sets.newHashSet(element.fieldNames()));
+      Assert.assertEquals("request-" + (i % 10), element.get("requestId").asText());
+      Assert.assertEquals(i, element.get("instanceNo").asInt());
+    }
+  }
+
+  @Test
+  public void itWritesNullElementsOfAStreamedIterable() throws Exception {
+    Annotation[] annotations = TaskResource.class.getMethod("getScheduledTaskIds", SingularityUser.class, Boolean.class).getAnnotations();
+    GuicePropertyFilteringMessageBodyWriter writer = newWriter("requestId");
+
+    Iterable<SingularityPendingTaskId> pendingTaskIds = Arrays.asList(pendingTaskId(0), null, pendingTaskId(2));
+
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    writer.writeTo(pendingTaskIds, pendingTaskIds.getClass(), pendingTaskIds.getClass(), annotations, MediaType.APPLICATION_JSON_TYPE, new MultivaluedHashMap<>(), os);
+
+    Assert.assertEquals("[{\"requestId\":\"request-0\"},null,{\"requestId\":\"request-2\"}]", os.toString("UTF-8"));
+  }
+
+  private GuicePropertyFilteringMessageBodyWriter newWriter(String... properties) throws Exception {
+    GuicePropertyFilteringMessageBodyWriter writer = new GuicePropertyFilteringMessageBodyWriter(
+        new Environment("test-env", objectMapper, null, new MetricRegistry(), null), objectMapper);
+
+    MultivaluedMap<String, String> queryParameters = new MultivaluedHashMap<>();
+    queryParameters.put("property", Arrays.asList(properties));
+    UriInfo uriInfo = mock(UriInfo.class);
+    when(uriInfo.getQueryParameters()).thenReturn(queryParameters);
+
+    // Injected by jersey per request when running in the server
+    Field uriInfoField = GuicePropertyFilteringMessageBodyWriter.class.getDeclaredField("uriInfo");
+    uriInfoField.setAccessible(true);
+    uriInfoField.set(writer, uriInfo);
+
+    return writer;
+  }
+
+  private static Iterator<SingularityPendingTaskId> pendingTaskIds(int count) {
+    return IntStream.range(0, count).mapToObj(GuicePropertyFilteringMessageBodyWriterTest::pendingTaskId).iterator();
+  }
+
+  private static SingularityPendingTaskId pendingTaskId(int instanceNo) {
+    return new SingularityPendingTaskId("request-" + (instanceNo % 10), "deploy", 1000L + instanceNo, instanceNo, PendingType.IMMEDIATE, 1000L);
+  }
+}
@@ -0,0 +1,340 @@
+package com.hubspot.singularity.hooks;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.apache.curator.utils.ZKPaths;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Optional;
+import com.google.inject.Inject;
+import com.hubspot.singularity.SingularityCreateResult;
+import com.hubspot.singularity.SingularityRequestHistory;
+import com.hubspot.singularity.SingularityRequestHistory.RequestHistoryType;
+import com.hubspot.singularity.SingularityWebhook;
+import com.hubspot.singularity.SingularityWebhookDeliveryStats;
+import com.hubspot.singularity.SingularityWebhookSummary;
+import com.hubspot.singularity.WebhookType;
+import com.hubspot.singularity.data.WebhookEventLogPosition;
+import com.hubspot.singularity.data.WebhookManager;
+import com.hubspot.singularity.scheduler.SingularitySchedulerTestBase;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+public class SingularityWebhookSenderTest extends SingularitySchedulerTestBase {
+
+  @Inject
+  private WebhookManager webhookManager;
+  @Inject
+  private SingularityWebhookSender webhookSender;
+  @Inject
+  private ObjectMapper objectMapper;
+
+  private HttpServer server;
+  private final List<String> received = new CopyOnWriteArrayList<>();
+  private final Set<String> failOnce = new HashSet<>();
+  private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+  private final AtomicInteger busyRequests = new AtomicInteger();
+  private final AtomicInteger slowRequests = new AtomicInteger();
+  private final CountDownLatch releaseSlow = new CountDownLatch(1);
+  private ExecutorService serverExecutor;
+
+  public SingularityWebhookSenderTest() {
+    super(false, (configuration) -> {
+      configuration.setWebhookEventLogSegmentSize(2);
+      configuration.setMaxWebhookBatchSize(2);
+      // Retries are covered here without waiting out a backoff, except for an explicit Retry-After
+      configuration.setWebhookInitialBackoffMillis(0);
+      return null;
+    });
+  }
+
+  @Before
+  public void startServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    serverExecutor = Executors.newCachedThreadPool();
+    server.setExecutor(serverExecutor);
+    server.createContext("/ok", (exchange) -> {
+      String message = readMessage(exchange);
+      received.add(message);
+      respond(exchange, failOnce.remove(message) ? 500 : 200);
+    });
+    server.createContext("/fail", (exchange) -> respond(exchange, 500));
+    server.createContext("/batch", (exchange) -> {
+      List<SingularityRequestHistory> batch = objectMapper.readValue(exchange.getRequestBody(), new TypeReference<List<SingularityRequestHistory>>() {});
+      batch.forEach((update) -> received.add(update.getMessage().get()));
+      batchSizes.add(batch.size());
+      respond(exchange, 200);
+    });
+    server.createContext("/busy", (exchange) -> {
+      busyRequests.incrementAndGet();
+      exchange.getResponseHeaders().add("Retry-After", "60");
+      respond(exchange, 503);
+    });
+    server.createContext("/slow", (exchange) -> {
+      slowRequests.incrementAndGet();
+      try {
+        releaseSlow.await();
+      } catch (InterruptedException ie) {
+        Thread.currentThread().interrupt();
+      }
+      respond(exchange, 200);
+    });
+    server.start();
+  }
+
+  @After
+  public void stopServer() {
+    releaseSlow.countDown();
+    server.stop(0);
+    serverExecutor.shutdownNow();
+  }
+
+  @Test
+  public void itAppendsEachUpdateOnceForAllWebhooks() {
+    initRequest();
+
+    SingularityWebhook first = addWebhook("/ok");
+    SingularityWebhook second = addWebhook("/fail");
+
+    requestEvent("one");
+    requestEvent("two");
+    requestEvent("three");
+
+    Assert.assertEquals(3, webhookManager.getNumEventsAfter(WebhookType.REQUEST, webhookManager.getEventLogHead(WebhookType.REQUEST)));
+    Assert.assertEquals(3, webhookManager.getQueuedRequestHistoryForHook(first.getId()).size());
+    Assert.assertEquals(3, webhookManager.getQueuedRequestHistoryForHook(second.getId()).size());
+    Assert.assertEquals("one", webhookManager.getQueuedRequestHistoryForHook(first.getId()).get(0).getMessage().get());
+
+    // Only updates from after a webhook was added are sent to it
+    SingularityWebhook later = addWebhook("/later");
+    Assert.assertTrue(webhookManager.getQueuedRequestHistoryForHook(later.getId()).isEmpty());
+  }
+
+  @Test
+  public void itTrimsTheLogBehindTheSlowestCursor() {
+    initRequest();
+
+    SingularityWebhook ok = addWebhook("/ok");
+    SingularityWebhook failing = addWebhook("/fail");
+
+    for (int i = 1; i <= 5; i++) {
+      requestEvent("update-" + i);
+    }
+
+    webhookSender.checkWebhooks().join();
+
+    Assert.assertEquals(5, received.size());
+    Assert.assertEquals(Arrays.asList("update-1", "update-2", "update-3", "update-4", "update-5"), received.stream().sorted().collect(Collectors.toList()));
+    Assert.assertTrue(webhookManager.getQueuedRequestHistoryForHook(ok.getId()).isEmpty());
+    Assert.assertEquals(5, webhookManager.getQueuedRequestHistoryForHook(failing.getId()).size());
+    Assert.assertEquals(5, webhookManager.getNumEventsAfter(WebhookType.REQUEST, webhookManager.getEventLogHead(WebhookType.REQUEST)));
+
+    webhookManager.deleteWebhook(failing.getId());
+    webhookSender.checkWebhooks().join();
+
+    Assert.assertEquals(5, received.size());
+    // Only the segment holding the latest update is left
+    Assert.assertEquals(1, webhookManager.getNumEventsAfter(WebhookType.REQUEST, webhookManager.getEventLogHead(WebhookType.REQUEST)));
+  }
+
+  @Test
+  public void itOnlyRetriesUpdatesThatFailed() {
+    initRequest();
+
+    SingularityWebhook ok = addWebhook("/ok");
+
+    requestEvent("first");
+    requestEvent("flaky");
+    requestEvent("third");
+    failOnce.add("flaky");
+
+    webhookSender.checkWebhooks().join();
+
+    Assert.assertEquals(3, received.size());
+    Assert.assertEquals(2, webhookManager.getQueuedRequestHistoryForHook(ok.getId()).size());
+
+    webhookSender.checkWebhooks().join();
+
+    Assert.assertEquals(4, received.size());
+    Assert.assertEquals("flaky", received.get(3));
+    Assert.assertTrue(webhookManager.getQueuedRequestHistoryForHook(ok.getId()).isEmpty());
+  }
+
+  @Test
+  public void itPostsBatchesToBatchedWebhooks() {
+    initRequest();
+
+    SingularityWebhook batched = addWebhook("/batch", true);
+
+    for (int i = 1; i <= 5; i++) {
+      requestEvent("update-" + i);
+    }
+
+    webhookSender.checkWebhooks().join();
+
+    Assert.assertEquals(Arrays.asList(1, 2, 2), batchSizes.stream().sorted().collect(Collectors.toList()));
+    Assert.assertEquals(5, received.size());
+    Assert.assertTrue(webhookManager.getQueuedRequestHistoryForHook(batched.getId()).isEmpty());
+
+    SingularityWebhookDeliveryStats stats = webhookSender.getDeliveryStats(batched.getId()).get();
+    Assert.assertEquals(5 / 3.0, stats.getMeanBatchSize(), 0.01);
+    Assert.assertEquals(0, stats.getLagMillis());
+    Assert.assertEquals(0, stats.getConsecutiveFailures());
+  }
+
+  @Test
+  public void itBacksOffForAsLongAsTheWebhookAsks() {
+    initRequest();
+
+    SingularityWebhook busy = addWebhook("/busy");
+
+    requestEvent("first");
+    requestEvent("second");
+
+    webhookSender.checkWebhooks().join();
+    Assert.assertEquals(2, busyRequests.get());
+
+    webhookSender.checkWebhooks().join();
+    Assert.assertEquals(2, busyRequests.get());
+
+    SingularityWebhookSummary summary = webhookManager.getWebhooksWithQueueSize(webhookSender::getDeliveryStats).get(0);
+    Assert.assertEquals(2, summary.getQueueSize());
+    Assert.assertEquals(1, summary.getDeliveryStats().get().getConsecutiveFailures());
+    Assert.assertTrue(summary.getDeliveryStats().get().getBackoffUntil().get() > System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(50));
+  }
+
+  @Test
+  public void itMovesEachCursorOnceItsOwnDeliveriesAreDone() throws Exception {
+    initRequest();
+
+    SingularityWebhook ok = addWebhook("/ok");
+    SingularityWebhook slow = addWebhook("/slow");
+
+    requestEvent("first");
+
+    CompletableFuture<Void> check = webhookSender.checkWebhooks();
+
+    // The cursor of the webhook that answered moves without waiting for the slow one
+    long waitUntil = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+    while (!webhookManager.getQueuedRequestHistoryForHook(ok.getId()).isEmpty() && System.currentTimeMillis() < waitUntil) {
+      Thread.sleep(10);
+    }
+    Assert.assertTrue(webhookManager.getQueuedRequestHistoryForHook(ok.getId()).isEmpty());
+    Assert.assertFalse(check.isDone());
+
+    // A webhook still waiting on its last check isn't sent the same updates again
+    webhookSender.checkWebhooks().join();
+    Assert.assertEquals(1, slowRequests.get());
+
+    // Nor does it get its cursor back if it's deleted in the meantime
+    webhookManager.deleteWebhook(slow.getId());
+    releaseSlow.countDown();
+    check.get(10, TimeUnit.SECONDS);
+
+    Assert.assertFalse(webhookManager.getCursor(slow.getId()).isPresent());
+  }
+
+  @Test
+  public void itGivesUpOnACheckThatRunsPastItsDeadline() throws Exception {
+    initRequest();
+
+    SingularityWebhook slow = addWebhook("/slow");
+
+    requestEvent("first");
+
+    configuration.setWebhookCheckTimeoutMillis(0);
+    CompletableFuture<Void> stuck = webhookSender.checkWebhooks();
+    awaitSlowRequests(1);
+
+    // The stuck check no longer keeps the webhook from being checked, so the update is sent again
+    CompletableFuture<Void> retry = webhookSender.checkWebhooks();
+    awaitSlowRequests(2);
+
+    releaseSlow.countDown();
+    stuck.get(10, TimeUnit.SECONDS);
+    retry.get(10, TimeUnit.SECONDS);
+
+    Assert.assertTrue(webhookManager.getQueuedRequestHistoryForHook(slow.getId()).isEmpty());
+  }
+
+  @Test
+  public void itUpdatesWhetherAnExistingWebhookIsBatched() {
+    SingularityWebhook webhook = addWebhook("/batch", false);
+
+    SingularityWebhook batched = new SingularityWebhook(webhook.getUri(), Optional.absent(), Optional.absent(), WebhookType.REQUEST, Optional.of(true));
+    Assert.assertEquals(webhook.getId(), batched.getId());
+    Assert.assertEquals(SingularityCreateResult.EXISTED, webhookManager.addWebhook(batched));
+
+    SingularityWebhook stored = webhookManager.getActiveWebhooks().get(0);
+    Assert.assertTrue(stored.isBatched());
+    Assert.assertEquals(webhook.getTimestamp(), stored.getTimestamp());
+  }
+
+  @Test
+  public void itOnlyMovesTheCursorOfAWebhookThatStillExists() throws Exception {
+    SingularityWebhook webhook = addWebhook("/ok");
+    WebhookEventLogPosition moved = new WebhookEventLogPosition(5, 10);
+
+    Assert.assertTrue(webhookManager.moveCursor(webhook.getId(), moved));
+    Assert.assertEquals(moved, webhookManager.getCursor(webhook.getId()).get());
+
+    // A webhook added before cursors existed gets one on its first move
+    cf.delete().forPath(ZKPaths.makePath("/hooks/cursors", webhook.getId()));
+    Assert.assertTrue(webhookManager.moveCursor(webhook.getId(), moved));
+    Assert.assertEquals(moved, webhookManager.getCursor(webhook.getId()).get());
+
+    webhookManager.deleteWebhook(webhook.getId());
+    Assert.assertFalse(webhookManager.moveCursor(webhook.getId(), new WebhookEventLogPosition(5, 11)));
+    Assert.assertFalse(webhookManager.getCursor(webhook.getId()).isPresent());
+  }
+
+  private void awaitSlowRequests(int requests) throws InterruptedException {
+    long waitUntil = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+    while (slowRequests.get() < requests && System.currentTimeMillis() < waitUntil) {
+      Thread.sleep(10);
+    }
+    Assert.assertEquals(requests, slowRequests.get());
+  }
+
+  private SingularityWebhook addWebhook(String path) {
+    return addWebhook(path, false);
+  }
+
+  private SingularityWebhook addWebhook(String path, boolean batched) {
+    SingularityWebhook webhook = new SingularityWebhook(String.format("http://localhost:%s%s", server.getAddress().getPort(), path), Optional.absent(), Optional.absent(), WebhookType.REQUEST,
+        Optional.of(batched));
+    webhookManager.addWebhook(webhook);
+    return webhook;
+  }
+
+  private void requestEvent(String message) {
+    webhookManager.requestHistoryEvent(new SingularityRequestHistory(System.currentTimeMillis(), Optional.absent(), RequestHistoryType.UPDATED, request, Optional.of(message)));
+  }
+
+  private String readMessage(HttpExchange exchange) throws IOException {
+    return objectMapper.readValue(exchange.getRequestBody(), SingularityRequestHistory.class).getMessage().get();
+  }
+
+  private void respond(HttpExchange exchange, int status) throws IOException {
+    exchange.sendResponseHeaders(status, -1);
+    exchange.close();
+  }
+}
@@ -3,6 +3,11 @@ package com.hubspot.singularity.mesos;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.mesos.v1.Protos.Offer;
@@ -13,6 +18,7 @@ import org.mockito.Mockito;
 
 import com.google.common.base.Optional;
 import com.google.inject.Inject;
+import com.hubspot.mesos.Resources;
 import com.hubspot.mesos.json.MesosTaskMonitorObject;
 import com.hubspot.singularity.MachineLoadMetric;
 import com.hubspot.singularity.RequestType;
@@ -30,6 +36,7 @@ import com.hubspot.singularity.api.SingularityScaleRequest;
 import com.hubspot.singularity.config.SingularityConfiguration;
 import com.hubspot.singularity.data.DeployManager;
 import com.hubspot.singularity.data.UsageManager;
+import com.hubspot.singularity.helpers.MesosUtils;
 import com.hubspot.singularity.mesos.SingularitySlaveUsageWithCalculatedScores.MaxProbableUsage;
 import com.hubspot.singularity.scheduler.SingularitySchedulerTestBase;
 import com.hubspot.singularity.scheduler.SingularityUsagePoller;
@@ -139,6 +146,69 @@ public class SingularityMesosOfferSchedulerTest extends SingularitySchedulerTest
     assertValueIs(0.2, scheduler.score(SLAVE_ID, Optional.of(getUsage(8,10, 8, 8,10, 8, 8, 10, 8))));
   }
 
+  @Test
+  public void itPicksTheSameOfferWithAndWithoutTheScoringIndex() {
+    setRequestType(RequestType.SERVICE);
+    Random random = new Random(42);
+
+    Map<String, SingularityOfferHolder> offerHolders = new HashMap<>();
+    Map<String, Double> scores = new HashMap<>();
+    SingularityOfferScoringIndex scoringIndex = new SingularityOfferScoringIndex(50);
+
+    for (int i = 0; i < 50; i++) {
+      String slaveId = "slave" + i;
+      // A few agents share a score and a few are rejected outright, so ties and zero scores are covered
+      double score;
+      if (i % 10 == 0) {
+        score = 0;
+      } else if (i % 7 == 0) {
+        score = 0.5;
+      } else {
+        long memInUse = random.nextInt(10);
+        long cpusInUse = random.nextInt(10);
+        long diskInUse = random.nextInt(10);
+        score = scheduler.score(slaveId, Optional.of(getUsage(memInUse, 10, memInUse, cpusInUse, 10, cpusInUse, diskInUse, 10, diskInUse)));
+      }
+      SingularityOfferHolder offerHolder = createOfferHolder(slaveId, 1 + random.nextInt(16), 1024 * (1 + random.nextInt(32)), 1024 * (1 + random.nextInt(64)));
+      offerHolders.put(slaveId, offerHolder);
+      scores.put(slaveId, score);
+      scoringIndex.index(offerHolder, score);
+    }
+
+    for (int i = 0; i < 200; i++) {
+      Resources requiredResources = new Resources(1 + random.nextInt(8), 512 * (1 + random.nextInt(16)), 0, 1024 * (1 + random.nextInt(16)));
+
+      Optional<String> expected = Optional.absent();
+      double bestScore = 0;
+      for (String slaveId : new TreeSet<>(offerHolders.keySet())) {
+        double score = scores.get(slaveId);
+        if (score > bestScore && fits(offerHolders.get(slaveId), requiredResources)) {
+          expected = Optional.of(slaveId);
+          bestScore = score;
+        }
+      }
+
+      Iterator<SingularityOfferHolder> candidates = scoringIndex.getCandidates(requiredResources, Optional.absent()).iterator();
+      Optional<String> actual = candidates.hasNext() ? Optional.of(candidates.next().getSlaveId()) : Optional.absent();
+
+      Assert.assertEquals(String.format("Best offer for %s", requiredResources), expected, actual);
+
+      // Accept the task on the chosen agent, which shrinks its offer and changes its score
+      if (actual.isPresent()) {
+        SingularityOfferHolder chosen = offerHolders.get(actual.get());
+        Resources remaining = MesosUtils.buildResourcesFromMesosResourceList(chosen.getCurrentResources(), Optional.absent());
+        SingularityOfferHolder shrunk = createOfferHolder(actual.get(),
+            remaining.getCpus() - requiredResources.getCpus(),
+            remaining.getMemoryMb() - requiredResources.getMemoryMb(),
+            remaining.getDiskMb() - requiredResources.getDiskMb());
+        double newScore = scores.get(actual.get()) * 0.9;
+        offerHolders.put(actual.get(), shrunk);
+        scores.put(actual.get(), newScore);
+        scoringIndex.index(shrunk, newScore);
+      }
+    }
+  }
+
   @Test
   public void itAccountsForExpectedTaskUsage() {
     initRequest();
@@ -261,6 +331,24 @@ public class SingularityMesosOfferSchedulerTest extends SingularitySchedulerTest
         .build();
   }
 
+  private SingularityOfferHolder createOfferHolder(String slaveId, double cpus, double memory, double disk) {
+    return new SingularityOfferHolder(
+        Collections.singletonList(createOffer(cpus, memory, disk, slaveId, slaveId)),
+        1,
+        "DEFAULT",
+        slaveId,
+        slaveId,
+        Collections.emptyMap(),
+        Collections.emptyMap());
+  }
+
+  private boolean fits(SingularityOfferHolder offerHolder, Resources requiredResources) {
+    Resources available = MesosUtils.buildResourcesFromMesosResourceList(offerHolder.getCurrentResources(), Optional.absent());
+    return available.getCpus() >= requiredResources.getCpus()
+        && available.getMemoryMb() >= requiredResources.getMemoryMb()
+        && available.getDiskMb() >= requiredResources.getDiskMb();
+  }
+
   private void setRequestType(RequestType type) {
     Mockito.when(request.getRequestType()).thenReturn(type);
   }
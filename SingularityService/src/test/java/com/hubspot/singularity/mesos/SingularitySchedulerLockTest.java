@@ -0,0 +1,91 @@
+package com.hubspot.singularity.mesos;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.codahale.metrics.MetricRegistry;
+
+public class SingularitySchedulerLockTest {
+
+  private MetricRegistry metricRegistry;
+  private SingularitySchedulerLock lock;
+
+  @Before
+  public void setup() {
+    metricRegistry = new MetricRegistry();
+    lock = new SingularitySchedulerLock(metricRegistry);
+  }
+
+  private int heldRequestLocks() {
+    return (Integer) metricRegistry.getGauges().get("scheduler.lock.requests").getValue();
+  }
+
+  @Test
+  public void itReleasesRequestLocksOnceUnused() {
+    lock.runWithRequestLock(() -> {
+      assertEquals(1, heldRequestLocks());
+      lock.runWithRequestLock(() -> assertEquals(1, heldRequestLocks()), "request1", "nested");
+      lock.runWithRequestLock(() -> assertEquals(2, heldRequestLocks()), "request2", "nested");
+    }, "request1", "outer");
+
+    assertEquals(0, heldRequestLocks());
+    assertEquals(1, metricRegistry.timer("scheduler.lock.request.outer.wait").getCount());
+    assertEquals(2, metricRegistry.timer("scheduler.lock.request.nested.hold").getCount());
+  }
+
+  @Test
+  public void itReleasesRequestLocksWhenTheFunctionThrows() {
+    try {
+      lock.runWithRequestLock(() -> {
+        throw new IllegalStateException();
+      }, "request1", "test");
+    } catch (IllegalStateException ise) {
+      // expected
+    }
+
+    assertEquals(0, heldRequestLocks());
+  }
+
+  @Test
+  public void itSerializesWorkOnTheSameRequest() throws Exception {
+    ExecutorService executorService = Executors.newFixedThreadPool(8);
+    CountDownLatch start = new CountDownLatch(1);
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < 200; i++) {
+        futures.add(executorService.submit(() -> {
+          start.await();
+          lock.runWithRequestLock(() -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            running.decrementAndGet();
+          }, "request1", "test");
+          return null;
+        }));
+      }
+
+      start.countDown();
+      for (Future<?> future : futures) {
+        future.get(30, TimeUnit.SECONDS);
+      }
+    } finally {
+      executorService.shutdownNow();
+    }
+
+    assertEquals(1, maxRunning.get());
+    assertEquals(0, heldRequestLocks());
+  }
+}
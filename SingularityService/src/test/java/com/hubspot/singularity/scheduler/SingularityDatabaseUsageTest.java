@@ -0,0 +1,86 @@
+package com.hubspot.singularity.scheduler;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.skife.jdbi.v2.DBI;
+import org.skife.jdbi.v2.Handle;
+
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.hubspot.singularity.SingularityTaskUsage;
+import com.hubspot.singularity.data.usage.UsageStoreType;
+
+import liquibase.Liquibase;
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.resource.FileSystemResourceAccessor;
+
+public class SingularityDatabaseUsageTest extends SingularityUsageTest {
+
+  @Inject
+  protected Provider<DBI> dbiProvider;
+
+  public SingularityDatabaseUsageTest() {
+    super(true, (configuration) -> {
+      configuration.setUsageStore(UsageStoreType.DATABASE);
+      return null;
+    });
+  }
+
+  @Before
+  public void createTestData() throws Exception {
+    Handle handle = dbiProvider.get().open();
+
+    Database database = DatabaseFactory.getInstance().findCorrectDatabaseImplementation(new JdbcConnection(handle.getConnection()));
+
+    Liquibase liquibase = new Liquibase("singularity_test.sql", new FileSystemResourceAccessor(), database);
+    liquibase.update((String) null);
+
+    try {
+      database.close();
+    } catch (Throwable t) {
+    }
+
+    handle.close();
+  }
+
+  @Test
+  public void itBatchesSampleWritesUntilFlushed() {
+    String taskId = "request-deploy-1-1-host-rack";
+
+    usageManager.saveSpecificTaskUsage(taskId, new SingularityTaskUsage(1, 100, 0, 0, 0, 0, 0));
+    usageManager.saveSpecificTaskUsage(taskId, new SingularityTaskUsage(2, 100, 0, 0, 0, 0, 0));
+    usageManager.saveSpecificTaskUsage(taskId, new SingularityTaskUsage(3, 200, 0, 0, 0, 0, 0));
+    usageManager.saveSpecificTaskUsage(taskId, new SingularityTaskUsage(4, 300, 0, 0, 0, 0, 0));
+    usageManager.deleteSpecificTaskUsage(taskId, 300);
+
+    Assert.assertEquals(0, countStoredSamples());
+
+    usageManager.flushUsageHistory();
+    Assert.assertEquals(2, countStoredSamples());
+
+    // Re-collecting a sample that's already stored replaces it instead of failing
+    usageManager.saveSpecificTaskUsage(taskId, new SingularityTaskUsage(5, 200, 0, 0, 0, 0, 0));
+    usageManager.deleteSpecificTaskUsage(taskId, 100);
+    usageManager.flushUsageHistory();
+    Assert.assertEquals(1, countStoredSamples());
+  }
+
+  private int countStoredSamples() {
+    try (Handle handle = dbiProvider.get().open()) {
+      return handle.createQuery("SELECT COUNT(*) FROM usageHistory").mapTo(Integer.class).first();
+    }
+  }
+
+  @After
+  public void blowDBAway() {
+    Handle handle = dbiProvider.get().open();
+
+    handle.execute("DELETE FROM usageHistory;");
+
+    handle.close();
+  }
+}
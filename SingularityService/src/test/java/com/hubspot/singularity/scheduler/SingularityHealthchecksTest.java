@@ -1,10 +1,16 @@
 package com.hubspot.singularity.scheduler;
 
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.mesos.v1.Protos.Offer;
 import org.apache.mesos.v1.Protos.TaskState;
 import org.junit.Assert;
 import org.junit.Test;
@@ -24,6 +30,7 @@ import com.hubspot.singularity.api.SingularityBounceRequest;
 import com.hubspot.singularity.api.SingularitySkipHealthchecksRequest;
 import com.hubspot.singularity.scheduler.SingularityNewTaskChecker.CheckTaskState;
 import com.jayway.awaitility.Awaitility;
+import com.sun.net.httpserver.HttpServer;
 
 public class SingularityHealthchecksTest extends SingularitySchedulerTestBase {
 
@@ -472,6 +479,86 @@ public class SingularityHealthchecksTest extends SingularitySchedulerTestBase {
     }
   }
 
+  @Test
+  public void testAgentSlotsAreDroppedOnceNoHealthchecksAreLeft() {
+    try {
+      setConfigurationForNoDelay();
+      initRequest();
+      HealthcheckOptions options = new HealthcheckOptionsBuilder("http://uri").setStartupDelaySeconds(Optional.of(0)).build();
+      firstDeploy = initAndFinishDeploy(request, new SingularityDeployBuilder(request.getId(), firstDeployId).setCommand(Optional.of("sleep 100"))
+          .setHealthcheck(Optional.of(options)), Optional.absent());
+
+      SingularityTask firstTask = startTask(firstDeploy, 1);
+      newTaskChecker.enqueueNewTaskCheck(firstTask, requestManager.getRequest(requestId), healthchecker);
+
+      Awaitility.await("healthcheck present").atMost(5, TimeUnit.SECONDS).until(() -> taskManager.getLastHealthcheck(firstTask.getTaskId()).isPresent());
+
+      statusUpdate(firstTask, TaskState.TASK_FINISHED);
+
+      Awaitility.await("agent slots dropped").atMost(5, TimeUnit.SECONDS).until(() -> healthchecker.getNumAgentsWithHealthchecks() == 0);
+    } finally {
+      unsetConfigurationForNoDelay();
+    }
+  }
+
+  @Test
+  public void testAllHealthchecksCompleteWhenAnAgentHasMoreThanItsLimit() throws Exception {
+    int maxConcurrentHealthchecksPerAgent = configuration.getMaxConcurrentHealthchecksPerAgent();
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    ExecutorService serverExecutor = Executors.newCachedThreadPool();
+    HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.setExecutor(serverExecutor);
+    server.createContext("/healthcheck", (exchange) -> {
+      maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+      try {
+        Thread.sleep(100);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      running.decrementAndGet();
+      exchange.sendResponseHeaders(200, -1);
+      exchange.close();
+    });
+    server.start();
+
+    try {
+      setConfigurationForNoDelay();
+      configuration.setMaxConcurrentHealthchecksPerAgent(2);
+      initRequest();
+      HealthcheckOptions options = new HealthcheckOptionsBuilder("/healthcheck").setPortNumber(Optional.of((long) server.getAddress().getPort()))
+          .setStartupDelaySeconds(Optional.of(0)).build();
+      firstDeploy = initAndFinishDeploy(request, new SingularityDeployBuilder(request.getId(), firstDeployId).setCommand(Optional.of("sleep 100"))
+          .setHealthcheck(Optional.of(options)), Optional.absent());
+
+      // All on one agent that the checks can actually reach, so each one holds its slot until the server answers
+      Offer offer = createOffer(125, 1024, 2048, "slave1", "localhost");
+      List<SingularityTask> tasks = new ArrayList<>();
+      for (int instanceNo = 1; instanceNo <= 12; instanceNo++) {
+        SingularityTask task = prepTask(request, firstDeploy, System.currentTimeMillis(), instanceNo);
+        tasks.add(new SingularityTask(task.getTaskRequest(), task.getTaskId(), Collections.singletonList(mesosProtosUtils.offerFromProtos(offer)),
+            task.getMesosTask(), task.getRackId()));
+      }
+
+      for (SingularityTask task : tasks) {
+        healthchecker.enqueueHealthcheck(task, true, true, true);
+      }
+
+      // Every check beyond the first two has to be handed a slot by one that finished
+      Awaitility.await("all healthchecks passed").atMost(10, TimeUnit.SECONDS)
+          .until(() -> tasks.stream().allMatch((task) -> taskManager.getLastHealthcheck(task.getTaskId()).isPresent()));
+      Awaitility.await("agent slots dropped").atMost(5, TimeUnit.SECONDS).until(() -> healthchecker.getNumAgentsWithHealthchecks() == 0);
+
+      Assert.assertTrue(tasks.stream().noneMatch((task) -> taskManager.getLastHealthcheck(task.getTaskId()).get().isFailed()));
+      Assert.assertEquals(2, maxRunning.get());
+    } finally {
+      server.stop(0);
+      serverExecutor.shutdownNow();
+      configuration.setMaxConcurrentHealthchecksPerAgent(maxConcurrentHealthchecksPerAgent);
+      unsetConfigurationForNoDelay();
+    }
+  }
+
   private void setConfigurationForNoDelay() {
     configuration.setNewTaskCheckerBaseDelaySeconds(0);
     configuration.setHealthcheckIntervalSeconds(0);
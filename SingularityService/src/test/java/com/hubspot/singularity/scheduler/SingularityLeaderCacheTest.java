@@ -0,0 +1,85 @@
+package com.hubspot.singularity.scheduler;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.base.Optional;
+import com.hubspot.singularity.SingularityTaskCleanup;
+import com.hubspot.singularity.SingularityTaskId;
+import com.hubspot.singularity.TaskCleanupType;
+import com.hubspot.singularity.config.SingularityConfiguration;
+
+public class SingularityLeaderCacheTest {
+
+  private final SingularityTaskId firstTask = new SingularityTaskId("request", "deploy1", 1, 1, "host1", "rack1");
+  private final SingularityTaskId secondTask = new SingularityTaskId("request", "deploy2", 2, 2, "host2", "rack1");
+  private final SingularityTaskId otherRequestTask = new SingularityTaskId("otherRequest", "deploy1", 3, 1, "host1", "rack2");
+
+  private SingularityLeaderCache leaderCache;
+
+  @Before
+  public void setup() {
+    leaderCache = new SingularityLeaderCache(new SingularityConfiguration());
+    leaderCache.activate();
+    leaderCache.cacheActiveTaskIds(Arrays.asList(firstTask, otherRequestTask));
+  }
+
+  @Test
+  public void itIndexesTheInitialActiveTasks() {
+    Assert.assertEquals(Collections.singletonList(firstTask), leaderCache.getActiveTaskIdsForRequest("request"));
+    Assert.assertEquals(Collections.singletonList(firstTask), leaderCache.getActiveTaskIdsForDeploy("request", "deploy1"));
+    Assert.assertEquals(2, leaderCache.getActiveTaskIdsOnHost("host1").size());
+    Assert.assertEquals(Collections.singletonList(otherRequestTask), leaderCache.getActiveTaskIdsOnRack("rack2"));
+  }
+
+  @Test
+  public void itUpdatesTheIndexesWhenATaskIsAdded() {
+    leaderCache.putActiveTaskId(secondTask);
+
+    Assert.assertEquals(2, leaderCache.getActiveTaskIdsForRequest("request").size());
+    Assert.assertEquals(Collections.singletonList(secondTask), leaderCache.getActiveTaskIdsForDeploy("request", "deploy2"));
+    Assert.assertEquals(Collections.singletonList(secondTask), leaderCache.getActiveTaskIdsOnHost("host2"));
+    Assert.assertEquals(2, leaderCache.getActiveTaskIdsOnRack("rack1").size());
+
+    // Adding the same task again doesn't count it twice
+    leaderCache.putActiveTaskId(secondTask);
+    Assert.assertEquals(2, leaderCache.getActiveTaskIdsForRequest("request").size());
+  }
+
+  @Test
+  public void itUpdatesTheIndexesWhenATaskIsRemoved() {
+    leaderCache.putActiveTaskId(secondTask);
+    leaderCache.deleteActiveTaskId(firstTask.getId());
+
+    Assert.assertFalse(leaderCache.isActiveTask(firstTask.getId()));
+    Assert.assertEquals(Collections.singletonList(secondTask), leaderCache.getActiveTaskIdsForRequest("request"));
+    Assert.assertTrue(leaderCache.getActiveTaskIdsForDeploy("request", "deploy1").isEmpty());
+    Assert.assertEquals(Collections.singletonList(otherRequestTask), leaderCache.getActiveTaskIdsOnHost("host1"));
+    Assert.assertEquals(Collections.singletonList(secondTask), leaderCache.getActiveTaskIdsOnRack("rack1"));
+
+    leaderCache.deleteActiveTaskId(secondTask.getId());
+    leaderCache.deleteActiveTaskId(otherRequestTask.getId());
+
+    Assert.assertTrue(leaderCache.getActiveTaskIds().isEmpty());
+    Assert.assertTrue(leaderCache.getActiveTaskIdsForRequest("request").isEmpty());
+    Assert.assertTrue(leaderCache.getActiveTaskIdsOnHost("host1").isEmpty());
+    Assert.assertTrue(leaderCache.getActiveTaskIdsOnRack("rack1").isEmpty());
+  }
+
+  @Test
+  public void itTracksCleaningTasks() {
+    leaderCache.cacheCleanupTasks(Collections.emptyList());
+    Assert.assertFalse(leaderCache.isTaskCleaning(firstTask));
+
+    leaderCache.saveTaskCleanup(new SingularityTaskCleanup(Optional.absent(), TaskCleanupType.USER_REQUESTED, 1, firstTask, Optional.absent(), Optional.absent(), Optional.absent()));
+    Assert.assertTrue(leaderCache.isTaskCleaning(firstTask));
+    Assert.assertFalse(leaderCache.isTaskCleaning(secondTask));
+
+    leaderCache.deleteTaskCleanup(firstTask);
+    Assert.assertFalse(leaderCache.isTaskCleaning(firstTask));
+  }
+}
@@ -0,0 +1,130 @@
+package com.hubspot.singularity.scheduler;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.apache.curator.framework.recipes.cache.ChildData;
+import org.apache.curator.framework.recipes.cache.PathChildrenCache;
+import org.apache.curator.framework.recipes.cache.PathChildrenCacheEvent;
+import org.apache.curator.framework.recipes.cache.PathChildrenCacheListener;
+import org.apache.curator.utils.ZKPaths;
+import org.apache.mesos.v1.Protos.TaskState;
+import org.apache.zookeeper.data.Stat;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.base.Optional;
+import com.google.inject.Inject;
+import com.hubspot.singularity.RequestState;
+import com.hubspot.singularity.SingularityTask;
+
+public class SingularityLeaderCacheWatchTest extends SingularitySchedulerTestBase {
+
+  @Inject
+  private MetricRegistry metricRegistry;
+
+  public SingularityLeaderCacheWatchTest() {
+    super(false, (configuration) -> {
+      configuration.setWatchLeaderCache(true);
+      return null;
+    });
+  }
+
+  @Test
+  public void itAppliesChangesMadeOutsideOfTheManagers() throws Exception {
+    initRequest();
+    initFirstDeploy();
+
+    SingularityTask task = launchTask(request, firstDeploy, 1, TaskState.TASK_RUNNING);
+    String activePath = ZKPaths.makePath("/tasks/active", task.getTaskId().getId());
+
+    Assert.assertTrue(leaderCache.isActiveTask(task.getTaskId().getId()));
+    Assert.assertTrue(leaderCache.getRequest(requestId).isPresent());
+
+    cf.delete().forPath(activePath);
+    awaitCondition(() -> leaderCache.getActiveTaskIdsOnHost(task.getTaskId().getSanitizedHost()).isEmpty());
+    Assert.assertFalse(leaderCache.isActiveTask(task.getTaskId().getId()));
+
+    cf.create().forPath(activePath);
+    awaitCondition(() -> leaderCache.getActiveTaskIdsOnRack(task.getTaskId().getSanitizedRackId()).size() == 1);
+    Assert.assertTrue(leaderCache.isActiveTask(task.getTaskId().getId()));
+
+    cf.delete().forPath(ZKPaths.makePath("/requests/all", requestId));
+    awaitCondition(() -> !leaderCache.getRequest(requestId).isPresent());
+  }
+
+  @Test
+  public void itDropsEventsThatADirectWriteHasSuperseded() throws Exception {
+    initRequest();
+    String requestPath = ZKPaths.makePath("/requests/all", requestId);
+
+    Stat staleStat = new Stat();
+    byte[] staleData = cf.getData().storingStatIn(staleStat).forPath(requestPath);
+    PathChildrenCache requestWatcher = awaitWatcherAt(requestPath, staleStat.getMzxid());
+    awaitListeners(requestWatcher, (listener) -> {});
+
+    requestManager.pause(request, System.currentTimeMillis(), Optional.absent(), Optional.absent());
+    Assert.assertEquals(RequestState.PAUSED, leaderCache.getRequest(requestId).get().getState());
+
+    // Deliver the update for the write made before the pause after the pause's own update, as a slow watch would
+    awaitWatcherAt(requestPath, cf.checkExists().forPath(requestPath).getMzxid());
+    awaitListeners(requestWatcher, (listener) -> listener.childEvent(cf, new PathChildrenCacheEvent(PathChildrenCacheEvent.Type.CHILD_UPDATED, new ChildData(requestPath, staleStat, staleData))));
+
+    Assert.assertEquals(RequestState.PAUSED, leaderCache.getRequest(requestId).get().getState());
+    Assert.assertTrue(metricRegistry.meter("zk.watch.superseded").getCount() > 0);
+  }
+
+  @Test
+  public void itReloadsStateWhenReactivated() {
+    initRequest();
+    initFirstDeploy();
+
+    SingularityTask task = launchTask(request, firstDeploy, 1, TaskState.TASK_RUNNING);
+
+    cacheCoordinator.stopLeaderCache();
+    cacheCoordinator.activateLeaderCache();
+
+    Assert.assertTrue(leaderCache.isActiveTask(task.getTaskId().getId()));
+    Assert.assertTrue(leaderCache.getRequest(requestId).isPresent());
+  }
+
+  private PathChildrenCache awaitWatcherAt(String path, long mzxid) throws InterruptedException {
+    Predicate<PathChildrenCache> seenWrite = (watcher) -> watcher.getCurrentData(path) != null && watcher.getCurrentData(path).getStat().getMzxid() == mzxid;
+    awaitCondition(() -> cacheCoordinator.getWatchers().stream().anyMatch(seenWrite));
+    return cacheCoordinator.getWatchers().stream().filter(seenWrite).findFirst().get();
+  }
+
+  /**
+   * Listeners run on a single thread in the order their events were queued, so once this has run every event the
+   * watcher has seen so far has been applied.
+   */
+  private void awaitListeners(PathChildrenCache watcher, ListenerAction action) throws InterruptedException {
+    CountDownLatch done = new CountDownLatch(1);
+    watcher.getListenable().forEach((listener) -> {
+      try {
+        action.run(listener);
+      } catch (Exception e) {
+        throw new RuntimeException(e);
+      } finally {
+        done.countDown();
+      }
+      return null;
+    });
+    Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+  }
+
+  private interface ListenerAction {
+    void run(PathChildrenCacheListener listener) throws Exception;
+  }
+
+  private void awaitCondition(Supplier<Boolean> condition) throws InterruptedException {
+    long start = System.currentTimeMillis();
+    while (!condition.get()) {
+      Assert.assertTrue("Timed out waiting for the leader cache to update", System.currentTimeMillis() - start < 10000);
+      Thread.sleep(10);
+    }
+  }
+}
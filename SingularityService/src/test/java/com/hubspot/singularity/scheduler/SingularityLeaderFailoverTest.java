@@ -0,0 +1,125 @@
+package com.hubspot.singularity.scheduler;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import org.apache.curator.framework.recipes.leader.LeaderLatch;
+import org.apache.curator.framework.recipes.leader.LeaderLatchListener;
+import org.apache.curator.utils.ZKPaths;
+import org.apache.mesos.v1.Protos.TaskState;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.base.Optional;
+import com.google.common.net.HostAndPort;
+import com.google.inject.Inject;
+import com.hubspot.singularity.ExtendedTaskState;
+import com.hubspot.singularity.RequestState;
+import com.hubspot.singularity.SingularityLeaderLatch;
+import com.hubspot.singularity.SingularityTask;
+
+public class SingularityLeaderFailoverTest extends SingularitySchedulerTestBase {
+  private static final String LEADER_PATH = "/leader";
+
+  @Inject
+  private MetricRegistry metricRegistry;
+  // Started along with the rest of the test module, it stands in for the other instance that leads at first
+  @Inject
+  private LeaderLatch otherLeader;
+
+  public SingularityLeaderFailoverTest() {
+    super(false, (configuration) -> {
+      configuration.setWatchLeaderCache(true);
+      configuration.setWarmStandby(true);
+      return null;
+    });
+  }
+
+  @Test
+  public void itPromotesTheReplicaWhenLeadershipMovesToIt() throws Exception {
+    Assert.assertTrue("Replica is started before this instance becomes the leader", leaderCache.replicating());
+
+    initRequest();
+    initFirstDeploy();
+
+    SingularityTask first = launchTask(request, firstDeploy, 1, TaskState.TASK_RUNNING);
+    SingularityTask second = launchTask(request, firstDeploy, 2, TaskState.TASK_RUNNING);
+
+    // Another instance holds the leader latch, this one follows as a standby
+    cacheCoordinator.stopLeaderCache();
+    cacheCoordinator.startReplica();
+
+    awaitCondition(otherLeader::hasLeadership);
+
+    // Does what the scheduler does with the cache once it is subscribed as the new leader, or when it loses leadership.
+    // Like the scheduler it doesn't do so on the latch's event thread, which the cache's own zk reads call back on.
+    ExecutorService listenerExecutor = Executors.newSingleThreadExecutor();
+    SingularityLeaderLatch leaderLatch = new SingularityLeaderLatch(HostAndPort.fromParts("standby", 7099), cf, Collections.emptySet());
+    leaderLatch.addListener(new LeaderLatchListener() {
+      @Override
+      public void isLeader() {
+        cacheCoordinator.activateLeaderCache();
+      }
+
+      @Override
+      public void notLeader() {
+        cacheCoordinator.stopLeaderCache();
+        cacheCoordinator.startReplica();
+      }
+    }, listenerExecutor);
+
+    try {
+      leaderLatch.start();
+
+      Assert.assertFalse(leaderLatch.hasLeadership());
+      Assert.assertFalse(leaderCache.active());
+      Assert.assertTrue(leaderCache.replicating());
+      Assert.assertEquals(2, leaderCache.getNumActiveTasks());
+
+      // Changes made by the other leader only reach zk, the replica picks them up from watches
+      cf.delete().forPath(ZKPaths.makePath("/tasks/active", first.getTaskId().getId()));
+      requestManager.pause(request, System.currentTimeMillis(), singularityUser.getEmail(), Optional.absent());
+
+      awaitCondition(() -> !leaderCache.isActiveTask(first.getTaskId().getId()));
+      awaitCondition(() -> leaderCache.getRequest(requestId).get().getState() == RequestState.PAUSED);
+
+      long activations = metricRegistry.timer("leader.cache.activation").getCount();
+
+      // The other instance goes away without closing its latch, as when its zk session expires
+      for (String participant : cf.getChildren().forPath(LEADER_PATH)) {
+        String participantPath = ZKPaths.makePath(LEADER_PATH, participant);
+        if (new String(cf.getData().forPath(participantPath), StandardCharsets.UTF_8).equals(otherLeader.getId())) {
+          cf.delete().forPath(participantPath);
+        }
+      }
+      awaitCondition(leaderLatch::hasLeadership);
+      awaitCondition(leaderCache::active);
+
+      Assert.assertEquals(activations + 1, metricRegistry.timer("leader.cache.activation").getCount());
+      Assert.assertEquals(1, taskManager.getActiveTaskIds().size());
+      Assert.assertTrue(taskManager.isActiveTask(second.getTaskId().getId()));
+      Assert.assertEquals(RequestState.PAUSED, requestManager.getRequest(requestId).get().getState());
+      Assert.assertEquals(firstDeployId, deployManager.getRequestDeployState(requestId).get().getActiveDeploy().get().getDeployId());
+
+      // History updates weren't loaded on promotion, they are read the first time they are needed
+      Assert.assertFalse(taskManager.getTaskHistoryUpdates(second.getTaskId()).isEmpty());
+      Assert.assertTrue(taskManager.getTaskHistoryUpdates(Collections.singletonList(second.getTaskId())).get(second.getTaskId()).stream()
+          .anyMatch((update) -> update.getTaskState() == ExtendedTaskState.TASK_RUNNING));
+    } finally {
+      leaderLatch.close();
+      listenerExecutor.shutdownNow();
+    }
+  }
+
+  private void awaitCondition(Supplier<Boolean> condition) throws InterruptedException {
+    long start = System.currentTimeMillis();
+    while (!condition.get()) {
+      Assert.assertTrue("Timed out waiting for the leader cache replica to update", System.currentTimeMillis() - start < 10000);
+      Thread.sleep(10);
+    }
+  }
+}
@@ -0,0 +1,216 @@
+package com.hubspot.singularity.scheduler;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+
+import org.apache.curator.framework.recipes.leader.LeaderLatch;
+import org.apache.curator.framework.recipes.leader.Participant;
+import org.apache.mesos.v1.Protos.TaskState;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Optional;
+import com.google.inject.Inject;
+import com.hubspot.mesos.client.MesosClient;
+import com.hubspot.singularity.SingularityDeltaResponse;
+import com.hubspot.singularity.SingularityRequestParent;
+import com.hubspot.singularity.SingularityTask;
+import com.hubspot.singularity.auth.SingularityAuthorizationHelper;
+import com.hubspot.singularity.data.DisasterManager;
+import com.hubspot.singularity.data.SingularityValidator;
+import com.hubspot.singularity.data.TaskRequestManager;
+import com.hubspot.singularity.helpers.RequestHelper;
+import com.hubspot.singularity.resources.StateResource;
+import com.hubspot.singularity.resources.TaskResource;
+import com.sun.net.httpserver.HttpServer;
+
+public class SingularityPollingResourcesTest extends SingularitySchedulerTestBase {
+
+  @Inject
+  private StateResource stateResource;
+  @Inject
+  private TaskRequestManager taskRequestManager;
+  @Inject
+  private MesosClient mesosClient;
+  @Inject
+  private SingularityAuthorizationHelper authorizationHelper;
+  @Inject
+  private SingularityValidator validator;
+  @Inject
+  private DisasterManager disasterManager;
+  @Inject
+  private RequestHelper requestHelper;
+  @Inject
+  private ObjectMapper objectMapper;
+
+  public SingularityPollingResourcesTest() {
+    super(false);
+  }
+
+  @Test
+  public void itReturnsOnlyRequestsChangedSinceAVersion() {
+    initRequest();
+    initFirstDeploy();
+
+    SingularityDeltaResponse<SingularityRequestParent> first = requestResource.getRequestsDelta(singularityUser, Optional.absent());
+    Assert.assertTrue(first.isFull());
+    Assert.assertEquals(Collections.singletonList(requestId), requestIds(first));
+
+    requestResource.postRequest(buildRequest("other-request"), singularityUser);
+
+    SingularityDeltaResponse<SingularityRequestParent> second = requestResource.getRequestsDelta(singularityUser, Optional.of(first.getVersion()));
+    Assert.assertFalse(second.isFull());
+    Assert.assertTrue(second.getVersion() > first.getVersion());
+    Assert.assertEquals(Collections.singletonList("other-request"), requestIds(second));
+    Assert.assertTrue(second.getRemovedIds().isEmpty());
+
+    requestResource.deleteRequest("other-request", Optional.absent(), singularityUser);
+    cleaner.drainCleanupQueue();
+
+    SingularityDeltaResponse<SingularityRequestParent> third = requestResource.getRequestsDelta(singularityUser, Optional.of(second.getVersion()));
+    Assert.assertFalse(third.isFull());
+    Assert.assertEquals(Collections.singletonList("other-request"), third.getRemovedIds());
+
+    SingularityDeltaResponse<SingularityRequestParent> unchanged = requestResource.getRequestsDelta(singularityUser, Optional.of(third.getVersion()));
+    Assert.assertTrue(unchanged.getObjects().isEmpty());
+    Assert.assertTrue(unchanged.getRemovedIds().isEmpty());
+
+    // Versions from before the leader cache was activated again can't be trusted
+    cacheCoordinator.stopLeaderCache();
+    cacheCoordinator.activateLeaderCache();
+
+    SingularityDeltaResponse<SingularityRequestParent> afterFailover = requestResource.getRequestsDelta(singularityUser, Optional.of(third.getVersion()));
+    Assert.assertTrue(afterFailover.isFull());
+    Assert.assertTrue(afterFailover.getVersion() > third.getVersion());
+    Assert.assertEquals(Collections.singletonList(requestId), requestIds(afterFailover));
+  }
+
+  @Test
+  public void itReturnsOnlyActiveTasksChangedSinceAVersion() {
+    initRequest();
+    initFirstDeploy();
+
+    SingularityTask firstTask = launchTask(request, firstDeploy, 1, TaskState.TASK_RUNNING);
+
+    SingularityDeltaResponse<SingularityTask> first = taskResource.getActiveTasksDelta(singularityUser, Optional.absent());
+    Assert.assertTrue(first.isFull());
+    Assert.assertEquals(1, first.getObjects().size());
+
+    SingularityTask secondTask = launchTask(request, firstDeploy, 2, TaskState.TASK_RUNNING);
+    statusUpdate(firstTask, TaskState.TASK_FINISHED);
+
+    SingularityDeltaResponse<SingularityTask> second = taskResource.getActiveTasksDelta(singularityUser, Optional.of(first.getVersion()));
+    Assert.assertFalse(second.isFull());
+    Assert.assertEquals(1, second.getObjects().size());
+    Assert.assertEquals(secondTask.getTaskId(), second.getObjects().get(0).getTaskId());
+    Assert.assertEquals(Collections.singletonList(firstTask.getTaskId().getId()), second.getRemovedIds());
+
+    Assert.assertTrue(taskResource.getActiveTasksDelta(singularityUser, Optional.of(second.getVersion() + 1)).isFull());
+  }
+
+  @Test
+  public void itLeavesPropertyFilteringOfProxiedDeltasToTheFollower() throws Exception {
+    initRequest();
+    initFirstDeploy();
+    launchTask(request, firstDeploy, 1, TaskState.TASK_RUNNING);
+
+    byte[] leaderResponse = objectMapper.writeValueAsBytes(taskResource.getActiveTasksDelta(singularityUser, Optional.absent()));
+    List<String> proxiedQueries = new CopyOnWriteArrayList<>();
+
+    HttpServer leader = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    leader.createContext("/", (exchange) -> {
+      proxiedQueries.add(exchange.getRequestURI().getQuery());
+      exchange.getResponseHeaders().add("Content-Type", "application/json");
+      exchange.sendResponseHeaders(200, leaderResponse.length);
+      exchange.getResponseBody().write(leaderResponse);
+      exchange.close();
+    });
+    leader.start();
+
+    try {
+      LeaderLatch followerLatch = mock(LeaderLatch.class);
+      when(followerLatch.hasLeadership()).thenReturn(false);
+      when(followerLatch.getId()).thenReturn("follower");
+      when(followerLatch.getLeader()).thenReturn(new Participant("localhost:" + leader.getAddress().getPort(), true));
+
+      TaskResource followerTaskResource = new TaskResource(taskRequestManager, taskManager, slaveManager, mesosClient, taskMetadataConfiguration, authorizationHelper, requestManager,
+          validator, disasterManager, httpClient, followerLatch, objectMapper, requestHelper, configuration.getMesosConfiguration());
+
+      HttpServletRequest filteredRequest = mock(HttpServletRequest.class);
+      when(filteredRequest.getMethod()).thenReturn("GET");
+      when(filteredRequest.getContextPath()).thenReturn("");
+      when(filteredRequest.getPathInfo()).thenReturn("/tasks/active/delta");
+      when(filteredRequest.getParameterNames()).thenReturn(Collections.enumeration(Arrays.asList("since", "property")));
+      when(filteredRequest.getParameter("since")).thenReturn("1");
+      when(filteredRequest.getParameter("property")).thenReturn("objects.taskId");
+
+      SingularityDeltaResponse<SingularityTask> delta = followerTaskResource.getActiveTasksDelta(filteredRequest, singularityUser, 1L);
+
+      Assert.assertEquals(Collections.singletonList("since=1"), proxiedQueries);
+      Assert.assertEquals(1, delta.getObjects().size());
+      Assert.assertEquals(request.getId(), delta.getObjects().get(0).getTaskRequest().getRequest().getId());
+    } finally {
+      leader.stop(0);
+    }
+  }
+
+  @Test
+  public void itAnswersUnchangedPollsWithNotModified() {
+    initRequest();
+    initFirstDeploy();
+    launchTask(request, firstDeploy, 1, TaskState.TASK_RUNNING);
+
+    HttpServletRequest firstPoll = mock(HttpServletRequest.class);
+    Response requests = requestResource.getRequests(firstPoll, singularityUser, null, null, null, null, Collections.emptyList());
+    Response tasks = taskResource.getActiveTasks(firstPoll, singularityUser, null);
+    Response state = stateResource.getState(firstPoll, false, false);
+
+    Assert.assertEquals(200, requests.getStatus());
+    Assert.assertNotNull(requests.getEntityTag());
+    Assert.assertEquals(200, tasks.getStatus());
+    Assert.assertNotNull(tasks.getEntityTag());
+    Assert.assertEquals(200, state.getStatus());
+    Assert.assertNotNull(state.getEntityTag());
+
+    Assert.assertEquals(304, requestResource.getRequests(pollWithTag(requests), singularityUser, null, null, null, null, Collections.emptyList()).getStatus());
+    Assert.assertEquals(304, taskResource.getActiveTasks(pollWithTag(tasks), singularityUser, null).getStatus());
+    Assert.assertEquals(304, stateResource.getState(pollWithTag(state), false, false).getStatus());
+
+    // Full request data isn't covered by the version
+    Assert.assertNull(requestResource.getRequests(pollWithTag(requests), singularityUser, null, null, true, null, Collections.emptyList()).getEntityTag());
+
+    launchTask(request, firstDeploy, 2, TaskState.TASK_RUNNING);
+    requestResource.postRequest(buildRequest("other-request"), singularityUser);
+
+    Response changedRequests = requestResource.getRequests(pollWithTag(requests), singularityUser, null, null, null, null, Collections.emptyList());
+    Assert.assertEquals(200, changedRequests.getStatus());
+    Assert.assertNotEquals(requests.getEntityTag(), changedRequests.getEntityTag());
+    Assert.assertEquals(2, ((List<?>) changedRequests.getEntity()).size());
+
+    Response changedTasks = taskResource.getActiveTasks(pollWithTag(tasks), singularityUser, null);
+    Assert.assertEquals(200, changedTasks.getStatus());
+    Assert.assertEquals(2, ((List<?>) changedTasks.getEntity()).size());
+  }
+
+  private HttpServletRequest pollWithTag(Response previous) {
+    HttpServletRequest poll = mock(HttpServletRequest.class);
+    when(poll.getHeader(HttpHeaders.IF_NONE_MATCH)).thenReturn(previous.getEntityTag().toString());
+    return poll;
+  }
+
+  private List<String> requestIds(SingularityDeltaResponse<SingularityRequestParent> delta) {
+    return delta.getObjects().stream().map((parent) -> parent.getRequest().getId()).sorted().collect(Collectors.toList());
+  }
+}
@@ -7,6 +7,10 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -26,6 +30,7 @@ import org.mockito.Mockito;
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.inject.Inject;
 import com.hubspot.baragon.models.BaragonRequestState;
 import com.hubspot.mesos.Resources;
@@ -88,6 +93,7 @@ import com.hubspot.singularity.data.SingularityValidator;
 import com.hubspot.singularity.helpers.MesosProtosUtils;
 import com.hubspot.singularity.helpers.MesosUtils;
 import com.hubspot.singularity.mesos.OfferCache;
+import com.hubspot.singularity.mesos.SingularitySchedulerLock;
 import com.hubspot.singularity.mesos.SingularityMesosTaskPrioritizer;
 import com.hubspot.singularity.scheduler.SingularityDeployHealthHelper.DeployHealth;
 import com.hubspot.singularity.scheduler.SingularityTaskReconciliation.ReconciliationState;
@@ -112,6 +118,9 @@ public class SingularitySchedulerTest extends SingularitySchedulerTestBase {
   @Inject
   private MesosProtosUtils mesosProtosUtils;
 
+  @Inject
+  private SingularitySchedulerLock schedulerLock;
+
   public SingularitySchedulerTest() {
     super(false);
   }
@@ -198,6 +207,48 @@ public class SingularitySchedulerTest extends SingularitySchedulerTestBase {
     Assert.assertTrue(found);
   }
 
+  @Test
+  public void testDrainPendingQueueHandlesRequestsConcurrently() throws Exception {
+    configuration.setMaxConcurrentPendingQueueDrains(4);
+
+    for (int i = 0; i < 20; i++) {
+      SingularityRequest request = new SingularityRequestBuilder("drain-request-" + i, RequestType.WORKER).setInstances(Optional.of(2)).build();
+      saveRequest(request);
+      initAndFinishDeploy(request, firstDeployId);
+      requestManager.addToPendingQueue(new SingularityPendingRequest(request.getId(), firstDeployId, System.currentTimeMillis(), Optional.absent(), PendingType.UPDATED_REQUEST,
+          Optional.absent(), Optional.absent()));
+    }
+
+    // Hold two of the requests' locks, so that their drains stay in flight until both have started
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch held = new CountDownLatch(2);
+    ExecutorService executor = Executors.newCachedThreadPool();
+    try {
+      for (int i = 0; i < 2; i++) {
+        String requestId = "drain-request-" + i;
+        executor.submit(() -> schedulerLock.runWithRequestLock(() -> {
+          held.countDown();
+          Uninterruptibles.awaitUninterruptibly(release);
+        }, requestId, "test"));
+      }
+      Assert.assertTrue(Uninterruptibles.awaitUninterruptibly(held, 10, TimeUnit.SECONDS));
+
+      Future<?> drain = executor.submit(scheduler::drainPendingQueue);
+
+      Awaitility.await("two drains in flight at once").atMost(10, TimeUnit.SECONDS).until(() -> scheduler.getPendingQueueDrainsInFlight() >= 2);
+      Assert.assertFalse(drain.isDone());
+
+      release.countDown();
+      Uninterruptibles.getUninterruptibly(drain, 30, TimeUnit.SECONDS);
+    } finally {
+      release.countDown();
+      executor.shutdownNow();
+    }
+
+    Assert.assertTrue(requestManager.getPendingRequests().isEmpty());
+    Assert.assertEquals(40, taskManager.getPendingTaskIds().size());
+  }
+
   @Test
   public void testCleanerLeavesPausedRequestTasksByDemand() {
     initScheduledRequest();
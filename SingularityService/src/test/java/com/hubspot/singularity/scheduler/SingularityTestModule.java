@@ -64,6 +64,7 @@ import com.hubspot.singularity.resources.PriorityResource;
 import com.hubspot.singularity.resources.RackResource;
 import com.hubspot.singularity.resources.RequestResource;
 import com.hubspot.singularity.resources.SlaveResource;
+import com.hubspot.singularity.resources.StateResource;
 import com.hubspot.singularity.resources.TaskResource;
 import com.hubspot.singularity.sentry.SingularityExceptionNotifier;
 import com.hubspot.singularity.smtp.SingularityMailer;
@@ -223,12 +224,13 @@ public class SingularityTestModule implements Module {
     mainBinder.bind(SlaveResource.class);
     mainBinder.bind(RackResource.class);
     mainBinder.bind(PriorityResource.class);
+    mainBinder.bind(StateResource.class);
   }
 
   private DataSourceFactory getDataSourceFactory() {
     DataSourceFactory dataSourceFactory = new DataSourceFactory();
     dataSourceFactory.setDriverClass("org.h2.Driver");
-    dataSourceFactory.setUrl("jdbc:h2:mem:singularity;DB_CLOSE_DELAY=-1");
+    dataSourceFactory.setUrl("jdbc:h2:mem:singularity;DB_CLOSE_DELAY=-1;MODE=MySQL");
     dataSourceFactory.setUser("user");
     dataSourceFactory.setPassword("password");
 
@@ -5,6 +5,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 import org.apache.mesos.v1.Protos.TaskState;
 import org.junit.Assert;
@@ -23,7 +24,9 @@ import com.hubspot.singularity.SingularityTaskCurrentUsageWithId;
 import com.hubspot.singularity.SingularityTaskId;
 import com.hubspot.singularity.SingularityTaskUsage;
 import com.hubspot.singularity.TaskCleanupType;
+import com.hubspot.singularity.config.SingularityConfiguration;
 import com.hubspot.singularity.data.UsageManager;
+import com.hubspot.singularity.data.transcoders.Transcoder;
 
 public class SingularityUsageTest extends SingularitySchedulerTestBase {
 
@@ -42,10 +45,17 @@ public class SingularityUsageTest extends SingularitySchedulerTestBase {
   @Inject
   protected TestingMesosClient mesosClient;
 
+  @Inject
+  protected Transcoder<RequestUtilization> requestUtilizationTranscoder;
+
   public SingularityUsageTest() {
     super(false);
   }
 
+  protected SingularityUsageTest(boolean useDBTests, Function<SingularityConfiguration, Void> customConfigSetup) {
+    super(useDBTests, customConfigSetup);
+  }
+
   @Test
   public void testUsagePollerSimple() {
     // works with no slaves
@@ -210,6 +220,65 @@ public class SingularityUsageTest extends SingularitySchedulerTestBase {
     Assert.assertTrue(activeTaskIds.isEmpty());
   }
 
+  @Test
+  public void itOnlyPersistsRequestUtilizationsThatChanged() throws Exception {
+    initRequest();
+    initFirstDeployWithResources(20, .001);
+    saveAndSchedule(request.toBuilder().setInstances(Optional.of(1)));
+    resourceOffers(1);
+
+    SingularityTaskId taskId = taskManager.getActiveTaskIds().get(0);
+    String host = slaveManager.getObjects().get(0).getHost();
+
+    // used 10 cpu
+    mesosClient.setSlaveResourceUsage(host, Collections.singletonList(getTaskMonitor(taskId.getId(), 50, getTimestampSeconds(taskId, 5), 800)));
+    usagePoller.runActionOnPoll();
+    Assert.assertEquals(10, getPersistedRequestUtilization().getAvgCpuUsed(), 0);
+
+    // used 10.1 cpu since the last sample, which brings the average to 10.05, within the default threshold
+    mesosClient.setSlaveResourceUsage(host, Collections.singletonList(getTaskMonitor(taskId.getId(), 100.5, getTimestampSeconds(taskId, 10), 800)));
+    usagePoller.runActionOnPoll();
+    Assert.assertEquals(10.05, usageManager.getRequestUtilizations().get(requestId).getAvgCpuUsed(), 0.0001);
+    Assert.assertEquals(10, getPersistedRequestUtilization().getAvgCpuUsed(), 0);
+
+    // used 20 cpu
+    mesosClient.setSlaveResourceUsage(host, Collections.singletonList(getTaskMonitor(taskId.getId(), 200.5, getTimestampSeconds(taskId, 15), 800)));
+    usagePoller.runActionOnPoll();
+    Assert.assertEquals(usageManager.getRequestUtilizations().get(requestId).getAvgCpuUsed(), getPersistedRequestUtilization().getAvgCpuUsed(), 0);
+
+    // another leader may have written in between, so a new term starts without anything to compare against
+    Assert.assertTrue(usageManager.getPersistedRequestUtilization(requestId).isPresent());
+    usageManager.activateLeaderCache();
+    Assert.assertFalse(usageManager.getPersistedRequestUtilization(requestId).isPresent());
+  }
+
+  @Test
+  public void itBacksOffFromSlavesThatKeepFailing() {
+    initRequest();
+    initFirstDeploy();
+    saveAndSchedule(request.toBuilder().setInstances(Optional.of(1)));
+    resourceOffers(1);
+
+    SingularityTask task = taskManager.getActiveTasks().get(0);
+    String hostname = task.getHostname();
+
+    mesosClient.setSlaveUnreachable(hostname, true);
+    for (int i = 0; i < configuration.getMaxUsageCollectionFailuresBeforeBackoff(); i++) {
+      usagePoller.runActionOnPoll();
+    }
+    Assert.assertTrue(usageManager.getSlavesWithUsage().isEmpty());
+
+    // still skipped while backing off, even though the slave has recovered
+    mesosClient.setSlaveUnreachable(hostname, false);
+    mesosClient.setSlaveResourceUsage(hostname, Collections.singletonList(getTaskMonitor(task.getTaskId().getId(), 2, 5, 100)));
+    usagePoller.runActionOnPoll();
+    Assert.assertTrue(usageManager.getSlavesWithUsage().isEmpty());
+  }
+
+  private RequestUtilization getPersistedRequestUtilization() throws Exception {
+    return requestUtilizationTranscoder.fromBytes(cf.getData().forPath("/usage/requests/" + requestId));
+  }
+
   @Test
   public void itTracksClusterUtilizationSimple() {
     initRequest();
@@ -2,8 +2,10 @@ package com.hubspot.singularity.scheduler;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import com.hubspot.mesos.client.MesosClient;
 import com.hubspot.mesos.json.MesosMasterMetricsSnapshotObject;
@@ -16,10 +18,20 @@ public class TestingMesosClient implements MesosClient {
 
   private Map<String, List<MesosTaskMonitorObject>> slaveResourceUsage;
   private Map<String, MesosSlaveMetricsSnapshotObject> slaveMetrics;
+  private Set<String> unreachableSlaves;
 
   public TestingMesosClient() {
     this.slaveResourceUsage = new HashMap<>();
     this.slaveMetrics = new HashMap<>();
+    this.unreachableSlaves = new HashSet<>();
+  }
+
+  public void setSlaveUnreachable(String hostname, boolean unreachable) {
+    if (unreachable) {
+      unreachableSlaves.add(hostname);
+    } else {
+      unreachableSlaves.remove(hostname);
+    }
   }
 
   public void setSlaveResourceUsage(String hostname, List<MesosTaskMonitorObject> taskMonitorObjects) {
@@ -67,6 +79,9 @@ public class TestingMesosClient implements MesosClient {
 
   @Override
   public List<MesosTaskMonitorObject> getSlaveResourceUsage(String hostname, boolean useShortTimeout) {
+    if (unreachableSlaves.contains(hostname)) {
+      throw new MesosClientException(String.format("Exception fetching usage from %s", hostname));
+    }
     return slaveResourceUsage.getOrDefault(hostname, Collections.emptyList());
   }
 
@@ -124,3 +124,20 @@ ALTER TABLE `taskHistory`
 ALTER TABLE `taskHistory`
   DROP KEY `startedAt2`,
   ADD KEY `startedAt3` (`startedAt`)
+
+--changeset agent:17 dbms:mysql
+CREATE TABLE `usageHistory` (
+  `usageType` VARCHAR(10) NOT NULL,
+  `id` VARCHAR(200) NOT NULL,
+  `sampledAt` DOUBLE NOT NULL,
+  `bytes` BLOB NOT NULL,
+  PRIMARY KEY (`usageType`, `id`, `sampledAt`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8
+
+--changeset agent:18 dbms:mysql
+ALTER TABLE `taskHistory`
+  ADD KEY `requestUpdatedAt` (`requestId`, `updatedAt`, `taskId`)
+
+--changeset agent:19 dbms:mysql
+ALTER TABLE `taskHistory`
+  MODIFY `taskId` varchar(200) CHARACTER SET utf8 COLLATE utf8_bin NOT NULL DEFAULT ''
@@ -47,4 +47,20 @@ CREATE TABLE deployHistory (
   message VARCHAR(280) NULL,
   PRIMARY KEY (requestId,deployId)
 );
-CREATE INDEX idx_deploy_request ON deployHistory(requestId,createdAt);
\ No newline at end of file
+CREATE INDEX idx_deploy_request ON deployHistory(requestId,createdAt);
+
+--changeset agent:2 dbms:postgresql
+CREATE TABLE usageHistory (
+  usageType varchar(10) NOT NULL,
+  id varchar(200) NOT NULL,
+  sampledAt double precision NOT NULL,
+  bytes bytea NOT NULL,
+  PRIMARY KEY (usageType,id,sampledAt)
+);
+
+--changeset agent:3 dbms:postgresql
+CREATE INDEX idx_task_request_updated ON taskHistory(requestId, updatedAt, taskId);
+
+--changeset agent:4 dbms:postgresql
+CREATE INDEX idx_task_request_updated_c ON taskHistory(requestId, updatedAt, taskId COLLATE "C");
+DROP INDEX idx_task_request_updated;